@@ -0,0 +1,175 @@
+package drawit;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An instance of this class represents a text consisting of drawing commands, as a tree of text segments
+ * (a rope). Concatenating ropes does not copy their text; the text is copied only once, when it is written
+ * to a sink by {@code writeTo} or flattened into a string by {@code toString}.
+ *
+ * For the syntax of the drawing commands, see {@code RoundedPolygon.getDrawingCommands()}.
+ *
+ * @immutable
+ * @invar | 0 <= length()
+ */
+public final class DrawingCommandsRope {
+
+	/**
+	 * The rope whose text is empty.
+	 */
+	public static final DrawingCommandsRope EMPTY = new DrawingCommandsRope("", null, 0);
+
+	/**
+	 * @invar Exactly one of {@code text} and {@code parts} is null.
+	 *    | (text == null) != (parts == null)
+	 * @invar | parts == null || Arrays.stream(parts).allMatch(p -> p != null)
+	 * @invar | length == (text != null ? text.length() : Arrays.stream(parts).mapToLong(p -> p.length).sum())
+	 *
+	 * @representationObject
+	 */
+	private final String text;
+	private final DrawingCommandsRope[] parts;
+	private final long length;
+	/**
+	 * The flattened text, once computed by {@code toString()}.
+	 */
+	private String flattened;
+
+	private DrawingCommandsRope(String text, DrawingCommandsRope[] parts, long length) {
+		this.text = text;
+		this.parts = parts;
+		this.length = length;
+	}
+
+	/**
+	 * Returns a rope whose text is the given text.
+	 *
+	 * @throws IllegalArgumentException if {@code text} is null
+	 *    | text == null
+	 * @post | result != null
+	 * @post | result.toString().equals(text)
+	 */
+	public static DrawingCommandsRope of(String text) {
+		if (text == null)
+			throw new IllegalArgumentException("text is null");
+		if (text.isEmpty())
+			return EMPTY;
+		return new DrawingCommandsRope(text, null, text.length());
+	}
+
+	/**
+	 * Returns a rope whose text is the concatenation of the texts of the given ropes, in the given order.
+	 * This takes time proportional to the number of given ropes, independent of their lengths.
+	 *
+	 * @throws IllegalArgumentException if {@code parts} is null
+	 *    | parts == null
+	 * @throws IllegalArgumentException if any element of {@code parts} is null
+	 *    | parts.stream().anyMatch(p -> p == null)
+	 * @inspects | parts
+	 * @post | result != null
+	 * @post | result.length() == parts.stream().mapToLong(p -> p.length()).sum()
+	 */
+	public static DrawingCommandsRope concat(List<DrawingCommandsRope> parts) {
+		if (parts == null)
+			throw new IllegalArgumentException("parts is null");
+
+		DrawingCommandsRope[] nonempty = new DrawingCommandsRope[parts.size()];
+		int count = 0;
+		long length = 0;
+		for (DrawingCommandsRope part : parts) {
+			if (part == null)
+				throw new IllegalArgumentException("an element of parts is null");
+			if (part.length == 0)
+				continue;
+			nonempty[count++] = part;
+			length += part.length;
+		}
+		if (count == 0)
+			return EMPTY;
+		if (count == 1)
+			return nonempty[0];
+		return new DrawingCommandsRope(null, count == nonempty.length ? nonempty : Arrays.copyOf(nonempty, count), length);
+	}
+
+	/**
+	 * Returns a rope whose text is the concatenation of the texts of the given ropes, in the given order.
+	 *
+	 * @throws IllegalArgumentException if {@code parts} is null
+	 *    | parts == null
+	 * @throws IllegalArgumentException if any element of {@code parts} is null
+	 *    | Arrays.stream(parts).anyMatch(p -> p == null)
+	 * @inspects | parts
+	 * @post | result != null
+	 * @post | result.length() == Arrays.stream(parts).mapToLong(p -> p.length()).sum()
+	 */
+	public static DrawingCommandsRope concat(DrawingCommandsRope... parts) {
+		if (parts == null)
+			throw new IllegalArgumentException("parts is null");
+		return concat(Arrays.asList(parts));
+	}
+
+	/**
+	 * Returns the number of characters in this rope's text.
+	 */
+	public long length() { return length; }
+
+	/**
+	 * Appends this rope's text to the given sink, segment by segment.
+	 *
+	 * The rope is traversed using an explicit stack, so arbitrarily deep ropes can be written.
+	 *
+	 * @throws IllegalArgumentException if {@code out} is null
+	 *    | out == null
+	 * @throws IOException if the sink throws it
+	 * @mutates | out
+	 */
+	public void writeTo(Appendable out) throws IOException {
+		if (out == null)
+			throw new IllegalArgumentException("out is null");
+
+		if (flattened != null) {
+			out.append(flattened);
+			return;
+		}
+		ArrayDeque<DrawingCommandsRope> stack = new ArrayDeque<>();
+		stack.push(this);
+		while (!stack.isEmpty()) {
+			DrawingCommandsRope rope = stack.pop();
+			if (rope.text != null)
+				out.append(rope.text);
+			else
+				for (int i = rope.parts.length - 1; 0 <= i; i--)
+					stack.push(rope.parts[i]);
+		}
+	}
+
+	/**
+	 * Returns this rope's text. The text is flattened into a string only once; later calls return the same string.
+	 *
+	 * @throws IllegalStateException if the text is too long to fit in a string
+	 *    | Integer.MAX_VALUE < length()
+	 * @post | result != null
+	 * @post | result.length() == length()
+	 */
+	@Override
+	public String toString() {
+		if (text != null)
+			return text;
+		if (flattened == null) {
+			if (Integer.MAX_VALUE < length)
+				throw new IllegalStateException("text too long for a string");
+			StringBuilder builder = new StringBuilder((int)length);
+			try {
+				writeTo(builder);
+			} catch (IOException e) {
+				throw new AssertionError(e);
+			}
+			flattened = builder.toString();
+		}
+		return flattened;
+	}
+
+}
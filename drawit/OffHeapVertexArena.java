@@ -0,0 +1,316 @@
+package drawit;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * An instance of this class is a region of memory outside the Java heap that stores the vertex coordinates of
+ * rounded polygons (see {@code RoundedPolygon(OffHeapVertexArena)}). Storing the coordinates of very large documents
+ * off-heap keeps them out of the garbage collector's way.
+ *
+ * <p>The region is either allocated in native memory ({@code allocateDirect}) or mapped from a file ({@code mapFile}).
+ * Each vertex occupies eight bytes: its X and Y coordinates, as little-endian 32-bit integers. A mapped file starts
+ * with a header that holds the number of allocated vertices, as a little-endian 64-bit integer. The region is divided
+ * into chunks of at most {@code 2^27} vertices, which are allocated or mapped on demand, so that the capacity is not
+ * limited by the maximum size of a single buffer.
+ *
+ * <p>Vertices are allocated by bumping a pointer; they are never freed individually. An arena's lifetime is managed
+ * explicitly, by its owner: the client that created it by calling {@code allocateDirect} or {@code mapFile}. The
+ * rounded polygons whose vertices are stored in an arena only use it; neither they nor the shape groups, exporters and
+ * readers that handle them ever close it. The owner closes the arena, typically with a try-with-resources statement,
+ * once it no longer needs any of these rounded polygons. {@code close()} releases the native memory, or unmaps the
+ * file after writing its contents back, right away rather than when the garbage collector reclaims the arena's
+ * buffers, where the platform allows it. After {@code close()}, any attempt to access vertices stored in the arena,
+ * directly or through a rounded polygon, throws an {@code IllegalStateException}.
+ *
+ * <p>Instances of this class are not safe for use by multiple threads.
+ *
+ * @invar | 0 <= getVertexCount() && getVertexCount() <= getCapacity()
+ */
+public final class OffHeapVertexArena implements AutoCloseable {
+
+	static final int CHUNK_SHIFT = 27;
+	static final int CHUNK_VERTICES = 1 << CHUNK_SHIFT;
+	static final int BYTES_PER_VERTEX = 8;
+	static final int HEADER_BYTES = 8;
+
+	/**
+	 * @invar | 0 <= capacity
+	 * @invar | 0 <= top && top <= capacity
+	 * @invar | chunks != null
+	 */
+	private final long capacity;
+	private long top;
+	/**
+	 * The chunks allocated or mapped so far; chunk {@code i} stores the vertices with indices {@code i * CHUNK_VERTICES}
+	 * to {@code (i + 1) * CHUNK_VERTICES - 1}. Null elements have not been needed yet.
+	 */
+	private final ByteBuffer[] chunks;
+	/**
+	 * The channel of the mapped file, or {@code null} if this arena is allocated in native memory.
+	 */
+	private final FileChannel channel;
+	/**
+	 * The mapped file's header, or {@code null} if this arena is allocated in native memory.
+	 */
+	private final MappedByteBuffer header;
+	private boolean open = true;
+
+	private OffHeapVertexArena(long capacity, long top, FileChannel channel, MappedByteBuffer header) {
+		this.capacity = capacity;
+		this.top = top;
+		this.chunks = new ByteBuffer[(int)((capacity + CHUNK_VERTICES - 1) >>> CHUNK_SHIFT)];
+		this.channel = channel;
+		this.header = header;
+	}
+
+	/**
+	 * Returns a new arena that stores up to the given number of vertices in native memory.
+	 *
+	 * @throws IllegalArgumentException if {@code capacity} is negative
+	 *    | capacity < 0
+	 * @post | result.getCapacity() == capacity
+	 * @post | result.getVertexCount() == 0
+	 * @post | result.isOpen()
+	 */
+	public static OffHeapVertexArena allocateDirect(long capacity) {
+		if (capacity < 0)
+			throw new IllegalArgumentException("capacity is negative");
+		return new OffHeapVertexArena(capacity, 0, null, null);
+	}
+
+	/**
+	 * Returns a new arena that stores up to the given number of vertices in the given file, which is created if it is
+	 * empty or does not exist, and grown as vertices are allocated. The vertices already stored in the file are
+	 * retained: they are considered allocated, and can be read using {@code getVertex} or wrapped using
+	 * {@code RoundedPolygon(OffHeapVertexArena, long, int)}. The number of allocated vertices is recorded in the file
+	 * when the arena is closed.
+	 *
+	 * @throws IllegalArgumentException if {@code path} is null
+	 *    | path == null
+	 * @throws IllegalArgumentException if {@code capacity} is negative
+	 *    | capacity < 0
+	 * @throws IllegalArgumentException if the file is not a vertex file, or holds more vertices than the given capacity
+	 * @throws IOException if the file cannot be opened
+	 * @post | result.getCapacity() == capacity
+	 * @post | result.isOpen()
+	 */
+	public static OffHeapVertexArena mapFile(Path path, long capacity) throws IOException {
+		if (path == null)
+			throw new IllegalArgumentException("path is null");
+		if (capacity < 0)
+			throw new IllegalArgumentException("capacity is negative");
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			long size = channel.size();
+			if (size != 0 && size < HEADER_BYTES)
+				throw new IllegalArgumentException("the file is not a vertex file");
+			MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+			header.order(ByteOrder.LITTLE_ENDIAN);
+			long top = header.getLong(0);
+			if (top < 0 || (Math.max(size, HEADER_BYTES) - HEADER_BYTES) / BYTES_PER_VERTEX < top)
+				throw new IllegalArgumentException("the file is not a vertex file");
+			if (capacity < top)
+				throw new IllegalArgumentException("the file holds more than " + capacity + " vertices");
+			return new OffHeapVertexArena(capacity, top, channel, header);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Returns the maximum number of vertices this arena can store.
+	 *
+	 * @immutable
+	 */
+	public long getCapacity() { return capacity; }
+
+	/**
+	 * Returns the number of vertices that have been allocated in this arena, including vertices that are no longer used
+	 * by any rounded polygon.
+	 */
+	public long getVertexCount() { return top; }
+
+	/**
+	 * Returns whether this arena has not yet been closed.
+	 */
+	public boolean isOpen() { return open; }
+
+	/**
+	 * Returns whether this arena is mapped from a file.
+	 *
+	 * @immutable
+	 */
+	public boolean isMapped() { return channel != null; }
+
+	/**
+	 * Returns the vertex stored at the given index.
+	 *
+	 * @throws IllegalStateException if this arena is closed
+	 *    | !isOpen()
+	 * @throws IllegalArgumentException if the given index is out of bounds
+	 *    | index < 0 || getVertexCount() <= index
+	 * @post | result != null
+	 */
+	public IntPoint getVertex(long index) {
+		checkOpen();
+		if (index < 0 || top <= index)
+			throw new IllegalArgumentException("index out of bounds");
+		return new IntPoint(getX(index), getY(index));
+	}
+
+	/**
+	 * Closes this arena and releases its memory. If this arena is mapped from a file, its contents are written back to
+	 * the file first. Closing an arena that is already closed has no effect. Only the owner of this arena (see above)
+	 * should close it.
+	 *
+	 * @throws IOException if the contents cannot be written back to the file
+	 * @mutates | this
+	 * @post | !isOpen()
+	 */
+	@Override
+	public void close() throws IOException {
+		if (!open)
+			return;
+		open = false;
+		try {
+			if (channel != null) {
+				try {
+					for (ByteBuffer chunk : chunks)
+						if (chunk != null)
+							((MappedByteBuffer)chunk).force();
+					header.putLong(0, top);
+					header.force();
+				} finally {
+					channel.close();
+				}
+			}
+		} finally {
+			// No buffer is accessed after this point: every access checks that this arena is open first.
+			for (ByteBuffer chunk : chunks)
+				if (chunk != null)
+					release(chunk);
+			if (header != null)
+				release(header);
+			Arrays.fill(chunks, null);
+		}
+	}
+
+	/**
+	 * The JDK's {@code sun.misc.Unsafe.invokeCleaner} method, bound to the {@code Unsafe} instance, which frees or
+	 * unmaps a direct buffer; or {@code null} if it is not available, in which case buffers are released when they
+	 * are garbage collected.
+	 */
+	private static final MethodHandle INVOKE_CLEANER = findInvokeCleaner();
+
+	private static MethodHandle findInvokeCleaner() {
+		try {
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Field field = unsafeClass.getDeclaredField("theUnsafe");
+			field.setAccessible(true);
+			return MethodHandles.lookup()
+					.findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+					.bindTo(field.get(null));
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Frees or unmaps the given direct buffer, which must not be accessed afterwards, if the platform allows it.
+	 */
+	private static void release(ByteBuffer buffer) {
+		if (INVOKE_CLEANER == null)
+			return;
+		try {
+			INVOKE_CLEANER.invokeExact(buffer);
+		} catch (Throwable e) {
+			// The buffer is released when it is garbage collected instead.
+		}
+	}
+
+	void checkOpen() {
+		if (!open)
+			throw new IllegalStateException("the vertex arena is closed");
+	}
+
+	/**
+	 * Allocates room for the given number of vertices and returns the index of the first one.
+	 *
+	 * @pre | 0 <= count
+	 * @throws IllegalStateException if this arena is closed, or does not have room for the given number of vertices
+	 */
+	long allocate(int count) {
+		checkOpen();
+		if (capacity - top < count)
+			throw new IllegalStateException("the vertex arena is full");
+		long start = top;
+		top += count;
+		return start;
+	}
+
+	private ByteBuffer chunk(long index) {
+		int chunkIndex = (int)(index >>> CHUNK_SHIFT);
+		ByteBuffer chunk = chunks[chunkIndex];
+		if (chunk == null) {
+			long first = (long)chunkIndex << CHUNK_SHIFT;
+			int size = (int)Math.min(CHUNK_VERTICES, capacity - first) * BYTES_PER_VERTEX;
+			if (channel == null)
+				chunk = ByteBuffer.allocateDirect(size);
+			else {
+				try {
+					chunk = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_BYTES + first * BYTES_PER_VERTEX, size);
+				} catch (IOException e) {
+					throw new IllegalStateException("the vertex file cannot be mapped", e);
+				}
+			}
+			chunk.order(ByteOrder.LITTLE_ENDIAN);
+			chunks[chunkIndex] = chunk;
+		}
+		return chunk;
+	}
+
+	private static int byteOffset(long index) {
+		return (int)(index & (CHUNK_VERTICES - 1)) * BYTES_PER_VERTEX;
+	}
+
+	/**
+	 * @pre | isOpen()
+	 * @pre | 0 <= index && index < getVertexCount()
+	 */
+	int getX(long index) {
+		return chunk(index).getInt(byteOffset(index));
+	}
+
+	/**
+	 * @pre | isOpen()
+	 * @pre | 0 <= index && index < getVertexCount()
+	 */
+	int getY(long index) {
+		return chunk(index).getInt(byteOffset(index) + 4);
+	}
+
+	/**
+	 * @pre | isOpen()
+	 * @pre | 0 <= index && index < getVertexCount()
+	 * @pre | vertex != null
+	 */
+	void setVertex(long index, IntPoint vertex) {
+		ByteBuffer chunk = chunk(index);
+		int offset = byteOffset(index);
+		chunk.putInt(offset, vertex.getX());
+		chunk.putInt(offset + 4, vertex.getY());
+	}
+
+}
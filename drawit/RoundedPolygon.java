@@ -2,6 +2,11 @@ package drawit;
 
 import java.awt.Color;
 import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+import java.util.function.UnaryOperator;
+import java.util.stream.IntStream;
 
 /**
  * An instance of this class is a mutable abstraction storing a rounded polygon defined by a set of 2D points with integer coordinates
@@ -12,19 +17,83 @@ import java.util.Arrays;
  * @invar | PointArrays.checkDefinesProperPolygon(getVertices()) == null
  * @invar | 0 <= getRadius()
  * @invar | getColor() != null
+ * 
+ * <p>A rounded polygon's vertices are stored either on the Java heap or in an {@code OffHeapVertexArena}
+ * (see {@code getVertexArena()}). In the latter case, the rounded polygon uses the arena but does not own it: the
+ * client that created the arena closes it, after which the rounded polygon's vertices can no longer be inspected or
+ * mutated. {@code getVertices()} returns a new array; {@code getVertexX}, {@code getVertexY} and
+ * {@code copyCoordinates} read the coordinates in place, without creating {@code IntPoint} objects.
+ * 
+ * <p>The changes of a rounded polygon's vertices, radius and color are notified to the listeners registered with it
+ * (see {@code addListener}); if there are none, notifying costs a single field read and allocates nothing.
  */
 public class RoundedPolygon {
 	
 	/**
+	 * The vertices, if they are stored on the Java heap; {@code null} if they are stored in {@code vertexArena}.
+	 * 
 	 * @representationObject
-	 * @invar | vertices != null
-	 * @invar | Arrays.stream(vertices).allMatch(v -> v != null)
-	 * @invar | PointArrays.checkDefinesProperPolygon(vertices) == null
+	 * @invar | (vertices == null) == (vertexArena != null)
+	 * @invar | vertices == null || Arrays.stream(vertices).allMatch(v -> v != null)
+	 * @invar | vertices == null || PointArrays.checkDefinesProperPolygon(vertices) == null
 	 * @invar | 0 <= radius
 	 */
 	private IntPoint[] vertices = new IntPoint[0];
+	/**
+	 * If the vertices are stored off-heap, they are the {@code vertexCount} vertices starting at index
+	 * {@code vertexOffset} of {@code vertexArena}; room for {@code vertexCapacity} vertices is reserved there.
+	 * 
+	 * @invar | 0 <= vertexCount && vertexCount <= vertexCapacity
+	 */
+	private final OffHeapVertexArena vertexArena;
+	private long vertexOffset;
+	private int vertexCount;
+	private int vertexCapacity;
 	private int radius;
 	private Color color = Color.yellow;
+	/**
+	 * @invar | 0 < version
+	 */
+	private long version = VersionClock.next();
+	/**
+	 * @peerObject
+	 */
+	private UndoJournal undoJournal;
+	/**
+	 * The registered listeners, or {@code null} if there are none. The array is replaced rather than mutated, so that
+	 * a notification in progress is not affected by listeners being added or removed.
+	 * 
+	 * @representationObject
+	 */
+	private RoundedPolygonListener[] listeners;
+	/**
+	 * The number of batches in progress.
+	 * 
+	 * @invar | 0 <= batchDepth
+	 */
+	private int batchDepth;
+	/**
+	 * The changes made during the batches in progress that have not been notified yet, or {@code null} if there are
+	 * none.
+	 */
+	private PendingChanges pendingChanges;
+	
+	/**
+	 * The changes of a rounded polygon that are to be notified when its batches end.
+	 */
+	private static final class PendingChanges {
+		/**
+		 * The number of vertices before the first vertex change, or -1 if the vertices have not changed.
+		 */
+		int oldVertexCount = -1;
+		/**
+		 * The numbers of leading and trailing vertices that are unchanged.
+		 */
+		int unchangedPrefix;
+		int unchangedSuffix;
+		boolean radiusChanged;
+		boolean colorChanged;
+	}
 	
 	/**
 	 * Returns a new array whose elements are the vertices of this rounded polygon.
@@ -32,15 +101,267 @@ public class RoundedPolygon {
 	 * @creates | result
 	 */
 	public IntPoint[] getVertices() {
-		return PointArrays.copy(vertices);
+		return vertices == null ? vertexArray() : PointArrays.copy(vertices);
 	}
 	
+	/**
+	 * Returns the arena that stores this rounded polygon's vertices, or {@code null} if they are stored on the Java heap.
+	 * 
+	 * @immutable
+	 */
+	public OffHeapVertexArena getVertexArena() { return vertexArena; }
+	
 	/**
 	 * Returns the radius of the corners of this rounded polygon.
 	 */
 	public int getRadius() { return radius; }
 	
 	public Color getColor() { return color; }
+	
+	/**
+	 * Returns the version number (see {@code VersionClock}) with which this rounded polygon was stamped when it was
+	 * created, when its vertices, radius, or color were last set, or when a batch in which they were set and whose
+	 * changes are notified to listeners ended.
+	 * 
+	 * @post | 0 < result && result <= VersionClock.current()
+	 */
+	public long getVersion() { return version; }
+	
+	/**
+	 * Returns the undo journal that records the edits of this rounded polygon, or {@code null} if they are not recorded.
+	 * 
+	 * @peerObject
+	 */
+	public UndoJournal getUndoJournal() { return undoJournal; }
+	
+	/**
+	 * Sets the undo journal that records the edits of this rounded polygon; {@code null} stops recording them.
+	 * 
+	 * @mutates | this
+	 * @post | getUndoJournal() == undoJournal
+	 * @post | Arrays.equals(getVertices(), old(getVertices()))
+	 * @post | getRadius() == old(getRadius())
+	 * @post | getColor().equals(old(getColor()))
+	 */
+	public void setUndoJournal(UndoJournal undoJournal) {
+		this.undoJournal = undoJournal;
+	}
+	
+	private boolean isRecording() {
+		return undoJournal != null && undoJournal.isRecording();
+	}
+	
+	/**
+	 * Returns the listeners registered with this rounded polygon, in the order in which they are notified.
+	 * 
+	 * @post | result != null
+	 * @creates | result
+	 */
+	public List<RoundedPolygonListener> getListeners() {
+		return listeners == null ? List.of() : List.of(listeners);
+	}
+	
+	/**
+	 * Registers the given listener with this rounded polygon, so that it is notified of its changes. A listener that
+	 * is registered more than once is notified more than once.
+	 * 
+	 * @throws IllegalArgumentException if {@code listener} is null
+	 *    | listener == null
+	 * @mutates | this
+	 * @post | getListeners().size() == old(getListeners()).size() + 1
+	 * @post | getListeners().get(getListeners().size() - 1) == listener
+	 */
+	public void addListener(RoundedPolygonListener listener) {
+		if (listener == null)
+			throw new IllegalArgumentException("listener is null");
+		if (listeners == null)
+			listeners = new RoundedPolygonListener[] {listener};
+		else {
+			listeners = Arrays.copyOf(listeners, listeners.length + 1);
+			listeners[listeners.length - 1] = listener;
+		}
+	}
+	
+	/**
+	 * Unregisters the given listener from this rounded polygon, once, if it is registered.
+	 * 
+	 * @mutates | this
+	 * @post | old(getListeners()).contains(listener)
+	 *       |     ? getListeners().size() == old(getListeners()).size() - 1
+	 *       |     : getListeners().equals(old(getListeners()))
+	 */
+	public void removeListener(RoundedPolygonListener listener) {
+		if (listeners == null)
+			return;
+		for (int i = 0; i < listeners.length; i++) {
+			if (listeners[i] == listener) {
+				if (listeners.length == 1)
+					listeners = null;
+				else {
+					RoundedPolygonListener[] newListeners = new RoundedPolygonListener[listeners.length - 1];
+					System.arraycopy(listeners, 0, newListeners, 0, i);
+					System.arraycopy(listeners, i + 1, newListeners, i, listeners.length - i - 1);
+					listeners = newListeners;
+				}
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * Starts a batch: until the batch ends, the changes of this rounded polygon are not notified to its listeners.
+	 * When the last batch in progress ends, the listeners are notified of the changes made during the batches, with
+	 * the vertex changes coalesced into a single notification.
+	 * 
+	 * @mutates | this
+	 */
+	public void beginBatch() {
+		batchDepth++;
+	}
+	
+	/**
+	 * Ends the batch started most recently, notifying the listeners of the pending changes if no other batch is in
+	 * progress.
+	 * 
+	 * @throws IllegalStateException if no batch is in progress
+	 * @mutates | this
+	 */
+	public void endBatch() {
+		if (batchDepth == 0)
+			throw new IllegalStateException("no batch in progress");
+		if (--batchDepth > 0 || pendingChanges == null)
+			return;
+		PendingChanges changes = pendingChanges;
+		pendingChanges = null;
+		// Stamp the changes again, so that clients that found this rounded polygon unchanged since some version
+		// because its listeners had not been notified yet do not miss them.
+		version = VersionClock.next();
+		// Read the listeners once, so that listeners that unregister themselves do not affect the notifications below.
+		RoundedPolygonListener[] listeners = this.listeners;
+		if (listeners == null)
+			return;
+		if (changes.oldVertexCount != -1) {
+			int unchanged = changes.unchangedPrefix + changes.unchangedSuffix;
+			int index = changes.unchangedPrefix;
+			int removedCount = changes.oldVertexCount - unchanged;
+			int insertedCount = getVertexCount() - unchanged;
+			for (RoundedPolygonListener listener : listeners)
+				listener.verticesChanged(this, index, removedCount, insertedCount);
+		}
+		if (changes.radiusChanged)
+			for (RoundedPolygonListener listener : listeners)
+				listener.radiusChanged(this);
+		if (changes.colorChanged)
+			for (RoundedPolygonListener listener : listeners)
+				listener.colorChanged(this);
+	}
+	
+	/**
+	 * Returns the number of vertices of this rounded polygon.
+	 * 
+	 * @post | result == getVertices().length
+	 */
+	public int getVertexCount() {
+		return vertices == null ? vertexCount : vertices.length;
+	}
+	
+	/**
+	 * Returns the X coordinate of the vertex at the given index, without creating any objects.
+	 * 
+	 * @throws IllegalArgumentException if the index is out of bounds
+	 *    | index < 0 || getVertexCount() <= index
+	 * @throws IllegalStateException if the vertices are stored in an arena that is closed
+	 * @post | result == getVertices()[index].getX()
+	 */
+	public int getVertexX(int index) {
+		if (index < 0 || getVertexCount() <= index)
+			throw new IllegalArgumentException("index out of bounds");
+		if (vertices != null)
+			return vertices[index].getX();
+		vertexArena.checkOpen();
+		return vertexArena.getX(vertexOffset + index);
+	}
+	
+	/**
+	 * Returns the Y coordinate of the vertex at the given index, without creating any objects.
+	 * 
+	 * @throws IllegalArgumentException if the index is out of bounds
+	 *    | index < 0 || getVertexCount() <= index
+	 * @throws IllegalStateException if the vertices are stored in an arena that is closed
+	 * @post | result == getVertices()[index].getY()
+	 */
+	public int getVertexY(int index) {
+		if (index < 0 || getVertexCount() <= index)
+			throw new IllegalArgumentException("index out of bounds");
+		if (vertices != null)
+			return vertices[index].getY();
+		vertexArena.checkOpen();
+		return vertexArena.getY(vertexOffset + index);
+	}
+	
+	/**
+	 * Copies the X and Y coordinates of this rounded polygon's vertices to the given arrays, starting at the given
+	 * index, without creating any {@code IntPoint} objects.
+	 * 
+	 * @throws IllegalArgumentException if {@code xs} or {@code ys} is null
+	 *    | xs == null || ys == null
+	 * @throws IllegalArgumentException if the coordinates do not fit in the given arrays at the given index
+	 *    | offset < 0 || xs.length - getVertexCount() < offset || ys.length - getVertexCount() < offset
+	 * @throws IllegalStateException if the vertices are stored in an arena that is closed
+	 * @mutates | xs, ys
+	 * @post | IntStream.range(0, getVertexCount()).allMatch(i ->
+	 *       |     xs[offset + i] == getVertices()[i].getX() && ys[offset + i] == getVertices()[i].getY())
+	 */
+	public void copyCoordinates(int[] xs, int[] ys, int offset) {
+		if (xs == null || ys == null)
+			throw new IllegalArgumentException("xs or ys is null");
+		int count = getVertexCount();
+		if (offset < 0 || xs.length - count < offset || ys.length - count < offset)
+			throw new IllegalArgumentException("the coordinates do not fit in the given arrays");
+		if (vertices != null) {
+			for (int i = 0; i < count; i++) {
+				xs[offset + i] = vertices[i].getX();
+				ys[offset + i] = vertices[i].getY();
+			}
+		} else {
+			vertexArena.checkOpen();
+			for (int i = 0; i < count; i++) {
+				xs[offset + i] = vertexArena.getX(vertexOffset + i);
+				ys[offset + i] = vertexArena.getY(vertexOffset + i);
+			}
+		}
+	}
+	
+	/**
+	 * Notifies the listeners, or records in the pending changes, that {@code removedCount} vertices starting at the
+	 * given index of the given number of old vertices were replaced.
+	 */
+	private void notifyVerticesChanged(int oldVertexCount, int index, int removedCount) {
+		if (listeners == null)
+			return;
+		if (batchDepth > 0) {
+			PendingChanges changes = getPendingChanges();
+			int suffix = oldVertexCount - index - removedCount;
+			if (changes.oldVertexCount == -1) {
+				changes.oldVertexCount = oldVertexCount;
+				changes.unchangedPrefix = index;
+				changes.unchangedSuffix = suffix;
+			} else {
+				changes.unchangedPrefix = Math.min(changes.unchangedPrefix, index);
+				changes.unchangedSuffix = Math.min(changes.unchangedSuffix, suffix);
+			}
+			return;
+		}
+		int insertedCount = getVertexCount() - oldVertexCount + removedCount;
+		for (RoundedPolygonListener listener : listeners)
+			listener.verticesChanged(this, index, removedCount, insertedCount);
+	}
+	
+	private PendingChanges getPendingChanges() {
+		if (pendingChanges == null)
+			pendingChanges = new PendingChanges();
+		return pendingChanges;
+	}
 
 	/**
 	 * @mutates | this
@@ -48,7 +369,77 @@ public class RoundedPolygon {
 	 * @post | getRadius() == 0
 	 * @post | getColor().equals(Color.yellow)
 	 */
-	public RoundedPolygon() {}
+	public RoundedPolygon() {
+		vertexArena = null;
+	}
+	
+	/**
+	 * Initializes this rounded polygon so that its vertices are stored in the given arena. Each call of
+	 * {@code setVertices} reuses the room reserved in the arena if the new vertices fit in it, and allocates new room
+	 * otherwise.
+	 * 
+	 * @throws IllegalArgumentException if {@code vertexArena} is null
+	 *    | vertexArena == null
+	 * @throws IllegalStateException if {@code vertexArena} is closed
+	 *    | !vertexArena.isOpen()
+	 * @mutates | this
+	 * @post | getVertexArena() == vertexArena
+	 * @post | getVertices().length == 0
+	 * @post | getRadius() == 0
+	 * @post | getColor().equals(Color.yellow)
+	 */
+	public RoundedPolygon(OffHeapVertexArena vertexArena) {
+		if (vertexArena == null)
+			throw new IllegalArgumentException("vertexArena is null");
+		vertexArena.checkOpen();
+		this.vertexArena = vertexArena;
+		this.vertices = null;
+	}
+	
+	/**
+	 * Initializes this rounded polygon so that its vertices are the given number of vertices already stored in the
+	 * given arena, starting at the given index, for example in a file mapped by {@code OffHeapVertexArena.mapFile}.
+	 * The vertices are not copied; {@code setVertices} overwrites them in place if the new vertices fit.
+	 * 
+	 * @throws IllegalArgumentException if {@code vertexArena} is null
+	 *    | vertexArena == null
+	 * @throws IllegalStateException if {@code vertexArena} is closed
+	 *    | !vertexArena.isOpen()
+	 * @throws IllegalArgumentException if the given range is not within the vertices allocated in the arena
+	 *    | offset < 0 || count < 0 || vertexArena.getVertexCount() - count < offset
+	 * @throws IllegalArgumentException if the given vertices do not define a proper polygon
+	 * @mutates | this
+	 * @post | getVertexArena() == vertexArena
+	 * @post | getVertices().length == count
+	 * @post | getRadius() == 0
+	 * @post | getColor().equals(Color.yellow)
+	 */
+	public RoundedPolygon(OffHeapVertexArena vertexArena, long offset, int count) {
+		this(vertexArena);
+		if (offset < 0 || count < 0 || vertexArena.getVertexCount() - count < offset)
+			throw new IllegalArgumentException("the given range is out of bounds");
+		vertexOffset = offset;
+		vertexCount = count;
+		vertexCapacity = count;
+		String msg = PointArrays.checkDefinesProperPolygon(vertexArray());
+		if (msg != null)
+			throw new IllegalArgumentException(msg);
+	}
+	
+	/**
+	 * Returns an array holding this rounded polygon's vertices; the array must not be mutated.
+	 * 
+	 * @throws IllegalStateException if the vertices are stored in an arena that is closed
+	 */
+	private IntPoint[] vertexArray() {
+		if (vertices != null)
+			return vertices;
+		vertexArena.checkOpen();
+		IntPoint[] result = new IntPoint[vertexCount];
+		for (int i = 0; i < vertexCount; i++)
+			result[i] = new IntPoint(vertexArena.getX(vertexOffset + i), vertexArena.getY(vertexOffset + i));
+		return result;
+	}
 	
 	/**
 	 * Sets the vertices of this rounded polygon to be equal to the elements of the given array.
@@ -59,6 +450,8 @@ public class RoundedPolygon {
 	 * @throws IllegalArgumentException | Arrays.stream(newVertices).anyMatch(v -> v == null)
 	 * @throws IllegalArgumentException if the given vertices do not define a proper polygon.
 	 *     | PointArrays.checkDefinesProperPolygon(newVertices) != null
+	 * @throws IllegalStateException if this rounded polygon's vertices are stored in an arena that is closed or does
+	 *     not have enough room left
 	 * @post | Arrays.equals(getVertices(), newVertices)
 	 * @post | getRadius() == old(getRadius())
 	 * @post | getColor().equals(old(getColor()))
@@ -72,7 +465,164 @@ public class RoundedPolygon {
 		String msg = PointArrays.checkDefinesProperPolygon(copy);
 		if (msg != null)
 			throw new IllegalArgumentException(msg);
-		vertices = copy;
+		replaceVertices(copy);
+	}
+	
+	/**
+	 * Replaces all of this rounded polygon's vertices by the given array, which is not shared with clients and has been
+	 * checked to define a proper polygon.
+	 */
+	private void replaceVertices(IntPoint[] copy) {
+		IntPoint[] oldVertices = isRecording() ? vertexArray() : null;
+		storeCheckedVertices(copy, 0, getVertexCount());
+		if (oldVertices != null)
+			undoJournal.record(new RoundedPolygonEdits.VerticesEdit(this, oldVertices, copy));
+	}
+	
+	/**
+	 * The minimum number of rounded polygons for which {@code setVertices(List, List)} checks the new vertices, and
+	 * {@code transformVertices} computes them, in parallel.
+	 */
+	static final int PARALLEL_CHECK_THRESHOLD = 8;
+	
+	/**
+	 * Sets the vertices of each of the given rounded polygons to be equal to the elements of the corresponding array,
+	 * as a single atomic step.
+	 * 
+	 * All of the new vertices are checked first, without changing anything; if there are enough rounded polygons, they
+	 * are checked in parallel on the common fork-join pool. The rounded polygons are then updated one by one, on the
+	 * calling thread, as if by {@code setVertices(IntPoint[])}: their listeners are notified and their undo journals
+	 * record the changes on that thread.
+	 * 
+	 * @pre The rounded polygons are distinct.
+	 *    | polygons == null || polygons.stream().distinct().count() == polygons.size()
+	 * @throws IllegalArgumentException | polygons == null || polygons.stream().anyMatch(p -> p == null)
+	 * @throws IllegalArgumentException | newVertices == null || newVertices.size() != polygons.size()
+	 * @throws IllegalArgumentException
+	 *    | newVertices.stream().anyMatch(vertices -> vertices == null || Arrays.stream(vertices).anyMatch(v -> v == null))
+	 * @throws IllegalArgumentException if the new vertices of some rounded polygon do not define a proper polygon; the
+	 *     message starts with {@code "shape i "}, where {@code i} is the index of the first such rounded polygon. In
+	 *     that case, nothing is changed.
+	 *    | newVertices.stream().anyMatch(vertices -> PointArrays.checkDefinesProperPolygon(vertices) != null)
+	 * @throws IllegalStateException if the vertices of some rounded polygon are stored in an arena that is closed or
+	 *     does not have enough room left. In that case, nothing is changed.
+	 * @inspects | newVertices
+	 * @mutates_properties | (...polygons).getVertices()
+	 * @post | IntStream.range(0, polygons.size()).allMatch(i -> Arrays.equals(polygons.get(i).getVertices(), newVertices.get(i)))
+	 */
+	public static void setVertices(List<RoundedPolygon> polygons, List<IntPoint[]> newVertices) {
+		if (polygons == null || polygons.stream().anyMatch(p -> p == null))
+			throw new IllegalArgumentException("polygons is null or contains null");
+		if (newVertices == null || newVertices.size() != polygons.size())
+			throw new IllegalArgumentException("newVertices is null or does not match polygons");
+		int count = polygons.size();
+		IntPoint[][] copies = new IntPoint[count][];
+		for (int i = 0; i < count; i++) {
+			IntPoint[] vertices = newVertices.get(i);
+			if (vertices == null || Arrays.stream(vertices).anyMatch(v -> v == null))
+				throw new IllegalArgumentException("newVertices contains null");
+			copies[i] = PointArrays.copy(vertices);
+		}
+		
+		String[] messages = new String[count];
+		IntStream indices = IntStream.range(0, count);
+		if (PARALLEL_CHECK_THRESHOLD <= count)
+			indices = indices.parallel();
+		indices.forEach(i -> messages[i] = PointArrays.checkDefinesProperPolygon(copies[i]));
+		for (int i = 0; i < count; i++)
+			if (messages[i] != null)
+				throw new IllegalArgumentException("shape " + i + " would not be a proper polygon: " + messages[i]);
+		
+		// Check that the arenas have room for the vertices that do not fit in the room already reserved, so that
+		// the updates below cannot fail halfway.
+		IdentityHashMap<OffHeapVertexArena, Long> room = new IdentityHashMap<>();
+		for (int i = 0; i < count; i++) {
+			RoundedPolygon polygon = polygons.get(i);
+			if (polygon.vertexArena != null) {
+				polygon.vertexArena.checkOpen();
+				if (polygon.vertexCapacity < copies[i].length)
+					room.merge(polygon.vertexArena, (long)copies[i].length, Long::sum);
+			}
+		}
+		room.forEach((arena, needed) -> {
+			if (arena.getCapacity() - arena.getVertexCount() < needed)
+				throw new IllegalStateException("the vertex arena is full");
+		});
+		
+		for (int i = 0; i < count; i++)
+			polygons.get(i).replaceVertices(copies[i]);
+	}
+	
+	/**
+	 * Replaces the vertices of each of the given rounded polygons by the result of applying {@code transformation}
+	 * to their images under the corresponding element of {@code transforms}, as a single atomic step.
+	 * 
+	 * The old vertices are read on the calling thread. The new vertices are then computed into a local array, without
+	 * mutating anything, in parallel on the common fork-join pool if there are enough rounded polygons. Finally, they
+	 * are checked and committed by {@code setVertices(List, List)}, which changes nothing unless all of them define
+	 * proper polygons, and which updates the rounded polygons on the calling thread.
+	 * 
+	 * @pre | polygons != null && polygons.stream().allMatch(p -> p != null)
+	 * @pre The rounded polygons are distinct.
+	 *    | polygons.stream().distinct().count() == polygons.size()
+	 * @pre | transforms != null && transforms.size() == polygons.size() && transforms.stream().allMatch(t -> t != null)
+	 * @pre | transformation != null
+	 * @throws IllegalArgumentException if the transformed vertices of some rounded polygon do not define a proper
+	 *     polygon
+	 *    | IntStream.range(0, polygons.size()).anyMatch(i -> PointArrays.checkDefinesProperPolygon(
+	 *    |     transformation.apply(transforms.get(i).apply(polygons.get(i).getVertices()))) != null)
+	 * @throws IllegalStateException if the vertices of some rounded polygon are stored in an arena that is closed or
+	 *     does not have enough room left. In that case, nothing is changed.
+	 * @mutates_properties | (...polygons).getVertices()
+	 */
+	public static void transformVertices(List<RoundedPolygon> polygons, List<Transform> transforms,
+			UnaryOperator<IntPoint[]> transformation) {
+		int count = polygons.size();
+		// Rounded polygons whose vertices are stored in an arena must not be accessed concurrently, so their vertices
+		// are read here rather than by the tasks below.
+		IntPoint[][] vertices = new IntPoint[count][];
+		for (int i = 0; i < count; i++)
+			vertices[i] = polygons.get(i).getVertices();
+		IntStream indices = IntStream.range(0, count);
+		if (PARALLEL_CHECK_THRESHOLD <= count)
+			indices = indices.parallel();
+		indices.forEach(i -> vertices[i] = transformation.apply(transforms.get(i).apply(vertices[i])));
+		setVertices(polygons, Arrays.asList(vertices));
+	}
+	
+	/**
+	 * Checks that the given array, which is not shared with clients, defines a proper polygon, and stores it as this
+	 * rounded polygon's vertices, which differ from the old ones in that {@code removedCount} vertices starting at the
+	 * given index were replaced.
+	 */
+	private void storeVertices(IntPoint[] copy, int index, int removedCount) {
+		String msg = PointArrays.checkDefinesProperPolygon(copy);
+		if (msg != null)
+			throw new IllegalArgumentException(msg);
+		storeCheckedVertices(copy, index, removedCount);
+	}
+	
+	/**
+	 * Stores the given array, which is not shared with clients and has been checked to define a proper polygon, as
+	 * this rounded polygon's vertices, which differ from the old ones in that {@code removedCount} vertices starting at
+	 * the given index were replaced.
+	 */
+	private void storeCheckedVertices(IntPoint[] copy, int index, int removedCount) {
+		int oldVertexCount = getVertexCount();
+		if (vertexArena == null)
+			vertices = copy;
+		else {
+			vertexArena.checkOpen();
+			if (vertexCapacity < copy.length) {
+				vertexOffset = vertexArena.allocate(copy.length);
+				vertexCapacity = copy.length;
+			}
+			for (int i = 0; i < copy.length; i++)
+				vertexArena.setVertex(vertexOffset + i, copy[i]);
+			vertexCount = copy.length;
+		}
+		version = VersionClock.next();
+		notifyVerticesChanged(oldVertexCount, index, removedCount);
 	}
 	
 	/**
@@ -88,11 +638,33 @@ public class RoundedPolygon {
 	public void setRadius(int radius) {
 		if (radius < 0)
 			throw new IllegalArgumentException("The given radius is negative");
+		int oldRadius = this.radius;
 		this.radius = radius;
+		version = VersionClock.next();
+		if (listeners != null) {
+			if (batchDepth > 0)
+				getPendingChanges().radiusChanged = true;
+			else
+				for (RoundedPolygonListener listener : listeners)
+					listener.radiusChanged(this);
+		}
+		if (isRecording())
+			undoJournal.record(new RoundedPolygonEdits.RadiusEdit(this, oldRadius, radius));
 	}
 	
 	public void setColor(Color color) {
+		Color oldColor = this.color;
 		this.color = color;
+		version = VersionClock.next();
+		if (listeners != null) {
+			if (batchDepth > 0)
+				getPendingChanges().colorChanged = true;
+			else
+				for (RoundedPolygonListener listener : listeners)
+					listener.colorChanged(this);
+		}
+		if (isRecording())
+			undoJournal.record(new RoundedPolygonEdits.ColorEdit(this, oldColor, color));
 	}
 	
 	/**
@@ -109,7 +681,9 @@ public class RoundedPolygon {
 			throw new IllegalArgumentException("index out of range");
 		if (point == null)
 			throw new IllegalArgumentException("point is null");
-		setVertices(PointArrays.insert(vertices, index, point));
+		storeVertices(PointArrays.insert(vertexArray(), index, point), index, 0);
+		if (isRecording())
+			undoJournal.record(new RoundedPolygonEdits.InsertEdit(this, index, point));
 	}
 	
 	/**
@@ -123,7 +697,11 @@ public class RoundedPolygon {
 	public void remove(int index) {
 		if (!(0 <= index && index < getVertices().length))
 			throw new IllegalArgumentException("index out of range");
-		setVertices(PointArrays.remove(vertices, index));
+		IntPoint[] current = vertexArray();
+		IntPoint point = current[index];
+		storeVertices(PointArrays.remove(current, index), index, 1);
+		if (isRecording())
+			undoJournal.record(new RoundedPolygonEdits.RemoveEdit(this, index, point));
 	}
 	
 	/**
@@ -140,7 +718,11 @@ public class RoundedPolygon {
 			throw new IllegalArgumentException("index out of range");
 		if (point == null)
 			throw new IllegalArgumentException("point is null");
-		setVertices(PointArrays.update(vertices, index, point));
+		IntPoint[] current = vertexArray();
+		IntPoint oldPoint = current[index];
+		storeVertices(PointArrays.update(current, index, point), index, 1);
+		if (isRecording())
+			undoJournal.record(new RoundedPolygonEdits.UpdateEdit(this, index, oldPoint, point));
 	}
 	
 	/**
@@ -171,6 +753,19 @@ public class RoundedPolygon {
 	 * @mutates nothing |
 	 */
 	public boolean contains(IntPoint point) {
+		return contains(vertexArray(), point);
+	}
+	
+	/**
+	 * Returns {@code true} iff the given point is contained by the polygon defined by the given vertices, as described
+	 * at {@code contains(IntPoint)}. This allows representations of shapes that do not store them as
+	 * {@code RoundedPolygon} objects to perform the same test.
+	 * 
+	 * @pre | vertices != null && Arrays.stream(vertices).allMatch(v -> v != null)
+	 * @pre | point != null
+	 * @inspects | vertices
+	 */
+	public static boolean contains(IntPoint[] vertices, IntPoint point) {
 		// We call the half-line extending from `point` to the right the "exit path"
 		// Find first vertex that is not on the exit path
 		int firstVertex;
@@ -286,22 +881,47 @@ public class RoundedPolygon {
 	 * @post | result != null
 	 */
 	public String getDrawingCommands() {
-		if (vertices.length < 3)
+		return getDrawingCommandsInPlace();
+	}
+	
+	/**
+	 * Returns the drawing commands for a rounded polygon with the given vertices, corner radius and color, as described
+	 * at {@code getDrawingCommands()}. This allows representations of shapes that do not store them as
+	 * {@code RoundedPolygon} objects to produce the same drawing commands.
+	 * 
+	 * @pre | vertices != null && Arrays.stream(vertices).allMatch(v -> v != null)
+	 * @pre | 0 <= radius
+	 * @pre | color != null
+	 * @inspects | vertices
+	 * @post | result != null
+	 */
+	public static String getDrawingCommands(IntPoint[] vertices, int radius, Color color) {
+		return getDrawingCommands(vertices.length, i -> vertices[i].getX(), i -> vertices[i].getY(), radius, color);
+	}
+	
+	/**
+	 * Returns the drawing commands for a rounded polygon with the given number of vertices, whose coordinates are
+	 * given by index, and with the given corner radius and color.
+	 */
+	private static String getDrawingCommands(int count, IntUnaryOperator xs, IntUnaryOperator ys, int radius, Color color) {
+		if (count < 3)
 			return "";
 		StringBuilder commands = new StringBuilder();
-		for (int index = 0; index < vertices.length; index++) {
-			IntPoint a = vertices[(index + vertices.length - 1) % vertices.length];
-			IntPoint b = vertices[index];
-			IntPoint c = vertices[(index + 1) % vertices.length];
-			DoubleVector ba = a.minus(b).asDoubleVector();
-			DoubleVector bc = c.minus(b).asDoubleVector();
-			DoublePoint baCenter = b.asDoublePoint().plus(ba.scale(0.5));
-			DoublePoint bcCenter = b.asDoublePoint().plus(bc.scale(0.5));
+		for (int index = 0; index < count; index++) {
+			int aIndex = (index + count - 1) % count;
+			int cIndex = (index + 1) % count;
+			int bx = xs.applyAsInt(index);
+			int by = ys.applyAsInt(index);
+			DoubleVector ba = new DoubleVector(xs.applyAsInt(aIndex) - bx, ys.applyAsInt(aIndex) - by);
+			DoubleVector bc = new DoubleVector(xs.applyAsInt(cIndex) - bx, ys.applyAsInt(cIndex) - by);
+			DoublePoint b = new DoublePoint(bx, by);
+			DoublePoint baCenter = b.plus(ba.scale(0.5));
+			DoublePoint bcCenter = b.plus(bc.scale(0.5));
 			double baSize = ba.getSize();
 			double bcSize = bc.getSize();
 			if (ba.crossProduct(bc) == 0) {
-				commands.append("line " + bcCenter.getX() + " " + bcCenter.getY() + " " + b.getX() + " " + b.getY() + "\n");
-				commands.append("line " + b.getX() + " " + b.getY() + " " + baCenter.getX() + " " + baCenter.getY() + "\n");
+				commands.append("line " + bcCenter.getX() + " " + bcCenter.getY() + " " + bx + " " + by + "\n");
+				commands.append("line " + bx + " " + by + " " + baCenter.getX() + " " + baCenter.getY() + "\n");
 			} else {
 				DoubleVector baUnit = ba.scale(1/baSize);
 				DoubleVector bcUnit = bc.scale(1/bcSize);
@@ -309,11 +929,11 @@ public class RoundedPolygon {
 				bisector = bisector.scale(1/bisector.getSize());
 				double unitEdgeDistance = baUnit.dotProduct(bisector);
 				double unitRadius = Math.abs(bisector.crossProduct(baUnit));
-				double scaleFactor = Math.min(this.radius / unitRadius, Math.min(baSize, bcSize) / 2 / unitEdgeDistance);
-				DoublePoint center = b.asDoublePoint().plus(bisector.scale(scaleFactor));
-				double radius = unitRadius * scaleFactor;
-				DoublePoint bcCornerStart = b.asDoublePoint().plus(bcUnit.scale(unitEdgeDistance * scaleFactor));
-				DoublePoint baCornerStart = b.asDoublePoint().plus(baUnit.scale(unitEdgeDistance * scaleFactor));
+				double scaleFactor = Math.min(radius / unitRadius, Math.min(baSize, bcSize) / 2 / unitEdgeDistance);
+				DoublePoint center = b.plus(bisector.scale(scaleFactor));
+				double arcRadius = unitRadius * scaleFactor;
+				DoublePoint bcCornerStart = b.plus(bcUnit.scale(unitEdgeDistance * scaleFactor));
+				DoublePoint baCornerStart = b.plus(baUnit.scale(unitEdgeDistance * scaleFactor));
 				double baAngle = baCornerStart.minus(center).asAngle();
 				double bcAngle = bcCornerStart.minus(center).asAngle();
 				double angleExtent = bcAngle - baAngle;
@@ -322,7 +942,7 @@ public class RoundedPolygon {
 				else if (Math.PI < angleExtent)
 					angleExtent -= 2 * Math.PI;
 				commands.append("line " + baCenter.getX() + " " + baCenter.getY() + " " + baCornerStart.getX() + " " + baCornerStart.getY() + "\n");
-				commands.append("arc " + center.getX() + " " + center.getY() + " " + radius + " " + baAngle + " " + angleExtent + "\n");
+				commands.append("arc " + center.getX() + " " + center.getY() + " " + arcRadius + " " + baAngle + " " + angleExtent + "\n");
 				commands.append("line " + bcCornerStart.getX() + " " + bcCornerStart.getY() + " " + bcCenter.getX() + " " + bcCenter.getY() + "\n");
 			}
 		}
@@ -330,4 +950,61 @@ public class RoundedPolygon {
 		return commands.toString();
 	}
 	
+	/**
+	 * Returns the drawing commands for this rounded polygon's vertices, reading them in place.
+	 * 
+	 * @throws IllegalStateException if the vertices are stored in an arena that is closed
+	 */
+	private String getDrawingCommandsInPlace() {
+		if (vertices != null)
+			return getDrawingCommands(vertices, radius, color);
+		vertexArena.checkOpen();
+		long offset = vertexOffset;
+		return getDrawingCommands(vertexCount, i -> vertexArena.getX(offset + i), i -> vertexArena.getY(offset + i), radius, color);
+	}
+
+	/**
+	 * Returns the drawing commands for drawing this rounded polygon, or an empty string if this rounded polygon
+	 * does not intersect the given viewport, defined by the coordinates of its left, top, right and bottom edges.
+	 * 
+	 * <p>Since each rounded corner lies within the triangle formed by its vertex and the adjacent edges' midpoints,
+	 * this rounded polygon lies within the bounding box of its vertices; this method returns an empty string
+	 * only if that box does not intersect the viewport. Edges that lie outside the viewport are not trimmed:
+	 * the commands describe a closed outline to be filled, and dropping edges would change the filled area.
+	 * 
+	 * @throws IllegalArgumentException if the viewport is empty
+	 *    | right < left || bottom < top
+	 * @inspects | this
+	 * @mutates nothing |
+	 * @post | result != null
+	 * @post | result.isEmpty() || result.equals(getDrawingCommands())
+	 * @post
+	 *    | result.equals(getDrawingCommands()) || Arrays.stream(getVertices()).allMatch(v -> v.getX() < left) ||
+	 *    |     Arrays.stream(getVertices()).allMatch(v -> right < v.getX()) ||
+	 *    |     Arrays.stream(getVertices()).allMatch(v -> v.getY() < top) ||
+	 *    |     Arrays.stream(getVertices()).allMatch(v -> bottom < v.getY())
+	 */
+	public String getDrawingCommands(int left, int top, int right, int bottom) {
+		if (right < left || bottom < top)
+			throw new IllegalArgumentException("the viewport is empty");
+		int count = getVertexCount();
+		if (count < 3)
+			return "";
+		int minX = Integer.MAX_VALUE;
+		int minY = Integer.MAX_VALUE;
+		int maxX = Integer.MIN_VALUE;
+		int maxY = Integer.MIN_VALUE;
+		for (int i = 0; i < count; i++) {
+			int x = getVertexX(i);
+			int y = getVertexY(i);
+			minX = Math.min(minX, x);
+			minY = Math.min(minY, y);
+			maxX = Math.max(maxX, x);
+			maxY = Math.max(maxY, y);
+		}
+		if (maxX < left || right < minX || maxY < top || bottom < minY)
+			return "";
+		return getDrawingCommandsInPlace();
+	}
+	
 }
@@ -0,0 +1,174 @@
+package drawit;
+
+import java.awt.Color;
+
+/**
+ * The edits of rounded polygons recorded by undo journals. Vertices are stored as arrays of coordinates.
+ */
+final class RoundedPolygonEdits {
+
+	private RoundedPolygonEdits() { throw new AssertionError("This class is not meant to be instantiated"); }
+
+	/**
+	 * Returns an array holding the X and Y coordinates of the given points, alternately.
+	 */
+	static int[] pack(IntPoint[] points) {
+		int[] result = new int[2 * points.length];
+		for (int i = 0; i < points.length; i++) {
+			result[2 * i] = points[i].getX();
+			result[2 * i + 1] = points[i].getY();
+		}
+		return result;
+	}
+
+	static IntPoint[] unpack(int[] coordinates) {
+		IntPoint[] result = new IntPoint[coordinates.length / 2];
+		for (int i = 0; i < result.length; i++)
+			result[i] = new IntPoint(coordinates[2 * i], coordinates[2 * i + 1]);
+		return result;
+	}
+
+	/**
+	 * Returns the estimated number of bytes retained by the given array.
+	 */
+	static long sizeOf(int[] array) {
+		return 16 + 4L * array.length;
+	}
+
+	static final class VerticesEdit extends UndoJournal.Edit {
+		private final RoundedPolygon shape;
+		private final int[] oldVertices;
+		private final int[] newVertices;
+
+		VerticesEdit(RoundedPolygon shape, IntPoint[] oldVertices, IntPoint[] newVertices) {
+			this.shape = shape;
+			this.oldVertices = pack(oldVertices);
+			this.newVertices = pack(newVertices);
+		}
+
+		@Override
+		protected void undo() { shape.setVertices(unpack(oldVertices)); }
+
+		@Override
+		protected void redo() { shape.setVertices(unpack(newVertices)); }
+
+		@Override
+		protected long getSize() { return OVERHEAD + 24 + sizeOf(oldVertices) + sizeOf(newVertices); }
+	}
+
+	static final class InsertEdit extends UndoJournal.Edit {
+		private final RoundedPolygon shape;
+		private final int index;
+		private final int x;
+		private final int y;
+
+		InsertEdit(RoundedPolygon shape, int index, IntPoint point) {
+			this.shape = shape;
+			this.index = index;
+			this.x = point.getX();
+			this.y = point.getY();
+		}
+
+		@Override
+		protected void undo() { shape.remove(index); }
+
+		@Override
+		protected void redo() { shape.insert(index, new IntPoint(x, y)); }
+
+		@Override
+		protected long getSize() { return OVERHEAD + 20; }
+	}
+
+	static final class RemoveEdit extends UndoJournal.Edit {
+		private final RoundedPolygon shape;
+		private final int index;
+		private final int x;
+		private final int y;
+
+		RemoveEdit(RoundedPolygon shape, int index, IntPoint point) {
+			this.shape = shape;
+			this.index = index;
+			this.x = point.getX();
+			this.y = point.getY();
+		}
+
+		@Override
+		protected void undo() { shape.insert(index, new IntPoint(x, y)); }
+
+		@Override
+		protected void redo() { shape.remove(index); }
+
+		@Override
+		protected long getSize() { return OVERHEAD + 20; }
+	}
+
+	static final class UpdateEdit extends UndoJournal.Edit {
+		private final RoundedPolygon shape;
+		private final int index;
+		private final int oldX;
+		private final int oldY;
+		private final int newX;
+		private final int newY;
+
+		UpdateEdit(RoundedPolygon shape, int index, IntPoint oldPoint, IntPoint newPoint) {
+			this.shape = shape;
+			this.index = index;
+			this.oldX = oldPoint.getX();
+			this.oldY = oldPoint.getY();
+			this.newX = newPoint.getX();
+			this.newY = newPoint.getY();
+		}
+
+		@Override
+		protected void undo() { shape.update(index, new IntPoint(oldX, oldY)); }
+
+		@Override
+		protected void redo() { shape.update(index, new IntPoint(newX, newY)); }
+
+		@Override
+		protected long getSize() { return OVERHEAD + 28; }
+	}
+
+	static final class RadiusEdit extends UndoJournal.Edit {
+		private final RoundedPolygon shape;
+		private final int oldRadius;
+		private final int newRadius;
+
+		RadiusEdit(RoundedPolygon shape, int oldRadius, int newRadius) {
+			this.shape = shape;
+			this.oldRadius = oldRadius;
+			this.newRadius = newRadius;
+		}
+
+		@Override
+		protected void undo() { shape.setRadius(oldRadius); }
+
+		@Override
+		protected void redo() { shape.setRadius(newRadius); }
+
+		@Override
+		protected long getSize() { return OVERHEAD + 16; }
+	}
+
+	static final class ColorEdit extends UndoJournal.Edit {
+		private final RoundedPolygon shape;
+		private final Color oldColor;
+		private final Color newColor;
+
+		ColorEdit(RoundedPolygon shape, Color oldColor, Color newColor) {
+			this.shape = shape;
+			this.oldColor = oldColor;
+			this.newColor = newColor;
+		}
+
+		@Override
+		protected void undo() { shape.setColor(oldColor); }
+
+		@Override
+		protected void redo() { shape.setColor(newColor); }
+
+		@Override
+		protected long getSize() { return OVERHEAD + 24; }
+	}
+
+}
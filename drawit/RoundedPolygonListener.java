@@ -0,0 +1,38 @@
+package drawit;
+
+/**
+ * An object that is notified of the changes of the rounded polygons it is registered with (see
+ * {@code RoundedPolygon.addListener}).
+ *
+ * <p>Notifications are delivered synchronously, after the change, on the thread that made it, unless the rounded
+ * polygon is in a batch (see {@code RoundedPolygon.beginBatch}), in which case they are delivered, coalesced, when
+ * the batch ends.
+ */
+public interface RoundedPolygonListener {
+
+	/**
+	 * Called when the vertices of the given rounded polygon have changed: {@code removedCount} vertices starting at
+	 * index {@code index} were replaced by {@code insertedCount} vertices. The vertices before index {@code index}
+	 * and the vertices after the replaced ones are unchanged, though the latter may have shifted.
+	 *
+	 * @pre | shape != null
+	 * @pre | 0 <= index && 0 <= removedCount && 0 <= insertedCount
+	 * @pre | index + insertedCount <= shape.getVertices().length
+	 */
+	default void verticesChanged(RoundedPolygon shape, int index, int removedCount, int insertedCount) {}
+
+	/**
+	 * Called when the corner radius of the given rounded polygon has been set.
+	 *
+	 * @pre | shape != null
+	 */
+	default void radiusChanged(RoundedPolygon shape) {}
+
+	/**
+	 * Called when the color of the given rounded polygon has been set.
+	 *
+	 * @pre | shape != null
+	 */
+	default void colorChanged(RoundedPolygon shape) {}
+
+}
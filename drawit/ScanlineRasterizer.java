@@ -0,0 +1,590 @@
+package drawit;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * Fills rounded polygons, and outlines made of line segments and circular arcs, into a buffer of ARGB pixels, without
+ * going through Java2D.
+ *
+ * <p>The outline being built, the <i>path</i>, is stored as an edge table: its line segments, and its arcs split into
+ * pieces that are monotone in Y. Filling the path visits the rows of pixels it covers, keeping the list of the edges
+ * that are active on the current row; the X coordinate at which each active edge crosses a scanline is computed
+ * exactly, by solving the arc's (ellipse's, under non-uniform scaling) equation for arcs, so that arcs are never
+ * approximated by line segments. The spans between the crossings are filled using the nonzero winding rule, as
+ * Java2D does for drawing commands.
+ *
+ * <p>Without antialiasing, a pixel is filled if its center is inside the path. With antialiasing, each pixel is
+ * blended with the path's color in proportion to the fraction of the pixel covered by the path: the coverage of each
+ * of {@code SUBSAMPLES} scanlines per row is computed exactly along X.
+ *
+ * <p>The pixels are non-premultiplied ARGB values, as in a {@code BufferedImage} of type {@code TYPE_INT_ARGB};
+ * filling blends the path's color over them.
+ */
+public class ScanlineRasterizer {
+
+	/**
+	 * The number of scanlines sampled per row of pixels when antialiasing.
+	 */
+	public static final int SUBSAMPLES = 4;
+
+	private static final int LINE = 0;
+	private static final int ARC = 1;
+	/**
+	 * The number of doubles per edge in {@code edges}: the top and bottom Y coordinates, the winding direction (1 if
+	 * the edge goes down, -1 if it goes up), the kind, and four parameters. For a line, the parameters are the X and Y
+	 * coordinates of a point on it and its inverse slope (dx/dy). For an arc piece, they are the X and Y coordinates of
+	 * the center of its ellipse, its X radius multiplied by 1 for the right half or -1 for the left half, and its Y
+	 * radius.
+	 */
+	private static final int EDGE_SIZE = 8;
+
+	/**
+	 * @representationObject
+	 * @invar | pixels != null
+	 * @invar | 0 <= offset && 0 < width && 0 < height && width <= stride
+	 * @invar | (long)offset + (long)(height - 1) * stride + width <= pixels.length
+	 */
+	private final int[] pixels;
+	private final int offset;
+	private final int stride;
+	private final int width;
+	private final int height;
+	private boolean antialiased;
+	/**
+	 * @invar | transform != null
+	 */
+	private Transform transform = Transform.IDENTITY;
+
+	/**
+	 * The edges of the path, {@code EDGE_SIZE} doubles each.
+	 *
+	 * @representationObject
+	 * @invar | edges != null
+	 * @invar | 0 <= edgeCount && edgeCount * EDGE_SIZE <= edges.length
+	 */
+	private double[] edges = new double[16 * EDGE_SIZE];
+	private int edgeCount;
+	/**
+	 * Whether the path has a current point; if so, the path's first point and current point, in device coordinates.
+	 */
+	private boolean hasCurrentPoint;
+	private double firstX, firstY, currentX, currentY;
+
+	/**
+	 * The per-row scratch arrays used while filling.
+	 *
+	 * @representationObject
+	 */
+	private int[] active = new int[16];
+	private double[] crossingXs = new double[16];
+	private int[] crossingWindings = new int[16];
+	private final float[] coverage;
+	private final float[] runs;
+
+	/**
+	 * Initializes this rasterizer so that it draws into the given pixels, which form an image of the given width and
+	 * height, stored row by row.
+	 *
+	 * @throws IllegalArgumentException if {@code pixels} is null
+	 *    | pixels == null
+	 * @throws IllegalArgumentException if the width or height is not positive, or the pixels do not form an image of
+	 *    that size
+	 *    | width <= 0 || height <= 0 || pixels.length / width < height
+	 * @post | !isAntialiased()
+	 * @post | getTransform().isIdentity()
+	 */
+	public ScanlineRasterizer(int[] pixels, int width, int height) {
+		this(pixels, 0, width, width, height);
+	}
+
+	/**
+	 * Initializes this rasterizer so that it draws into a region of the given pixels: the region of the given width
+	 * and height whose top-left pixel is at index {@code offset}, whose rows are {@code stride} pixels apart. For
+	 * example, a tile of an image can be drawn in by a rasterizer of its own.
+	 *
+	 * @throws IllegalArgumentException if {@code pixels} is null
+	 *    | pixels == null
+	 * @throws IllegalArgumentException if the width or height is not positive, or the region is not within the
+	 *    pixels
+	 *    | width <= 0 || height <= 0 || offset < 0 || stride < width ||
+	 *    |     pixels.length < (long)offset + (long)(height - 1) * stride + width
+	 * @post | !isAntialiased()
+	 * @post | getTransform().isIdentity()
+	 */
+	public ScanlineRasterizer(int[] pixels, int offset, int stride, int width, int height) {
+		if (pixels == null)
+			throw new IllegalArgumentException("pixels is null");
+		if (width <= 0 || height <= 0 || offset < 0 || stride < width ||
+				pixels.length < (long)offset + (long)(height - 1) * stride + width)
+			throw new IllegalArgumentException("the region is empty or not within the pixels");
+		this.pixels = pixels;
+		this.offset = offset;
+		this.stride = stride;
+		this.width = width;
+		this.height = height;
+		this.coverage = new float[width];
+		this.runs = new float[width + 1];
+	}
+
+	public int getWidth() { return width; }
+
+	public int getHeight() { return height; }
+
+	public boolean isAntialiased() { return antialiased; }
+
+	/**
+	 * @mutates | this
+	 * @post | isAntialiased() == antialiased
+	 */
+	public void setAntialiased(boolean antialiased) { this.antialiased = antialiased; }
+
+	/**
+	 * Returns the transformation from the coordinates of the outlines added to the path to pixel coordinates, in which
+	 * pixel (X, Y) covers the square from (X, Y) to (X + 1, Y + 1).
+	 */
+	public Transform getTransform() { return transform; }
+
+	/**
+	 * Sets the transformation applied to the outlines added to the path from now on.
+	 *
+	 * @throws IllegalArgumentException if {@code transform} is null
+	 *    | transform == null
+	 * @mutates | this
+	 * @post | getTransform() == transform
+	 */
+	public void setTransform(Transform transform) {
+		if (transform == null)
+			throw new IllegalArgumentException("transform is null");
+		this.transform = transform;
+	}
+
+	/**
+	 * Sets each pixel to the given ARGB color.
+	 *
+	 * @mutates | this
+	 */
+	public void clear(int argb) {
+		for (int y = 0; y < height; y++)
+			Arrays.fill(pixels, offset + y * stride, offset + y * stride + width, argb);
+	}
+
+	private void addEdge(int kind, double yTop, double yBottom, int winding, double p0, double p1, double p2, double p3) {
+		if (edges.length == edgeCount * EDGE_SIZE)
+			edges = Arrays.copyOf(edges, 2 * edges.length);
+		int e = edgeCount++ * EDGE_SIZE;
+		edges[e] = yTop;
+		edges[e + 1] = yBottom;
+		edges[e + 2] = winding;
+		edges[e + 3] = kind;
+		edges[e + 4] = p0;
+		edges[e + 5] = p1;
+		edges[e + 6] = p2;
+		edges[e + 7] = p3;
+	}
+
+	/**
+	 * Adds the line segment between the given points, in device coordinates, to the edge table.
+	 */
+	private void addDeviceLine(double x1, double y1, double x2, double y2) {
+		if (y1 == y2 || !(Double.isFinite(x1) && Double.isFinite(y1) && Double.isFinite(x2) && Double.isFinite(y2)))
+			return;
+		double slope = (x2 - x1) / (y2 - y1);
+		if (y1 < y2)
+			addEdge(LINE, y1, y2, 1, x1, y1, slope, 0);
+		else
+			addEdge(LINE, y2, y1, -1, x1, y1, slope, 0);
+	}
+
+	/**
+	 * Continues the path at the given point, in device coordinates: connects it to the current point by a line
+	 * segment, as Java2D does for the segments of the drawing commands, or starts the path there.
+	 */
+	private void connectTo(double x, double y) {
+		if (!hasCurrentPoint) {
+			hasCurrentPoint = true;
+			firstX = x;
+			firstY = y;
+		} else
+			addDeviceLine(currentX, currentY, x, y);
+	}
+
+	/**
+	 * Adds the line segment from (X1, Y1) to (X2, Y2) to the path, connecting it to the path's current point, as the
+	 * {@code line} drawing command does (see {@code RoundedPolygon.getDrawingCommands()}).
+	 *
+	 * @mutates | this
+	 */
+	public void addLine(double x1, double y1, double x2, double y2) {
+		double xScale = transform.getXScale(), yScale = transform.getYScale();
+		double xOffset = transform.getXOffset(), yOffset = transform.getYOffset();
+		double startX = xScale * x1 + xOffset, startY = yScale * y1 + yOffset;
+		double endX = xScale * x2 + xOffset, endY = yScale * y2 + yOffset;
+		connectTo(startX, startY);
+		addDeviceLine(startX, startY, endX, endY);
+		currentX = endX;
+		currentY = endY;
+	}
+
+	/**
+	 * Adds the arc of the circle with center (X, Y) and the given radius that starts at the given angle and spans the
+	 * given angle extent, both in radians, to the path, connecting it to the path's current point, as the {@code arc}
+	 * drawing command does (see {@code RoundedPolygon.getDrawingCommands()}).
+	 *
+	 * @mutates | this
+	 */
+	public void addArc(double x, double y, double radius, double startAngle, double angleExtent) {
+		double xScale = transform.getXScale(), yScale = transform.getYScale();
+		double centerX = xScale * x + transform.getXOffset(), centerY = yScale * y + transform.getYOffset();
+		double xRadius = Math.abs(xScale * radius), yRadius = Math.abs(yScale * radius);
+		double startX = centerX + xScale * radius * Math.cos(startAngle);
+		double startY = centerY + yScale * radius * Math.sin(startAngle);
+		connectTo(startX, startY);
+		// Split the arc at the angles where it is at its top or bottom, that is, the odd multiples of PI/2, into pieces
+		// that are monotone in Y; on each piece, the arc is on one side of its center.
+		double direction = Math.signum(angleExtent);
+		double endAngle = startAngle + angleExtent;
+		double angle = startAngle;
+		double x1 = startX, y1 = startY;
+		while (direction != 0 && Double.isFinite(angle)) {
+			double split = direction > 0 ?
+					Math.floor((angle - Math.PI / 2) / Math.PI + 1) * Math.PI + Math.PI / 2 :
+					Math.ceil((angle - Math.PI / 2) / Math.PI - 1) * Math.PI + Math.PI / 2;
+			// Rounding may yield the split at which the previous piece ended.
+			if (direction * (split - angle) <= 0)
+				split += direction * Math.PI;
+			double next = direction * (endAngle - split) > 0 ? split : endAngle;
+			double x2 = centerX + xScale * radius * Math.cos(next);
+			double y2 = centerY + yScale * radius * Math.sin(next);
+			if (y1 != y2 && 0 < yRadius) {
+				double side = Math.signum(xScale * Math.cos((angle + next) / 2));
+				addEdge(ARC, Math.min(y1, y2), Math.max(y1, y2), y1 < y2 ? 1 : -1, centerX, centerY, side * xRadius, yRadius);
+			}
+			if (next == endAngle)
+				break;
+			angle = next;
+			x1 = x2;
+			y1 = y2;
+		}
+		currentX = centerX + xScale * radius * Math.cos(endAngle);
+		currentY = centerY + yScale * radius * Math.sin(endAngle);
+	}
+
+	/**
+	 * Discards the path without filling it.
+	 *
+	 * @mutates | this
+	 */
+	public void resetPath() {
+		edgeCount = 0;
+		hasCurrentPoint = false;
+	}
+
+	/**
+	 * Adds the outline of the given rounded polygon to the path, with the geometry described at
+	 * {@code RoundedPolygon.getDrawingCommands()}, reading its vertices in place, without creating any objects.
+	 */
+	private void addRoundedPolygon(RoundedPolygon polygon) {
+		int n = polygon.getVertexCount();
+		int radius = polygon.getRadius();
+		for (int index = 0; index < n; index++) {
+			int a = (index + n - 1) % n;
+			int c = (index + 1) % n;
+			double bx = polygon.getVertexX(index), by = polygon.getVertexY(index);
+			double baX = polygon.getVertexX(a) - bx, baY = polygon.getVertexY(a) - by;
+			double bcX = polygon.getVertexX(c) - bx, bcY = polygon.getVertexY(c) - by;
+			double baCenterX = bx + baX * 0.5, baCenterY = by + baY * 0.5;
+			double bcCenterX = bx + bcX * 0.5, bcCenterY = by + bcY * 0.5;
+			if (baX * bcY - baY * bcX == 0) {
+				addLine(bcCenterX, bcCenterY, bx, by);
+				addLine(bx, by, baCenterX, baCenterY);
+				continue;
+			}
+			double baSize = Math.sqrt(baX * baX + baY * baY), bcSize = Math.sqrt(bcX * bcX + bcY * bcY);
+			double baUnitX = baX / baSize, baUnitY = baY / baSize;
+			double bcUnitX = bcX / bcSize, bcUnitY = bcY / bcSize;
+			double bisectorX = baUnitX + bcUnitX, bisectorY = baUnitY + bcUnitY;
+			double bisectorSize = Math.sqrt(bisectorX * bisectorX + bisectorY * bisectorY);
+			bisectorX /= bisectorSize;
+			bisectorY /= bisectorSize;
+			double unitEdgeDistance = baUnitX * bisectorX + baUnitY * bisectorY;
+			double unitRadius = Math.abs(bisectorX * baUnitY - bisectorY * baUnitX);
+			double scaleFactor = Math.min(radius / unitRadius, Math.min(baSize, bcSize) / 2 / unitEdgeDistance);
+			double centerX = bx + bisectorX * scaleFactor, centerY = by + bisectorY * scaleFactor;
+			double cutoff = unitEdgeDistance * scaleFactor;
+			double baStartX = bx + baUnitX * cutoff, baStartY = by + baUnitY * cutoff;
+			double bcStartX = bx + bcUnitX * cutoff, bcStartY = by + bcUnitY * cutoff;
+			double baAngle = Math.atan2(baStartY - centerY, baStartX - centerX);
+			double bcAngle = Math.atan2(bcStartY - centerY, bcStartX - centerX);
+			double angleExtent = bcAngle - baAngle;
+			if (angleExtent < -Math.PI)
+				angleExtent += 2 * Math.PI;
+			else if (Math.PI < angleExtent)
+				angleExtent -= 2 * Math.PI;
+			addLine(baCenterX, baCenterY, baStartX, baStartY);
+			addArc(centerX, centerY, unitRadius * scaleFactor, baAngle, angleExtent);
+			addLine(bcStartX, bcStartY, bcCenterX, bcCenterY);
+		}
+	}
+
+	/**
+	 * Fills the given rounded polygon, with its color, transformed by {@code getTransform()}. Any path being built
+	 * is discarded. Draws nothing if the polygon has fewer than three vertices.
+	 *
+	 * @throws IllegalArgumentException if {@code polygon} is null
+	 *    | polygon == null
+	 * @inspects | polygon
+	 * @mutates | this
+	 */
+	public void fill(RoundedPolygon polygon) {
+		if (polygon == null)
+			throw new IllegalArgumentException("polygon is null");
+		resetPath();
+		if (polygon.getVertexCount() < 3)
+			return;
+		addRoundedPolygon(polygon);
+		fillPath(polygon.getColor().getRGB());
+	}
+
+	/**
+	 * Executes the given drawing commands (see {@code RoundedPolygon.getDrawingCommands()} and
+	 * {@code Transform.getPushCommands()}) on this rasterizer, with the same semantics as Java2D, starting from
+	 * {@code getTransform()}, which is restored afterwards.
+	 *
+	 * @throws IllegalArgumentException if {@code commands} is null
+	 *    | commands == null
+	 * @throws IllegalArgumentException if the commands are malformed; the commands before the malformed one have been
+	 *    executed
+	 * @mutates | this
+	 * @post | getTransform() == old(getTransform())
+	 */
+	public void execute(String commands) {
+		if (commands == null)
+			throw new IllegalArgumentException("commands is null");
+		Transform initialTransform = transform;
+		ArrayDeque<Transform> stack = new ArrayDeque<>();
+		String[] tokens = commands.split("\\s+");
+		int[] position = {0};
+		try {
+			while (position[0] < tokens.length) {
+				String command = tokens[position[0]++];
+				switch (command) {
+				case "": break;
+				case "line":
+					addLine(argument(tokens, position), argument(tokens, position), argument(tokens, position), argument(tokens, position));
+					break;
+				case "arc":
+					addArc(argument(tokens, position), argument(tokens, position), argument(tokens, position),
+							argument(tokens, position), argument(tokens, position));
+					break;
+				case "fill": {
+					int red = (int)argument(tokens, position), green = (int)argument(tokens, position), blue = (int)argument(tokens, position);
+					if ((red | green | blue) >>> 8 != 0)
+						throw new IllegalArgumentException("Invalid color component");
+					fillPath(0xFF000000 | red << 16 | green << 8 | blue);
+					break;
+				}
+				case "pushTranslate":
+					stack.push(transform);
+					transform = new Transform(1, 1, argument(tokens, position), argument(tokens, position)).then(transform);
+					break;
+				case "pushScale":
+					stack.push(transform);
+					transform = new Transform(argument(tokens, position), argument(tokens, position), 0, 0).then(transform);
+					break;
+				case "popTransform":
+					if (stack.isEmpty())
+						throw new IllegalArgumentException("popTransform without a matching push");
+					transform = stack.pop();
+					break;
+				default: throw new IllegalArgumentException("No such drawing command: '" + command + "'");
+				}
+			}
+		} finally {
+			transform = initialTransform;
+			resetPath();
+		}
+	}
+
+	private static double argument(String[] tokens, int[] position) {
+		if (position[0] == tokens.length)
+			throw new IllegalArgumentException("Unexpected end of drawing commands text: argument expected");
+		try {
+			return Double.parseDouble(tokens[position[0]++]);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid drawing command argument: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Closes the path, fills it with the given non-premultiplied ARGB color, and discards it.
+	 *
+	 * @mutates | this
+	 */
+	public void fillPath(int argb) {
+		if (hasCurrentPoint)
+			addDeviceLine(currentX, currentY, firstX, firstY);
+		try {
+			if (edgeCount > 0 && argb >>> 24 != 0)
+				fillEdges(argb);
+		} finally {
+			resetPath();
+		}
+	}
+
+	private double crossingX(int e, double y) {
+		if (edges[e + 3] == LINE)
+			return edges[e + 4] + (y - edges[e + 5]) * edges[e + 6];
+		double dy = (y - edges[e + 5]) / edges[e + 7];
+		return edges[e + 4] + edges[e + 6] * Math.sqrt(Math.max(0, 1 - dy * dy));
+	}
+
+	private void fillEdges(int argb) {
+		double top = Double.POSITIVE_INFINITY, bottom = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < edgeCount; i++) {
+			top = Math.min(top, edges[i * EDGE_SIZE]);
+			bottom = Math.max(bottom, edges[i * EDGE_SIZE + 1]);
+		}
+		int firstRow = (int)Math.max(0, Math.floor(top));
+		int endRow = (int)Math.min(height, Math.ceil(bottom));
+		if (endRow <= firstRow)
+			return;
+		// The edge table: for each row, the list of the edges that become active on it, linked through next.
+		int[] rowHeads = new int[endRow - firstRow];
+		Arrays.fill(rowHeads, -1);
+		int[] next = new int[edgeCount];
+		for (int i = 0; i < edgeCount; i++) {
+			if (edges[i * EDGE_SIZE + 1] <= firstRow || endRow <= edges[i * EDGE_SIZE])
+				continue;
+			int row = (int)Math.max(firstRow, Math.floor(edges[i * EDGE_SIZE])) - firstRow;
+			next[i] = rowHeads[row];
+			rowHeads[row] = i;
+		}
+		int activeCount = 0;
+		int samples = antialiased ? SUBSAMPLES : 1;
+		float weight = 1f / samples;
+		for (int row = firstRow; row < endRow; row++) {
+			for (int i = rowHeads[row - firstRow]; i != -1; i = next[i]) {
+				if (active.length == activeCount) {
+					active = Arrays.copyOf(active, 2 * activeCount);
+					crossingXs = new double[active.length];
+					crossingWindings = new int[active.length];
+				}
+				active[activeCount++] = i * EDGE_SIZE;
+			}
+			int minX = width, maxX = -1;
+			for (int sample = 0; sample < samples; sample++) {
+				double y = row + (sample + 0.5) / samples;
+				int crossingCount = 0;
+				for (int i = 0; i < activeCount; i++) {
+					int e = active[i];
+					if (edges[e] <= y && y < edges[e + 1]) {
+						double x = crossingX(e, y);
+						int winding = (int)edges[e + 2];
+						// Insertion sort; the crossings are few, and mostly in order from one scanline to the next.
+						int j = crossingCount++;
+						while (j > 0 && x < crossingXs[j - 1]) {
+							crossingXs[j] = crossingXs[j - 1];
+							crossingWindings[j] = crossingWindings[j - 1];
+							j--;
+						}
+						crossingXs[j] = x;
+						crossingWindings[j] = winding;
+					}
+				}
+				int winding = 0;
+				for (int i = 0; i < crossingCount; i++) {
+					int oldWinding = winding;
+					winding += crossingWindings[i];
+					if (oldWinding != 0 || winding == 0)
+						continue;
+					// A span starts at crossing i; find the crossing where it ends.
+					int j = i + 1;
+					for (; j < crossingCount; j++) {
+						winding += crossingWindings[j];
+						if (winding == 0)
+							break;
+					}
+					if (j == crossingCount)
+						break;
+					double left = Math.max(0, crossingXs[i]), right = Math.min(width, crossingXs[j]);
+					i = j;
+					if (right <= left)
+						continue;
+					if (antialiased) {
+						int leftPixel = (int)left, rightPixel = (int)right;
+						if (leftPixel == rightPixel)
+							coverage[leftPixel] += (float)(right - left) * weight;
+						else {
+							coverage[leftPixel] += (float)(leftPixel + 1 - left) * weight;
+							runs[leftPixel + 1] += weight;
+							runs[rightPixel] -= weight;
+							if (rightPixel < width)
+								coverage[rightPixel] += (float)(right - rightPixel) * weight;
+						}
+						minX = Math.min(minX, leftPixel);
+						maxX = Math.max(maxX, Math.min(width - 1, rightPixel));
+					} else {
+						int leftPixel = (int)Math.ceil(left - 0.5), rightPixel = (int)Math.ceil(right - 0.5);
+						int base = offset + row * stride;
+						for (int x = leftPixel; x < rightPixel; x++)
+							pixels[base + x] = blend(pixels[base + x], argb, 1);
+					}
+				}
+			}
+			if (antialiased && minX <= maxX) {
+				int base = offset + row * stride;
+				boolean opaque = argb >>> 24 == 255;
+				float run = 0;
+				for (int x = minX; x <= maxX; x++) {
+					run += runs[x];
+					float cover = coverage[x] + run;
+					if (opaque && cover > 0.999f)
+						pixels[base + x] = argb;
+					else if (cover > 0.001f)
+						pixels[base + x] = blend(pixels[base + x], argb, Math.min(1, cover));
+				}
+				Arrays.fill(coverage, minX, maxX + 1, 0);
+				Arrays.fill(runs, minX, maxX + 2, 0);
+			}
+			// Remove the edges that end on this row.
+			int kept = 0;
+			for (int i = 0; i < activeCount; i++)
+				if (row + 1 < edges[active[i] + 1])
+					active[kept++] = active[i];
+			activeCount = kept;
+		}
+	}
+
+	/**
+	 * Returns the given destination pixel with the given source color, whose alpha is multiplied by the given
+	 * coverage, composited over it.
+	 */
+	private static int blend(int destination, int source, float cover) {
+		int sourceAlpha = source >>> 24;
+		if (cover >= 1 && sourceAlpha == 255)
+			return source;
+		if (destination >>> 24 == 255) {
+			// Over an opaque pixel, the result is opaque, and each channel is a weighted average.
+			int a = Math.round(sourceAlpha * cover);
+			int result = 0xFF000000;
+			for (int shift = 0; shift < 24; shift += 8) {
+				int channel = (source >>> shift & 0xFF) * a + (destination >>> shift & 0xFF) * (255 - a) + 128;
+				result |= (channel + (channel >>> 8)) >>> 8 << shift;
+			}
+			return result;
+		}
+		double a = sourceAlpha / 255.0 * cover;
+		double d = (destination >>> 24) / 255.0 * (1 - a);
+		double outAlpha = a + d;
+		if (outAlpha <= 0)
+			return 0;
+		int result = (int)Math.round(outAlpha * 255) << 24;
+		for (int shift = 0; shift < 24; shift += 8) {
+			double channel = ((source >>> shift & 0xFF) * a + (destination >>> shift & 0xFF) * d) / outAlpha;
+			result |= (int)Math.round(channel) << shift;
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,212 @@
+package drawit;
+
+import java.awt.Color;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Each instance of this class reads numbers, colors and rounded polygons from a byte stream written by a
+ * {@code ShapeBinaryWriter} (which describes the encoding), through a buffer of its own. It may read ahead of the
+ * data it returns, so the underlying stream should not be read by others while it is in use.
+ *
+ * <p>Reading fails with an {@code IOException} if the stream ends too early or if the data is not a valid encoding.
+ */
+public final class ShapeBinaryReader {
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private final InputStream in;
+	/**
+	 * @representationObject
+	 */
+	private final byte[] buffer = new byte[BUFFER_SIZE];
+	/**
+	 * The bytes at indices {@code position} (inclusive) to {@code limit} (exclusive) of {@code buffer} have been
+	 * read from {@code in} but not yet returned.
+	 *
+	 * @invar | 0 <= position && position <= limit && limit <= BUFFER_SIZE
+	 */
+	private int position;
+	private int limit;
+
+	/**
+	 * Initializes this binary reader so that it reads from the given byte stream.
+	 *
+	 * @throws IllegalArgumentException if {@code in} is null
+	 *    | in == null
+	 */
+	public ShapeBinaryReader(InputStream in) {
+		if (in == null)
+			throw new IllegalArgumentException("in is null");
+		this.in = in;
+	}
+
+	/**
+	 * Returns the number whose zigzag encoding is the given number (see {@code ShapeBinaryWriter.zigzagEncode}).
+	 *
+	 * @post | ShapeBinaryWriter.zigzagEncode(result) == value
+	 */
+	public static int zigzagDecode(int value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	/**
+	 * Returns the next byte, as a number between 0 and 255.
+	 *
+	 * @throws EOFException if the stream has ended
+	 */
+	public int readByte() throws IOException {
+		if (position == limit) {
+			int count = in.read(buffer, 0, BUFFER_SIZE);
+			if (count <= 0)
+				throw new EOFException("The binary data ends unexpectedly");
+			position = 0;
+			limit = count;
+		}
+		return buffer[position++] & 0xff;
+	}
+
+	/**
+	 * Reads the given number of bytes into a new array.
+	 *
+	 * @throws IllegalArgumentException if {@code count} is negative
+	 *    | count < 0
+	 * @throws EOFException if the stream ends before {@code count} bytes have been read
+	 * @creates | result
+	 */
+	public byte[] readBytes(int count) throws IOException {
+		if (count < 0)
+			throw new IllegalArgumentException("count is negative");
+		byte[] result = new byte[count];
+		int done = Math.min(count, limit - position);
+		System.arraycopy(buffer, position, result, 0, done);
+		position += done;
+		while (done < count) {
+			int read = in.read(result, done, count - done);
+			if (read <= 0)
+				throw new EOFException("The binary data ends unexpectedly");
+			done += read;
+		}
+		return result;
+	}
+
+	/**
+	 * Reads a varint of at most five bytes, and returns it as an int; numbers above {@code Integer.MAX_VALUE} are
+	 * returned as negative numbers.
+	 *
+	 * @throws IOException if the varint is longer than five bytes
+	 */
+	public int readVarInt() throws IOException {
+		int result = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			int b = readByte();
+			result |= (b & 0x7f) << shift;
+			if ((b & 0x80) == 0)
+				return result;
+		}
+		throw new IOException("Malformed varint");
+	}
+
+	/**
+	 * Reads a varint that encodes a count or a size.
+	 *
+	 * @throws IOException if the number is not a non-negative int
+	 */
+	public int readCount() throws IOException {
+		int result = readVarInt();
+		if (result < 0)
+			throw new IOException("Count out of range: " + Integer.toUnsignedString(result));
+		return result;
+	}
+
+	/**
+	 * Reads the zigzag encoding of a number as a varint, and returns the number.
+	 */
+	public int readSignedVarInt() throws IOException {
+		return zigzagDecode(readVarInt());
+	}
+
+	/**
+	 * Reads a number written as four bytes, most significant first.
+	 */
+	public int readInt() throws IOException {
+		int result = 0;
+		for (int i = 0; i < 4; i++)
+			result = result << 8 | readByte();
+		return result;
+	}
+
+	/**
+	 * Reads a number written as eight bytes, most significant first.
+	 */
+	public long readLong() throws IOException {
+		long result = 0;
+		for (int i = 0; i < 8; i++)
+			result = result << 8 | readByte();
+		return result;
+	}
+
+	public double readDouble() throws IOException {
+		return Double.longBitsToDouble(readLong());
+	}
+
+	/**
+	 * Reads a color written as four bytes: alpha, red, green and blue.
+	 *
+	 * @creates | result
+	 */
+	public Color readColor() throws IOException {
+		int argb = 0;
+		for (int i = 0; i < 4; i++)
+			argb = argb << 8 | readByte();
+		return new Color(argb, true);
+	}
+
+	/**
+	 * Reads vertices written as their count followed by the zigzag varints of the differences between consecutive
+	 * coordinates.
+	 *
+	 * @creates | result
+	 */
+	public IntPoint[] readVertices() throws IOException {
+		int count = readCount();
+		// Do not trust the count for the allocation: a corrupt count would otherwise exhaust the memory before the
+		// stream ends.
+		IntPoint[] result = new IntPoint[Math.min(count, BUFFER_SIZE)];
+		int x = 0;
+		int y = 0;
+		for (int i = 0; i < count; i++) {
+			x += readSignedVarInt();
+			y += readSignedVarInt();
+			if (i == result.length)
+				result = Arrays.copyOf(result, (int)Math.min(count, 2L * result.length));
+			result[i] = new IntPoint(x, y);
+		}
+		return result;
+	}
+
+	/**
+	 * Reads the vertices, the radius and the color of a rounded polygon, and returns a new rounded polygon that has
+	 * them.
+	 *
+	 * @throws IOException if the vertices do not define a proper polygon, or the radius is negative
+	 * @creates | result
+	 */
+	public RoundedPolygon readShape() throws IOException {
+		IntPoint[] vertices = readVertices();
+		int radius = readCount();
+		Color color = readColor();
+		RoundedPolygon result = new RoundedPolygon();
+		try {
+			result.setVertices(vertices);
+		} catch (IllegalArgumentException e) {
+			throw new IOException("Invalid shape: " + e.getMessage(), e);
+		}
+		result.setRadius(radius);
+		result.setColor(color);
+		return result;
+	}
+
+}
@@ -0,0 +1,225 @@
+package drawit;
+
+import java.awt.Color;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Each instance of this class writes the compact binary encoding of numbers, colors and rounded polygons to a byte
+ * stream, through a buffer of its own; it is read back by {@code ShapeBinaryReader}.
+ *
+ * <p>Non-negative integers are written as varints: seven bits per byte, least significant group first, with the high
+ * bit of each byte set if more bytes follow. Signed integers are first mapped to non-negative ones by zigzag encoding
+ * (0, -1, 1, -2, ... become 0, 1, 2, 3, ...), so that numbers of small magnitude take few bytes whatever their sign.
+ * A rounded polygon is written as its vertex count, the zigzag varints of the differences between the coordinates of
+ * each vertex and those of the previous vertex (the first vertex is relative to the origin), its radius as a varint,
+ * and its color as four bytes: alpha, red, green and blue. Since neighbouring vertices are usually close to each
+ * other, most coordinates take one or two bytes.
+ *
+ * <p>The bytes are written to the underlying stream when the buffer is full and when {@code flush} is called; the
+ * underlying stream is flushed, but never closed, by {@code flush}.
+ */
+public final class ShapeBinaryWriter implements Flushable {
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private final OutputStream out;
+	/**
+	 * @representationObject
+	 */
+	private final byte[] buffer = new byte[BUFFER_SIZE];
+	/**
+	 * The number of bytes in {@code buffer} that are yet to be written to {@code out}.
+	 */
+	private int length;
+	/**
+	 * The number of bytes written to {@code out} so far.
+	 */
+	private long writtenCount;
+
+	/**
+	 * Initializes this binary writer so that it writes to the given byte stream.
+	 *
+	 * @throws IllegalArgumentException if {@code out} is null
+	 *    | out == null
+	 */
+	public ShapeBinaryWriter(OutputStream out) {
+		if (out == null)
+			throw new IllegalArgumentException("out is null");
+		this.out = out;
+	}
+
+	private void reserve(int count) throws IOException {
+		if (BUFFER_SIZE - length < count) {
+			out.write(buffer, 0, length);
+			writtenCount += length;
+			length = 0;
+		}
+	}
+
+	/**
+	 * Returns the number of bytes written by this binary writer so far, including the bytes that are still buffered;
+	 * this is the position, relative to the start of the output of this writer, of the next byte to be written.
+	 */
+	public long getByteCount() { return writtenCount + length; }
+
+	/**
+	 * Returns the zigzag encoding of the given number: 0, -1, 1, -2, ... are mapped to 0, 1, 2, 3, ..., read as
+	 * unsigned numbers.
+	 *
+	 * @post | ShapeBinaryReader.zigzagDecode(result) == value
+	 */
+	public static int zigzagEncode(int value) {
+		return (value << 1) ^ (value >> 31);
+	}
+
+	public void writeByte(int value) throws IOException {
+		reserve(1);
+		buffer[length++] = (byte)value;
+	}
+
+	/**
+	 * Writes the given bytes as they are.
+	 *
+	 * @throws IllegalArgumentException if {@code bytes} is null
+	 *    | bytes == null
+	 */
+	public void writeBytes(byte[] bytes) throws IOException {
+		if (bytes == null)
+			throw new IllegalArgumentException("bytes is null");
+		if (BUFFER_SIZE < bytes.length) {
+			reserve(BUFFER_SIZE);
+			out.write(bytes);
+			writtenCount += bytes.length;
+			return;
+		}
+		reserve(bytes.length);
+		System.arraycopy(bytes, 0, buffer, length, bytes.length);
+		length += bytes.length;
+	}
+
+	/**
+	 * Writes the given number, read as an unsigned number, as a varint of one to five bytes.
+	 */
+	public void writeVarInt(int value) throws IOException {
+		reserve(5);
+		while ((value & ~0x7f) != 0) {
+			buffer[length++] = (byte)(value & 0x7f | 0x80);
+			value >>>= 7;
+		}
+		buffer[length++] = (byte)value;
+	}
+
+	/**
+	 * Writes the zigzag encoding of the given number as a varint.
+	 */
+	public void writeSignedVarInt(int value) throws IOException {
+		writeVarInt(zigzagEncode(value));
+	}
+
+	/**
+	 * Writes the given number as four bytes, most significant first.
+	 */
+	public void writeInt(int value) throws IOException {
+		reserve(4);
+		for (int shift = 24; 0 <= shift; shift -= 8)
+			buffer[length++] = (byte)(value >>> shift);
+	}
+
+	/**
+	 * Writes the given number as eight bytes, most significant first.
+	 */
+	public void writeLong(long value) throws IOException {
+		reserve(8);
+		for (int shift = 56; 0 <= shift; shift -= 8)
+			buffer[length++] = (byte)(value >>> shift);
+	}
+
+	/**
+	 * Writes the IEEE 754 bit pattern of the given number as eight bytes.
+	 */
+	public void writeDouble(double value) throws IOException {
+		writeLong(Double.doubleToLongBits(value));
+	}
+
+	/**
+	 * Writes the given color as four bytes: alpha, red, green and blue.
+	 *
+	 * @throws IllegalArgumentException if {@code color} is null
+	 *    | color == null
+	 */
+	public void writeColor(Color color) throws IOException {
+		if (color == null)
+			throw new IllegalArgumentException("color is null");
+		int argb = color.getRGB();
+		reserve(4);
+		for (int shift = 24; 0 <= shift; shift -= 8)
+			buffer[length++] = (byte)(argb >>> shift);
+	}
+
+	/**
+	 * Writes the given vertices as their count followed by the zigzag varints of the differences between consecutive
+	 * coordinates.
+	 *
+	 * @throws IllegalArgumentException if {@code vertices} is null
+	 *    | vertices == null
+	 * @throws IllegalArgumentException if any element of {@code vertices} is null
+	 *    | Arrays.stream(vertices).anyMatch(v -> v == null)
+	 */
+	public void writeVertices(IntPoint[] vertices) throws IOException {
+		if (vertices == null)
+			throw new IllegalArgumentException("vertices is null");
+		writeVarInt(vertices.length);
+		int x = 0;
+		int y = 0;
+		for (IntPoint vertex : vertices) {
+			if (vertex == null)
+				throw new IllegalArgumentException("vertices has null elements");
+			// The differences may overflow; since decoding adds them back with the same wrap-around arithmetic,
+			// the coordinates are restored exactly.
+			writeSignedVarInt(vertex.getX() - x);
+			writeSignedVarInt(vertex.getY() - y);
+			x = vertex.getX();
+			y = vertex.getY();
+		}
+	}
+
+	/**
+	 * Writes the vertices, the radius and the color of the given rounded polygon.
+	 *
+	 * @throws IllegalArgumentException if {@code polygon} is null
+	 *    | polygon == null
+	 */
+	public void writeShape(RoundedPolygon polygon) throws IOException {
+		if (polygon == null)
+			throw new IllegalArgumentException("polygon is null");
+		// The vertices are read in place, as by writeVertices, so that no IntPoint objects are created.
+		int count = polygon.getVertexCount();
+		writeVarInt(count);
+		int x = 0;
+		int y = 0;
+		for (int i = 0; i < count; i++) {
+			int vertexX = polygon.getVertexX(i);
+			int vertexY = polygon.getVertexY(i);
+			writeSignedVarInt(vertexX - x);
+			writeSignedVarInt(vertexY - y);
+			x = vertexX;
+			y = vertexY;
+		}
+		writeVarInt(polygon.getRadius());
+		writeColor(polygon.getColor());
+	}
+
+	/**
+	 * Writes the buffered bytes to the underlying stream, and flushes it.
+	 */
+	@Override
+	public void flush() throws IOException {
+		out.write(buffer, 0, length);
+		writtenCount += length;
+		length = 0;
+		out.flush();
+	}
+
+}
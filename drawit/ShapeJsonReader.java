@@ -0,0 +1,211 @@
+package drawit;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Each instance of this class reads JSON text from a character stream, through a buffer of its own, one token at a
+ * time; it reads points and colors in the form written by {@code ShapeJsonWriter}, with their members in any order.
+ * It supports the subset of JSON used by the shape group exporters: objects, arrays, integers, and member names
+ * without escape sequences. Whitespace between tokens is skipped.
+ *
+ * <p>Reading fails with an {@code IOException} if the stream ends too early or if the text is not in the expected
+ * form; the message gives the position, counted in characters, at which the problem was detected.
+ */
+public final class ShapeJsonReader {
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private final Reader in;
+	/**
+	 * @representationObject
+	 */
+	private final char[] buffer = new char[BUFFER_SIZE];
+	/**
+	 * The characters at indices {@code position} (inclusive) to {@code limit} (exclusive) of {@code buffer} have been
+	 * read from {@code in} but not yet consumed.
+	 *
+	 * @invar | 0 <= position && position <= limit && limit <= BUFFER_SIZE
+	 */
+	private int position;
+	private int limit;
+	/**
+	 * The number of characters consumed before those in {@code buffer}.
+	 */
+	private long consumedBefore;
+
+	/**
+	 * Initializes this JSON reader so that it reads from the given character stream.
+	 *
+	 * @throws IllegalArgumentException if {@code in} is null
+	 *    | in == null
+	 */
+	public ShapeJsonReader(Reader in) {
+		if (in == null)
+			throw new IllegalArgumentException("in is null");
+		this.in = in;
+	}
+
+	/**
+	 * Returns an exception that reports the given problem at the current position.
+	 */
+	public IOException error(String message) {
+		return new IOException("Malformed JSON at character " + (consumedBefore + position) + ": " + message);
+	}
+
+	/**
+	 * Returns the next character without consuming it, or -1 if the stream has ended.
+	 */
+	private int peekChar() throws IOException {
+		if (position == limit) {
+			consumedBefore += limit;
+			position = 0;
+			limit = 0;
+			int count = in.read(buffer, 0, BUFFER_SIZE);
+			if (count <= 0)
+				return -1;
+			limit = count;
+		}
+		return buffer[position];
+	}
+
+	/**
+	 * Skips whitespace, and returns the next character without consuming it, or -1 if the stream has ended.
+	 */
+	public int peek() throws IOException {
+		for (;;) {
+			int c = peekChar();
+			if (c != ' ' && c != '\t' && c != '\n' && c != '\r')
+				return c;
+			position++;
+		}
+	}
+
+	/**
+	 * Skips whitespace, and consumes the next character if it is the given one.
+	 *
+	 * @return whether the character was consumed
+	 */
+	public boolean tryConsume(char c) throws IOException {
+		if (peek() != c)
+			return false;
+		position++;
+		return true;
+	}
+
+	/**
+	 * Skips whitespace, and consumes the next character, which must be the given one.
+	 *
+	 * @throws IOException if the next character is not the given one
+	 */
+	public void expect(char c) throws IOException {
+		if (!tryConsume(c))
+			throw error("expected '" + c + "'");
+	}
+
+	/**
+	 * Throws if there is anything but whitespace left in the stream.
+	 */
+	public void expectEnd() throws IOException {
+		if (peek() != -1)
+			throw error("expected the end of the text");
+	}
+
+	/**
+	 * Reads an object member name and the colon that follows it, and returns the name.
+	 *
+	 * @throws IOException if the next token is not a string without escape sequences followed by a colon
+	 */
+	public String readName() throws IOException {
+		expect('"');
+		StringBuilder name = new StringBuilder();
+		for (;;) {
+			int c = peekChar();
+			if (c == -1 || c == '\\')
+				throw error("unsupported or unterminated member name");
+			position++;
+			if (c == '"')
+				break;
+			name.append((char)c);
+		}
+		expect(':');
+		return name.toString();
+	}
+
+	/**
+	 * Reads an integer.
+	 *
+	 * @throws IOException if the next token is not an integer, or the integer is out of the range of {@code int}
+	 */
+	public int readInt() throws IOException {
+		boolean negative = tryConsume('-');
+		long result = 0;
+		int digits = 0;
+		for (;;) {
+			int c = peekChar();
+			if (c < '0' || '9' < c)
+				break;
+			position++;
+			result = result * 10 + (c - '0');
+			if (++digits > 10)
+				throw error("integer out of range");
+		}
+		if (digits == 0)
+			throw error("expected an integer");
+		if (negative)
+			result = -result;
+		if (result < Integer.MIN_VALUE || Integer.MAX_VALUE < result)
+			throw error("integer out of range");
+		return (int)result;
+	}
+
+	/**
+	 * Reads an object whose members are the given names, in any order, each with an integer value, and returns the
+	 * values in the order of the names.
+	 */
+	private int[] readIntObject(String... names) throws IOException {
+		int[] result = new int[names.length];
+		boolean[] seen = new boolean[names.length];
+		expect('{');
+		for (int count = 0; count < names.length; count++) {
+			if (count > 0)
+				expect(',');
+			String name = readName();
+			int index = 0;
+			while (index < names.length && !names[index].equals(name))
+				index++;
+			if (index == names.length || seen[index])
+				throw error("unexpected member \"" + name + "\"");
+			seen[index] = true;
+			result[index] = readInt();
+		}
+		expect('}');
+		return result;
+	}
+
+	/**
+	 * Reads a point: an object with members {@code x} and {@code y}.
+	 *
+	 * @creates | result
+	 */
+	public IntPoint readPoint() throws IOException {
+		int[] values = readIntObject("x", "y");
+		return new IntPoint(values[0], values[1]);
+	}
+
+	/**
+	 * Reads a color: an object with members {@code red}, {@code green} and {@code blue}.
+	 *
+	 * @throws IOException if a component is not between 0 and 255
+	 * @creates | result
+	 */
+	public Color readColor() throws IOException {
+		int[] values = readIntObject("red", "green", "blue");
+		for (int value : values)
+			if (value < 0 || 255 < value)
+				throw error("color component out of range");
+		return new Color(values[0], values[1], values[2]);
+	}
+
+}
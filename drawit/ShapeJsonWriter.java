@@ -0,0 +1,173 @@
+package drawit;
+
+import java.awt.Color;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Each instance of this class writes JSON text to a character stream, through a buffer of its own; it formats
+ * numbers without creating any objects. It writes points, colors and rounded polygons as the JSON text of the plain
+ * data produced for them by the shape group exporters: for example, a point is written as {@code {"x":1,"y":2}}.
+ *
+ * <p>The text is written to the underlying stream when the buffer is full and when {@code flush} is called; the
+ * underlying stream is flushed, but never closed, by {@code flush}.
+ */
+public final class ShapeJsonWriter implements Flushable {
+
+	private static final int BUFFER_SIZE = 8192;
+	private static final String MIN_INT = Integer.toString(Integer.MIN_VALUE);
+
+	private final Writer out;
+	/**
+	 * @representationObject
+	 */
+	private final char[] buffer = new char[BUFFER_SIZE];
+	/**
+	 * The number of characters in {@code buffer} that are yet to be written to {@code out}.
+	 */
+	private int length;
+
+	/**
+	 * Initializes this JSON writer so that it writes to the given character stream.
+	 *
+	 * @throws IllegalArgumentException if {@code out} is null
+	 *    | out == null
+	 */
+	public ShapeJsonWriter(Writer out) {
+		if (out == null)
+			throw new IllegalArgumentException("out is null");
+		this.out = out;
+	}
+
+	private void reserve(int count) throws IOException {
+		if (BUFFER_SIZE - length < count) {
+			out.write(buffer, 0, length);
+			length = 0;
+		}
+	}
+
+	/**
+	 * Writes the given text as is; it is meant for JSON punctuation and for quoted member names that need no escaping,
+	 * such as {@code "{\"subgroups\":["}.
+	 *
+	 * @throws IllegalArgumentException if {@code text} is null
+	 *    | text == null
+	 */
+	public void write(String text) throws IOException {
+		if (text == null)
+			throw new IllegalArgumentException("text is null");
+		if (BUFFER_SIZE < text.length()) {
+			reserve(BUFFER_SIZE);
+			out.write(text);
+			return;
+		}
+		reserve(text.length());
+		text.getChars(0, text.length(), buffer, length);
+		length += text.length();
+	}
+
+	/**
+	 * Writes the decimal representation of the given number.
+	 */
+	public void writeInt(int value) throws IOException {
+		if (value == Integer.MIN_VALUE) {
+			write(MIN_INT);
+			return;
+		}
+		reserve(11);
+		if (value < 0) {
+			buffer[length++] = '-';
+			value = -value;
+		}
+		int digits = 1;
+		for (int v = value; v >= 10; v /= 10)
+			digits++;
+		for (int i = length + digits - 1; i >= length; i--) {
+			buffer[i] = (char)('0' + value % 10);
+			value /= 10;
+		}
+		length += digits;
+	}
+
+	/**
+	 * @throws IllegalArgumentException if {@code point} is null
+	 *    | point == null
+	 */
+	public void writePoint(IntPoint point) throws IOException {
+		if (point == null)
+			throw new IllegalArgumentException("point is null");
+		write("{\"x\":");
+		writeInt(point.getX());
+		write(",\"y\":");
+		writeInt(point.getY());
+		write("}");
+	}
+
+	/**
+	 * @throws IllegalArgumentException if {@code color} is null
+	 *    | color == null
+	 */
+	public void writeColor(Color color) throws IOException {
+		if (color == null)
+			throw new IllegalArgumentException("color is null");
+		write("{\"red\":");
+		writeInt(color.getRed());
+		write(",\"green\":");
+		writeInt(color.getGreen());
+		write(",\"blue\":");
+		writeInt(color.getBlue());
+		write("}");
+	}
+
+	/**
+	 * @throws IllegalArgumentException if {@code polygon} is null
+	 *    | polygon == null
+	 */
+	public void writeShape(RoundedPolygon polygon) throws IOException {
+		writeShape(polygon, Transform.IDENTITY);
+	}
+
+	/**
+	 * Writes the given rounded polygon with the images of its vertices under the given transform as its vertices.
+	 *
+	 * @throws IllegalArgumentException if {@code polygon} is null
+	 *    | polygon == null
+	 * @throws IllegalArgumentException if {@code transform} is null
+	 *    | transform == null
+	 */
+	public void writeShape(RoundedPolygon polygon, Transform transform) throws IOException {
+		if (polygon == null)
+			throw new IllegalArgumentException("polygon is null");
+		if (transform == null)
+			throw new IllegalArgumentException("transform is null");
+		write("{\"vertices\":[");
+		// The vertices are read in place, so that writing a shape whose vertices are stored off-heap creates no objects.
+		int count = polygon.getVertexCount();
+		for (int i = 0; i < count; i++) {
+			if (i > 0)
+				write(",");
+			write("{\"x\":");
+			writeInt(transform.applyToX(polygon.getVertexX(i)));
+			write(",\"y\":");
+			writeInt(transform.applyToY(polygon.getVertexY(i)));
+			write("}");
+		}
+		write("],\"radius\":");
+		writeInt(polygon.getRadius());
+		write(",\"color\":");
+		writeColor(polygon.getColor());
+		write("}");
+	}
+
+	/**
+	 * Writes the buffered text to the underlying stream, and flushes it.
+	 */
+	@Override
+	public void flush() throws IOException {
+		out.write(buffer, 0, length);
+		length = 0;
+		out.flush();
+	}
+
+}
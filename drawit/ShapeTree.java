@@ -0,0 +1,61 @@
+package drawit;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+
+/**
+ * An instance of this interface gives read access to the shape group graphs of one shape group representation, so
+ * that algorithms over such graphs, such as {@code ShapeTreeSpliterator} and {@code ShapeTreeExporter}, are written
+ * once for all representations. A graph consists of leaf groups, each of which contains a shape, and non-leaf groups,
+ * each of which has a non-empty sequence of subgroups, in drawing order, frontmost first.
+ *
+ * @param <G> the type of the shape groups
+ */
+public interface ShapeTree<G> {
+
+	/**
+	 * Returns the shape of the given shape group if it is a leaf group, or {@code null} if it is a non-leaf group.
+	 *
+	 * @pre | group != null
+	 */
+	RoundedPolygon getShape(G group);
+
+	/**
+	 * Returns the transform that maps the given shape group's inner coordinate system, in which its shape or its
+	 * subgroups are expressed, to its outer coordinate system.
+	 *
+	 * @pre | group != null
+	 * @post | result != null
+	 */
+	Transform getTransform(G group);
+
+	/**
+	 * Returns an iterator over the subgroups of the given non-leaf group, frontmost first.
+	 *
+	 * @pre | group != null && getShape(group) == null
+	 * @creates | result
+	 */
+	Iterator<? extends G> subgroups(G group);
+
+	/**
+	 * Returns an iterator over the subgroups of the given non-leaf group, backmost first. Representations that can
+	 * traverse their subgroups backwards override this method, which copies the subgroups.
+	 *
+	 * @pre | group != null && getShape(group) == null
+	 * @creates | result
+	 */
+	default Iterator<? extends G> descendingSubgroups(G group) {
+		ArrayList<G> subgroups = new ArrayList<>();
+		subgroups(group).forEachRemaining(subgroups::add);
+		return new Iterator<G>() {
+			int index = subgroups.size();
+
+			@Override
+			public boolean hasNext() { return 0 < index; }
+
+			@Override
+			public G next() { return subgroups.get(--index); }
+		};
+	}
+
+}
@@ -0,0 +1,154 @@
+package drawit;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Converts shape group graphs of any representation (see {@code ShapeTree}) to plain data, or writes them as JSON
+ * text; {@code ShapeGroupExporter} delegates to this class.
+ *
+ * <p>A point is converted to {@code Map.of("x", x, "y", y)}, a color to a map with keys {@code "red"},
+ * {@code "green"} and {@code "blue"}, a shape to a map with keys {@code "vertices"}, {@code "radius"} and
+ * {@code "color"}, a leaf group to {@code Map.of("shape", shape)} and a non-leaf group to
+ * {@code Map.of("subgroups", subgroups)}.
+ *
+ * <p>The plain data does not include transforms: each shape's vertices are exported in the outer coordinate system
+ * of the root, that is, with the composition of the transforms of the shape's leaf group and of its ancestors up to
+ * and including the root applied to them, so that a graph whose shape groups all have the identity transform and
+ * that contains these shapes is drawn the same way.
+ */
+public final class ShapeTreeExporter {
+
+	private ShapeTreeExporter() {}
+
+	public static Object toPlainData(IntPoint point) {
+		return Map.of("x", point.getX(), "y", point.getY());
+	}
+
+	public static Object toPlainData(Color color) {
+		return Map.of("red", color.getRed(), "green", color.getGreen(), "blue", color.getBlue());
+	}
+
+	public static Object toPlainData(RoundedPolygon polygon) {
+		return toPlainData(polygon, Transform.IDENTITY);
+	}
+
+	private static Object toPlainData(RoundedPolygon polygon, Transform transform) {
+		return Map.of(
+				"vertices", Arrays.stream(transform.apply(polygon.getVertices())).map(p -> toPlainData(p)).collect(Collectors.toList()),
+				"radius", polygon.getRadius(),
+				"color", toPlainData(polygon.getColor()));
+	}
+
+	/**
+	 * Returns the plain data of the shape group graph rooted at {@code root}.
+	 *
+	 * @pre | root != null
+	 * @pre | tree != null
+	 * @inspects | root
+	 * @creates | result
+	 */
+	public static <G> Object toPlainData(G root, ShapeTree<G> tree) {
+		// Traverse the shape group graph using an explicit stack, so that arbitrarily deep graphs can be exported.
+		// Each non-leaf shape group's list of subgroups is created before its subgroups are visited; the subgroups
+		// append their plain data to it, in order.
+		ArrayList<Object> result = new ArrayList<>(1);
+		ArrayDeque<G> stack = new ArrayDeque<>();
+		ArrayDeque<List<Object>> targets = new ArrayDeque<>();
+		// For each shape group on the stack, the transform that its outer coordinate system maps through.
+		ArrayDeque<Transform> outers = new ArrayDeque<>();
+		stack.push(root);
+		targets.push(result);
+		outers.push(Transform.IDENTITY);
+		while (!stack.isEmpty()) {
+			G group = stack.pop();
+			List<Object> target = targets.pop();
+			Transform transform = tree.getTransform(group).then(outers.pop());
+			RoundedPolygon shape = tree.getShape(group);
+			if (shape != null) {
+				target.add(Map.of("shape", toPlainData(shape, transform)));
+				continue;
+			}
+			ArrayList<Object> subgroupsData = new ArrayList<>();
+			target.add(Map.of("subgroups", subgroupsData));
+			for (Iterator<? extends G> subgroups = tree.descendingSubgroups(group); subgroups.hasNext(); ) {
+				stack.push(subgroups.next());
+				targets.push(subgroupsData);
+				outers.push(transform);
+			}
+		}
+		return result.get(0);
+	}
+
+	/**
+	 * Writes the JSON text of the plain data of the shape group graph rooted at {@code root} (see
+	 * {@code toPlainData}) to the given character stream, while traversing the graph, without building the plain
+	 * data. The memory used does not grow with the number of shapes: only the iterators over the subgroups of the
+	 * non-leaf shape groups on the path to the shape group being written, and their composed transforms, are held. The stream is flushed, but not closed.
+	 *
+	 * @throws IllegalArgumentException if {@code root} is null
+	 *    | root == null
+	 * @throws IllegalArgumentException if {@code tree} is null
+	 *    | tree == null
+	 * @throws IllegalArgumentException if {@code out} is null
+	 *    | out == null
+	 * @throws IOException if writing to {@code out} fails
+	 * @inspects | root
+	 */
+	public static <G> void writeJson(G root, ShapeTree<G> tree, Writer out) throws IOException {
+		if (root == null)
+			throw new IllegalArgumentException("root is null");
+		if (tree == null)
+			throw new IllegalArgumentException("tree is null");
+		ShapeJsonWriter json = new ShapeJsonWriter(out);
+		// For each non-leaf shape group whose subgroups are being written, the iterator over its remaining subgroups
+		// and the transform from its inner coordinate system to the root's outer coordinate system.
+		ArrayDeque<Iterator<? extends G>> stack = new ArrayDeque<>();
+		ArrayDeque<Transform> transforms = new ArrayDeque<>();
+		G group = root;
+		for (;;) {
+			// Whether the next shape group is the first element of a list of subgroups.
+			boolean first;
+			Transform transform = tree.getTransform(group).then(transforms.isEmpty() ? Transform.IDENTITY : transforms.peek());
+			RoundedPolygon shape = tree.getShape(group);
+			if (shape != null) {
+				json.write("{\"shape\":");
+				json.writeShape(shape, transform);
+				json.write("}");
+				first = false;
+			} else {
+				json.write("{\"subgroups\":[");
+				stack.push(tree.subgroups(group));
+				transforms.push(transform);
+				first = true;
+			}
+			// Close the lists of subgroups that have been written completely, and find the next shape group.
+			group = null;
+			while (!stack.isEmpty()) {
+				Iterator<? extends G> subgroups = stack.peek();
+				if (subgroups.hasNext()) {
+					group = subgroups.next();
+					break;
+				}
+				stack.pop();
+				transforms.pop();
+				json.write("]}");
+				first = false;
+			}
+			if (group == null)
+				break;
+			if (!first)
+				json.write(",");
+		}
+		json.flush();
+	}
+
+}
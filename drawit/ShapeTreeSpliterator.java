@@ -0,0 +1,108 @@
+package drawit;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A spliterator over the shapes of a shape group graph, in depth-first order.
+ * 
+ * The traversal state is the sequence of subtrees that remain to be visited.
+ * Splitting hands the first half of that sequence to a new spliterator; if only
+ * one (non-leaf) subtree remains, it is first replaced by its subgroups.
+ * 
+ * @param <G> the type of the shape groups
+ */
+public final class ShapeTreeSpliterator<G> implements Spliterator<RoundedPolygon> {
+	
+	/**
+	 * @invar | tree != null
+	 */
+	private final ShapeTree<G> tree;
+	/**
+	 * The subtrees that remain to be visited, in depth-first order.
+	 * 
+	 * @invar | pending != null
+	 * @representationObject
+	 */
+	private final ArrayDeque<G> pending;
+	/**
+	 * The size estimate; the number of shapes is unknown up front, so we start from
+	 * {@code Long.MAX_VALUE} and halve it at each split.
+	 */
+	private long estimate;
+	
+	/**
+	 * Initializes this spliterator to traverse the shapes of the shape group graph rooted at {@code root}.
+	 * 
+	 * @throws IllegalArgumentException if {@code root} is null
+	 *    | root == null
+	 * @throws IllegalArgumentException if {@code tree} is null
+	 *    | tree == null
+	 */
+	public ShapeTreeSpliterator(G root, ShapeTree<G> tree) {
+		if (root == null)
+			throw new IllegalArgumentException("root is null");
+		if (tree == null)
+			throw new IllegalArgumentException("tree is null");
+		this.tree = tree;
+		pending = new ArrayDeque<>();
+		pending.add(root);
+		estimate = Long.MAX_VALUE;
+	}
+	
+	private ShapeTreeSpliterator(ShapeTree<G> tree, ArrayDeque<G> pending, long estimate) {
+		this.tree = tree;
+		this.pending = pending;
+		this.estimate = estimate;
+	}
+	
+	private void expand(G group) {
+		for (Iterator<? extends G> iterator = tree.descendingSubgroups(group); iterator.hasNext(); )
+			pending.addFirst(iterator.next());
+	}
+	
+	@Override
+	public boolean tryAdvance(Consumer<? super RoundedPolygon> action) {
+		if (action == null)
+			throw new NullPointerException("action is null");
+		
+		for (;;) {
+			G group = pending.pollFirst();
+			if (group == null)
+				return false;
+			RoundedPolygon shape = tree.getShape(group);
+			if (shape != null) {
+				action.accept(shape);
+				return true;
+			}
+			expand(group);
+		}
+	}
+	
+	@Override
+	public Spliterator<RoundedPolygon> trySplit() {
+		while (pending.size() == 1 && tree.getShape(pending.peekFirst()) == null)
+			expand(pending.pollFirst());
+		int count = pending.size();
+		if (count < 2)
+			return null;
+		ArrayDeque<G> prefix = new ArrayDeque<>();
+		for (int i = 0; i < count / 2; i++)
+			prefix.addLast(pending.pollFirst());
+		estimate >>>= 1;
+		return new ShapeTreeSpliterator<>(tree, prefix, estimate);
+	}
+	
+	@Override
+	public long estimateSize() {
+		return pending.isEmpty() ? 0 : estimate;
+	}
+	
+	@Override
+	public int characteristics() {
+		return ORDERED | NONNULL;
+	}
+	
+}
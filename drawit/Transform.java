@@ -0,0 +1,246 @@
+package drawit;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * An instance of this class represents an axis-aligned affine transformation of the two-dimensional plane:
+ * a scaling along the X and Y axes, followed by a translation.
+ *
+ * It maps a point (X, Y) to the point ({@code getXScale()} * X + {@code getXOffset()}, {@code getYScale()} * Y + {@code getYOffset()}).
+ * When a transformed point must have {@code int} coordinates, the coordinates are rounded to the nearest integer.
+ *
+ * @immutable
+ * @invar | Double.isFinite(getXScale()) && getXScale() != 0
+ * @invar | Double.isFinite(getYScale()) && getYScale() != 0
+ * @invar | Double.isFinite(getXOffset())
+ * @invar | Double.isFinite(getYOffset())
+ */
+public class Transform {
+
+	/**
+	 * The transformation that maps each point to itself.
+	 */
+	public static final Transform IDENTITY = new Transform(1, 1, 0, 0);
+
+	private final double xScale;
+	private final double yScale;
+	private final double xOffset;
+	private final double yOffset;
+
+	public double getXScale() { return xScale; }
+	public double getYScale() { return yScale; }
+	public double getXOffset() { return xOffset; }
+	public double getYOffset() { return yOffset; }
+
+	/**
+	 * Initializes this object to represent the transformation that scales by the given factors and then
+	 * translates by the given offsets.
+	 *
+	 * @throws IllegalArgumentException if a scale factor is zero or not finite
+	 *    | !(Double.isFinite(xScale) && xScale != 0 && Double.isFinite(yScale) && yScale != 0)
+	 * @throws IllegalArgumentException if an offset is not finite
+	 *    | !(Double.isFinite(xOffset) && Double.isFinite(yOffset))
+	 * @post | getXScale() == xScale
+	 * @post | getYScale() == yScale
+	 * @post | getXOffset() == xOffset
+	 * @post | getYOffset() == yOffset
+	 */
+	public Transform(double xScale, double yScale, double xOffset, double yOffset) {
+		if (!(Double.isFinite(xScale) && xScale != 0 && Double.isFinite(yScale) && yScale != 0))
+			throw new IllegalArgumentException("scale factors must be finite and nonzero");
+		if (!(Double.isFinite(xOffset) && Double.isFinite(yOffset)))
+			throw new IllegalArgumentException("offsets must be finite");
+		this.xScale = xScale;
+		this.yScale = yScale;
+		this.xOffset = xOffset;
+		this.yOffset = yOffset;
+	}
+
+	/**
+	 * Returns the transformation that translates each point along the given vector.
+	 *
+	 * @throws IllegalArgumentException if {@code delta} is null
+	 *    | delta == null
+	 * @post | result != null
+	 * @post | result.equals(new Transform(1, 1, delta.getX(), delta.getY()))
+	 */
+	public static Transform translation(IntVector delta) {
+		if (delta == null)
+			throw new IllegalArgumentException("delta is null");
+		return new Transform(1, 1, delta.getX(), delta.getY());
+	}
+
+	/**
+	 * Returns the transformation that scales each point by the given factors with respect to the given origin.
+	 *
+	 * @throws IllegalArgumentException if {@code origin} is null
+	 *    | origin == null
+	 * @throws IllegalArgumentException if a scale factor is zero or not finite
+	 *    | !(Double.isFinite(xFactor) && xFactor != 0 && Double.isFinite(yFactor) && yFactor != 0)
+	 * @post | result != null
+	 * @post | result.equals(new Transform(xFactor, yFactor, origin.getX() * (1 - xFactor), origin.getY() * (1 - yFactor)))
+	 */
+	public static Transform scaling(IntPoint origin, double xFactor, double yFactor) {
+		if (origin == null)
+			throw new IllegalArgumentException("origin is null");
+		return new Transform(xFactor, yFactor, origin.getX() * (1 - xFactor), origin.getY() * (1 - yFactor));
+	}
+
+	/**
+	 * Returns whether this transformation maps each point to itself.
+	 *
+	 * @post | result == (getXScale() == 1 && getYScale() == 1 && getXOffset() == 0 && getYOffset() == 0)
+	 */
+	public boolean isIdentity() {
+		return xScale == 1 && yScale == 1 && xOffset == 0 && yOffset == 0;
+	}
+
+	/**
+	 * Returns the transformation that first applies this transformation and then the given one.
+	 *
+	 * @throws IllegalArgumentException if {@code next} is null
+	 *    | next == null
+	 * @post | result != null
+	 * @post | result.getXScale() == next.getXScale() * getXScale()
+	 * @post | result.getYScale() == next.getYScale() * getYScale()
+	 * @post | result.getXOffset() == next.getXScale() * getXOffset() + next.getXOffset()
+	 * @post | result.getYOffset() == next.getYScale() * getYOffset() + next.getYOffset()
+	 */
+	public Transform then(Transform next) {
+		if (next == null)
+			throw new IllegalArgumentException("next is null");
+		if (next.isIdentity())
+			return this;
+		if (isIdentity())
+			return next;
+		return new Transform(next.xScale * xScale, next.yScale * yScale, next.xScale * xOffset + next.xOffset, next.yScale * yOffset + next.yOffset);
+	}
+
+	/**
+	 * Returns the transformation that maps the image of each point under this transformation back to that point.
+	 *
+	 * @post | result != null
+	 * @post | result.getXScale() == 1 / getXScale()
+	 * @post | result.getYScale() == 1 / getYScale()
+	 * @post | result.getXOffset() == -getXOffset() / getXScale()
+	 * @post | result.getYOffset() == -getYOffset() / getYScale()
+	 */
+	public Transform inverse() {
+		if (isIdentity())
+			return this;
+		return new Transform(1 / xScale, 1 / yScale, -xOffset / xScale, -yOffset / yScale);
+	}
+
+	/**
+	 * Returns the X coordinate of the image of a point with the given X coordinate, rounded to the nearest integer.
+	 *
+	 * @post | result == (int)Math.round(getXScale() * x + getXOffset())
+	 */
+	public int applyToX(int x) {
+		return (int)Math.round(xScale * x + xOffset);
+	}
+
+	/**
+	 * Returns the Y coordinate of the image of a point with the given Y coordinate, rounded to the nearest integer.
+	 *
+	 * @post | result == (int)Math.round(getYScale() * y + getYOffset())
+	 */
+	public int applyToY(int y) {
+		return (int)Math.round(yScale * y + yOffset);
+	}
+
+	/**
+	 * Returns the image of the given point under this transformation, rounded to the nearest point with integer coordinates.
+	 *
+	 * @throws IllegalArgumentException if {@code point} is null
+	 *    | point == null
+	 * @post | result != null
+	 * @post | result.equals(new IntPoint(applyToX(point.getX()), applyToY(point.getY())))
+	 */
+	public IntPoint apply(IntPoint point) {
+		if (point == null)
+			throw new IllegalArgumentException("point is null");
+		return new IntPoint(applyToX(point.getX()), applyToY(point.getY()));
+	}
+
+	/**
+	 * Returns an array whose elements are the images of the elements of the given array under this transformation.
+	 * If this is the identity transformation, returns the given array itself.
+	 *
+	 * @pre | points != null
+	 * @pre | Arrays.stream(points).allMatch(p -> p != null)
+	 * @inspects | points
+	 * @post | result != null
+	 * @post | result.length == points.length
+	 * @post | IntStream.range(0, points.length).allMatch(i -> result[i].equals(apply(points[i])))
+	 */
+	public IntPoint[] apply(IntPoint[] points) {
+		if (isIdentity())
+			return points;
+		IntPoint[] result = new IntPoint[points.length];
+		for (int i = 0; i < points.length; i++)
+			result[i] = apply(points[i]);
+		return result;
+	}
+
+	/**
+	 * Returns the drawing commands that, when executed before a sequence of drawing commands and followed by
+	 * {@code getPopCommands()}, cause that sequence to be drawn transformed by this transformation.
+	 *
+	 * For the syntax of the drawing commands, see {@code RoundedPolygon.getDrawingCommands()}.
+	 *
+	 * @post | result != null
+	 */
+	public String getPushCommands() {
+		return "pushTranslate " + xOffset + " " + yOffset + "\n" + "pushScale " + xScale + " " + yScale + "\n";
+	}
+
+	/**
+	 * Returns the drawing commands that undo the effect of {@code getPushCommands()}.
+	 *
+	 * @post | result != null
+	 */
+	public String getPopCommands() {
+		return "popTransform\npopTransform\n";
+	}
+
+	/**
+	 * Returns whether this object represents the same transformation as the given object.
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null || getClass() != obj.getClass())
+			return false;
+		Transform other = (Transform)obj;
+		return
+				Double.doubleToLongBits(xScale) == Double.doubleToLongBits(other.xScale) &&
+				Double.doubleToLongBits(yScale) == Double.doubleToLongBits(other.yScale) &&
+				Double.doubleToLongBits(xOffset) == Double.doubleToLongBits(other.xOffset) &&
+				Double.doubleToLongBits(yOffset) == Double.doubleToLongBits(other.yOffset);
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		long temp;
+		temp = Double.doubleToLongBits(xScale);
+		result = prime * result + (int) (temp ^ (temp >>> 32));
+		temp = Double.doubleToLongBits(yScale);
+		result = prime * result + (int) (temp ^ (temp >>> 32));
+		temp = Double.doubleToLongBits(xOffset);
+		result = prime * result + (int) (temp ^ (temp >>> 32));
+		temp = Double.doubleToLongBits(yOffset);
+		result = prime * result + (int) (temp ^ (temp >>> 32));
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return "Transform [xScale=" + xScale + ", yScale=" + yScale + ", xOffset=" + xOffset + ", yOffset=" + yOffset + "]";
+	}
+
+}
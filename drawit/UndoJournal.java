@@ -0,0 +1,298 @@
+package drawit;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+
+/**
+ * Each instance of this class records the edits performed on the rounded polygons and shape groups attached to it
+ * (see {@code RoundedPolygon.setUndoJournal} and {@code ShapeGroup.setUndoJournal}), so that they can be undone and
+ * redone.
+ *
+ * <p>An edit records only what is needed to invert it: for example, the index and the coordinates of a vertex that
+ * was removed, or the vector of a translation. The estimated number of bytes retained by the recorded edits is kept
+ * below a limit by discarding the oldest edits.
+ *
+ * <p>An undo journal is not thread-safe; the objects attached to it must be edited by one thread at a time.
+ *
+ * @invar | 0 <= getMemoryLimit()
+ * @invar | 0 <= getMemoryUsage() && getMemoryUsage() <= getMemoryLimit()
+ * @invar | 0 <= getUndoCount()
+ * @invar | 0 <= getRedoCount()
+ */
+public final class UndoJournal {
+
+	/**
+	 * An edit that can be undone and redone by an undo journal.
+	 *
+	 * <p>An edit is undone only when the objects it concerns are in the state it left them in, and redone only when
+	 * they are in the state it found them in.
+	 */
+	public abstract static class Edit {
+
+		/**
+		 * The estimated number of bytes retained by an edit's object header and its reference from the journal.
+		 */
+		protected static final long OVERHEAD = 24;
+
+		protected Edit() {}
+
+		/**
+		 * Restores the objects this edit concerns to the state it found them in.
+		 */
+		protected abstract void undo();
+
+		/**
+		 * Performs this edit again.
+		 */
+		protected abstract void redo();
+
+		/**
+		 * Returns the estimated number of bytes retained by this edit, not counting the objects it concerns.
+		 */
+		protected abstract long getSize();
+
+	}
+
+	/**
+	 * An edit consisting of a sequence of edits.
+	 */
+	private static final class CompoundEdit extends Edit {
+
+		final ArrayList<Edit> edits = new ArrayList<>();
+		long size = OVERHEAD + 16;
+
+		@Override
+		protected void undo() {
+			for (int i = edits.size() - 1; 0 <= i; i--)
+				edits.get(i).undo();
+		}
+
+		@Override
+		protected void redo() {
+			for (Edit edit : edits)
+				edit.redo();
+		}
+
+		@Override
+		protected long getSize() { return size; }
+
+	}
+
+	private final long memoryLimit;
+	/**
+	 * The edits that can be undone, most recent first, and the edits that can be redone, next one first.
+	 *
+	 * @representationObject
+	 */
+	private final ArrayDeque<Edit> undoStack = new ArrayDeque<>();
+	/**
+	 * @representationObject
+	 */
+	private final ArrayDeque<Edit> redoStack = new ArrayDeque<>();
+	/**
+	 * @invar | 0 <= memoryUsage
+	 */
+	private long memoryUsage;
+	/**
+	 * The number of edits being performed, undone or redone; edits performed meanwhile are part of them and are
+	 * not recorded separately.
+	 */
+	private int suspendCount;
+	/**
+	 * The compound edit being recorded by {@code compound}, or {@code null}.
+	 */
+	private CompoundEdit compoundEdit;
+
+	/**
+	 * Initializes this undo journal so that it retains at most the given estimated number of bytes of edits.
+	 *
+	 * @throws IllegalArgumentException if the given limit is negative
+	 *    | memoryLimit < 0
+	 * @post | getMemoryLimit() == memoryLimit
+	 * @post | getMemoryUsage() == 0
+	 * @post | getUndoCount() == 0 && getRedoCount() == 0
+	 */
+	public UndoJournal(long memoryLimit) {
+		if (memoryLimit < 0)
+			throw new IllegalArgumentException("memoryLimit is negative");
+		this.memoryLimit = memoryLimit;
+	}
+
+	/**
+	 * @immutable
+	 */
+	public long getMemoryLimit() { return memoryLimit; }
+
+	/**
+	 * Returns the estimated number of bytes retained by the edits that can be undone or redone.
+	 */
+	public long getMemoryUsage() { return memoryUsage; }
+
+	/**
+	 * Returns the number of edits that can be undone.
+	 */
+	public int getUndoCount() { return undoStack.size(); }
+
+	/**
+	 * Returns the number of edits that can be redone.
+	 */
+	public int getRedoCount() { return redoStack.size(); }
+
+	/**
+	 * Returns whether edits performed now are recorded; that is, whether no edit is being performed, undone or redone
+	 * by this journal.
+	 */
+	public boolean isRecording() { return suspendCount == 0; }
+
+	/**
+	 * Records the given edit, which has just been performed, unless this journal is not recording. Discards the edits
+	 * that can be redone, and then the oldest edits as long as the memory limit is exceeded.
+	 *
+	 * @throws IllegalArgumentException if {@code edit} is null
+	 *    | edit == null
+	 * @mutates | this
+	 */
+	public void record(Edit edit) {
+		if (edit == null)
+			throw new IllegalArgumentException("edit is null");
+		if (suspendCount != 0)
+			return;
+		if (compoundEdit != null) {
+			compoundEdit.edits.add(edit);
+			compoundEdit.size += 8 + edit.getSize();
+			return;
+		}
+		for (Edit redoable : redoStack)
+			memoryUsage -= redoable.getSize();
+		redoStack.clear();
+		undoStack.push(edit);
+		memoryUsage += edit.getSize();
+		while (memoryLimit < memoryUsage)
+			memoryUsage -= undoStack.removeLast().getSize();
+	}
+
+	/**
+	 * Performs the given edit by calling its {@code redo} method, and records it if this journal was recording.
+	 * The edits performed by the {@code redo} method are not recorded separately. If the {@code redo} method throws an
+	 * exception, nothing is recorded.
+	 *
+	 * @throws IllegalArgumentException if {@code edit} is null
+	 *    | edit == null
+	 * @mutates | this
+	 */
+	public void perform(Edit edit) {
+		if (edit == null)
+			throw new IllegalArgumentException("edit is null");
+		boolean recording = suspendCount == 0;
+		suspendCount++;
+		try {
+			edit.redo();
+		} finally {
+			suspendCount--;
+		}
+		if (recording)
+			record(edit);
+	}
+
+	/**
+	 * Runs the given action, and records the edits it performs as a single edit. If the action throws an exception,
+	 * the edits it performed are undone and the exception is rethrown.
+	 *
+	 * @throws IllegalArgumentException if {@code action} is null
+	 *    | action == null
+	 * @throws IllegalStateException if this journal is not recording or is already recording a compound edit
+	 * @mutates | this
+	 */
+	public void compound(Runnable action) {
+		if (action == null)
+			throw new IllegalArgumentException("action is null");
+		if (suspendCount != 0 || compoundEdit != null)
+			throw new IllegalStateException("this journal is not recording single edits");
+		CompoundEdit edit = new CompoundEdit();
+		compoundEdit = edit;
+		try {
+			action.run();
+		} catch (RuntimeException | Error e) {
+			compoundEdit = null;
+			replay(edit, true);
+			throw e;
+		} finally {
+			compoundEdit = null;
+		}
+		if (!edit.edits.isEmpty())
+			record(edit.edits.size() == 1 ? edit.edits.get(0) : edit);
+	}
+
+	private void replay(Edit edit, boolean undo) {
+		suspendCount++;
+		try {
+			if (undo)
+				edit.undo();
+			else
+				edit.redo();
+		} finally {
+			suspendCount--;
+		}
+	}
+
+	private void checkIdle() {
+		if (suspendCount != 0 || compoundEdit != null)
+			throw new IllegalStateException("this journal is busy");
+	}
+
+	/**
+	 * Undoes the most recent edit that has not been undone.
+	 *
+	 * @throws IllegalStateException if there is no edit to undo
+	 *    | getUndoCount() == 0
+	 * @throws IllegalStateException if an edit is being performed, undone or redone, or a compound edit is being
+	 *     recorded
+	 * @mutates | this
+	 * @post | getUndoCount() == old(getUndoCount()) - 1
+	 * @post | getRedoCount() == old(getRedoCount()) + 1
+	 */
+	public void undo() {
+		checkIdle();
+		if (undoStack.isEmpty())
+			throw new IllegalStateException("no edit to undo");
+		Edit edit = undoStack.peek();
+		replay(edit, true);
+		redoStack.push(undoStack.pop());
+	}
+
+	/**
+	 * Redoes the edit that was undone most recently.
+	 *
+	 * @throws IllegalStateException if there is no edit to redo
+	 *    | getRedoCount() == 0
+	 * @throws IllegalStateException if an edit is being performed, undone or redone, or a compound edit is being
+	 *     recorded
+	 * @mutates | this
+	 * @post | getUndoCount() == old(getUndoCount()) + 1
+	 * @post | getRedoCount() == old(getRedoCount()) - 1
+	 */
+	public void redo() {
+		checkIdle();
+		if (redoStack.isEmpty())
+			throw new IllegalStateException("no edit to redo");
+		Edit edit = redoStack.peek();
+		replay(edit, false);
+		undoStack.push(redoStack.pop());
+	}
+
+	/**
+	 * Discards all recorded edits.
+	 *
+	 * @throws IllegalStateException if an edit is being performed, undone or redone, or a compound edit is being
+	 *     recorded
+	 * @mutates | this
+	 * @post | getUndoCount() == 0 && getRedoCount() == 0 && getMemoryUsage() == 0
+	 */
+	public void clear() {
+		checkIdle();
+		undoStack.clear();
+		redoStack.clear();
+		memoryUsage = 0;
+	}
+
+}
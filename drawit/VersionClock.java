@@ -0,0 +1,35 @@
+package drawit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Issues the version numbers with which rounded polygons and shape groups are stamped when they are created or
+ * modified. Version numbers are issued in increasing order, across all objects and threads, so a client that
+ * remembers {@code current()} can later find the objects modified since then: those whose version is greater.
+ */
+public final class VersionClock {
+
+	private VersionClock() { throw new AssertionError("This class is not meant to be instantiated"); }
+
+	private static final AtomicLong clock = new AtomicLong();
+
+	/**
+	 * Returns the most recently issued version number, or zero if none has been issued. Every object created or
+	 * modified after this call is stamped with a greater version number.
+	 *
+	 * @post | 0 <= result
+	 */
+	public static long current() {
+		return clock.get();
+	}
+
+	/**
+	 * Issues a new version number, greater than all previously issued ones.
+	 *
+	 * @post | 0 < result
+	 */
+	public static long next() {
+		return clock.incrementAndGet();
+	}
+
+}
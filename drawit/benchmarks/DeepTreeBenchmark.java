@@ -0,0 +1,101 @@
+package drawit.benchmarks;
+
+import java.util.List;
+
+import drawit.IntPoint;
+import drawit.IntVector;
+import drawit.RoundedPolygon;
+import drawit.Transform;
+import drawit.shapegroups1.Extent;
+import drawit.shapegroups1.LeafShapeGroup;
+import drawit.shapegroups1.NonleafShapeGroup;
+import drawit.shapegroups1.ShapeGroup;
+import drawit.shapegroups1.exporter.ShapeGroupExporter;
+
+/**
+ * Measures the traversals of very deep shape group graphs: bounding boxes, drawing commands (complete and culled),
+ * the list of all shapes, and export to plain data.
+ *
+ * Each graph is a chain of non-leaf shape groups, each of which contains a leaf shape group and the next non-leaf
+ * shape group; the root is translated, so that the computations cannot use cached results throughout. Before each
+ * bounding box or drawing commands computation, the deepest shape is modified, so that the caches of all of the
+ * non-leaf shape groups must be recomputed.
+ *
+ * Usage: {@code java drawit.benchmarks.DeepTreeBenchmark [depth...]}. The default depths are 10000, 20000 and 50000.
+ * These traversals use explicit stacks, so the default thread stack size suffices. The reported figures are the
+ * time to build the graph and the mean time per operation of the measured rounds, after a number of warm-up rounds.
+ */
+public class DeepTreeBenchmark {
+
+	static final int WARMUP_ROUNDS = 3;
+	static final int MEASURED_ROUNDS = 5;
+
+	/**
+	 * Prevents the JIT compiler from eliminating the benchmarked work.
+	 */
+	static long sink;
+
+	static RoundedPolygon createSquare(int x, int y) {
+		RoundedPolygon polygon = new RoundedPolygon();
+		polygon.setVertices(new IntPoint[] {
+				new IntPoint(x, y), new IntPoint(x + 10, y), new IntPoint(x + 10, y + 10), new IntPoint(x, y + 10)});
+		return polygon;
+	}
+
+	/**
+	 * Returns a chain of {@code depth} non-leaf shape groups; {@code deepest} receives the shape of the deepest leaf.
+	 */
+	static NonleafShapeGroup createChain(int depth, RoundedPolygon[] deepest) {
+		deepest[0] = createSquare(0, 0);
+		ShapeGroup group = new LeafShapeGroup(deepest[0]);
+		for (int level = depth - 1; 0 <= level; level--)
+			group = new NonleafShapeGroup(new ShapeGroup[] {new LeafShapeGroup(createSquare(level % 1000 * 20, level / 1000 * 20)), group});
+		group.applyTransform(Transform.translation(new IntVector(5, 5)));
+		return (NonleafShapeGroup)group;
+	}
+
+	static double measure(Runnable operation) {
+		for (int round = 0; round < WARMUP_ROUNDS; round++)
+			operation.run();
+		long start = System.nanoTime();
+		for (int round = 0; round < MEASURED_ROUNDS; round++)
+			operation.run();
+		return (double)(System.nanoTime() - start) / MEASURED_ROUNDS / 1000;
+	}
+
+	public static void main(String[] args) {
+		int[] depths = args.length > 0 ? new int[args.length] : new int[] {10000, 20000, 50000};
+		for (int i = 0; i < args.length; i++)
+			depths[i] = Integer.parseInt(args[i]);
+		System.out.printf("%-8s %12s %14s %14s %14s %14s %14s%n",
+				"depth", "build (ms)", "bbox (us)", "commands (us)", "culled (us)", "shapes (us)", "export (us)");
+		for (int depth : depths) {
+			RoundedPolygon[] deepest = new RoundedPolygon[1];
+			long start = System.nanoTime();
+			NonleafShapeGroup root = createChain(depth, deepest);
+			double build = (System.nanoTime() - start) / 1e6;
+			Extent viewport = Extent.ofLeftTopWidthHeight(0, 0, 500, 500);
+			double boundingBox = measure(() -> {
+				deepest[0].setRadius(deepest[0].getRadius() + 1);
+				sink += root.getBoundingBox().getWidth();
+			});
+			double commands = measure(() -> {
+				deepest[0].setRadius(deepest[0].getRadius() + 1);
+				sink += root.getDrawingCommandsRope().length();
+			});
+			double culled = measure(() -> {
+				deepest[0].setRadius(deepest[0].getRadius() + 1);
+				sink += root.getDrawingCommandsRope(viewport).length();
+			});
+			double shapes = measure(() -> {
+				List<RoundedPolygon> allShapes = root.getAllShapes();
+				sink += allShapes.size();
+			});
+			double export = measure(() -> sink += System.identityHashCode(ShapeGroupExporter.toPlainData(root)));
+			System.out.printf("%-8d %12.1f %14.0f %14.0f %14.0f %14.0f %14.0f%n", depth, build, boundingBox, commands, culled, shapes, export);
+		}
+		if (sink == 42)
+			System.out.println();
+	}
+
+}
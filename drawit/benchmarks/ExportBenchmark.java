@@ -0,0 +1,144 @@
+package drawit.benchmarks;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import drawit.IntPoint;
+import drawit.RoundedPolygon;
+import drawit.shapegroups1.LeafShapeGroup;
+import drawit.shapegroups1.NonleafShapeGroup;
+import drawit.shapegroups1.ShapeGroup;
+import drawit.shapegroups1.exporter.ShapeGroupExporter;
+
+/**
+ * Compares the memory used by the two ways of exporting a shape group graph: building its plain data with
+ * {@code toPlainData}, and streaming its JSON text with {@code writeJson}. The JSON text is written to a writer that
+ * discards it, so that only the memory used by the exporter itself is measured.
+ *
+ * Each graph is a balanced tree of non-leaf shape groups with eight subgroups each, whose leaves contain squares.
+ * For each graph size, the reported figures are the mean time per export, and the heap memory retained in the middle
+ * of the export, after a garbage collection: the plain data itself for {@code toPlainData}, and the buffer and the
+ * traversal stack for {@code writeJson}. The latter should not grow with the number of shapes.
+ *
+ * Usage: {@code java drawit.benchmarks.ExportBenchmark [shapes...]}. The default sizes are 10000, 100000 and 500000.
+ */
+public class ExportBenchmark {
+
+	static final int WARMUP_ROUNDS = 3;
+	static final int MEASURED_ROUNDS = 5;
+	static final int FAN_OUT = 8;
+
+	/**
+	 * Prevents the JIT compiler from eliminating the benchmarked work.
+	 */
+	static long sink;
+
+	/**
+	 * A writer that discards its text; when {@code sampleAt} characters have been written, it records the heap memory
+	 * in use after a garbage collection.
+	 */
+	static class SamplingWriter extends Writer {
+		long written;
+		long sampleAt = -1;
+		long sample;
+
+		@Override
+		public void write(char[] chars, int offset, int length) {
+			if (written <= sampleAt && sampleAt < written + length)
+				sample = usedMemory();
+			written += length;
+		}
+
+		@Override
+		public void flush() {}
+
+		@Override
+		public void close() {}
+	}
+
+	static long usedMemory() {
+		for (int i = 0; i < 3; i++)
+			System.gc();
+		return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+	}
+
+	static RoundedPolygon createSquare(int x, int y) {
+		RoundedPolygon polygon = new RoundedPolygon();
+		polygon.setVertices(new IntPoint[] {
+				new IntPoint(x, y), new IntPoint(x + 10, y), new IntPoint(x + 10, y + 10), new IntPoint(x, y + 10)});
+		return polygon;
+	}
+
+	static ShapeGroup createTree(int shapeCount) {
+		List<ShapeGroup> groups = new ArrayList<>();
+		for (int i = 0; i < shapeCount; i++)
+			groups.add(new LeafShapeGroup(createSquare(i % 1000 * 20, i / 1000 * 20)));
+		while (groups.size() > 1) {
+			List<ShapeGroup> parents = new ArrayList<>();
+			for (int i = 0; i < groups.size(); i += FAN_OUT) {
+				List<ShapeGroup> subgroups = groups.subList(i, Math.min(i + FAN_OUT, groups.size()));
+				parents.add(subgroups.size() == 1 ? subgroups.get(0) : new NonleafShapeGroup(new ArrayList<>(subgroups)));
+			}
+			groups = parents;
+		}
+		return groups.get(0);
+	}
+
+	static void writeJson(ShapeGroup root, Writer writer) {
+		try {
+			ShapeGroupExporter.writeJson(root, writer);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	static double measure(Runnable operation) {
+		for (int round = 0; round < WARMUP_ROUNDS; round++)
+			operation.run();
+		long start = System.nanoTime();
+		for (int round = 0; round < MEASURED_ROUNDS; round++)
+			operation.run();
+		return (double)(System.nanoTime() - start) / MEASURED_ROUNDS / 1e6;
+	}
+
+	public static void main(String[] args) {
+		int[] sizes = args.length > 0 ? new int[args.length] : new int[] {10000, 100000, 500000};
+		for (int i = 0; i < args.length; i++)
+			sizes[i] = Integer.parseInt(args[i]);
+		System.out.printf("%-8s %14s %16s %14s %16s%n",
+				"shapes", "plain (ms)", "plain held (KB)", "stream (ms)", "stream held (KB)");
+		for (int size : sizes) {
+			ShapeGroup root = createTree(size);
+			double plain = measure(() -> sink += System.identityHashCode(ShapeGroupExporter.toPlainData(root)));
+			double stream = measure(() -> {
+				SamplingWriter writer = new SamplingWriter();
+				writeJson(root, writer);
+				sink += writer.written;
+			});
+
+			long baseline = usedMemory();
+			Object plainData = ShapeGroupExporter.toPlainData(root);
+			long plainHeld = usedMemory() - baseline;
+			sink += System.identityHashCode(plainData);
+			plainData = null;
+
+			SamplingWriter counter = new SamplingWriter();
+			writeJson(root, counter);
+			SamplingWriter sampler = new SamplingWriter();
+			sampler.sampleAt = counter.written / 2;
+			baseline = usedMemory();
+			writeJson(root, sampler);
+			long streamHeld = sampler.sample - baseline;
+
+			System.out.printf("%-8d %14.1f %16d %14.1f %16d%n",
+					size, plain, Math.max(0, plainHeld) / 1024, stream, Math.max(0, streamHeld) / 1024);
+		}
+		if (sink == 42)
+			System.out.println();
+	}
+
+}
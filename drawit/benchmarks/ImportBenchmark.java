@@ -0,0 +1,101 @@
+package drawit.benchmarks;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import drawit.IntPoint;
+import drawit.RoundedPolygon;
+import drawit.shapegroups1.LeafShapeGroup;
+import drawit.shapegroups1.NonleafShapeGroup;
+import drawit.shapegroups1.ShapeGroup;
+import drawit.shapegroups1.exporter.ShapeGroupExporter;
+import drawit.shapegroups1.importer.ImportMode;
+import drawit.shapegroups1.importer.ShapeGroupImporter;
+
+/**
+ * Measures the import of the JSON text of shape group graphs, in each import mode.
+ *
+ * Each graph is a balanced tree of non-leaf shape groups with eight subgroups each, whose leaves contain polygons
+ * that approximate circles with a given number of vertices; validating a polygon takes time quadratic in its number of
+ * vertices, so the bulk mode, which validates the polygons in parallel, gains most for polygons with many vertices.
+ *
+ * Usage: {@code java drawit.benchmarks.ImportBenchmark [shapes [vertices...]]}. The defaults are 20000 shapes, with
+ * 4, 32 and 128 vertices. The reported figures are the mean time per import of the measured rounds, after a number
+ * of warm-up rounds.
+ */
+public class ImportBenchmark {
+
+	static final int WARMUP_ROUNDS = 3;
+	static final int MEASURED_ROUNDS = 5;
+	static final int FAN_OUT = 8;
+
+	/**
+	 * Prevents the JIT compiler from eliminating the benchmarked work.
+	 */
+	static long sink;
+
+	static RoundedPolygon createCircle(int x, int y, int vertexCount) {
+		IntPoint[] vertices = new IntPoint[vertexCount];
+		for (int i = 0; i < vertexCount; i++) {
+			double angle = 2 * Math.PI * i / vertexCount;
+			vertices[i] = new IntPoint(x + (int)Math.round(1000 * Math.cos(angle)), y + (int)Math.round(1000 * Math.sin(angle)));
+		}
+		RoundedPolygon polygon = new RoundedPolygon();
+		polygon.setVertices(vertices);
+		return polygon;
+	}
+
+	static ShapeGroup createTree(int shapeCount, int vertexCount) {
+		List<ShapeGroup> groups = new ArrayList<>();
+		for (int i = 0; i < shapeCount; i++)
+			groups.add(new LeafShapeGroup(createCircle(i % 1000 * 3000, i / 1000 * 3000, vertexCount)));
+		while (groups.size() > 1) {
+			List<ShapeGroup> parents = new ArrayList<>();
+			for (int i = 0; i < groups.size(); i += FAN_OUT) {
+				List<ShapeGroup> subgroups = groups.subList(i, Math.min(i + FAN_OUT, groups.size()));
+				parents.add(subgroups.size() == 1 ? subgroups.get(0) : new NonleafShapeGroup(new ArrayList<>(subgroups)));
+			}
+			groups = parents;
+		}
+		return groups.get(0);
+	}
+
+	static double measure(String json, ImportMode mode) {
+		Runnable operation = () -> {
+			try {
+				sink += System.identityHashCode(ShapeGroupImporter.readJson(new StringReader(json), mode));
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		};
+		for (int round = 0; round < WARMUP_ROUNDS; round++)
+			operation.run();
+		long start = System.nanoTime();
+		for (int round = 0; round < MEASURED_ROUNDS; round++)
+			operation.run();
+		return (double)(System.nanoTime() - start) / MEASURED_ROUNDS / 1e6;
+	}
+
+	public static void main(String[] args) throws IOException {
+		int shapeCount = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+		int[] vertexCounts = args.length > 1 ? new int[args.length - 1] : new int[] {4, 32, 128};
+		for (int i = 1; i < args.length; i++)
+			vertexCounts[i - 1] = Integer.parseInt(args[i]);
+		System.out.printf("%-8s %-10s %16s %16s%n", "shapes", "vertices", "sequential (ms)", "bulk (ms)");
+		for (int vertexCount : vertexCounts) {
+			StringWriter json = new StringWriter();
+			ShapeGroupExporter.writeJson(createTree(shapeCount, vertexCount), json);
+			String text = json.toString();
+			double sequential = measure(text, ImportMode.SEQUENTIAL);
+			double bulk = measure(text, ImportMode.BULK);
+			System.out.printf("%-8d %-10d %16.1f %16.1f%n", shapeCount, vertexCount, sequential, bulk);
+		}
+		if (sink == 42)
+			System.out.println();
+	}
+
+}
@@ -0,0 +1,124 @@
+package drawit.benchmarks;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Arc2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Random;
+
+import drawit.IntPoint;
+import drawit.RoundedPolygon;
+import drawit.ScanlineRasterizer;
+
+/**
+ * Compares the time taken to fill rounded polygons into an image by Java2D, through {@code Path2D} and {@code Arc2D}
+ * objects built as the GUI's drawing commands interpreter builds them, and by a {@code ScanlineRasterizer}, with and
+ * without antialiasing. The Java2D paths are built before the measurement, so only their filling is measured; the
+ * rasterizer's figures include computing the polygons' outlines.
+ *
+ * The polygons are random rounded convex polygons with the given number of vertices, scattered over a 1024 by 1024
+ * image. The reported figures are the mean time per round of filling all polygons.
+ *
+ * Usage: {@code java drawit.benchmarks.RasterizerBenchmark [polygons [vertices...]]}. The defaults are 2000 polygons,
+ * with 4, 16 and 64 vertices.
+ */
+public class RasterizerBenchmark {
+
+	static final int SIZE = 1024;
+
+	/**
+	 * Prevents the JIT compiler from eliminating the benchmarked work.
+	 */
+	static long sink;
+
+	static RoundedPolygon[] createPolygons(int polygonCount, int vertexCount) {
+		Random random = new Random(1);
+		RoundedPolygon[] polygons = new RoundedPolygon[polygonCount];
+		for (int i = 0; i < polygonCount; i++) {
+			int x = random.nextInt(SIZE), y = random.nextInt(SIZE), size = 40 + random.nextInt(80);
+			IntPoint[] vertices = new IntPoint[vertexCount];
+			for (int j = 0; j < vertexCount; j++) {
+				double angle = 2 * Math.PI * j / vertexCount;
+				vertices[j] = new IntPoint(x + (int)Math.round(size * Math.cos(angle)), y + (int)Math.round(size * Math.sin(angle)));
+			}
+			polygons[i] = new RoundedPolygon();
+			polygons[i].setVertices(vertices);
+			polygons[i].setRadius(random.nextInt(20));
+			polygons[i].setColor(new Color(random.nextInt(0x1000000)));
+		}
+		return polygons;
+	}
+
+	/**
+	 * Returns the Java2D path for the given polygon, built from its drawing commands as the GUI builds it.
+	 */
+	static Path2D.Double createPath(RoundedPolygon polygon) {
+		Path2D.Double path = new Path2D.Double();
+		String[] tokens = polygon.getDrawingCommands().trim().split("\\s+");
+		for (int i = 0; i < tokens.length; ) {
+			switch (tokens[i++]) {
+			case "line":
+				path.append(new Line2D.Double(Double.parseDouble(tokens[i]), Double.parseDouble(tokens[i + 1]),
+						Double.parseDouble(tokens[i + 2]), Double.parseDouble(tokens[i + 3])), true);
+				i += 4;
+				break;
+			case "arc": {
+				double x = Double.parseDouble(tokens[i]), y = Double.parseDouble(tokens[i + 1]), r = Double.parseDouble(tokens[i + 2]);
+				path.append(new Arc2D.Double(x - r, y - r, 2 * r, 2 * r, -Double.parseDouble(tokens[i + 3]) * 180 / Math.PI,
+						-Double.parseDouble(tokens[i + 4]) * 180 / Math.PI, Arc2D.OPEN), true);
+				i += 5;
+				break;
+			}
+			default:
+				i += 3;
+				path.closePath();
+			}
+		}
+		return path;
+	}
+
+	public static void main(String[] args) {
+		System.setProperty("java.awt.headless", "true");
+		int polygonCount = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+		int[] vertexCounts = args.length > 1 ? new int[args.length - 1] : new int[] {4, 16, 64};
+		for (int i = 1; i < args.length; i++)
+			vertexCounts[i - 1] = Integer.parseInt(args[i]);
+		BufferedImage image = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_ARGB);
+		int[] pixels = ((DataBufferInt)image.getRaster().getDataBuffer()).getData();
+		System.out.printf("%-10s %-6s %16s %16s%n", "vertices", "aa", "Java2D (ms)", "scanline (ms)");
+		for (int vertexCount : vertexCounts) {
+			RoundedPolygon[] polygons = createPolygons(polygonCount, vertexCount);
+			Path2D.Double[] paths = new Path2D.Double[polygonCount];
+			for (int i = 0; i < polygonCount; i++)
+				paths[i] = createPath(polygons[i]);
+			for (boolean antialiased : new boolean[] {false, true}) {
+				Graphics2D g = image.createGraphics();
+				g.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+						antialiased ? RenderingHints.VALUE_ANTIALIAS_ON : RenderingHints.VALUE_ANTIALIAS_OFF);
+				double java2D = ExportBenchmark.measure(() -> {
+					for (int i = 0; i < polygonCount; i++) {
+						g.setColor(polygons[i].getColor());
+						g.fill(paths[i]);
+					}
+					sink += pixels[SIZE * SIZE / 2];
+				});
+				g.dispose();
+				ScanlineRasterizer rasterizer = new ScanlineRasterizer(pixels, SIZE, SIZE);
+				rasterizer.setAntialiased(antialiased);
+				double scanline = ExportBenchmark.measure(() -> {
+					for (RoundedPolygon polygon : polygons)
+						rasterizer.fill(polygon);
+					sink += pixels[SIZE * SIZE / 2];
+				});
+				System.out.printf("%-10d %-6s %16.1f %16.1f%n", vertexCount, antialiased, java2D, scanline);
+			}
+		}
+		if (sink == 42)
+			System.out.println();
+	}
+
+}
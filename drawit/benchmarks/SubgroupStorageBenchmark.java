@@ -0,0 +1,87 @@
+package drawit.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import drawit.IntPoint;
+import drawit.RoundedPolygon;
+import drawit.shapegroups1.LeafShapeGroup;
+import drawit.shapegroups1.NonleafShapeGroup;
+import drawit.shapegroups1.ShapeGroup;
+import drawit.shapegroups1.SubgroupStorage;
+
+/**
+ * Compares the subgroup storage layouts of {@code NonleafShapeGroup} on index access, reordering, iteration and
+ * picking, for a single group with a configurable number of subgroups.
+ * 
+ * Usage: {@code java drawit.benchmarks.SubgroupStorageBenchmark [subgroupCount]}. Each benchmark is run a number of
+ * warm-up rounds before being measured; the reported figure is the mean time per operation of the measured rounds.
+ */
+public class SubgroupStorageBenchmark {
+	
+	static final int WARMUP_ROUNDS = 5;
+	static final int MEASURED_ROUNDS = 5;
+	static final int OPERATIONS_PER_ROUND = 2000;
+	
+	/**
+	 * Prevents the JIT compiler from eliminating the benchmarked work.
+	 */
+	static long sink;
+	
+	interface Operation {
+		void run(Random random);
+	}
+	
+	static NonleafShapeGroup createGroup(int subgroupCount, SubgroupStorage storage) {
+		ArrayList<ShapeGroup> subgroups = new ArrayList<>(subgroupCount);
+		for (int i = 0; i < subgroupCount; i++) {
+			RoundedPolygon polygon = new RoundedPolygon();
+			int x = (i % 1000) * 20;
+			int y = (i / 1000) * 20;
+			polygon.setVertices(new IntPoint[] {
+					new IntPoint(x, y), new IntPoint(x + 10, y), new IntPoint(x + 10, y + 10), new IntPoint(x, y + 10)});
+			subgroups.add(new LeafShapeGroup(polygon));
+		}
+		return new NonleafShapeGroup(subgroups, storage);
+	}
+	
+	static double measure(Operation operation) {
+		Random random = new Random(1);
+		for (int round = 0; round < WARMUP_ROUNDS; round++)
+			for (int i = 0; i < OPERATIONS_PER_ROUND; i++)
+				operation.run(random);
+		long start = System.nanoTime();
+		for (int round = 0; round < MEASURED_ROUNDS; round++)
+			for (int i = 0; i < OPERATIONS_PER_ROUND; i++)
+				operation.run(random);
+		return (double)(System.nanoTime() - start) / (MEASURED_ROUNDS * OPERATIONS_PER_ROUND);
+	}
+	
+	public static void main(String[] args) {
+		int subgroupCount = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+		System.out.printf("%-8s %14s %14s %14s %14s%n", "storage", "index (ns)", "reorder (ns)", "iterate (ns)", "pick (ns)");
+		for (SubgroupStorage storage : SubgroupStorage.values()) {
+			NonleafShapeGroup group = createGroup(subgroupCount, storage);
+			int width = Math.min(subgroupCount, 1000) * 20;
+			int height = (subgroupCount + 999) / 1000 * 20;
+			double index = measure(random -> sink += group.getSubgroup(random.nextInt(subgroupCount)).hashCode());
+			double reorder = measure(random -> {
+				ShapeGroup subgroup = group.getSubgroup(random.nextInt(subgroupCount));
+				switch (random.nextInt(3)) {
+				case 0: subgroup.bringToFront(); break;
+				case 1: subgroup.sendToBack(); break;
+				default: subgroup.moveToIndex(random.nextInt(subgroupCount));
+				}
+			});
+			double iterate = measure(random -> group.forEachShape(shape -> sink += shape.getRadius()));
+			double pick = measure(random -> {
+				ShapeGroup picked = group.getSubgroupAt(new IntPoint(random.nextInt(width), random.nextInt(height)));
+				sink += picked == null ? 0 : 1;
+			});
+			System.out.printf("%-8s %14.0f %14.0f %14.0f %14.0f%n", storage, index, reorder, iterate, pick);
+		}
+		if (sink == 42)
+			System.out.println();
+	}
+	
+}
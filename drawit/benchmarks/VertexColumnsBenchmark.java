@@ -0,0 +1,73 @@
+package drawit.benchmarks;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Map;
+
+import drawit.IntPoint;
+import drawit.RoundedPolygon;
+import drawit.shapegroups1.ShapeGroup;
+import drawit.shapegroups1.exporter.VertexColumns;
+
+/**
+ * Compares two ways of scanning all vertices of a shape group graph: through the map of copied vertex arrays returned
+ * by {@code getAllVertices()}, and through the columns written by {@code VertexColumns.write} to a direct buffer that
+ * is reused across rounds. Each scan sums the vertices' coordinates.
+ *
+ * The graphs are those of {@code ExportBenchmark}, whose leaves contain squares. For each graph size, the reported
+ * figures are the mean time per scan.
+ *
+ * Usage: {@code java drawit.benchmarks.VertexColumnsBenchmark [shapes...]}. The default sizes are 10000, 100000 and
+ * 500000.
+ */
+public class VertexColumnsBenchmark {
+
+	/**
+	 * Prevents the JIT compiler from eliminating the benchmarked work.
+	 */
+	static long sink;
+
+	static long scanMap(ShapeGroup root) {
+		long sum = 0;
+		for (Map.Entry<RoundedPolygon, IntPoint[]> entry : root.getAllVertices().entrySet())
+			for (IntPoint vertex : entry.getValue())
+				sum += vertex.getX() + vertex.getY();
+		return sum;
+	}
+
+	static long scanColumns(ShapeGroup root, ByteBuffer buffer) {
+		buffer.clear();
+		VertexColumns.write(root, buffer);
+		buffer.flip();
+		VertexColumns columns;
+		try {
+			columns = VertexColumns.read(buffer);
+		} catch (IOException e) {
+			throw new AssertionError(e);
+		}
+		long sum = 0;
+		IntBuffer xs = columns.getXs();
+		IntBuffer ys = columns.getYs();
+		for (int i = 0; i < columns.getVertexCount(); i++)
+			sum += xs.get(i) + ys.get(i);
+		return sum;
+	}
+
+	public static void main(String[] args) {
+		int[] sizes = args.length > 0 ? new int[args.length] : new int[] {10000, 100000, 500000};
+		for (int i = 0; i < args.length; i++)
+			sizes[i] = Integer.parseInt(args[i]);
+		System.out.printf("%-8s %16s %16s%n", "shapes", "map (ms)", "columns (ms)");
+		for (int size : sizes) {
+			ShapeGroup root = ExportBenchmark.createTree(size);
+			ByteBuffer buffer = ByteBuffer.allocateDirect((int)VertexColumns.getByteCount(root));
+			double map = ExportBenchmark.measure(() -> sink += scanMap(root));
+			double columns = ExportBenchmark.measure(() -> sink += scanColumns(root, buffer));
+			System.out.printf("%-8d %16.1f %16.1f%n", size, map, columns);
+		}
+		if (sink == 42)
+			System.out.println();
+	}
+
+}
@@ -0,0 +1,62 @@
+package drawit.shapegroups1;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.ListIterator;
+
+final class ArraySubgroupList extends SubgroupList {
+	
+	/**
+	 * @invar | elements != null
+	 * @representationObject
+	 */
+	private final ArrayList<ShapeGroup> elements = new ArrayList<>();
+	
+	@Override
+	SubgroupStorage getStorage() { return SubgroupStorage.ARRAY; }
+	
+	@Override
+	public int size() { return elements.size(); }
+	
+	@Override
+	public ShapeGroup get(int index) { return elements.get(index); }
+	
+	@Override
+	public void add(int index, ShapeGroup group) { elements.add(index, group); }
+	
+	@Override
+	public ShapeGroup remove(int index) { return elements.remove(index); }
+	
+	@Override
+	public boolean remove(Object o) { return elements.remove(o); }
+	
+	@Override
+	public int indexOf(Object o) { return elements.indexOf(o); }
+	
+	@Override
+	public Iterator<ShapeGroup> iterator() { return elements.iterator(); }
+	
+	@Override
+	Iterator<ShapeGroup> descendingIterator() {
+		ListIterator<ShapeGroup> iterator = elements.listIterator(elements.size());
+		return new Iterator<ShapeGroup>() {
+			@Override
+			public boolean hasNext() { return iterator.hasPrevious(); }
+			@Override
+			public ShapeGroup next() { return iterator.previous(); }
+		};
+	}
+	
+	@Override
+	ShapeGroup previous(ShapeGroup group) {
+		int index = elements.indexOf(group);
+		return index == 0 ? null : elements.get(index - 1);
+	}
+	
+	@Override
+	ShapeGroup next(ShapeGroup group) {
+		int index = elements.indexOf(group);
+		return index == elements.size() - 1 ? null : elements.get(index + 1);
+	}
+	
+}
@@ -118,6 +118,45 @@ public class Extent {
 				getTop() <= point.getY() && point.getY() <= getBottom();
 	}
 
+	/**
+	 * Returns whether this extent and the given extent, considered as closed sets of points,
+	 * have at least one point in common.
+	 * 
+	 * @throws IllegalArgumentException if {@code other} is null
+	 *    | other == null
+	 * @post
+	 *    | result == (
+	 *    |     getLeft() <= other.getRight() && other.getLeft() <= getRight() &&
+	 *    |     getTop() <= other.getBottom() && other.getTop() <= getBottom()
+	 *    | )
+	 */
+	public boolean intersects(Extent other) {
+		if (other == null)
+			throw new IllegalArgumentException("other is null");
+		return
+				getLeft() <= other.getRight() && other.getLeft() <= getRight() &&
+				getTop() <= other.getBottom() && other.getTop() <= getBottom();
+	}
+	
+	/**
+	 * Returns whether this extent, considered as a closed set of points, contains the given extent.
+	 * 
+	 * @throws IllegalArgumentException if {@code other} is null
+	 *    | other == null
+	 * @post
+	 *    | result == (
+	 *    |     getLeft() <= other.getLeft() && other.getRight() <= getRight() &&
+	 *    |     getTop() <= other.getTop() && other.getBottom() <= getBottom()
+	 *    | )
+	 */
+	public boolean contains(Extent other) {
+		if (other == null)
+			throw new IllegalArgumentException("other is null");
+		return
+				getLeft() <= other.getLeft() && other.getRight() <= getRight() &&
+				getTop() <= other.getTop() && other.getBottom() <= getBottom();
+	}
+
 	/**
 	 * Returns whether this extent equals the given extent.
 	 * 
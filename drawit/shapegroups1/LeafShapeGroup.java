@@ -4,8 +4,10 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 
-import drawit.IntPoint;
+import drawit.DrawingCommandsRope;
 import drawit.RoundedPolygon;
+import drawit.RoundedPolygonListener;
+import drawit.Transform;
 
 /**
  * Each instance of this class represents a leaf shape group in a shape group graph.
@@ -33,37 +35,100 @@ public class LeafShapeGroup extends ShapeGroup {
 	 */
 	public List<RoundedPolygon> getAllShapes() { return List.of(shape); }
 	
+	/**
+	 * Invalidates the caches of this shape group and of its ancestors when its shape changes. It is registered with
+	 * the shape only while some cache of this shape group may be filled: a change unregisters it, and computing a
+	 * cache registers it again. A shape therefore does not keep shape groups that no longer contain it alive once it
+	 * changes, and reading the caches does not need to check the shapes for changes.
+	 * 
+	 * Changes of a shape in a batch (see {@code RoundedPolygon.beginBatch()}) are notified when the batch ends, so
+	 * the caches reflect them from then on.
+	 */
+	private final RoundedPolygonListener shapeListener = new RoundedPolygonListener() {
+		@Override
+		public void verticesChanged(RoundedPolygon shape, int index, int removedCount, int insertedCount) { shapeChanged(); }
+		@Override
+		public void radiusChanged(RoundedPolygon shape) { shapeChanged(); }
+		@Override
+		public void colorChanged(RoundedPolygon shape) { shapeChanged(); }
+	};
+	/**
+	 * Whether {@code shapeListener} is registered with {@code shape}.
+	 */
+	private boolean listeningToShape;
+	
+	private void shapeChanged() {
+		shape.removeListener(shapeListener);
+		listeningToShape = false;
+		invalidateCaches();
+	}
+	
+	/**
+	 * Registers {@code shapeListener} with {@code shape}, if it is not registered yet; called when a cache is computed.
+	 */
+	private void listenToShape() {
+		if (!listeningToShape) {
+			shape.addListener(shapeListener);
+			listeningToShape = true;
+		}
+	}
+	
+	@Override
+	long computeSubtreeVersion() {
+		listenToShape();
+		return Math.max(transformVersion, shape.getVersion());
+	}
+	
 	@Override
-	public String getDrawingCommands() {
-		return shape.getDrawingCommands();
+	DrawingCommandsRope computeDrawingCommands() {
+		listenToShape();
+		DrawingCommandsRope shapeCommands = DrawingCommandsRope.of(shape.getDrawingCommands());
+		if (transform.isIdentity())
+			return shapeCommands;
+		return DrawingCommandsRope.concat(
+				DrawingCommandsRope.of(transform.getPushCommands()), shapeCommands, DrawingCommandsRope.of(transform.getPopCommands()));
 	}
+	
 
 	/**
 	 * Returns the smallest extent that contains all of the shapes contained directly or indirectly by this shape group.
 	 * 
 	 * @inspects | this, ...getAllShapes()
 	 * @post | result != null
-	 * @post | result.getLeft() == getAllShapes().stream().flatMap(s -> Arrays.stream(s.getVertices())).mapToInt(p -> p.getX()).min().getAsInt()
-	 * @post | result.getTop() == getAllShapes().stream().flatMap(s -> Arrays.stream(s.getVertices())).mapToInt(p -> p.getY()).min().getAsInt()
-	 * @post | result.getRight() == getAllShapes().stream().flatMap(s -> Arrays.stream(s.getVertices())).mapToInt(p -> p.getX()).max().getAsInt()
-	 * @post | result.getBottom() == getAllShapes().stream().flatMap(s -> Arrays.stream(s.getVertices())).mapToInt(p -> p.getY()).max().getAsInt()
+	 * @post | result.getLeft() == getAllOuterVertices().values().stream().flatMap(vertices -> Arrays.stream(vertices)).mapToInt(p -> p.getX()).min().getAsInt()
+	 * @post | result.getTop() == getAllOuterVertices().values().stream().flatMap(vertices -> Arrays.stream(vertices)).mapToInt(p -> p.getY()).min().getAsInt()
+	 * @post | result.getRight() == getAllOuterVertices().values().stream().flatMap(vertices -> Arrays.stream(vertices)).mapToInt(p -> p.getX()).max().getAsInt()
+	 * @post | result.getBottom() == getAllOuterVertices().values().stream().flatMap(vertices -> Arrays.stream(vertices)).mapToInt(p -> p.getY()).max().getAsInt()
 	 */
 	@Override
 	public Extent getBoundingBox() {
-		IntPoint[] vertices = shape.getVertices();
-		if (vertices.length == 0)
+		return getCachedBoundingBox();
+	}
+	
+	@Override
+	Extent computeBoundingBox(Transform outer) {
+		listenToShape();
+		int count = shape.getVertexCount();
+		if (count == 0)
 			throw new IllegalStateException("no vertices");
 		int minX = Integer.MAX_VALUE;
 		int maxX = Integer.MIN_VALUE;
 		int minY = Integer.MAX_VALUE;
 		int maxY = Integer.MIN_VALUE;
-		for (IntPoint p : vertices) {
-			minX = Math.min(minX, p.getX());
-			maxX = Math.max(maxX, p.getX());
-			minY = Math.min(minY, p.getY());
-			maxY = Math.max(maxY, p.getY());
+		for (int i = 0; i < count; i++) {
+			int x = shape.getVertexX(i);
+			int y = shape.getVertexY(i);
+			minX = Math.min(minX, x);
+			maxX = Math.max(maxX, x);
+			minY = Math.min(minY, y);
+			maxY = Math.max(maxY, y);
 		}
-		return Extent.ofLeftTopRightBottom(minX, minY, maxX, maxY);
+		Transform transform = this.transform.then(outer);
+		int left = transform.applyToX(minX);
+		int right = transform.applyToX(maxX);
+		int top = transform.applyToY(minY);
+		int bottom = transform.applyToY(maxY);
+		return Extent.ofLeftTopRightBottom(Math.min(left, right), Math.min(top, bottom), Math.max(left, right), Math.max(top, bottom));
 	}
 
 	/**
@@ -76,14 +141,16 @@ public class LeafShapeGroup extends ShapeGroup {
 	 * @mutates | this
 	 * @post | getShape() == shape
 	 * @post | getParentGroup() == null
+	 * @post | getUndoJournal() == shape.getUndoJournal()
 	 */
 	public LeafShapeGroup(RoundedPolygon shape) {
 		if (shape == null)
 			throw new IllegalArgumentException("shape is null");
-		if (shape.getVertices().length < 3)
+		if (shape.getVertexCount() < 3)
 			throw new IllegalArgumentException("shape has less than three vertices");
 		
 		this.shape = shape;
+		this.undoJournal = shape.getUndoJournal();
 	}
 	
 }
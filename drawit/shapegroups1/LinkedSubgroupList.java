@@ -0,0 +1,165 @@
+package drawit.shapegroups1;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A list of subgroups that links its elements into a ring of siblings through their {@code previousSibling} and
+ * {@code nextSibling} fields.
+ */
+final class LinkedSubgroupList extends SubgroupList {
+	
+	/**
+	 * @invar | (first == null) == (size == 0)
+	 * @invar | first == null || first.subgroupListNode == this
+	 */
+	private ShapeGroup first;
+	private int size;
+	
+	@Override
+	SubgroupStorage getStorage() { return SubgroupStorage.LINKED; }
+	
+	@Override
+	public int size() { return size; }
+	
+	private ShapeGroup elementAt(int index) {
+		if (index < 0 || size <= index)
+			throw new IndexOutOfBoundsException(index);
+		ShapeGroup group = first;
+		if (index < size / 2) {
+			for (int i = 0; i < index; i++)
+				group = group.nextSibling;
+		} else {
+			for (int i = size; index < i; i--)
+				group = group.previousSibling;
+		}
+		return group;
+	}
+	
+	private ShapeGroup elementOf(Object o) {
+		if (o instanceof ShapeGroup && ((ShapeGroup)o).subgroupListNode == this)
+			return (ShapeGroup)o;
+		return null;
+	}
+	
+	@Override
+	public ShapeGroup get(int index) { return elementAt(index); }
+	
+	@Override
+	public void add(int index, ShapeGroup group) {
+		if (index < 0 || size < index)
+			throw new IndexOutOfBoundsException(index);
+		if (size == 0) {
+			group.previousSibling = group;
+			group.nextSibling = group;
+			first = group;
+		} else {
+			ShapeGroup next = index == size ? first : elementAt(index);
+			group.nextSibling = next;
+			group.previousSibling = next.previousSibling;
+			next.previousSibling.nextSibling = group;
+			next.previousSibling = group;
+			if (index == 0)
+				first = group;
+		}
+		group.subgroupListNode = this;
+		size++;
+		modCount++;
+	}
+	
+	private void unlink(ShapeGroup group) {
+		if (size == 1) {
+			first = null;
+		} else {
+			group.previousSibling.nextSibling = group.nextSibling;
+			group.nextSibling.previousSibling = group.previousSibling;
+			if (group == first)
+				first = group.nextSibling;
+		}
+		group.previousSibling = null;
+		group.nextSibling = null;
+		group.subgroupListNode = null;
+		size--;
+		modCount++;
+	}
+	
+	@Override
+	public ShapeGroup remove(int index) {
+		ShapeGroup group = elementAt(index);
+		unlink(group);
+		return group;
+	}
+	
+	@Override
+	public boolean remove(Object o) {
+		ShapeGroup group = elementOf(o);
+		if (group == null)
+			return false;
+		unlink(group);
+		return true;
+	}
+	
+	@Override
+	public int indexOf(Object o) {
+		ShapeGroup target = elementOf(o);
+		if (target == null)
+			return -1;
+		int index = 0;
+		for (ShapeGroup group = first; group != target; group = group.nextSibling)
+			index++;
+		return index;
+	}
+	
+	@Override
+	public boolean contains(Object o) {
+		return elementOf(o) != null;
+	}
+	
+	@Override
+	public Iterator<ShapeGroup> iterator() {
+		return new Iterator<ShapeGroup>() {
+			ShapeGroup group = first;
+			int remaining = size;
+			@Override
+			public boolean hasNext() { return 0 < remaining; }
+			@Override
+			public ShapeGroup next() {
+				if (remaining == 0)
+					throw new NoSuchElementException();
+				ShapeGroup result = group;
+				group = group.nextSibling;
+				remaining--;
+				return result;
+			}
+		};
+	}
+	
+	@Override
+	Iterator<ShapeGroup> descendingIterator() {
+		return new Iterator<ShapeGroup>() {
+			ShapeGroup group = first;
+			int remaining = size;
+			@Override
+			public boolean hasNext() { return 0 < remaining; }
+			@Override
+			public ShapeGroup next() {
+				if (remaining == 0)
+					throw new NoSuchElementException();
+				group = group.previousSibling;
+				remaining--;
+				return group;
+			}
+		};
+	}
+	
+	@Override
+	ShapeGroup previous(ShapeGroup group) {
+		return group == first ? null : group.previousSibling;
+	}
+	
+	@Override
+	ShapeGroup next(ShapeGroup group) {
+		return group.nextSibling == first ? null : group.nextSibling;
+	}
+	
+}
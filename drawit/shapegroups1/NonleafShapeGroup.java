@@ -1,15 +1,21 @@
 package drawit.shapegroups1;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import drawit.DrawingCommandsRope;
 import drawit.IntPoint;
 import drawit.RoundedPolygon;
+import drawit.Transform;
+import drawit.VersionClock;
 import logicalcollections.LogicalList;
 
 /**
@@ -28,7 +34,7 @@ public class NonleafShapeGroup extends ShapeGroup {
 	 * @representationObject
 	 * @peerObjects
 	 */
-	ArrayList<ShapeGroup> subgroups;
+	SubgroupList subgroups;
 
 	/**
 	 * Returns the list of subgroups of this shape group.
@@ -38,6 +44,36 @@ public class NonleafShapeGroup extends ShapeGroup {
 	 */
 	public List<ShapeGroup> getSubgroups() { return List.copyOf(subgroups); }
 	
+	/**
+	 * Returns the layout in which this non-leaf shape group stores its list of subgroups.
+	 * 
+	 * @immutable
+	 * @post | result != null
+	 */
+	public SubgroupStorage getSubgroupStorage() { return subgroups.getStorage(); }
+	
+	/**
+	 * @invar | 0 < subgroupsVersion
+	 */
+	long subgroupsVersion = VersionClock.next();
+	
+	/**
+	 * Returns the version number (see {@code VersionClock}) with which this non-leaf shape group was stamped when it
+	 * was created or when its list of subgroups was last changed: when subgroups were added, removed, or reordered.
+	 * 
+	 * @post | 0 < result && result <= VersionClock.current()
+	 */
+	public long getSubgroupsVersion() { return subgroupsVersion; }
+	
+	/**
+	 * Stamps this shape group's list of subgroups with a new version number, and notifies the listeners of the given
+	 * change to it.
+	 */
+	void subgroupsChanged(int changes) {
+		subgroupsVersion = VersionClock.next();
+		notifyListeners(changes);
+	}
+	
 	/**
 	 * Returns the number of subgroups of this non-leaf shape group.
 	 * 
@@ -55,17 +91,37 @@ public class NonleafShapeGroup extends ShapeGroup {
 	 * @post | result == getSubgroups().get(index)
 	 */
 	public ShapeGroup getSubgroup(int index) {
-		if (index < 0 || getSubgroups().size() <= index)
+		if (index < 0 || subgroups.size() <= index)
 			throw new IllegalArgumentException("index out of bounds");
 		return subgroups.get(index);
 	}
 	
+	/**
+	 * Returns an iterator over this shape group's subgroups, last subgroup first; that is, in the order in which
+	 * they are drawn.
+	 */
+	Iterator<ShapeGroup> drawingOrderIterator() {
+		return subgroups.descendingIterator();
+	}
+	
 	@Override
-	public String getDrawingCommands() {
-		StringBuilder builder = new StringBuilder();
-		for (int i = subgroups.size() - 1; 0 <= i; i--)
-			builder.append(subgroups.get(i).getDrawingCommands());
-		return builder.toString();
+	long computeSubtreeVersion() {
+		long result = Math.max(transformVersion, subgroupsVersion);
+		for (ShapeGroup subgroup : subgroups)
+			result = Math.max(result, subgroup.subtreeVersion);
+		return result;
+	}
+	
+	@Override
+	DrawingCommandsRope computeDrawingCommands() {
+		ArrayList<DrawingCommandsRope> parts = new ArrayList<>(subgroups.size() + 2);
+		if (!transform.isIdentity())
+			parts.add(DrawingCommandsRope.of(transform.getPushCommands()));
+		for (Iterator<ShapeGroup> iterator = drawingOrderIterator(); iterator.hasNext(); )
+			parts.add(iterator.next().getCachedDrawingCommands());
+		if (!transform.isIdentity())
+			parts.add(DrawingCommandsRope.of(transform.getPopCommands()));
+		return DrawingCommandsRope.concat(parts);
 	}
 
 	/**
@@ -73,23 +129,45 @@ public class NonleafShapeGroup extends ShapeGroup {
 	 * 
 	 * @inspects | this, ...getAllShapes()
 	 * @post | result != null
-	 * @post | result.getLeft() == getAllShapes().stream().flatMap(s -> Arrays.stream(s.getVertices())).mapToInt(p -> p.getX()).min().getAsInt()
-	 * @post | result.getTop() == getAllShapes().stream().flatMap(s -> Arrays.stream(s.getVertices())).mapToInt(p -> p.getY()).min().getAsInt()
-	 * @post | result.getRight() == getAllShapes().stream().flatMap(s -> Arrays.stream(s.getVertices())).mapToInt(p -> p.getX()).max().getAsInt()
-	 * @post | result.getBottom() == getAllShapes().stream().flatMap(s -> Arrays.stream(s.getVertices())).mapToInt(p -> p.getY()).max().getAsInt()
+	 * @post | result.getLeft() == getAllOuterVertices().values().stream().flatMap(vertices -> Arrays.stream(vertices)).mapToInt(p -> p.getX()).min().getAsInt()
+	 * @post | result.getTop() == getAllOuterVertices().values().stream().flatMap(vertices -> Arrays.stream(vertices)).mapToInt(p -> p.getY()).min().getAsInt()
+	 * @post | result.getRight() == getAllOuterVertices().values().stream().flatMap(vertices -> Arrays.stream(vertices)).mapToInt(p -> p.getX()).max().getAsInt()
+	 * @post | result.getBottom() == getAllOuterVertices().values().stream().flatMap(vertices -> Arrays.stream(vertices)).mapToInt(p -> p.getY()).max().getAsInt()
 	 */
 	@Override
 	public Extent getBoundingBox() {
+		return getCachedBoundingBox();
+	}
+	
+	@Override
+	Extent computeBoundingBox(Transform outer) {
 		int minX = Integer.MAX_VALUE;
 		int maxX = Integer.MIN_VALUE;
 		int minY = Integer.MAX_VALUE;
 		int maxY = Integer.MIN_VALUE;
-		for (ShapeGroup subgroup : subgroups) {
-			Extent boundingBox = subgroup.getBoundingBox();
-			minX = Math.min(minX, boundingBox.getLeft());
-			maxX = Math.max(maxX, boundingBox.getRight());
-			minY = Math.min(minY, boundingBox.getTop());
-			maxY = Math.max(maxY, boundingBox.getBottom());
+		// The bounding box of the subtree is the smallest extent that contains the bounding boxes of the leaves and
+		// of the subtrees whose outer coordinate system maps to this shape group's through the identity, whose
+		// cached bounding boxes are used.
+		ArrayDeque<ShapeGroup> stack = new ArrayDeque<>();
+		ArrayDeque<Transform> outers = new ArrayDeque<>();
+		stack.push(this);
+		outers.push(outer);
+		while (!stack.isEmpty()) {
+			ShapeGroup group = stack.pop();
+			Transform groupOuter = outers.pop();
+			if (group != this && (group instanceof LeafShapeGroup || groupOuter.isIdentity())) {
+				Extent boundingBox = group.getBoundingBox(groupOuter);
+				minX = Math.min(minX, boundingBox.getLeft());
+				maxX = Math.max(maxX, boundingBox.getRight());
+				minY = Math.min(minY, boundingBox.getTop());
+				maxY = Math.max(maxY, boundingBox.getBottom());
+			} else {
+				Transform transform = group.transform.then(groupOuter);
+				int count = stack.size();
+				pushSubgroups(group, stack);
+				for (int i = count; i < stack.size(); i++)
+					outers.push(transform);
+			}
 		}
 		return Extent.ofLeftTopRightBottom(minX, minY, maxX, maxY);
 	}
@@ -121,7 +199,108 @@ public class NonleafShapeGroup extends ShapeGroup {
 	 * @post | Objects.equals(result, getSubgroups().stream().flatMap(g -> g.getAllShapes().stream()).collect(Collectors.toList()))
 	 */
 	public List<RoundedPolygon> getAllShapes() {
-		return subgroups.stream().flatMap(subgroup -> subgroup.getAllShapes().stream()).collect(Collectors.toList());
+		ArrayList<RoundedPolygon> result = new ArrayList<>();
+		forEachShapePrivate(result::add);
+		return result;
+	}
+	
+	/**
+	 * Assigns the ranges of z-order labels of this shape group's subgroups within this shape group's range,
+	 * leaving the subtrees of the subgroups to be labelled by the caller.
+	 */
+	void assignSubgroupZLabels() {
+		// One quantum for this shape group's own label, one for the gap before the first subgroup,
+		// and one for the gap after each subgroup.
+		long quantum = (zLabelLimit - zLabel + 1) / zLabelWeight;
+		long next = zLabel + 2 * quantum;
+		for (ShapeGroup subgroup : subgroups) {
+			long width = quantum * subgroup.zLabelWeight;
+			subgroup.zLabel = next;
+			subgroup.zLabelLimit = next + width - 1;
+			subgroup.labelRoot = labelRoot;
+			next += width + quantum;
+		}
+	}
+	
+	/**
+	 * Inserts the given shape group into this non-leaf shape group's list of subgroups, at the given (zero-based) index.
+	 * 
+	 * The given shape group keeps its own transform; its shapes are now also transformed by the transforms of this
+	 * shape group and its ancestors.
+	 * 
+	 * @throws IllegalArgumentException if {@code subgroup} is null
+	 *    | subgroup == null
+	 * @throws IllegalArgumentException if {@code subgroup} already has a parent
+	 *    | subgroup.getParentGroup() != null
+	 * @throws IllegalArgumentException if {@code subgroup} is this shape group or one of its ancestors
+	 *    | subgroup == this || getAncestors().contains(subgroup)
+	 * @throws IllegalArgumentException if the given index is out of bounds
+	 *    | index < 0 || getSubgroups().size() < index
+	 * @mutates | this
+	 * @mutates_properties | subgroup.getParentGroup()
+	 * @post | getSubgroups().equals(LogicalList.plusAt(old(getSubgroups()), index, subgroup))
+	 * @post | subgroup.getParentGroup() == this
+	 */
+	public void addSubgroup(int index, ShapeGroup subgroup) {
+		if (subgroup == null)
+			throw new IllegalArgumentException("subgroup is null");
+		if (subgroup.parent != null)
+			throw new IllegalArgumentException("subgroup already has a parent");
+		// Since subgroup has no parent, it is this shape group or one of its ancestors iff it is this graph's root.
+		if (subgroup == getRoot())
+			throw new IllegalArgumentException("subgroup is this shape group or one of its ancestors");
+		if (index < 0 || subgroups.size() < index)
+			throw new IllegalArgumentException("index out of bounds");
+		
+		if (undoJournal != null && subgroup.undoJournal != undoJournal)
+			subgroup.setUndoJournal(undoJournal);
+		if (isRecording()) {
+			undoJournal.perform(new ShapeGroupEdits.AddEdit(this, subgroup, index));
+			return;
+		}
+		subgroups.add(index, subgroup);
+		subgroup.parent = this;
+		addZLabelWeight(subgroup.zLabelWeight + 1);
+		subgroup.relabelInserted(subgroups.previous(subgroup), subgroups.next(subgroup));
+		invalidateCaches();
+		subgroup.updateObserved();
+		subgroupsChanged(SUBGROUPS_CHANGED);
+	}
+	
+	/**
+	 * Removes the given shape group from this non-leaf shape group's list of subgroups. The removed shape group
+	 * becomes the root of a separate shape group graph; it keeps its own transform.
+	 * 
+	 * @throws IllegalArgumentException if {@code subgroup} is null
+	 *    | subgroup == null
+	 * @throws IllegalArgumentException if {@code subgroup} is not a subgroup of this shape group
+	 *    | subgroup.getParentGroup() != this
+	 * @throws IllegalStateException if this shape group has only two subgroups
+	 *    | getSubgroups().size() == 2
+	 * @mutates | this
+	 * @mutates_properties | subgroup.getParentGroup()
+	 * @post | getSubgroups().equals(LogicalList.minus(old(getSubgroups()), subgroup))
+	 * @post | subgroup.getParentGroup() == null
+	 */
+	public void removeSubgroup(ShapeGroup subgroup) {
+		if (subgroup == null)
+			throw new IllegalArgumentException("subgroup is null");
+		if (subgroup.parent != this)
+			throw new IllegalArgumentException("subgroup is not a subgroup of this shape group");
+		if (subgroups.size() == 2)
+			throw new IllegalStateException("a non-leaf shape group must have at least two subgroups");
+		
+		if (isRecording()) {
+			undoJournal.perform(new ShapeGroupEdits.RemoveEdit(this, subgroup, subgroups.indexOf(subgroup)));
+			return;
+		}
+		subgroups.remove(subgroup);
+		addZLabelWeight(-subgroup.zLabelWeight - 1);
+		subgroup.parent = null;
+		subgroup.labelAsRoot();
+		invalidateCaches();
+		subgroup.updateObserved();
+		subgroupsChanged(SUBGROUPS_CHANGED);
 	}
 	
 	/**
@@ -148,22 +327,138 @@ public class NonleafShapeGroup extends ShapeGroup {
 	 * @post | getParentGroup() == null
 	 */
 	public NonleafShapeGroup(ShapeGroup[] subgroups) {
+		this(subgroups == null ? null : Arrays.asList(subgroups));
+	}
+	
+	/**
+	 * Initializes this object to represent a non-leaf shape group that directly contains the given
+	 * subgroups, in the given order.
+	 * 
+	 * The subgroups are checked for duplicates using an identity-based hash set, in time linear in their number.
+	 * 
+	 * @mutates | this
+	 * @mutates_properties | (...subgroups).getParentGroup()
+	 * @inspects | subgroups
+	 * 
+	 * @throws IllegalArgumentException if {@code subgroups} is null
+	 *    | subgroups == null
+	 * @throws IllegalArgumentException if {@code subgroups} has less than two elements
+	 *    | subgroups.size() < 2
+	 * @throws IllegalArgumentException if any element of {@code subgroups} is null
+	 *    | subgroups.stream().anyMatch(g -> g == null)
+	 * @throws IllegalArgumentException if the given subgroups are not distinct
+	 *    | !LogicalList.distinct(List.copyOf(subgroups))
+	 * @throws IllegalArgumentException if any of the given subgroups already has a parent
+	 *    | subgroups.stream().anyMatch(g -> g.getParentGroup() != null)
+	 * 
+	 * @post | Objects.equals(getSubgroups(), List.copyOf(subgroups))
+	 * @post | subgroups.stream().allMatch(g -> g.getParentGroup() == this)
+	 * @post | getParentGroup() == null
+	 */
+	public NonleafShapeGroup(List<? extends ShapeGroup> subgroups) {
+		this(subgroups, SubgroupStorage.ARRAY);
+	}
+	
+	/**
+	 * Initializes this object to represent a non-leaf shape group that directly contains the given
+	 * subgroups, in the given order, stored using the given layout.
+	 * 
+	 * If some of the given subgroups are attached to an undo journal, the new shape group and all of the given
+	 * subgroups are attached to the first subgroup's undo journal, and the creation of the new shape group is recorded
+	 * there.
+	 * 
+	 * @mutates | this
+	 * @mutates_properties | (...subgroups).getParentGroup()
+	 * @inspects | subgroups
+	 * 
+	 * @throws IllegalArgumentException if {@code storage} is null
+	 *    | storage == null
+	 * @throws IllegalArgumentException if {@code subgroups} is null
+	 *    | subgroups == null
+	 * @throws IllegalArgumentException if {@code subgroups} has less than two elements
+	 *    | subgroups.size() < 2
+	 * @throws IllegalArgumentException if any element of {@code subgroups} is null
+	 *    | subgroups.stream().anyMatch(g -> g == null)
+	 * @throws IllegalArgumentException if the given subgroups are not distinct
+	 *    | !LogicalList.distinct(List.copyOf(subgroups))
+	 * @throws IllegalArgumentException if any of the given subgroups already has a parent
+	 *    | subgroups.stream().anyMatch(g -> g.getParentGroup() != null)
+	 * 
+	 * @post | Objects.equals(getSubgroups(), List.copyOf(subgroups))
+	 * @post | getSubgroupStorage() == storage
+	 * @post | subgroups.stream().allMatch(g -> g.getParentGroup() == this)
+	 * @post | getParentGroup() == null
+	 */
+	public NonleafShapeGroup(List<? extends ShapeGroup> subgroups, SubgroupStorage storage) {
+		if (storage == null)
+			throw new IllegalArgumentException("storage is null");
 		if (subgroups == null)
 			throw new IllegalArgumentException("subgroups is null");
-		if (subgroups.length < 2)
+		if (subgroups.size() < 2)
 			throw new IllegalArgumentException("subgroups has less than two elements");
-		if (Arrays.stream(subgroups).anyMatch(g -> g == null))
-			throw new IllegalArgumentException("subgroups has null elements");
-		if (!LogicalList.distinct(List.of(subgroups)))
-			throw new IllegalArgumentException("subgroups has duplicate elements");
-		if (Arrays.stream(subgroups).anyMatch(g -> g.getParentGroup() != null))
-			throw new IllegalArgumentException("some of the given groups already have a parent");
+		ShapeGroup[] groups = subgroups.toArray(new ShapeGroup[subgroups.size()]);
+		for (ShapeGroup group : groups)
+			if (group == null)
+				throw new IllegalArgumentException("subgroups has null elements");
+		Set<ShapeGroup> distinctGroups = Collections.newSetFromMap(new IdentityHashMap<>(2 * groups.length));
+		for (ShapeGroup group : groups)
+			if (!distinctGroups.add(group))
+				throw new IllegalArgumentException("subgroups has duplicate elements");
+		for (ShapeGroup group : groups)
+			if (group.parent != null)
+				throw new IllegalArgumentException("some of the given groups already have a parent");
 		
-		this.subgroups = new ArrayList<>(Arrays.asList(subgroups));
-		for (ShapeGroup group : subgroups) {
-			assert group.getParentGroup() == null;
+		this.subgroups = SubgroupList.create(storage);
+		assemble(groups);
+		// The new shape group is attached to the undo journal of its first subgroup that has one.
+		for (ShapeGroup group : groups) {
+			if (group.undoJournal != null) {
+				undoJournal = group.undoJournal;
+				break;
+			}
+		}
+		if (undoJournal != null) {
+			for (ShapeGroup group : groups)
+				if (group.undoJournal != undoJournal)
+					group.setUndoJournal(undoJournal);
+			if (isRecording())
+				undoJournal.record(new ShapeGroupEdits.GroupEdit(this, groups));
+		}
+	}
+	
+	/**
+	 * Makes the given shape groups, which have no parent, the subgroups of this shape group, which has no subgroups.
+	 */
+	void assemble(ShapeGroup[] groups) {
+		subgroups.addAll(Arrays.asList(groups));
+		zLabelWeight = 2;
+		for (ShapeGroup group : groups) {
 			group.parent = this;
+			zLabelWeight += group.zLabelWeight + 1;
+		}
+		labelRoot = this;
+		zLabelsStale = true;
+		invalidateCaches();
+		for (ShapeGroup group : groups)
+			group.updateObserved();
+		subgroupsChanged(SUBGROUPS_CHANGED);
+	}
+	
+	/**
+	 * Removes all subgroups of this shape group, which has no parent, so as to undo its creation. Each of the removed
+	 * shape groups becomes the root of a separate shape group graph. This shape group is left without subgroups, and
+	 * must not be used until {@code assemble} is called.
+	 */
+	void disassemble() {
+		ShapeGroup[] groups = subgroups.toArray(new ShapeGroup[0]);
+		subgroups = SubgroupList.create(subgroups.getStorage());
+		for (ShapeGroup group : groups) {
+			group.parent = null;
+			group.labelAsRoot();
+			group.updateObserved();
 		}
+		invalidateCaches();
+		subgroupsChanged(SUBGROUPS_CHANGED);
 	}
 	
 }
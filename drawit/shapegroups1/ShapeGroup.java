@@ -1,18 +1,34 @@
 package drawit.shapegroups1;
 
+import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
+import drawit.DrawingCommandsRope;
 import drawit.IntPoint;
 import drawit.IntVector;
 import drawit.PointArrays;
 import drawit.RoundedPolygon;
+import drawit.ShapeTree;
+import drawit.ShapeTreeSpliterator;
+import drawit.Transform;
+import drawit.UndoJournal;
+import drawit.VersionClock;
 
 import logicalcollections.LogicalList;
 import logicalcollections.LogicalSet;
@@ -36,6 +52,19 @@ public abstract class ShapeGroup {
 	 */
 	NonleafShapeGroup parent;
 	
+	/**
+	 * The node that represents this shape group in its parent's list of subgroups, if that list uses nodes, or the
+	 * list itself, if that list links its elements directly.
+	 */
+	Object subgroupListNode;
+	
+	/**
+	 * This shape group's neighbours in its parent's list of subgroups, if that list is a ring of siblings (see
+	 * {@code LinkedSubgroupList}): the first subgroup's previous sibling is the last one, and vice versa.
+	 */
+	ShapeGroup previousSibling;
+	ShapeGroup nextSibling;
+	
 	/**
 	 * Returns the set of the ancestors of this shape group.
 	 * 
@@ -65,6 +94,478 @@ public abstract class ShapeGroup {
 	 */
 	public NonleafShapeGroup getParentGroup() { return parent; }
 	
+	/**
+	 * @invar | transform != null
+	 */
+	Transform transform = Transform.IDENTITY;
+	
+	/**
+	 * Returns the transform that maps this shape group's inner coordinate system to its outer coordinate system.
+	 * 
+	 * The vertices of a shape are expressed in the inner coordinate system of the leaf shape group that contains it;
+	 * a shape group's outer coordinate system is its parent's inner coordinate system. Bounding boxes and drawing
+	 * commands of a shape group are expressed in its outer coordinate system.
+	 * 
+	 * @basic
+	 * @post | result != null
+	 */
+	public Transform getTransform() { return transform; }
+	
+	/**
+	 * @invar | 0 < transformVersion
+	 */
+	long transformVersion = VersionClock.next();
+	
+	/**
+	 * Returns the version number (see {@code VersionClock}) with which this shape group was stamped when it was
+	 * created or when its transform was last changed.
+	 * 
+	 * @post | 0 < result && result <= VersionClock.current()
+	 */
+	public long getTransformVersion() { return transformVersion; }
+	
+	/**
+	 * This shape group's subtree version, or 0 if it must be recomputed.
+	 * 
+	 * @invar If a shape group's subtree version must be recomputed, so must its ancestors'.
+	 *    | subtreeVersion != 0 || parent == null || parent.subtreeVersion == 0
+	 */
+	long subtreeVersion;
+	
+	/**
+	 * Returns the greatest version number (see {@code VersionClock}) with which this shape group, its descendants
+	 * or the shapes they contain were stamped, so that a client that saw this subtree at a later version knows that
+	 * it did not change since.
+	 * 
+	 * The subtree version is cached per subtree: a change marks it as to be recomputed for the changed shape group
+	 * and its ancestors only, so that recomputing it visits only the paths from this shape group to the changes.
+	 * 
+	 * @inspects | this, ...getAllShapes()
+	 * @post | getTransformVersion() <= result && result <= VersionClock.current()
+	 * @post | getAllShapes().stream().allMatch(shape -> shape.getVersion() <= result)
+	 */
+	public long getSubtreeVersion() {
+		if (subtreeVersion == 0) {
+			// Recompute the missing subtree versions bottom-up, so that each one reuses those of its subgroups.
+			ArrayList<ShapeGroup> groups = getTopOfSubtree(group -> group.subtreeVersion == 0);
+			for (int i = groups.size() - 1; 0 <= i; i--)
+				groups.get(i).subtreeVersion = groups.get(i).computeSubtreeVersion();
+		}
+		return subtreeVersion;
+	}
+	
+	/**
+	 * Returns the subtree version of this shape group, reusing the cached subtree versions of its subgroups.
+	 */
+	abstract long computeSubtreeVersion();
+	
+	/**
+	 * @peerObject
+	 */
+	UndoJournal undoJournal;
+	
+	/**
+	 * Returns the undo journal that records the edits of this shape group, or {@code null} if they are not recorded.
+	 * 
+	 * @peerObject
+	 */
+	public UndoJournal getUndoJournal() { return undoJournal; }
+	
+	/**
+	 * Sets the undo journal that records the edits of this shape group, of its descendants and of their shapes;
+	 * {@code null} stops recording them. Shape groups added to this shape group later on are attached to the same
+	 * undo journal.
+	 * 
+	 * @mutates_properties | getUndoJournal(), (...getAllShapes()).getUndoJournal()
+	 * @post | getUndoJournal() == undoJournal
+	 * @post | getAllShapes().stream().allMatch(s -> s.getUndoJournal() == undoJournal)
+	 */
+	public void setUndoJournal(UndoJournal undoJournal) {
+		ArrayDeque<ShapeGroup> stack = new ArrayDeque<>();
+		stack.push(this);
+		while (!stack.isEmpty()) {
+			ShapeGroup group = stack.pop();
+			group.undoJournal = undoJournal;
+			if (group instanceof LeafShapeGroup)
+				((LeafShapeGroup)group).shape.setUndoJournal(undoJournal);
+			pushSubgroups(group, stack);
+		}
+	}
+	
+	/**
+	 * Returns whether edits of this shape group are to be recorded now.
+	 */
+	boolean isRecording() {
+		return undoJournal != null && undoJournal.isRecording();
+	}
+	
+	/**
+	 * The kinds of changes notified to {@code ShapeGroupListener}s, as bits.
+	 */
+	static final int SHAPES_CHANGED = 1;
+	static final int TRANSFORM_CHANGED = 2;
+	static final int SUBGROUPS_REORDERED = 4;
+	static final int SUBGROUPS_CHANGED = 8;
+	
+	/**
+	 * The registered listeners, or {@code null} if there are none. The array is replaced rather than mutated, so that
+	 * a notification in progress is not affected by listeners being added or removed.
+	 * 
+	 * @representationObject
+	 */
+	ShapeGroupListener[] listeners;
+	/**
+	 * Whether this shape group or one of its ancestors has listeners. A change is notified by walking up the
+	 * ancestors only as long as they are observed, so that unobserved graphs pay nothing for notifications.
+	 * 
+	 * @invar | observed == (listeners != null || parent != null && parent.observed)
+	 */
+	boolean observed;
+	/**
+	 * The number of batches in progress.
+	 * 
+	 * @invar | 0 <= batchDepth
+	 */
+	int batchDepth;
+	/**
+	 * For each shape group whose changes were not yet notified to this shape group's listeners because of a batch in
+	 * progress, the kinds of its changes, in the order in which the shape groups first changed; or {@code null}.
+	 */
+	LinkedHashMap<ShapeGroup, Integer> pendingChanges;
+	
+	/**
+	 * Returns the listeners registered with this shape group, in the order in which they are notified.
+	 * 
+	 * @post | result != null
+	 * @creates | result
+	 */
+	public List<ShapeGroupListener> getListeners() {
+		return listeners == null ? List.of() : List.of(listeners);
+	}
+	
+	/**
+	 * Registers the given listener with this shape group, so that it is notified of the changes of this shape group
+	 * and of its descendants. A listener that is registered more than once is notified more than once.
+	 * 
+	 * @throws IllegalArgumentException if {@code listener} is null
+	 *    | listener == null
+	 * @mutates | this
+	 * @post | getListeners().size() == old(getListeners()).size() + 1
+	 * @post | getListeners().get(getListeners().size() - 1) == listener
+	 */
+	public void addListener(ShapeGroupListener listener) {
+		if (listener == null)
+			throw new IllegalArgumentException("listener is null");
+		if (listeners == null) {
+			listeners = new ShapeGroupListener[] {listener};
+			updateObserved();
+		} else {
+			listeners = Arrays.copyOf(listeners, listeners.length + 1);
+			listeners[listeners.length - 1] = listener;
+		}
+	}
+	
+	/**
+	 * Unregisters the given listener from this shape group, once, if it is registered.
+	 * 
+	 * @mutates | this
+	 * @post | old(getListeners()).contains(listener)
+	 *       |     ? getListeners().size() == old(getListeners()).size() - 1
+	 *       |     : getListeners().equals(old(getListeners()))
+	 */
+	public void removeListener(ShapeGroupListener listener) {
+		if (listeners == null)
+			return;
+		for (int i = 0; i < listeners.length; i++) {
+			if (listeners[i] == listener) {
+				if (listeners.length == 1) {
+					listeners = null;
+					updateObserved();
+				} else {
+					ShapeGroupListener[] newListeners = new ShapeGroupListener[listeners.length - 1];
+					System.arraycopy(listeners, 0, newListeners, 0, i);
+					System.arraycopy(listeners, i + 1, newListeners, i, listeners.length - i - 1);
+					listeners = newListeners;
+				}
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * Re-establishes the {@code observed} flags of this shape group and of its descendants after this shape group's
+	 * listeners or parent changed, visiting only the shape groups whose flag changes.
+	 */
+	void updateObserved() {
+		ArrayDeque<ShapeGroup> stack = new ArrayDeque<>();
+		stack.push(this);
+		while (!stack.isEmpty()) {
+			ShapeGroup group = stack.pop();
+			boolean observed = group.listeners != null || group.parent != null && group.parent.observed;
+			if (group.observed != observed) {
+				group.observed = observed;
+				pushSubgroups(group, stack);
+			}
+		}
+	}
+	
+	/**
+	 * Starts a batch: until the batch ends, the changes of this shape group and of its descendants are not notified to
+	 * this shape group's listeners. When the last batch in progress ends, the listeners are notified once of each kind
+	 * of change of each shape group that changed during the batches.
+	 * 
+	 * @mutates | this
+	 */
+	public void beginBatch() {
+		batchDepth++;
+	}
+	
+	/**
+	 * Ends the batch started most recently, notifying this shape group's listeners of the pending changes if no other
+	 * batch is in progress.
+	 * 
+	 * @throws IllegalStateException if no batch is in progress
+	 * @mutates | this
+	 */
+	public void endBatch() {
+		if (batchDepth == 0)
+			throw new IllegalStateException("no batch in progress");
+		if (--batchDepth > 0 || pendingChanges == null)
+			return;
+		LinkedHashMap<ShapeGroup, Integer> changes = pendingChanges;
+		pendingChanges = null;
+		if (listeners != null)
+			changes.forEach(this::deliver);
+	}
+	
+	/**
+	 * Notifies the listeners of this shape group and of its observed ancestors of the given kinds of changes of this
+	 * shape group.
+	 */
+	void notifyListeners(int changes) {
+		for (ShapeGroup group = this; group != null && group.observed; group = group.parent) {
+			if (group.listeners == null)
+				continue;
+			if (group.batchDepth > 0) {
+				if (group.pendingChanges == null)
+					group.pendingChanges = new LinkedHashMap<>();
+				group.pendingChanges.merge(this, changes, (a, b) -> a | b);
+			} else
+				group.deliver(this, changes);
+		}
+	}
+	
+	private void deliver(ShapeGroup source, int changes) {
+		for (ShapeGroupListener listener : listeners) {
+			if ((changes & SHAPES_CHANGED) != 0)
+				listener.shapesChanged(source);
+			if ((changes & TRANSFORM_CHANGED) != 0)
+				listener.transformChanged(source);
+			if ((changes & SUBGROUPS_REORDERED) != 0)
+				listener.subgroupsReordered((NonleafShapeGroup)source);
+			if ((changes & SUBGROUPS_CHANGED) != 0)
+				listener.subgroupsChanged((NonleafShapeGroup)source);
+		}
+	}
+	
+	/**
+	 * Transforms the shapes contained directly or indirectly by this shape group by the given transform,
+	 * in constant time: the given transform is composed with this shape group's transform, and the vertices
+	 * of the shapes are left untouched until {@code bakeTransforms()} is called.
+	 * 
+	 * @throws IllegalArgumentException if {@code transform} is null
+	 *    | transform == null
+	 * @mutates | this
+	 * @post | getTransform().equals(old(getTransform()).then(transform))
+	 */
+	public void applyTransform(Transform transform) {
+		if (transform == null)
+			throw new IllegalArgumentException("transform is null");
+		
+		Transform oldTransform = this.transform;
+		setTransform(oldTransform.then(transform));
+		if (isRecording())
+			undoJournal.record(new ShapeGroupEdits.TransformEdit(this, oldTransform, this.transform));
+	}
+	
+	/**
+	 * Sets this shape group's transform to the given transform, unlike {@code applyTransform}, which composes the
+	 * given transform with this shape group's transform; this restores a transform exactly.
+	 * 
+	 * @throws IllegalArgumentException if {@code transform} is null
+	 *    | transform == null
+	 * @mutates | this
+	 * @post | getTransform().equals(transform)
+	 */
+	public void replaceTransform(Transform transform) {
+		if (transform == null)
+			throw new IllegalArgumentException("transform is null");
+		
+		Transform oldTransform = this.transform;
+		setTransform(transform);
+		if (isRecording())
+			undoJournal.record(new ShapeGroupEdits.TransformEdit(this, oldTransform, transform));
+	}
+	
+	void setTransform(Transform transform) {
+		this.transform = transform;
+		transformVersion = VersionClock.next();
+		invalidateCaches();
+		notifyListeners(TRANSFORM_CHANGED);
+	}
+	
+	/**
+	 * Applies the transforms of this shape group and of its descendants to the vertices of the shapes contained
+	 * directly or indirectly by this shape group, and resets these transforms to the identity. Each vertex is
+	 * rounded only once, after composing all of the transforms.
+	 * 
+	 * @throws IllegalArgumentException if the baked vertices of some shape do not define a proper polygon;
+	 *     in that case, nothing is changed
+	 *    | getAllOuterVertices().values().stream().anyMatch(vertices -> PointArrays.checkDefinesProperPolygon(vertices) != null)
+	 * @mutates | this
+	 * @mutates_properties | (...getAllShapes()).getVertices()
+	 * @post | getTransform().isIdentity()
+	 * @post | getAllShapes().stream().allMatch(s -> Arrays.equals(s.getVertices(), old(getAllOuterVertices()).get(s)))
+	 */
+	public void bakeTransforms() {
+		if (isRecording())
+			undoJournal.perform(new ShapeGroupEdits.SubtreeEdit(this, () -> transformSubtree(vertices -> vertices)));
+		else
+			transformSubtree(vertices -> vertices);
+	}
+	
+	/**
+	 * Bakes the transforms of this shape group and of its descendants into the vertices of its shapes and then
+	 * replaces these vertices by the result of applying {@code transformation} to them, as a single atomic step.
+	 */
+	void transformSubtree(UnaryOperator<IntPoint[]> transformation) {
+		ArrayList<RoundedPolygon> shapes = new ArrayList<>();
+		ArrayList<Transform> transforms = new ArrayList<>();
+		collectShapes(Transform.IDENTITY, shapes, transforms);
+		// The shapes' listeners are notified when the batches end, on this thread rather than on the threads that
+		// rewrite the vertices.
+		for (RoundedPolygon shape : shapes)
+			shape.beginBatch();
+		try {
+			RoundedPolygon.transformVertices(shapes, transforms, transformation);
+		} finally {
+			for (RoundedPolygon shape : shapes)
+				shape.endBatch();
+		}
+		resetTransforms();
+		notifyListeners(SHAPES_CHANGED);
+	}
+	
+	/**
+	 * Adds the shapes contained directly or indirectly by this shape group to {@code shapes}, in depth-first order,
+	 * and, for each shape, adds to {@code transforms} the transform from the shape's coordinate system to the
+	 * coordinate system that {@code outer} maps this shape group's outer coordinate system to.
+	 */
+	void collectShapes(Transform outer, List<RoundedPolygon> shapes, List<Transform> transforms) {
+		ArrayDeque<ShapeGroup> stack = new ArrayDeque<>();
+		// For each shape group on the stack, the transform that its outer coordinate system maps through.
+		ArrayDeque<Transform> outers = new ArrayDeque<>();
+		stack.push(this);
+		outers.push(outer);
+		while (!stack.isEmpty()) {
+			ShapeGroup group = stack.pop();
+			Transform transform = group.transform.then(outers.pop());
+			if (group instanceof LeafShapeGroup) {
+				shapes.add(((LeafShapeGroup)group).shape);
+				transforms.add(transform);
+			} else {
+				int count = stack.size();
+				pushSubgroups(group, stack);
+				for (int i = count; i < stack.size(); i++)
+					outers.push(transform);
+			}
+		}
+	}
+	
+	/**
+	 * Returns whether the transforms of this shape group and of its descendants are the identity, so that translating
+	 * this shape group leaves no pending transforms to be baked and is undone by the opposite translation.
+	 */
+	boolean hasIdentityTransforms() {
+		ArrayDeque<ShapeGroup> stack = new ArrayDeque<>();
+		stack.push(this);
+		while (!stack.isEmpty()) {
+			ShapeGroup group = stack.pop();
+			if (!group.transform.isIdentity())
+				return false;
+			pushSubgroups(group, stack);
+		}
+		return true;
+	}
+	
+	/**
+	 * Resets the transforms of this shape group and of its descendants to the identity.
+	 */
+	void resetTransforms() {
+		ArrayDeque<ShapeGroup> stack = new ArrayDeque<>();
+		stack.push(this);
+		while (!stack.isEmpty()) {
+			ShapeGroup group = stack.pop();
+			if (!group.transform.isIdentity())
+				group.setTransform(Transform.IDENTITY);
+			pushSubgroups(group, stack);
+		}
+	}
+	
+	/**
+	 * Gives the shared algorithms over shape group graphs in package {@code drawit} access to the graphs of this
+	 * package.
+	 */
+	static final ShapeTree<ShapeGroup> TREE = new ShapeTree<ShapeGroup>() {
+		@Override
+		public RoundedPolygon getShape(ShapeGroup group) {
+			return group instanceof LeafShapeGroup ? ((LeafShapeGroup)group).shape : null;
+		}
+		@Override
+		public Transform getTransform(ShapeGroup group) {
+			return group.transform;
+		}
+		@Override
+		public Iterator<ShapeGroup> subgroups(ShapeGroup group) {
+			return ((NonleafShapeGroup)group).subgroups.iterator();
+		}
+		@Override
+		public Iterator<ShapeGroup> descendingSubgroups(ShapeGroup group) {
+			return ((NonleafShapeGroup)group).subgroups.descendingIterator();
+		}
+	};
+	
+	/**
+	 * If the given shape group is a non-leaf shape group, pushes its subgroups onto the given stack, last subgroup
+	 * first, so that they are popped in order.
+	 * 
+	 * The traversals of shape group graphs use explicit stacks rather than recursion, so that arbitrarily deep
+	 * graphs can be traversed.
+	 */
+	static void pushSubgroups(ShapeGroup group, ArrayDeque<ShapeGroup> stack) {
+		if (group instanceof NonleafShapeGroup)
+			for (Iterator<ShapeGroup> iterator = ((NonleafShapeGroup)group).drawingOrderIterator(); iterator.hasNext(); )
+				stack.push(iterator.next());
+	}
+	
+	/**
+	 * Returns the shape groups in this subtree that satisfy the given condition and whose ancestors within this
+	 * subtree satisfy it as well, in depth-first (pre-order) order.
+	 */
+	private ArrayList<ShapeGroup> getTopOfSubtree(Predicate<ShapeGroup> condition) {
+		ArrayList<ShapeGroup> result = new ArrayList<>();
+		ArrayDeque<ShapeGroup> stack = new ArrayDeque<>();
+		stack.push(this);
+		while (!stack.isEmpty()) {
+			ShapeGroup group = stack.pop();
+			if (condition.test(group)) {
+				result.add(group);
+				pushSubgroups(group, stack);
+			}
+		}
+		return result;
+	}
+	
 	/**
 	 * Returns the list of all RoundedPolygon objects contained directly or
 	 * indirectly by this shape group, in depth-first order.
@@ -77,6 +578,69 @@ public abstract class ShapeGroup {
 	 */
 	public abstract List<RoundedPolygon> getAllShapes();
 	
+	/**
+	 * Performs the given action for each RoundedPolygon object contained directly or
+	 * indirectly by this shape group, in depth-first order.
+	 * 
+	 * Unlike {@code getAllShapes()}, this method does not build any intermediate lists.
+	 * 
+	 * @throws IllegalArgumentException if {@code action} is null
+	 *    | action == null
+	 * @inspects | this
+	 */
+	public void forEachShape(Consumer<? super RoundedPolygon> action) {
+		if (action == null)
+			throw new IllegalArgumentException("action is null");
+		
+		forEachShapePrivate(action);
+	}
+	
+	void forEachShapePrivate(Consumer<? super RoundedPolygon> action) {
+		ArrayDeque<ShapeGroup> stack = new ArrayDeque<>();
+		stack.push(this);
+		while (!stack.isEmpty()) {
+			ShapeGroup group = stack.pop();
+			if (group instanceof LeafShapeGroup)
+				action.accept(((LeafShapeGroup)group).shape);
+			else
+				pushSubgroups(group, stack);
+		}
+	}
+	
+	/**
+	 * Returns an iterator over the RoundedPolygon objects contained directly or
+	 * indirectly by this shape group, in depth-first order.
+	 * 
+	 * The iterator visits the shape group graph lazily; the behavior is unspecified if
+	 * the graph is mutated while the iteration is in progress.
+	 * 
+	 * @inspects | this
+	 * @creates | result
+	 * @post | result != null
+	 */
+	public Iterator<RoundedPolygon> shapeIterator() {
+		return Spliterators.iterator(shapeSpliterator());
+	}
+	
+	/**
+	 * Returns a spliterator over the RoundedPolygon objects contained directly or
+	 * indirectly by this shape group, in depth-first order.
+	 * 
+	 * The spliterator splits along subtrees, so that, for example,
+	 * {@code StreamSupport.stream(group.shapeSpliterator(), true)} processes
+	 * different subgroups in parallel. The behavior is unspecified if
+	 * the graph is mutated while the traversal is in progress.
+	 * 
+	 * @inspects | this
+	 * @creates | result
+	 * @post | result != null
+	 * @post | result.hasCharacteristics(Spliterator.ORDERED)
+	 * @post | result.hasCharacteristics(Spliterator.NONNULL)
+	 */
+	public Spliterator<RoundedPolygon> shapeSpliterator() {
+		return new ShapeTreeSpliterator<>(this, TREE);
+	}
+	
 	/**
 	 * Returns a map that maps each RoundedPolygon object contained directly or
 	 * indirectly by this shape group to its current list of vertices.
@@ -87,7 +651,28 @@ public abstract class ShapeGroup {
 	 * @post | getAllShapes().stream().allMatch(s -> Arrays.equals(result.get(s), s.getVertices()))
 	 */
 	public Map<RoundedPolygon, IntPoint[]> getAllVertices() {
-		return getAllShapes().stream().collect(Collectors.toMap(s -> s, s -> s.getVertices()));
+		HashMap<RoundedPolygon, IntPoint[]> result = new HashMap<>();
+		forEachShapePrivate(shape -> result.put(shape, shape.getVertices()));
+		return result;
+	}
+
+	/**
+	 * Returns a map that maps each RoundedPolygon object contained directly or indirectly by this shape group
+	 * to its current list of vertices, expressed in this shape group's outer coordinate system; that is, with the
+	 * transforms of this shape group and of the shape groups between this shape group and the shape applied.
+	 * 
+	 * @inspects | this, ...getAllShapes()
+	 * @post | result != null
+	 * @post | result.keySet().equals(Set.copyOf(getAllShapes()))
+	 */
+	public Map<RoundedPolygon, IntPoint[]> getAllOuterVertices() {
+		ArrayList<RoundedPolygon> shapes = new ArrayList<>();
+		ArrayList<Transform> transforms = new ArrayList<>();
+		collectShapes(Transform.IDENTITY, shapes, transforms);
+		HashMap<RoundedPolygon, IntPoint[]> result = new HashMap<>();
+		for (int i = 0; i < shapes.size(); i++)
+			result.put(shapes.get(i), transforms.get(i).apply(shapes.get(i).getVertices()));
+		return result;
 	}
 
 	/**
@@ -95,23 +680,422 @@ public abstract class ShapeGroup {
 	 * 
 	 * @inspects | this, ...getAllShapes()
 	 * @post | result != null
-	 * @post | result.getLeft() == getAllShapes().stream().flatMap(s -> Arrays.stream(s.getVertices())).mapToInt(p -> p.getX()).min().getAsInt()
-	 * @post | result.getTop() == getAllShapes().stream().flatMap(s -> Arrays.stream(s.getVertices())).mapToInt(p -> p.getY()).min().getAsInt()
-	 * @post | result.getRight() == getAllShapes().stream().flatMap(s -> Arrays.stream(s.getVertices())).mapToInt(p -> p.getX()).max().getAsInt()
-	 * @post | result.getBottom() == getAllShapes().stream().flatMap(s -> Arrays.stream(s.getVertices())).mapToInt(p -> p.getY()).max().getAsInt()
+	 * @post | result.getLeft() == getAllOuterVertices().values().stream().flatMap(vertices -> Arrays.stream(vertices)).mapToInt(p -> p.getX()).min().getAsInt()
+	 * @post | result.getTop() == getAllOuterVertices().values().stream().flatMap(vertices -> Arrays.stream(vertices)).mapToInt(p -> p.getY()).min().getAsInt()
+	 * @post | result.getRight() == getAllOuterVertices().values().stream().flatMap(vertices -> Arrays.stream(vertices)).mapToInt(p -> p.getX()).max().getAsInt()
+	 * @post | result.getBottom() == getAllOuterVertices().values().stream().flatMap(vertices -> Arrays.stream(vertices)).mapToInt(p -> p.getY()).max().getAsInt()
 	 */
 	public abstract Extent getBoundingBox();
 	
+	/**
+	 * This shape group's bounding box, or {@code null} if it must be recomputed.
+	 * 
+	 * @invar If a shape group's bounding box must be recomputed, so must its ancestors'.
+	 *    | boundingBox != null || parent == null || parent.boundingBox == null
+	 */
+	Extent boundingBox;
+	
+	Extent getCachedBoundingBox() {
+		if (boundingBox == null) {
+			// Compute the missing bounding boxes bottom-up, so that each one reuses those of its subgroups.
+			ArrayList<ShapeGroup> groups = getTopOfSubtree(group -> group.boundingBox == null);
+			for (int i = groups.size() - 1; 0 <= i; i--)
+				groups.get(i).boundingBox = groups.get(i).computeBoundingBox(Transform.IDENTITY);
+		}
+		return boundingBox;
+	}
+	
+	/**
+	 * Returns the smallest extent that contains the images under {@code outer} of all of the shapes contained
+	 * directly or indirectly by this shape group, expressed in this shape group's outer coordinate system.
+	 * If {@code outer} is the identity, the cached bounding box is used.
+	 */
+	Extent getBoundingBox(Transform outer) {
+		return outer.isIdentity() ? getCachedBoundingBox() : computeBoundingBox(outer);
+	}
+	
+	abstract Extent computeBoundingBox(Transform outer);
+	
+	/**
+	 * Returns the smallest extent that contains the image of the given extent under the inverse of the given
+	 * transform, widened by one unit on each side to allow for the rounding of vertices in transformed bounding boxes.
+	 */
+	static Extent getInverseImage(Extent extent, Transform transform) {
+		Transform inverse = transform.inverse();
+		double x1 = inverse.getXScale() * extent.getLeft() + inverse.getXOffset();
+		double x2 = inverse.getXScale() * extent.getRight() + inverse.getXOffset();
+		double y1 = inverse.getYScale() * extent.getTop() + inverse.getYOffset();
+		double y2 = inverse.getYScale() * extent.getBottom() + inverse.getYOffset();
+		return Extent.ofLeftTopRightBottom(
+				clampToInt(Math.floor(Math.min(x1, x2)) - 1), clampToInt(Math.floor(Math.min(y1, y2)) - 1),
+				clampToInt(Math.ceil(Math.max(x1, x2)) + 1), clampToInt(Math.ceil(Math.max(y1, y2)) + 1));
+	}
+	
+	private static int clampToInt(double value) {
+		return (int)Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, value));
+	}
+	
 	/**
 	 * Returns a textual representation of a sequence of drawing commands for drawing
 	 * the shapes contained directly or indirectly by this shape group.
 	 * 
 	 * For the syntax of the drawing commands, see {@code RoundedPolygon.getDrawingCommands()}.
+	 * The commands draw the shapes in this shape group's outer coordinate system: if a shape group's transform
+	 * is not the identity, the commands for its contents are enclosed in the commands returned by the transform's
+	 * {@code getPushCommands()} and {@code getPopCommands()} methods.
+	 * 
+	 * The commands are cached per subtree: only the subtrees that changed since the previous call are regenerated.
 	 * 
 	 * @inspects | this, ...getAllShapes()
 	 * @post | result != null
+	 * @post | result.equals(getDrawingCommandsRope().toString())
 	 */
-	public abstract String getDrawingCommands();
+	public String getDrawingCommands() {
+		return getDrawingCommandsRope().toString();
+	}
+	
+	/**
+	 * Returns the drawing commands for drawing the shapes contained directly or indirectly by this shape group,
+	 * as a rope that shares the cached commands of this shape group's subtrees. Unlike {@code getDrawingCommands()},
+	 * this method does not copy any text.
+	 * 
+	 * @inspects | this, ...getAllShapes()
+	 * @post | result != null
+	 */
+	public DrawingCommandsRope getDrawingCommandsRope() {
+		return getCachedDrawingCommands();
+	}
+	
+	/**
+	 * Appends the drawing commands for drawing the shapes contained directly or indirectly by this shape group
+	 * to the given sink, without first building them into a single string.
+	 * 
+	 * @throws IllegalArgumentException if {@code out} is null
+	 *    | out == null
+	 * @throws IOException if the sink throws it
+	 * @inspects | this, ...getAllShapes()
+	 * @mutates | out
+	 */
+	public void writeDrawingCommands(Appendable out) throws IOException {
+		if (out == null)
+			throw new IllegalArgumentException("out is null");
+		
+		getDrawingCommandsRope().writeTo(out);
+	}
+	
+	/**
+	 * Returns the drawing commands for drawing the shapes contained directly or indirectly by this shape group
+	 * that may be visible in the given viewport, expressed in this shape group's outer coordinate system.
+	 * 
+	 * Subtrees whose bounding box does not intersect the viewport are skipped; subtrees whose bounding box lies
+	 * within the viewport reuse their cached drawing commands. The commands for the individual shapes that are
+	 * not skipped are not trimmed: each shape is drawn as a filled outline, and dropping some of its edges would
+	 * change the filled area.
+	 * 
+	 * @throws IllegalArgumentException if {@code viewport} is null
+	 *    | viewport == null
+	 * @inspects | this, ...getAllShapes()
+	 * @post | result != null
+	 * @post | result.equals(getDrawingCommandsRope(viewport).toString())
+	 * @post | !viewport.intersects(getBoundingBox()) ? result.isEmpty() : true
+	 * @post | viewport.contains(getBoundingBox()) ? result.equals(getDrawingCommands()) : true
+	 */
+	public String getDrawingCommands(Extent viewport) {
+		return getDrawingCommandsRope(viewport).toString();
+	}
+	
+	/**
+	 * Returns the drawing commands for drawing the shapes contained directly or indirectly by this shape group
+	 * that may be visible in the given viewport, as a rope that shares the cached commands of this shape group's subtrees.
+	 * 
+	 * @throws IllegalArgumentException if {@code viewport} is null
+	 *    | viewport == null
+	 * @inspects | this, ...getAllShapes()
+	 * @post | result != null
+	 */
+	public DrawingCommandsRope getDrawingCommandsRope(Extent viewport) {
+		if (viewport == null)
+			throw new IllegalArgumentException("viewport is null");
+		
+		return getCulledDrawingCommands(viewport);
+	}
+	
+	/**
+	 * Returns the drawing commands for the shapes in this subtree that may be visible in the given viewport,
+	 * expressed in this shape group's outer coordinate system.
+	 */
+	DrawingCommandsRope getCulledDrawingCommands(Extent viewport) {
+		ArrayDeque<CullingFrame> frames = new ArrayDeque<>();
+		ShapeGroup group = this;
+		for (;;) {
+			DrawingCommandsRope commands = null;
+			Extent boundingBox = group.getCachedBoundingBox();
+			if (!viewport.intersects(boundingBox))
+				commands = DrawingCommandsRope.EMPTY;
+			else if (viewport.contains(boundingBox) || group instanceof LeafShapeGroup)
+				commands = group.getCachedDrawingCommands();
+			else
+				frames.push(new CullingFrame((NonleafShapeGroup)group, viewport));
+			// Hand the commands to the innermost frame, completing the frames whose subgroups have all been visited.
+			for (;;) {
+				CullingFrame frame = frames.peek();
+				if (commands != null) {
+					if (frame == null)
+						return commands;
+					frame.parts.add(commands);
+					commands = null;
+				}
+				if (frame.subgroups.hasNext()) {
+					group = frame.subgroups.next();
+					viewport = frame.innerViewport;
+					break;
+				}
+				frames.pop();
+				commands = frame.getCommands();
+			}
+		}
+	}
+	
+	/**
+	 * The state of {@code getCulledDrawingCommands} for a non-leaf shape group whose bounding box intersects
+	 * the viewport but does not lie within it.
+	 */
+	private static class CullingFrame {
+		
+		final NonleafShapeGroup group;
+		/**
+		 * The viewport, expressed in the group's inner coordinate system.
+		 */
+		final Extent innerViewport;
+		/**
+		 * The subgroups that remain to be visited, in drawing order.
+		 */
+		final Iterator<ShapeGroup> subgroups;
+		final ArrayList<DrawingCommandsRope> parts = new ArrayList<>();
+		
+		CullingFrame(NonleafShapeGroup group, Extent viewport) {
+			this.group = group;
+			this.innerViewport = group.transform.isIdentity() ? viewport : getInverseImage(viewport, group.transform);
+			this.subgroups = group.drawingOrderIterator();
+		}
+		
+		DrawingCommandsRope getCommands() {
+			DrawingCommandsRope commands = DrawingCommandsRope.concat(parts);
+			if (group.transform.isIdentity() || commands.length() == 0)
+				return commands;
+			return DrawingCommandsRope.concat(
+					DrawingCommandsRope.of(group.transform.getPushCommands()), commands,
+					DrawingCommandsRope.of(group.transform.getPopCommands()));
+		}
+		
+	}
+	
+	/**
+	 * The drawing commands for this shape group, or {@code null} if they must be regenerated.
+	 * 
+	 * @invar If a shape group's drawing commands must be regenerated, so must its ancestors'.
+	 *    | drawingCommands != null || parent == null || parent.drawingCommands == null
+	 */
+	DrawingCommandsRope drawingCommands;
+	
+	/**
+	 * Marks the drawing commands, the bounding boxes and the subtree versions of this shape group and of its
+	 * ancestors as to be recomputed.
+	 */
+	void invalidateCaches() {
+		for (ShapeGroup group = this; group != null && (group.drawingCommands != null || group.boundingBox != null || group.subtreeVersion != 0); group = group.parent) {
+			group.drawingCommands = null;
+			group.boundingBox = null;
+			group.subtreeVersion = 0;
+		}
+	}
+	
+	DrawingCommandsRope getCachedDrawingCommands() {
+		if (drawingCommands == null) {
+			// Regenerate the missing drawing commands bottom-up, so that each shape group reuses those of its subgroups.
+			ArrayList<ShapeGroup> groups = getTopOfSubtree(group -> group.drawingCommands == null);
+			for (int i = groups.size() - 1; 0 <= i; i--)
+				groups.get(i).drawingCommands = groups.get(i).computeDrawingCommands();
+		}
+		return drawingCommands;
+	}
+	
+	/**
+	 * Returns the drawing commands for this shape group, reusing the cached drawing commands of its subgroups.
+	 */
+	abstract DrawingCommandsRope computeDrawingCommands();
+
+	/**
+	 * The largest z-order label.
+	 */
+	static final long MAX_Z_LABEL = Long.MAX_VALUE - 1;
+	
+	/**
+	 * This shape group's z-order label. Labels increase in depth-first (pre-order) order across the shape group
+	 * graph, so that a shape group that is painted in front of another one has a smaller label.
+	 * 
+	 * Each shape group reserves the range of labels {@code zLabel..zLabelLimit}; the ranges reserved by its
+	 * subgroups are disjoint, lie within {@code zLabel + 1..zLabelLimit}, and follow the order of the subgroups.
+	 * Gaps are left before, between and after them, so that moving, adding or removing a subgroup usually relabels
+	 * only that subgroup's subtree.
+	 * 
+	 * The labels of a graph are assigned lazily: combining shape groups into a new non-leaf shape group only marks
+	 * the new graph's labels as stale, so that building a deep graph bottom-up takes linear time. The labels are
+	 * assigned the first time they are needed.
+	 * 
+	 * @invar | 0 <= zLabel && zLabel <= zLabelLimit && zLabelLimit <= MAX_Z_LABEL
+	 * @invar | hasStaleZLabels() || parent == null || parent.zLabel < zLabel && zLabelLimit <= parent.zLabelLimit
+	 */
+	long zLabel;
+	long zLabelLimit = MAX_Z_LABEL;
+	/**
+	 * The number of label quanta this shape group's subtree needs: one for each shape group, plus, for each non-leaf
+	 * shape group, one for the gap before its first subgroup and one for the gap after each of its subgroups.
+	 * 
+	 * @invar | 1 <= zLabelWeight
+	 */
+	int zLabelWeight = 1;
+	/**
+	 * The root of the shape group graph that contains this shape group; shape groups with the same
+	 * {@code labelRoot} have comparable z-order labels.
+	 * 
+	 * @invar | labelRoot != null
+	 * @invar | hasStaleZLabels() || (parent == null ? labelRoot == this : labelRoot == parent.labelRoot)
+	 */
+	ShapeGroup labelRoot = this;
+	/**
+	 * Whether the z-order labels of the graph rooted at this shape group must be assigned before they are used.
+	 * Meaningful only if this shape group has no parent.
+	 */
+	boolean zLabelsStale;
+	
+	/**
+	 * Returns whether the z-order labels of the graph that contains this shape group must be assigned before
+	 * they are used. If so, {@code labelRoot} need not be the graph's root. Takes constant time.
+	 */
+	boolean hasStaleZLabels() {
+		return labelRoot.parent != null || labelRoot.zLabelsStale;
+	}
+	
+	/**
+	 * Returns the root of the shape group graph that contains this shape group, in constant time if the graph's
+	 * z-order labels are up to date and in time proportional to this shape group's depth otherwise.
+	 */
+	ShapeGroup getRoot() {
+		if (!hasStaleZLabels())
+			return labelRoot;
+		ShapeGroup root = this;
+		while (root.parent != null)
+			root = root.parent;
+		return root;
+	}
+	
+	/**
+	 * Assigns the z-order labels of the shape group graph that contains this shape group if they are stale,
+	 * and returns the graph's root.
+	 */
+	ShapeGroup getLabelledRoot() {
+		if (hasStaleZLabels())
+			getRoot().labelAsRoot();
+		return labelRoot;
+	}
+	
+	/**
+	 * Assigns the z-order labels of the graph rooted at this shape group, which has no parent.
+	 */
+	void labelAsRoot() {
+		assignZLabels(0, MAX_Z_LABEL, this);
+		zLabelsStale = false;
+	}
+	
+	/**
+	 * Compares the positions of this shape group and the given shape group in the depth-first (pre-order)
+	 * order of the shape group graph that contains them, in constant time. (The first comparison after shape groups
+	 * were combined into a new non-leaf shape group takes time linear in the size of the graph.)
+	 * 
+	 * Returns a negative number if this shape group comes first, zero if both are the same shape group, and a positive
+	 * number otherwise. In particular, if neither shape group contains the other one, the result is negative if and only
+	 * if this shape group is painted in front of the given one; a shape group comes before the shape groups it contains.
+	 * 
+	 * @throws IllegalArgumentException if {@code other} is null
+	 *    | other == null
+	 * @throws IllegalArgumentException if {@code other} is not in the same shape group graph as this shape group
+	 * @post | other == this ? result == 0 : result != 0
+	 * @post | getAncestors().contains(other) ? 0 < result : true
+	 * @post | other.getAncestors().contains(this) ? result < 0 : true
+	 */
+	public int compareZOrder(ShapeGroup other) {
+		if (other == null)
+			throw new IllegalArgumentException("other is null");
+		if (other.getLabelledRoot() != getLabelledRoot())
+			throw new IllegalArgumentException("other is not in the same shape group graph");
+		
+		return Long.compare(zLabel, other.zLabel);
+	}
+	
+	/**
+	 * Assigns z-order labels within the range {@code zLabel..zLabelLimit} to the shape groups in this subtree,
+	 * spreading the gaps evenly over the subtree.
+	 * 
+	 * @pre | zLabelWeight <= zLabelLimit - zLabel + 1
+	 */
+	void assignZLabels(long zLabel, long zLabelLimit, ShapeGroup labelRoot) {
+		this.zLabel = zLabel;
+		this.zLabelLimit = zLabelLimit;
+		this.labelRoot = labelRoot;
+		ArrayDeque<ShapeGroup> stack = new ArrayDeque<>();
+		stack.push(this);
+		while (!stack.isEmpty()) {
+			ShapeGroup group = stack.pop();
+			if (group instanceof NonleafShapeGroup) {
+				((NonleafShapeGroup)group).assignSubgroupZLabels();
+				pushSubgroups(group, stack);
+			}
+		}
+	}
+	
+	/**
+	 * Relabels this shape group's subtree after it was inserted into its parent's list of subgroups between
+	 * the given subgroups; {@code previous} is null if this shape group is now the first subgroup, and {@code next}
+	 * is null if it is now the last one.
+	 * 
+	 * The subtree takes half of the free range between its neighbours: next to the neighbour if this shape group
+	 * is now the first or the last subgroup, so that repeated moves to the front or to the back keep finding
+	 * room, and in the middle otherwise. If the labels of the graph are stale, they are left to be assigned
+	 * when they are needed.
+	 */
+	void relabelInserted(ShapeGroup previous, ShapeGroup next) {
+		if (parent.hasStaleZLabels())
+			return;
+		long low = previous == null ? parent.zLabel + 1 : previous.zLabelLimit + 1;
+		long high = next == null ? parent.zLabelLimit : next.zLabel - 1;
+		long width = (high - low + 1) / 2;
+		if (width < zLabelWeight) {
+			parent.relabelSparsely();
+			return;
+		}
+		long start = previous == null ? high - width + 1 : next == null ? low : low + width / 2;
+		assignZLabels(start, start + width - 1, parent.labelRoot);
+	}
+	
+	/**
+	 * Adds the given weight to the z-order label weights of this shape group and its ancestors.
+	 */
+	void addZLabelWeight(int weight) {
+		for (ShapeGroup group = this; group != null; group = group.parent)
+			group.zLabelWeight += weight;
+	}
+	
+	/**
+	 * Relabels the subtree of the closest shape group among this shape group and its ancestors whose range of
+	 * labels leaves enough room for gaps.
+	 */
+	void relabelSparsely() {
+		ShapeGroup group = this;
+		while (group.parent != null && group.zLabelLimit - group.zLabel + 1 < 4L * group.zLabelWeight)
+			group = group.parent;
+		group.assignZLabels(group.zLabel, group.zLabelLimit, group.labelRoot);
+	}
 
 	/**
 	 * Moves this shape group to the front of its parent's list of subgroups.
@@ -126,8 +1110,15 @@ public abstract class ShapeGroup {
 		if (parent == null)
 			throw new UnsupportedOperationException("no parent");
 		
+		if (isRecording()) {
+			undoJournal.perform(new ShapeGroupEdits.MoveEdit(this, parent.subgroups.indexOf(this), 0));
+			return;
+		}
 		parent.subgroups.remove(this);
 		parent.subgroups.add(0, this);
+		relabelInserted(null, parent.subgroups.next(this));
+		parent.invalidateCaches();
+		parent.subgroupsChanged(SUBGROUPS_REORDERED);
 	}
 	
 	/**
@@ -143,46 +1134,104 @@ public abstract class ShapeGroup {
 		if (parent == null)
 			throw new UnsupportedOperationException("no parent");
 		
+		if (isRecording()) {
+			undoJournal.perform(new ShapeGroupEdits.MoveEdit(this, parent.subgroups.indexOf(this), parent.subgroups.size() - 1));
+			return;
+		}
 		parent.subgroups.remove(this);
 		parent.subgroups.add(this);
+		relabelInserted(parent.subgroups.previous(this), null);
+		parent.invalidateCaches();
+		parent.subgroupsChanged(SUBGROUPS_REORDERED);
+	}
+	
+	/**
+	 * Moves this shape group to the given (zero-based) index in its parent's list of subgroups.
+	 * 
+	 * @throws UnsupportedOperationException if this shape group has no parent
+	 *    | getParentGroup() == null
+	 * @throws IllegalArgumentException if the given index is out of bounds
+	 *    | index < 0 || getParentGroup().getSubgroups().size() <= index
+	 * @mutates_properties | getParentGroup().getSubgroups()
+	 * @post | getParentGroup().getSubgroups().equals(
+	 *       |     LogicalList.plusAt(LogicalList.minus(old(getParentGroup().getSubgroups()), this), index, this))
+	 */
+	public void moveToIndex(int index) {
+		if (parent == null)
+			throw new UnsupportedOperationException("no parent");
+		if (index < 0 || parent.subgroups.size() <= index)
+			throw new IllegalArgumentException("index out of bounds");
+		
+		if (isRecording()) {
+			undoJournal.perform(new ShapeGroupEdits.MoveEdit(this, parent.subgroups.indexOf(this), index));
+			return;
+		}
+		parent.subgroups.remove(this);
+		parent.subgroups.add(index, this);
+		relabelInserted(parent.subgroups.previous(this), parent.subgroups.next(this));
+		parent.invalidateCaches();
+		parent.subgroupsChanged(SUBGROUPS_REORDERED);
 	}
 	
 	/**
 	 * Translate (= displace) the shapes contained directly or indirectly by this shape group along
-	 * the given vector.
+	 * the given vector, by rewriting their vertices. Any pending transforms of this shape group and its
+	 * descendants are baked into the vertices first. (See {@code applyTransform} for a constant-time alternative.)
+	 * 
+	 * The new vertices of all shapes are computed and validated (in parallel, for large groups) before
+	 * the change is committed: if the translated vertices of any shape do not define a proper polygon,
+	 * no shape is changed.
 	 * 
 	 * @throws IllegalArgumentException if {@code delta} is null
 	 *    | delta == null
+	 * @throws IllegalArgumentException if the translated vertices of some shape do not define a proper polygon
+	 *    | getAllShapes().stream().anyMatch(s ->
+	 *    |     PointArrays.checkDefinesProperPolygon(PointArrays.translate(getAllOuterVertices().get(s), delta)) != null)
 	 * @inspects | this
 	 * @mutates_properties | (...getAllShapes()).getVertices()
 	 * @post
 	 *    | getAllShapes().stream().allMatch(s ->
-	 *    |     Arrays.equals(s.getVertices(), PointArrays.translate(old(getAllVertices()).get(s), delta))) 
+	 *    |     Arrays.equals(s.getVertices(), PointArrays.translate(old(getAllOuterVertices()).get(s), delta))) 
 	 */
 	public void translate(IntVector delta) {
 		if (delta == null)
 			throw new IllegalArgumentException("delta is null");
 		
-		for (RoundedPolygon shape : getAllShapes())
-			shape.setVertices(PointArrays.translate(shape.getVertices(), delta));
+		if (isRecording())
+			undoJournal.perform(hasIdentityTransforms()
+					? new ShapeGroupEdits.TranslateEdit(this, delta)
+					: new ShapeGroupEdits.SubtreeEdit(this, () -> translate(delta)));
+		else
+			transformSubtree(vertices -> PointArrays.translate(vertices, delta));
 	}
 	
 	/**
-	 * Scale the shapes contained directly or indirectly by this shape group.
+	 * Scale the shapes contained directly or indirectly by this shape group, by rewriting their vertices.
+	 * Any pending transforms of this shape group and its descendants are baked into the vertices first.
+	 * (See {@code applyTransform} for a constant-time alternative.)
+	 * 
+	 * The new vertices of all shapes are computed and validated (in parallel, for large groups) before
+	 * the change is committed: if, due to rounding, the scaled vertices of any shape do not define a
+	 * proper polygon, no shape is changed.
 	 * 
 	 * @throws IllegalArgumentException if {@code origin} is null
 	 *    | origin == null
+	 * @throws IllegalArgumentException if the scaled vertices of some shape do not define a proper polygon
+	 *    | getAllShapes().stream().anyMatch(s ->
+	 *    |     PointArrays.checkDefinesProperPolygon(PointArrays.scale(getAllOuterVertices().get(s), origin, xFactor, yFactor)) != null)
 	 * @inspects | this
 	 * @mutates_properties | (...getAllShapes()).getVertices()
 	 * @post
 	 *    | getAllShapes().stream().allMatch(s ->
-	 *    |     Arrays.equals(s.getVertices(), PointArrays.scale(old(getAllVertices()).get(s), origin, xFactor, yFactor)))
+	 *    |     Arrays.equals(s.getVertices(), PointArrays.scale(old(getAllOuterVertices()).get(s), origin, xFactor, yFactor)))
 	 */
 	public void scale(IntPoint origin, double xFactor, double yFactor) {
 		if (origin == null)
 			throw new IllegalArgumentException("origin is null");
 		
-		for (RoundedPolygon shape : getAllShapes())
-			shape.setVertices(PointArrays.scale(shape.getVertices(), origin, xFactor, yFactor));
+		if (isRecording())
+			undoJournal.perform(new ShapeGroupEdits.SubtreeEdit(this, () -> scale(origin, xFactor, yFactor)));
+		else
+			transformSubtree(vertices -> PointArrays.scale(vertices, origin, xFactor, yFactor));
 	}
 }
@@ -0,0 +1,231 @@
+package drawit.shapegroups1;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+
+import drawit.IntPoint;
+import drawit.IntVector;
+import drawit.RoundedPolygon;
+import drawit.Transform;
+import drawit.UndoJournal;
+
+/**
+ * The edits of shape groups recorded by undo journals.
+ */
+final class ShapeGroupEdits {
+
+	private ShapeGroupEdits() { throw new AssertionError("This class is not meant to be instantiated"); }
+
+	/**
+	 * The estimated number of bytes retained by a transform.
+	 */
+	static final long TRANSFORM_SIZE = 64;
+
+	static final class TransformEdit extends UndoJournal.Edit {
+		private final ShapeGroup group;
+		private final Transform oldTransform;
+		private final Transform newTransform;
+
+		TransformEdit(ShapeGroup group, Transform oldTransform, Transform newTransform) {
+			this.group = group;
+			this.oldTransform = oldTransform;
+			this.newTransform = newTransform;
+		}
+
+		@Override
+		protected void undo() { group.setTransform(oldTransform); }
+
+		@Override
+		protected void redo() { group.setTransform(newTransform); }
+
+		@Override
+		protected long getSize() { return OVERHEAD + 24 + TRANSFORM_SIZE; }
+	}
+
+	/**
+	 * The translation of a shape group whose transforms and whose descendants' transforms are the identity, so that it
+	 * is undone by the opposite translation.
+	 */
+	static final class TranslateEdit extends UndoJournal.Edit {
+		private final ShapeGroup group;
+		private final int dx;
+		private final int dy;
+
+		TranslateEdit(ShapeGroup group, IntVector delta) {
+			this.group = group;
+			this.dx = delta.getX();
+			this.dy = delta.getY();
+		}
+
+		@Override
+		protected void undo() { group.translate(new IntVector(-dx, -dy)); }
+
+		@Override
+		protected void redo() { group.translate(new IntVector(dx, dy)); }
+
+		@Override
+		protected long getSize() { return OVERHEAD + 16; }
+	}
+
+	/**
+	 * An edit that rewrites the vertices of the shapes of a shape group and resets the transforms of the shape group
+	 * and of its descendants, such as a scaling, which is not exactly invertible due to rounding. The old vertices of
+	 * the shapes and the old non-identity transforms are recorded when the edit is created.
+	 */
+	static final class SubtreeEdit extends UndoJournal.Edit {
+		private final ShapeGroup group;
+		private final Runnable operation;
+		private final RoundedPolygon[] shapes;
+		private final int[][] oldVertices;
+		private final ShapeGroup[] transformedGroups;
+		private final Transform[] oldTransforms;
+		private final long size;
+
+		SubtreeEdit(ShapeGroup group, Runnable operation) {
+			this.group = group;
+			this.operation = operation;
+			ArrayList<RoundedPolygon> shapeList = new ArrayList<>();
+			ArrayList<ShapeGroup> groupList = new ArrayList<>();
+			ArrayDeque<ShapeGroup> stack = new ArrayDeque<>();
+			stack.push(group);
+			while (!stack.isEmpty()) {
+				ShapeGroup g = stack.pop();
+				if (!g.transform.isIdentity())
+					groupList.add(g);
+				if (g instanceof LeafShapeGroup)
+					shapeList.add(((LeafShapeGroup)g).shape);
+				ShapeGroup.pushSubgroups(g, stack);
+			}
+			shapes = shapeList.toArray(new RoundedPolygon[0]);
+			oldVertices = new int[shapes.length][];
+			// The fields, the headers of the four arrays, and a reference to each shape and to its vertex array.
+			long size = OVERHEAD + 56 + 4 * 16 + 16L * shapes.length;
+			for (int i = 0; i < shapes.length; i++) {
+				IntPoint[] vertices = shapes[i].getVertices();
+				int[] coordinates = new int[2 * vertices.length];
+				for (int j = 0; j < vertices.length; j++) {
+					coordinates[2 * j] = vertices[j].getX();
+					coordinates[2 * j + 1] = vertices[j].getY();
+				}
+				oldVertices[i] = coordinates;
+				size += 16 + 4L * coordinates.length;
+			}
+			transformedGroups = groupList.toArray(new ShapeGroup[0]);
+			oldTransforms = new Transform[transformedGroups.length];
+			for (int i = 0; i < transformedGroups.length; i++)
+				oldTransforms[i] = transformedGroups[i].transform;
+			this.size = size + (16 + TRANSFORM_SIZE) * transformedGroups.length;
+		}
+
+		@Override
+		protected void undo() {
+			for (int i = 0; i < shapes.length; i++) {
+				int[] coordinates = oldVertices[i];
+				IntPoint[] vertices = new IntPoint[coordinates.length / 2];
+				for (int j = 0; j < vertices.length; j++)
+					vertices[j] = new IntPoint(coordinates[2 * j], coordinates[2 * j + 1]);
+				shapes[i].setVertices(vertices);
+			}
+			for (int i = 0; i < transformedGroups.length; i++)
+				transformedGroups[i].setTransform(oldTransforms[i]);
+			group.notifyListeners(ShapeGroup.SHAPES_CHANGED);
+		}
+
+		@Override
+		protected void redo() { operation.run(); }
+
+		@Override
+		protected long getSize() { return size; }
+	}
+
+	/**
+	 * A change of the position of a shape group in its parent's list of subgroups.
+	 */
+	static final class MoveEdit extends UndoJournal.Edit {
+		private final ShapeGroup group;
+		private final int oldIndex;
+		private final int newIndex;
+
+		MoveEdit(ShapeGroup group, int oldIndex, int newIndex) {
+			this.group = group;
+			this.oldIndex = oldIndex;
+			this.newIndex = newIndex;
+		}
+
+		@Override
+		protected void undo() { group.moveToIndex(oldIndex); }
+
+		@Override
+		protected void redo() { group.moveToIndex(newIndex); }
+
+		@Override
+		protected long getSize() { return OVERHEAD + 16; }
+	}
+
+	static final class AddEdit extends UndoJournal.Edit {
+		private final NonleafShapeGroup parent;
+		private final ShapeGroup subgroup;
+		private final int index;
+
+		AddEdit(NonleafShapeGroup parent, ShapeGroup subgroup, int index) {
+			this.parent = parent;
+			this.subgroup = subgroup;
+			this.index = index;
+		}
+
+		@Override
+		protected void undo() { parent.removeSubgroup(subgroup); }
+
+		@Override
+		protected void redo() { parent.addSubgroup(index, subgroup); }
+
+		@Override
+		protected long getSize() { return OVERHEAD + 24; }
+	}
+
+	static final class RemoveEdit extends UndoJournal.Edit {
+		private final NonleafShapeGroup parent;
+		private final ShapeGroup subgroup;
+		private final int index;
+
+		RemoveEdit(NonleafShapeGroup parent, ShapeGroup subgroup, int index) {
+			this.parent = parent;
+			this.subgroup = subgroup;
+			this.index = index;
+		}
+
+		@Override
+		protected void undo() { parent.addSubgroup(index, subgroup); }
+
+		@Override
+		protected void redo() { parent.removeSubgroup(subgroup); }
+
+		@Override
+		protected long getSize() { return OVERHEAD + 24; }
+	}
+
+	/**
+	 * The creation of a non-leaf shape group from shape groups that had no parent. While the creation is undone, the
+	 * non-leaf shape group has no subgroups; it is not part of any shape group graph, since the edits recorded after
+	 * its creation are undone as well.
+	 */
+	static final class GroupEdit extends UndoJournal.Edit {
+		private final NonleafShapeGroup group;
+		private final ShapeGroup[] subgroups;
+
+		GroupEdit(NonleafShapeGroup group, ShapeGroup[] subgroups) {
+			this.group = group;
+			this.subgroups = subgroups.clone();
+		}
+
+		@Override
+		protected void undo() { group.disassemble(); }
+
+		@Override
+		protected void redo() { group.assemble(subgroups); }
+
+		@Override
+		protected long getSize() { return OVERHEAD + 8 + 16 + 8L * subgroups.length; }
+	}
+
+}
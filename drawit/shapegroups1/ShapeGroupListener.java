@@ -0,0 +1,46 @@
+package drawit.shapegroups1;
+
+/**
+ * An object that is notified of the changes of the shape groups it is registered with (see
+ * {@code ShapeGroup.addListener}), and of the changes of their descendants. The shape group passed to a notification
+ * is the one that changed.
+ *
+ * <p>Notifications are delivered synchronously, after the change, on the thread that made it, unless the shape group
+ * the listener is registered with is in a batch (see {@code ShapeGroup.beginBatch}), in which case they are delivered,
+ * coalesced, when the batch ends.
+ *
+ * <p>Changes made to a shape directly, rather than through a shape group, are notified only to the shape's own
+ * listeners (see {@code RoundedPolygon.addListener}).
+ */
+public interface ShapeGroupListener {
+
+	/**
+	 * Called when the vertices of the shapes contained directly or indirectly by the given shape group have been
+	 * rewritten by {@code translate}, {@code scale} or {@code bakeTransforms}, or restored by undoing such a call.
+	 *
+	 * @pre | group != null
+	 */
+	default void shapesChanged(ShapeGroup group) {}
+
+	/**
+	 * Called when the transform of the given shape group has changed.
+	 *
+	 * @pre | group != null
+	 */
+	default void transformChanged(ShapeGroup group) {}
+
+	/**
+	 * Called when the subgroups of the given shape group have been reordered.
+	 *
+	 * @pre | group != null
+	 */
+	default void subgroupsReordered(NonleafShapeGroup group) {}
+
+	/**
+	 * Called when subgroups have been added to or removed from the given shape group.
+	 *
+	 * @pre | group != null
+	 */
+	default void subgroupsChanged(NonleafShapeGroup group) {}
+
+}
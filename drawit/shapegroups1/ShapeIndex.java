@@ -0,0 +1,500 @@
+package drawit.shapegroups1;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import drawit.IntPoint;
+import drawit.RoundedPolygon;
+import drawit.RoundedPolygonListener;
+import drawit.Transform;
+
+/**
+ * Each instance of this class is a spatial index over the shapes contained directly or indirectly by a shape group,
+ * supporting rectangle and point queries whose results are sorted in z-order, frontmost shape first.
+ *
+ * <p>The index stores the bounding box of each shape, expressed in the root shape group's outer coordinate system,
+ * in a quadtree. Queries take time proportional to the depth of the quadtree and the number of shapes found, plus
+ * the time needed to apply the changes made since the previous query.
+ *
+ * <p>The index is kept up to date incrementally. It registers a {@code ShapeGroupListener} with the root, and a
+ * {@code RoundedPolygonListener} with each shape, and records which shape groups and shapes changed. Before the next
+ * query, it applies only these changes: a changed transform or {@code translate}, {@code scale} or
+ * {@code bakeTransforms} call moves the entries of the shapes in the changed subtree; a direct edit of a shape's
+ * vertices moves that shape's entry; and a change of a shape group's subgroups adds and removes the entries of the
+ * subtrees that were added and removed, which the index finds by comparing the subgroups with those it recorded.
+ * Changes made during a batch (see {@code ShapeGroup.beginBatch()} and {@code RoundedPolygon.beginBatch()}) are
+ * taken into account when the batch ends. Query results are sorted using the z-order labels of the leaf shape
+ * groups, which are always up to date or assigned before sorting (see {@code ShapeGroup.compareZOrder}).
+ *
+ * <p>The listeners keep the index alive as long as the shape group graph; {@code close()} unregisters them.
+ *
+ * @invar | getRoot() != null
+ */
+public class ShapeIndex implements AutoCloseable {
+
+	/**
+	 * The maximum number of entries stored by a quadtree node before it is split.
+	 */
+	static final int MAX_NODE_ENTRIES = 8;
+
+	/**
+	 * The size below which quadtree nodes are never split.
+	 */
+	static final long MIN_NODE_SIZE = 16;
+
+	/**
+	 * The entry of a leaf shape group, which is registered with the leaf's shape so as to learn of direct edits of its
+	 * vertices.
+	 */
+	private class Entry implements RoundedPolygonListener {
+
+		final LeafShapeGroup leaf;
+		/**
+		 * The transform from the shape's coordinate system to the root's outer coordinate system.
+		 */
+		Transform transform;
+		int left;
+		int top;
+		int right;
+		int bottom;
+		/**
+		 * The quadtree node that stores this entry, or {@code null} if its bounding box has not been computed yet.
+		 */
+		Node node;
+		/**
+		 * The value of {@code ShapeIndex.generation} when this entry was last updated.
+		 */
+		long generation;
+
+		Entry(LeafShapeGroup leaf) {
+			this.leaf = leaf;
+		}
+
+		boolean intersects(long left, long top, long right, long bottom) {
+			return this.left <= right && left <= this.right && this.top <= bottom && top <= this.bottom;
+		}
+
+		@Override
+		public void verticesChanged(RoundedPolygon shape, int index, int removedCount, int insertedCount) {
+			changedEntries.add(this);
+		}
+
+	}
+
+	/**
+	 * A quadtree node, covering the square of points (X, Y) such that {@code x <= X < x + size} and {@code y <= Y < y + size}.
+	 * Each entry is stored in the smallest node that contains its bounding box.
+	 */
+	private static class Node {
+
+		final long x;
+		final long y;
+		final long size;
+		final ArrayList<Entry> entries = new ArrayList<>();
+		/**
+		 * The four quadrants of this node, or {@code null} if this node has not been split.
+		 */
+		Node[] children;
+
+		Node(long x, long y, long size) {
+			this.x = x;
+			this.y = y;
+			this.size = size;
+		}
+
+		boolean contains(Entry entry) {
+			return x <= entry.left && entry.right < x + size && y <= entry.top && entry.bottom < y + size;
+		}
+
+		boolean intersects(long left, long top, long right, long bottom) {
+			return x <= right && left < x + size && y <= bottom && top < y + size;
+		}
+
+		Node childContaining(Entry entry) {
+			for (Node child : children)
+				if (child.contains(entry))
+					return child;
+			return null;
+		}
+
+		void split() {
+			long half = size / 2;
+			children = new Node[] {
+					new Node(x, y, half), new Node(x + half, y, half),
+					new Node(x, y + half, half), new Node(x + half, y + half, half)
+			};
+			ArrayList<Entry> remaining = new ArrayList<>();
+			for (Entry entry : entries) {
+				Node child = childContaining(entry);
+				if (child == null)
+					remaining.add(entry);
+				else {
+					child.entries.add(entry);
+					entry.node = child;
+				}
+			}
+			entries.clear();
+			entries.addAll(remaining);
+		}
+
+	}
+
+	/**
+	 * @invar | root != null
+	 */
+	private final ShapeGroup root;
+	/**
+	 * @invar | quadtree != null
+	 */
+	private Node quadtree = new Node(0, 0, 1024);
+	private final IdentityHashMap<LeafShapeGroup, Entry> entries = new IdentityHashMap<>();
+	/**
+	 * For each non-leaf shape group in the graph, as of the most recent update, its subgroups as of that update.
+	 */
+	private final IdentityHashMap<NonleafShapeGroup, ShapeGroup[]> subgroups = new IdentityHashMap<>();
+	/**
+	 * The non-leaf shape groups whose subgroups changed since the most recent update.
+	 */
+	private final Set<NonleafShapeGroup> changedSubgroups = Collections.newSetFromMap(new IdentityHashMap<>());
+	/**
+	 * The shape groups whose transform, or the transforms or vertices of whose descendants, changed since the most
+	 * recent update, and the subtrees added since then.
+	 */
+	private final Set<ShapeGroup> changedSubtrees = Collections.newSetFromMap(new IdentityHashMap<>());
+	/**
+	 * The entries whose shape's vertices were edited directly since the most recent update.
+	 */
+	private final Set<Entry> changedEntries = Collections.newSetFromMap(new IdentityHashMap<>());
+	private long generation;
+	private boolean open = true;
+
+	private final ShapeGroupListener listener = new ShapeGroupListener() {
+		@Override
+		public void shapesChanged(ShapeGroup group) { changedSubtrees.add(group); }
+		@Override
+		public void transformChanged(ShapeGroup group) { changedSubtrees.add(group); }
+		@Override
+		public void subgroupsChanged(NonleafShapeGroup group) { changedSubgroups.add(group); }
+	};
+
+	/**
+	 * Returns the shape group whose shapes this index indexes.
+	 *
+	 * @immutable
+	 */
+	public ShapeGroup getRoot() { return root; }
+
+	/**
+	 * Initializes this object to index the shapes contained directly or indirectly by the given shape group.
+	 *
+	 * @throws IllegalArgumentException if {@code root} is null
+	 *    | root == null
+	 * @inspects | root, ...root.getAllShapes()
+	 * @mutates | root, ...root.getAllShapes()
+	 * @post | getRoot() == root
+	 */
+	public ShapeIndex(ShapeGroup root) {
+		if (root == null)
+			throw new IllegalArgumentException("root is null");
+
+		this.root = root;
+		root.addListener(listener);
+		addSubtree(root);
+		changedSubtrees.add(root);
+		refresh();
+	}
+
+	/**
+	 * Returns the number of shapes in this index.
+	 *
+	 * @throws IllegalStateException if this index is closed
+	 * @post | 0 <= result
+	 */
+	public int getSize() {
+		refresh();
+		return entries.size();
+	}
+
+	/**
+	 * Brings this index up to date with the current state of the shape group graph rooted at {@code getRoot()}, by
+	 * applying the changes notified since the previous update. The queries call this method; calling it explicitly
+	 * only moves the work out of the next query.
+	 *
+	 * @throws IllegalStateException if this index is closed
+	 * @inspects | getRoot(), ...getRoot().getAllShapes()
+	 * @mutates | this
+	 * @post | getSize() == getRoot().getAllShapes().size()
+	 */
+	public void refresh() {
+		if (!open)
+			throw new IllegalStateException("the index is closed");
+		if (changedSubgroups.isEmpty() && changedSubtrees.isEmpty() && changedEntries.isEmpty())
+			return;
+		generation++;
+
+		// First remove the subtrees that were removed from their parents, then add those that were added, so that
+		// a subtree that moved within the graph is removed from its old place before it is added at its new one.
+		for (NonleafShapeGroup group : changedSubgroups) {
+			ShapeGroup[] oldSubgroups = subgroups.get(group);
+			if (oldSubgroups == null)
+				continue;
+			Set<ShapeGroup> newSubgroups = Collections.newSetFromMap(new IdentityHashMap<>());
+			newSubgroups.addAll(group.subgroups);
+			for (ShapeGroup subgroup : oldSubgroups)
+				if (!newSubgroups.contains(subgroup))
+					removeSubtree(subgroup);
+		}
+		for (NonleafShapeGroup group : changedSubgroups) {
+			if (!subgroups.containsKey(group))
+				continue;
+			for (ShapeGroup subgroup : group.subgroups)
+				if (!isIndexed(subgroup)) {
+					addSubtree(subgroup);
+					changedSubtrees.add(subgroup);
+				}
+			subgroups.put(group, group.subgroups.toArray(new ShapeGroup[0]));
+		}
+		changedSubgroups.clear();
+
+		for (ShapeGroup group : changedSubtrees)
+			if (isIndexed(group) && !hasChangedAncestor(group))
+				updateSubtree(group, getOuterTransform(group));
+		changedSubtrees.clear();
+		for (Entry entry : changedEntries)
+			if (entries.get(entry.leaf) == entry && entry.generation != generation)
+				update(entry, getOuterTransform(entry.leaf));
+		changedEntries.clear();
+	}
+
+	/**
+	 * Returns whether the given shape group is part of the graph as of the most recent update, or was added since.
+	 */
+	private boolean isIndexed(ShapeGroup group) {
+		return group instanceof LeafShapeGroup ? entries.containsKey(group) : subgroups.containsKey(group);
+	}
+
+	private boolean hasChangedAncestor(ShapeGroup group) {
+		for (ShapeGroup ancestor = group; ancestor != root; ) {
+			ancestor = ancestor.parent;
+			if (changedSubtrees.contains(ancestor))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the transform from the outer coordinate system of the given shape group, which is in the graph, to the
+	 * root's outer coordinate system.
+	 */
+	private Transform getOuterTransform(ShapeGroup group) {
+		Transform outer = Transform.IDENTITY;
+		for (ShapeGroup ancestor = group; ancestor != root; ) {
+			ancestor = ancestor.parent;
+			outer = outer.then(ancestor.transform);
+		}
+		return outer;
+	}
+
+	/**
+	 * Records the subgroups of the non-leaf shape groups in the given subtree, and creates entries, without a bounding
+	 * box, for its leaf shape groups.
+	 */
+	private void addSubtree(ShapeGroup group) {
+		ArrayDeque<ShapeGroup> stack = new ArrayDeque<>();
+		stack.push(group);
+		while (!stack.isEmpty()) {
+			ShapeGroup current = stack.pop();
+			if (current instanceof LeafShapeGroup) {
+				LeafShapeGroup leaf = (LeafShapeGroup)current;
+				Entry entry = new Entry(leaf);
+				entries.put(leaf, entry);
+				leaf.shape.addListener(entry);
+			} else {
+				NonleafShapeGroup nonleaf = (NonleafShapeGroup)current;
+				subgroups.put(nonleaf, nonleaf.subgroups.toArray(new ShapeGroup[0]));
+				ShapeGroup.pushSubgroups(nonleaf, stack);
+			}
+		}
+	}
+
+	/**
+	 * Removes the entries of the leaf shape groups in the given subtree, as recorded by the most recent update.
+	 */
+	private void removeSubtree(ShapeGroup group) {
+		ArrayDeque<ShapeGroup> stack = new ArrayDeque<>();
+		stack.push(group);
+		while (!stack.isEmpty()) {
+			ShapeGroup current = stack.pop();
+			if (current instanceof LeafShapeGroup) {
+				Entry entry = entries.remove(current);
+				if (entry != null) {
+					entry.leaf.shape.removeListener(entry);
+					if (entry.node != null)
+						entry.node.entries.remove(entry);
+				}
+			} else {
+				ShapeGroup[] oldSubgroups = subgroups.remove(current);
+				if (oldSubgroups != null)
+					for (ShapeGroup subgroup : oldSubgroups)
+						stack.push(subgroup);
+			}
+		}
+	}
+
+	/**
+	 * Updates the entries of the leaf shape groups in the given subtree, whose outer coordinate system {@code outer}
+	 * maps to the root's outer coordinate system.
+	 */
+	private void updateSubtree(ShapeGroup group, Transform outer) {
+		ArrayDeque<ShapeGroup> stack = new ArrayDeque<>();
+		// For each shape group on the stack, the transform from its outer coordinate system to the root's.
+		ArrayDeque<Transform> outers = new ArrayDeque<>();
+		stack.push(group);
+		outers.push(outer);
+		while (!stack.isEmpty()) {
+			ShapeGroup current = stack.pop();
+			Transform currentOuter = outers.pop();
+			if (current instanceof LeafShapeGroup) {
+				update(entries.get(current), currentOuter);
+				continue;
+			}
+			Transform transform = current.transform.then(currentOuter);
+			int count = stack.size();
+			ShapeGroup.pushSubgroups(current, stack);
+			for (int i = count; i < stack.size(); i++)
+				outers.push(transform);
+		}
+	}
+
+	/**
+	 * Recomputes the bounding box of the given entry, whose leaf shape group's outer coordinate system {@code outer}
+	 * maps to the root's outer coordinate system, and moves the entry in the quadtree if its bounding box changed.
+	 */
+	private void update(Entry entry, Transform outer) {
+		entry.generation = generation;
+		entry.transform = entry.leaf.transform.then(outer);
+		Extent boundingBox = entry.leaf.getBoundingBox(outer);
+		if (entry.node != null) {
+			if (boundingBox.getLeft() == entry.left && boundingBox.getTop() == entry.top &&
+					boundingBox.getRight() == entry.right && boundingBox.getBottom() == entry.bottom)
+				return;
+			entry.node.entries.remove(entry);
+		}
+		entry.left = boundingBox.getLeft();
+		entry.top = boundingBox.getTop();
+		entry.right = boundingBox.getRight();
+		entry.bottom = boundingBox.getBottom();
+		insert(entry);
+	}
+
+	/**
+	 * Unregisters this index's listeners from the shape group graph and its shapes. Afterwards, the index can no
+	 * longer be used. Closing an index that is already closed has no effect.
+	 *
+	 * @mutates | this
+	 */
+	@Override
+	public void close() {
+		if (!open)
+			return;
+		open = false;
+		root.removeListener(listener);
+		for (Entry entry : entries.values())
+			entry.leaf.shape.removeListener(entry);
+	}
+
+	private void insert(Entry entry) {
+		while (!quadtree.contains(entry)) {
+			// Grow the quadtree towards the entry, keeping the old tree as one of the quadrants of the new root.
+			Node oldRoot = quadtree;
+			long size = oldRoot.size;
+			long x = entry.left < oldRoot.x ? oldRoot.x - size : oldRoot.x;
+			long y = entry.top < oldRoot.y ? oldRoot.y - size : oldRoot.y;
+			quadtree = new Node(x, y, 2 * size);
+			quadtree.split();
+			int index = (oldRoot.x == x ? 0 : 1) + (oldRoot.y == y ? 0 : 2);
+			quadtree.children[index] = oldRoot;
+		}
+		Node node = quadtree;
+		for (;;) {
+			if (node.children == null) {
+				if (node.entries.size() < MAX_NODE_ENTRIES || node.size <= MIN_NODE_SIZE)
+					break;
+				node.split();
+			}
+			Node child = node.childContaining(entry);
+			if (child == null)
+				break;
+			node = child;
+		}
+		node.entries.add(entry);
+		entry.node = node;
+	}
+
+	private void collect(Node node, long left, long top, long right, long bottom, List<Entry> result) {
+		for (Entry entry : node.entries)
+			if (entry.intersects(left, top, right, bottom))
+				result.add(entry);
+		if (node.children != null)
+			for (Node child : node.children)
+				if (child.intersects(left, top, right, bottom))
+					collect(child, left, top, right, bottom, result);
+	}
+
+	private List<RoundedPolygon> toShapesInZOrder(ArrayList<Entry> entries) {
+		root.getLabelledRoot();
+		entries.sort(Comparator.comparingLong(entry -> entry.leaf.zLabel));
+		ArrayList<RoundedPolygon> result = new ArrayList<>(entries.size());
+		for (Entry entry : entries)
+			result.add(entry.leaf.shape);
+		return result;
+	}
+
+	/**
+	 * Returns the shapes in this index whose bounding box intersects the given extent, expressed in the root's
+	 * outer coordinate system, frontmost shape first.
+	 *
+	 * @throws IllegalArgumentException if {@code extent} is null
+	 *    | extent == null
+	 * @throws IllegalStateException if this index is closed
+	 * @creates | result
+	 * @post | result != null
+	 */
+	public List<RoundedPolygon> getShapesIntersecting(Extent extent) {
+		if (extent == null)
+			throw new IllegalArgumentException("extent is null");
+
+		refresh();
+		ArrayList<Entry> found = new ArrayList<>();
+		collect(quadtree, extent.getLeft(), extent.getTop(), extent.getRight(), extent.getBottom(), found);
+		return toShapesInZOrder(found);
+	}
+
+	/**
+	 * Returns the shapes in this index that contain the given point, expressed in the root's outer coordinate system,
+	 * frontmost shape first. For a shape whose transform is not the identity, the point is mapped to the shape's
+	 * coordinate system and rounded to the nearest point with integer coordinates.
+	 *
+	 * @throws IllegalArgumentException if {@code point} is null
+	 *    | point == null
+	 * @throws IllegalStateException if this index is closed
+	 * @creates | result
+	 * @post | result != null
+	 */
+	public List<RoundedPolygon> getShapesAt(IntPoint point) {
+		if (point == null)
+			throw new IllegalArgumentException("point is null");
+
+		refresh();
+		ArrayList<Entry> found = new ArrayList<>();
+		collect(quadtree, point.getX(), point.getY(), point.getX(), point.getY(), found);
+		found.removeIf(entry -> !entry.leaf.shape.contains(entry.transform.inverse().apply(point)));
+		return toShapesInZOrder(found);
+	}
+
+}
@@ -0,0 +1,48 @@
+package drawit.shapegroups1;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+
+/**
+ * The list of subgroups of a non-leaf shape group, stored using one of the layouts of {@code SubgroupStorage}.
+ * 
+ * Elements are compared by identity. Implementations that use nodes record the node of each element in
+ * the element's {@code subgroupListNode} field, so that an element can be located without a search; implementations
+ * that link the elements directly record the list itself there, so that membership is checked without a search.
+ */
+abstract class SubgroupList extends AbstractList<ShapeGroup> {
+	
+	static SubgroupList create(SubgroupStorage storage) {
+		switch (storage) {
+		case ARRAY: return new ArraySubgroupList();
+		case LINKED: return new LinkedSubgroupList();
+		case TREE: return new TreeSubgroupList();
+		default: throw new AssertionError();
+		}
+	}
+	
+	abstract SubgroupStorage getStorage();
+	
+	/**
+	 * Returns an iterator over the elements of this list, last element first.
+	 */
+	abstract Iterator<ShapeGroup> descendingIterator();
+	
+	/**
+	 * Returns the element that precedes the given element, or {@code null} if it is the first element.
+	 * 
+	 * @pre | contains(group)
+	 */
+	abstract ShapeGroup previous(ShapeGroup group);
+	
+	/**
+	 * Returns the element that follows the given element, or {@code null} if it is the last element.
+	 * 
+	 * @pre | contains(group)
+	 */
+	abstract ShapeGroup next(ShapeGroup group);
+	
+	@Override
+	public abstract boolean remove(Object o);
+	
+}
@@ -0,0 +1,28 @@
+package drawit.shapegroups1;
+
+/**
+ * The ways in which a non-leaf shape group can store its list of subgroups. Each layout favours different operations;
+ * the behavior of the shape group is the same for each of them. In the complexities below, N is the number of subgroups.
+ */
+public enum SubgroupStorage {
+	
+	/**
+	 * The subgroups are stored in an array: index access and iteration are fast; moving or removing a subgroup
+	 * and looking up its neighbours take O(N) time.
+	 */
+	ARRAY,
+	
+	/**
+	 * The subgroups are linked into a circular doubly linked list through fields of the subgroups themselves, so
+	 * that no node is allocated per subgroup: moving a subgroup to the front or to the back, removing it and looking
+	 * up its neighbours take constant time; index access takes O(N) time.
+	 */
+	LINKED,
+	
+	/**
+	 * The subgroups are stored in a balanced binary tree indexed by position: index access, insertion, removal and
+	 * looking up the position or the neighbours of a subgroup all take O(log N) expected time.
+	 */
+	TREE
+	
+}
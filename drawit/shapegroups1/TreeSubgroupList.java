@@ -0,0 +1,248 @@
+package drawit.shapegroups1;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A list stored as a treap (a binary search tree on positions, heap-ordered on random priorities) whose nodes
+ * record the sizes of their subtrees and their parents, so that both positions and elements can be located
+ * in O(log N) expected time.
+ */
+final class TreeSubgroupList extends SubgroupList {
+
+	private static final class Node {
+		final TreeSubgroupList list;
+		final ShapeGroup group;
+		final int priority = ThreadLocalRandom.current().nextInt();
+		Node left;
+		Node right;
+		Node parent;
+		/**
+		 * The number of nodes in the subtree rooted at this node.
+		 */
+		int size = 1;
+
+		Node(TreeSubgroupList list, ShapeGroup group) {
+			this.list = list;
+			this.group = group;
+		}
+	}
+
+	/**
+	 * @invar | root == null || root.parent == null
+	 */
+	private Node root;
+
+	@Override
+	SubgroupStorage getStorage() { return SubgroupStorage.TREE; }
+
+	private static int size(Node node) {
+		return node == null ? 0 : node.size;
+	}
+
+	/**
+	 * Recomputes the size of the given node and makes it the parent of its children.
+	 */
+	private static Node update(Node node) {
+		node.size = 1 + size(node.left) + size(node.right);
+		if (node.left != null)
+			node.left.parent = node;
+		if (node.right != null)
+			node.right.parent = node;
+		return node;
+	}
+
+	private static Node merge(Node a, Node b) {
+		if (a == null)
+			return b;
+		if (b == null)
+			return a;
+		if (a.priority > b.priority) {
+			a.right = merge(a.right, b);
+			return update(a);
+		}
+		b.left = merge(a, b.left);
+		return update(b);
+	}
+
+	/**
+	 * Splits the given tree into a tree holding its first {@code count} nodes and a tree holding the others.
+	 */
+	private static Node[] split(Node node, int count) {
+		if (node == null)
+			return new Node[2];
+		if (count <= size(node.left)) {
+			Node[] parts = split(node.left, count);
+			node.left = parts[1];
+			parts[1] = update(node);
+			return parts;
+		}
+		Node[] parts = split(node.right, count - size(node.left) - 1);
+		node.right = parts[0];
+		parts[0] = update(node);
+		return parts;
+	}
+
+	private void setRoot(Node node) {
+		root = node;
+		if (root != null)
+			root.parent = null;
+		modCount++;
+	}
+
+	private Node nodeOf(Object o) {
+		if (o instanceof ShapeGroup) {
+			Object node = ((ShapeGroup)o).subgroupListNode;
+			if (node instanceof Node && ((Node)node).list == this)
+				return (Node)node;
+		}
+		return null;
+	}
+
+	private static int indexOf(Node node) {
+		int index = size(node.left);
+		for (; node.parent != null; node = node.parent)
+			if (node == node.parent.right)
+				index += size(node.parent.left) + 1;
+		return index;
+	}
+
+	private static Node first(Node node) {
+		while (node.left != null)
+			node = node.left;
+		return node;
+	}
+
+	private static Node last(Node node) {
+		while (node.right != null)
+			node = node.right;
+		return node;
+	}
+
+	private static Node successor(Node node) {
+		if (node.right != null)
+			return first(node.right);
+		while (node.parent != null && node == node.parent.right)
+			node = node.parent;
+		return node.parent;
+	}
+
+	private static Node predecessor(Node node) {
+		if (node.left != null)
+			return last(node.left);
+		while (node.parent != null && node == node.parent.left)
+			node = node.parent;
+		return node.parent;
+	}
+
+	@Override
+	public int size() { return size(root); }
+
+	@Override
+	public ShapeGroup get(int index) {
+		if (index < 0 || size() <= index)
+			throw new IndexOutOfBoundsException(index);
+		Node node = root;
+		for (;;) {
+			int leftSize = size(node.left);
+			if (index < leftSize)
+				node = node.left;
+			else if (index == leftSize)
+				return node.group;
+			else {
+				index -= leftSize + 1;
+				node = node.right;
+			}
+		}
+	}
+
+	@Override
+	public void add(int index, ShapeGroup group) {
+		if (index < 0 || size() < index)
+			throw new IndexOutOfBoundsException(index);
+		Node node = new Node(this, group);
+		Node[] parts = split(root, index);
+		setRoot(merge(merge(parts[0], node), parts[1]));
+		group.subgroupListNode = node;
+	}
+
+	@Override
+	public ShapeGroup remove(int index) {
+		if (index < 0 || size() <= index)
+			throw new IndexOutOfBoundsException(index);
+		Node[] parts = split(root, index);
+		Node[] rest = split(parts[1], 1);
+		setRoot(merge(parts[0], rest[1]));
+		ShapeGroup group = rest[0].group;
+		group.subgroupListNode = null;
+		return group;
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		Node node = nodeOf(o);
+		if (node == null)
+			return false;
+		remove(indexOf(node));
+		return true;
+	}
+
+	@Override
+	public int indexOf(Object o) {
+		Node node = nodeOf(o);
+		return node == null ? -1 : indexOf(node);
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return nodeOf(o) != null;
+	}
+
+	@Override
+	public Iterator<ShapeGroup> iterator() {
+		return new Iterator<ShapeGroup>() {
+			Node node = root == null ? null : first(root);
+			@Override
+			public boolean hasNext() { return node != null; }
+			@Override
+			public ShapeGroup next() {
+				if (node == null)
+					throw new NoSuchElementException();
+				ShapeGroup result = node.group;
+				node = successor(node);
+				return result;
+			}
+		};
+	}
+
+	@Override
+	Iterator<ShapeGroup> descendingIterator() {
+		return new Iterator<ShapeGroup>() {
+			Node node = root == null ? null : last(root);
+			@Override
+			public boolean hasNext() { return node != null; }
+			@Override
+			public ShapeGroup next() {
+				if (node == null)
+					throw new NoSuchElementException();
+				ShapeGroup result = node.group;
+				node = predecessor(node);
+				return result;
+			}
+		};
+	}
+
+	@Override
+	ShapeGroup previous(ShapeGroup group) {
+		Node node = predecessor(nodeOf(group));
+		return node == null ? null : node.group;
+	}
+
+	@Override
+	ShapeGroup next(ShapeGroup group) {
+		Node node = successor(nodeOf(group));
+		return node == null ? null : node.group;
+	}
+
+}
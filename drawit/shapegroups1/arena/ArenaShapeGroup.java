@@ -0,0 +1,451 @@
+package drawit.shapegroups1.arena;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import drawit.IntPoint;
+import drawit.IntVector;
+import drawit.PointArrays;
+import drawit.Transform;
+import drawit.shapegroups1.Extent;
+import drawit.shapegroups1.ShapeGroup;
+
+/**
+ * Each instance of this class gives access to a node of a {@code ShapeArena}, through the operations of the
+ * {@code ShapeGroup} API. Instances are created on demand; two instances are equal if they refer to the same node
+ * of the same arena.
+ *
+ * <p>A leaf shape group stores a shape, accessed through {@code getVertices()}, {@code getRadius()} and
+ * {@code getColor()}; a non-leaf shape group has two or more subgroups. Bounding boxes and drawing commands are the
+ * same as those of the corresponding {@code ShapeGroup} (see {@code toShapeGroup()}); they are not cached, so each
+ * query traverses the subtree.
+ *
+ * @invar | getArena() != null
+ * @invar | isLeaf() == (getSubgroups() == null)
+ * @invar | getParentGroup() == null || getParentGroup().getSubgroups().contains(this)
+ */
+public final class ArenaShapeGroup {
+
+	/**
+	 * @invar | arena != null
+	 * @invar | 0 <= node && node < arena.nodeCount
+	 */
+	final ShapeArena arena;
+	final int node;
+
+	ArenaShapeGroup(ShapeArena arena, int node) {
+		this.arena = arena;
+		this.node = node;
+	}
+
+	/**
+	 * Returns the arena that stores this shape group.
+	 *
+	 * @immutable
+	 */
+	public ShapeArena getArena() { return arena; }
+
+	/**
+	 * Returns whether this shape group is a leaf shape group, which stores a shape.
+	 *
+	 * @immutable
+	 */
+	public boolean isLeaf() { return arena.isLeaf(node); }
+
+	/**
+	 * Returns the shape group that directly contains this shape group, or {@code null} if there is none.
+	 */
+	public ArenaShapeGroup getParentGroup() {
+		int parent = arena.parent[node];
+		return parent == ShapeArena.NONE ? null : new ArenaShapeGroup(arena, parent);
+	}
+
+	/**
+	 * Returns the list of subgroups of this shape group, or {@code null} if this is a leaf shape group.
+	 *
+	 * @creates | result
+	 */
+	public List<ArenaShapeGroup> getSubgroups() {
+		if (isLeaf())
+			return null;
+		ArrayList<ArenaShapeGroup> result = new ArrayList<>();
+		for (int child = arena.firstChild[node]; child != ShapeArena.NONE; child = arena.nextSibling[child])
+			result.add(new ArenaShapeGroup(arena, child));
+		return result;
+	}
+
+	/**
+	 * Returns the number of subgroups of this shape group; zero if this is a leaf shape group.
+	 *
+	 * @post | result == (isLeaf() ? 0 : getSubgroups().size())
+	 */
+	public int getSubgroupCount() {
+		return arena.getChildCount(node);
+	}
+
+	/**
+	 * Returns the subgroup at the given (zero-based) index in this shape group's list of subgroups.
+	 *
+	 * @throws IllegalArgumentException if the given index is out of bounds
+	 *    | index < 0 || getSubgroupCount() <= index
+	 * @post | result.equals(getSubgroups().get(index))
+	 */
+	public ArenaShapeGroup getSubgroup(int index) {
+		if (index < 0 || getSubgroupCount() <= index)
+			throw new IllegalArgumentException("index out of bounds");
+		return new ArenaShapeGroup(arena, arena.getChild(node, index));
+	}
+
+	/**
+	 * Return the first subgroup in this shape group's list of subgroups whose bounding box contains the given point,
+	 * or {@code null} if there is none.
+	 *
+	 * @throws IllegalArgumentException if {@code point} is null
+	 *    | point == null
+	 * @throws UnsupportedOperationException if this is a leaf shape group
+	 *    | isLeaf()
+	 * @post
+	 *    | Objects.equals(result,
+	 *    |     getSubgroups().stream().filter(g -> g.getBoundingBox().contains(point))
+	 *    |         .findFirst().orElse(null))
+	 */
+	public ArenaShapeGroup getSubgroupAt(IntPoint point) {
+		if (point == null)
+			throw new IllegalArgumentException("point is null");
+		if (isLeaf())
+			throw new UnsupportedOperationException("a leaf shape group has no subgroups");
+
+		for (int child = arena.firstChild[node]; child != ShapeArena.NONE; child = arena.nextSibling[child])
+			if (arena.getBoundingBox(child).contains(point))
+				return new ArenaShapeGroup(arena, child);
+		return null;
+	}
+
+	private void checkLeaf() {
+		if (!isLeaf())
+			throw new UnsupportedOperationException("not a leaf shape group");
+	}
+
+	/**
+	 * Returns a new array whose elements are the vertices of this leaf shape group's shape.
+	 *
+	 * @throws UnsupportedOperationException if this is not a leaf shape group
+	 *    | !isLeaf()
+	 * @creates | result
+	 * @post | result != null && 3 <= result.length
+	 */
+	public IntPoint[] getVertices() {
+		checkLeaf();
+		return arena.getVertices(node);
+	}
+
+	/**
+	 * Returns the corner radius of this leaf shape group's shape.
+	 *
+	 * @throws UnsupportedOperationException if this is not a leaf shape group
+	 *    | !isLeaf()
+	 * @post | 0 <= result
+	 */
+	public int getRadius() {
+		checkLeaf();
+		return arena.radius[node];
+	}
+
+	/**
+	 * Returns the color of this leaf shape group's shape.
+	 *
+	 * @throws UnsupportedOperationException if this is not a leaf shape group
+	 *    | !isLeaf()
+	 * @post | result != null
+	 */
+	public Color getColor() {
+		checkLeaf();
+		return new Color(arena.color[node], true);
+	}
+
+	/**
+	 * Sets the vertices of this leaf shape group's shape to be equal to the elements of the given array.
+	 *
+	 * @throws UnsupportedOperationException if this is not a leaf shape group
+	 *    | !isLeaf()
+	 * @throws IllegalArgumentException if {@code vertices} is null or contains null elements
+	 *    | vertices == null || Arrays.stream(vertices).anyMatch(v -> v == null)
+	 * @throws IllegalArgumentException if {@code vertices} has less than three elements
+	 *    | vertices.length < 3
+	 * @throws IllegalArgumentException if the given vertices do not define a proper polygon
+	 *    | PointArrays.checkDefinesProperPolygon(vertices) != null
+	 * @mutates | getArena()
+	 * @inspects | vertices
+	 * @post | Arrays.equals(getVertices(), vertices)
+	 */
+	public void setVertices(IntPoint[] vertices) {
+		checkLeaf();
+		ShapeArena.checkVertices(vertices);
+		arena.storeVertices(node, vertices);
+	}
+
+	/**
+	 * Sets the corner radius of this leaf shape group's shape.
+	 *
+	 * @throws UnsupportedOperationException if this is not a leaf shape group
+	 *    | !isLeaf()
+	 * @throws IllegalArgumentException if the given radius is negative
+	 *    | radius < 0
+	 * @mutates | getArena()
+	 * @post | getRadius() == radius
+	 */
+	public void setRadius(int radius) {
+		checkLeaf();
+		if (radius < 0)
+			throw new IllegalArgumentException("radius is negative");
+		arena.radius[node] = radius;
+	}
+
+	/**
+	 * Sets the color of this leaf shape group's shape.
+	 *
+	 * @throws UnsupportedOperationException if this is not a leaf shape group
+	 *    | !isLeaf()
+	 * @throws IllegalArgumentException if {@code color} is null
+	 *    | color == null
+	 * @mutates | getArena()
+	 * @post | getColor().equals(color)
+	 */
+	public void setColor(Color color) {
+		checkLeaf();
+		if (color == null)
+			throw new IllegalArgumentException("color is null");
+		arena.color[node] = color.getRGB();
+	}
+
+	/**
+	 * Returns the transform that maps this shape group's inner coordinate system to its outer coordinate system
+	 * (see {@code ShapeGroup.getTransform()}).
+	 *
+	 * @post | result != null
+	 */
+	public Transform getTransform() {
+		return arena.getTransform(node);
+	}
+
+	/**
+	 * Composes the given transform with this shape group's transform, in constant time.
+	 *
+	 * @throws IllegalArgumentException if {@code transform} is null
+	 *    | transform == null
+	 * @mutates | getArena()
+	 * @post | getTransform().equals(old(getTransform()).then(transform))
+	 */
+	public void applyTransform(Transform transform) {
+		if (transform == null)
+			throw new IllegalArgumentException("transform is null");
+
+		arena.setTransform(node, arena.getTransform(node).then(transform));
+	}
+
+	/**
+	 * Returns the smallest extent that contains all of the shapes contained directly or indirectly by this shape group,
+	 * expressed in this shape group's outer coordinate system.
+	 *
+	 * @inspects | getArena()
+	 * @post | result != null
+	 * @post | result.equals(toShapeGroup().getBoundingBox())
+	 */
+	public Extent getBoundingBox() {
+		return arena.getBoundingBox(node);
+	}
+
+	/**
+	 * Returns a textual representation of a sequence of drawing commands for drawing the shapes contained directly or
+	 * indirectly by this shape group (see {@code ShapeGroup.getDrawingCommands()}).
+	 *
+	 * @inspects | getArena()
+	 * @post | result != null
+	 * @post | result.equals(toShapeGroup().getDrawingCommands())
+	 */
+	public String getDrawingCommands() {
+		return arena.getDrawingCommands(node);
+	}
+
+	private void checkParent() {
+		if (arena.parent[node] == ShapeArena.NONE)
+			throw new UnsupportedOperationException("no parent");
+	}
+
+	/**
+	 * Moves this shape group to the front of its parent's list of subgroups.
+	 *
+	 * @throws UnsupportedOperationException if this shape group has no parent
+	 *    | getParentGroup() == null
+	 * @mutates | getArena()
+	 * @post | getParentGroup().getSubgroup(0).equals(this)
+	 */
+	public void bringToFront() {
+		checkParent();
+		int parent = arena.parent[node];
+		arena.unlinkChild(node);
+		arena.insertChildBefore(parent, node, arena.firstChild[parent]);
+	}
+
+	/**
+	 * Moves this shape group to the back of its parent's list of subgroups.
+	 *
+	 * @throws UnsupportedOperationException if this shape group has no parent
+	 *    | getParentGroup() == null
+	 * @mutates | getArena()
+	 * @post | getParentGroup().getSubgroup(getParentGroup().getSubgroupCount() - 1).equals(this)
+	 */
+	public void sendToBack() {
+		checkParent();
+		int parent = arena.parent[node];
+		arena.unlinkChild(node);
+		arena.appendChild(parent, node);
+	}
+
+	/**
+	 * Moves this shape group to the given (zero-based) index in its parent's list of subgroups.
+	 *
+	 * @throws UnsupportedOperationException if this shape group has no parent
+	 *    | getParentGroup() == null
+	 * @throws IllegalArgumentException if the given index is out of bounds
+	 *    | index < 0 || getParentGroup().getSubgroupCount() <= index
+	 * @mutates | getArena()
+	 * @post | getParentGroup().getSubgroup(index).equals(this)
+	 */
+	public void moveToIndex(int index) {
+		checkParent();
+		int parent = arena.parent[node];
+		if (index < 0 || arena.getChildCount(parent) <= index)
+			throw new IllegalArgumentException("index out of bounds");
+
+		arena.unlinkChild(node);
+		arena.insertChildBefore(parent, node, index == arena.getChildCount(parent) ? ShapeArena.NONE : arena.getChild(parent, index));
+	}
+
+	/**
+	 * Inserts the given shape group into this shape group's list of subgroups, at the given (zero-based) index.
+	 *
+	 * @throws UnsupportedOperationException if this is a leaf shape group
+	 *    | isLeaf()
+	 * @throws IllegalArgumentException if {@code subgroup} is null or belongs to another arena
+	 *    | subgroup == null || subgroup.getArena() != getArena()
+	 * @throws IllegalArgumentException if {@code subgroup} already has a parent
+	 *    | subgroup.getParentGroup() != null
+	 * @throws IllegalArgumentException if {@code subgroup} is this shape group or one of its ancestors
+	 * @throws IllegalArgumentException if the given index is out of bounds
+	 *    | index < 0 || getSubgroupCount() < index
+	 * @mutates | getArena()
+	 * @post | getSubgroup(index).equals(subgroup)
+	 * @post | subgroup.getParentGroup().equals(this)
+	 */
+	public void addSubgroup(int index, ArenaShapeGroup subgroup) {
+		if (isLeaf())
+			throw new UnsupportedOperationException("a leaf shape group has no subgroups");
+		if (subgroup == null)
+			throw new IllegalArgumentException("subgroup is null");
+		if (subgroup.arena != arena)
+			throw new IllegalArgumentException("subgroup belongs to another arena");
+		if (arena.parent[subgroup.node] != ShapeArena.NONE)
+			throw new IllegalArgumentException("subgroup already has a parent");
+		if (arena.isSelfOrAncestor(subgroup.node, node))
+			throw new IllegalArgumentException("subgroup is this shape group or one of its ancestors");
+		int count = arena.getChildCount(node);
+		if (index < 0 || count < index)
+			throw new IllegalArgumentException("index out of bounds");
+
+		arena.insertChildBefore(node, subgroup.node, index == count ? ShapeArena.NONE : arena.getChild(node, index));
+	}
+
+	/**
+	 * Removes the given shape group from this shape group's list of subgroups. The removed shape group becomes the root
+	 * of a separate graph in the same arena; it keeps its own transform.
+	 *
+	 * @throws IllegalArgumentException if {@code subgroup} is null
+	 *    | subgroup == null
+	 * @throws IllegalArgumentException if {@code subgroup} is not a subgroup of this shape group
+	 *    | !equals(subgroup.getParentGroup())
+	 * @throws IllegalStateException if this shape group has only two subgroups
+	 *    | getSubgroupCount() == 2
+	 * @mutates | getArena()
+	 * @post | subgroup.getParentGroup() == null
+	 */
+	public void removeSubgroup(ArenaShapeGroup subgroup) {
+		if (subgroup == null)
+			throw new IllegalArgumentException("subgroup is null");
+		if (subgroup.arena != arena || arena.parent[subgroup.node] != node)
+			throw new IllegalArgumentException("subgroup is not a subgroup of this shape group");
+		if (arena.getChildCount(node) == 2)
+			throw new IllegalStateException("a non-leaf shape group must have at least two subgroups");
+
+		arena.unlinkChild(subgroup.node);
+	}
+
+	/**
+	 * Translates the shapes contained directly or indirectly by this shape group along the given vector, by rewriting
+	 * their vertices, after baking any pending transforms of this shape group and its descendants into the vertices
+	 * (see {@code ShapeGroup.translate}). If the translated vertices of any shape do not define a proper polygon,
+	 * nothing is changed.
+	 *
+	 * @throws IllegalArgumentException if {@code delta} is null
+	 *    | delta == null
+	 * @throws IllegalArgumentException if the translated vertices of some shape do not define a proper polygon
+	 * @mutates | getArena()
+	 * @post | getTransform().isIdentity()
+	 */
+	public void translate(IntVector delta) {
+		if (delta == null)
+			throw new IllegalArgumentException("delta is null");
+
+		arena.transformSubtree(node, vertices -> PointArrays.translate(vertices, delta));
+	}
+
+	/**
+	 * Scales the shapes contained directly or indirectly by this shape group, by rewriting their vertices, after baking
+	 * any pending transforms of this shape group and its descendants into the vertices (see {@code ShapeGroup.scale}).
+	 * If the scaled vertices of any shape do not define a proper polygon, nothing is changed.
+	 *
+	 * @throws IllegalArgumentException if {@code origin} is null
+	 *    | origin == null
+	 * @throws IllegalArgumentException if the scaled vertices of some shape do not define a proper polygon
+	 * @mutates | getArena()
+	 * @post | getTransform().isIdentity()
+	 */
+	public void scale(IntPoint origin, double xFactor, double yFactor) {
+		if (origin == null)
+			throw new IllegalArgumentException("origin is null");
+
+		arena.transformSubtree(node, vertices -> PointArrays.scale(vertices, origin, xFactor, yFactor));
+	}
+
+	/**
+	 * Returns a new shape group graph, made of {@code LeafShapeGroup} and {@code NonleafShapeGroup} objects, with the same
+	 * structure, shapes and transforms as the subtree rooted at this shape group.
+	 *
+	 * @inspects | getArena()
+	 * @creates | result
+	 * @post | result != null && result.getParentGroup() == null
+	 * @post | result.getTransform().equals(getTransform())
+	 */
+	public ShapeGroup toShapeGroup() {
+		return arena.toShapeGroup(node);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null || getClass() != obj.getClass())
+			return false;
+		ArenaShapeGroup other = (ArenaShapeGroup)obj;
+		return arena == other.arena && node == other.node;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(System.identityHashCode(arena), node);
+	}
+
+}
@@ -0,0 +1,640 @@
+package drawit.shapegroups1.arena;
+
+import java.awt.Color;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import drawit.IntPoint;
+import drawit.PointArrays;
+import drawit.RoundedPolygon;
+import drawit.Transform;
+import drawit.shapegroups1.Extent;
+import drawit.shapegroups1.LeafShapeGroup;
+import drawit.shapegroups1.NonleafShapeGroup;
+import drawit.shapegroups1.ShapeGroup;
+
+/**
+ * Each instance of this class stores a collection of shape group graphs compactly, as parallel arrays of primitive
+ * values indexed by node number, rather than as one object per shape group, shape, vertex and color. This keeps
+ * the number of objects, and therefore the work of the garbage collector, independent of the number of shapes.
+ *
+ * <p>Each node is either a leaf, which stores a shape (a slice of the vertex arrays, a corner radius and a color),
+ * or a non-leaf, which has two or more children, linked through their sibling links. Each node also stores a
+ * transform, with the same meaning as {@code ShapeGroup.getTransform()}.
+ *
+ * <p>Clients access the nodes through {@code ArenaShapeGroup} objects, which offer the operations of the
+ * {@code ShapeGroup} API and produce the same bounding boxes and drawing commands. These objects are created
+ * on demand and hold only a reference to the arena and a node number. Use {@code importGroup} and
+ * {@code ArenaShapeGroup.toShapeGroup} to convert between both representations.
+ *
+ * <p>Nodes are never freed: a node removed from its parent becomes the root of a separate graph in the same arena.
+ * Vertex slices that are replaced by larger ones are reclaimed by compacting the vertex arrays.
+ *
+ * @invar | 0 <= getNodeCount()
+ */
+public final class ShapeArena {
+
+	static final int NONE = -1;
+
+	/**
+	 * The number of nodes in this arena; nodes are numbered {@code 0..nodeCount - 1}.
+	 *
+	 * @invar | 0 <= nodeCount && nodeCount <= parent.length
+	 */
+	int nodeCount;
+
+	/**
+	 * The structure of the graphs: for each node, its parent, its first and last children and its previous and next
+	 * siblings, or {@code NONE}. A node is a leaf if and only if its vertex count is positive.
+	 *
+	 * @representationObject
+	 */
+	int[] parent = new int[16];
+	int[] firstChild = new int[16];
+	int[] lastChild = new int[16];
+	int[] previousSibling = new int[16];
+	int[] nextSibling = new int[16];
+
+	/**
+	 * The shapes of the leaves: the vertices of leaf {@code n} are the points {@code (vertexX[i], vertexY[i])} for
+	 * {@code vertexOffset[n] <= i < vertexOffset[n] + vertexCount[n]}. The colors are stored as sRGB values,
+	 * including the alpha component.
+	 *
+	 * @representationObject
+	 */
+	int[] vertexOffset = new int[16];
+	int[] vertexCount = new int[16];
+	int[] radius = new int[16];
+	int[] color = new int[16];
+
+	/**
+	 * The transforms of the nodes.
+	 *
+	 * @representationObject
+	 */
+	double[] xScale = new double[16];
+	double[] yScale = new double[16];
+	double[] xOffset = new double[16];
+	double[] yOffset = new double[16];
+
+	/**
+	 * The number of elements of the vertex arrays that are in use, including those of discarded slices.
+	 *
+	 * @invar | 0 <= vertexTop && vertexTop <= vertexX.length
+	 * @invar | 0 <= garbageVertexCount && garbageVertexCount <= vertexTop
+	 */
+	int vertexTop;
+	/**
+	 * The number of elements of the vertex arrays below {@code vertexTop} that belong to discarded slices.
+	 */
+	int garbageVertexCount;
+	/**
+	 * @representationObject
+	 */
+	int[] vertexX = new int[64];
+	int[] vertexY = new int[64];
+
+	/**
+	 * Initializes this object as an empty arena.
+	 *
+	 * @post | getNodeCount() == 0
+	 */
+	public ShapeArena() {}
+
+	/**
+	 * Returns the number of nodes (leaves and non-leaves) stored in this arena, including those of graphs that are
+	 * no longer referenced by clients.
+	 */
+	public int getNodeCount() { return nodeCount; }
+
+	/**
+	 * Returns the number of vertices of the shapes stored in this arena.
+	 *
+	 * @post | 0 <= result
+	 */
+	public int getVertexCount() { return vertexTop - garbageVertexCount; }
+
+	/**
+	 * Creates a leaf node in this arena that stores a shape with the given vertices, corner radius and color.
+	 *
+	 * @throws IllegalArgumentException if {@code vertices} is null or contains null elements
+	 *    | vertices == null || Arrays.stream(vertices).anyMatch(v -> v == null)
+	 * @throws IllegalArgumentException if {@code vertices} has less than three elements
+	 *    | vertices.length < 3
+	 * @throws IllegalArgumentException if the given vertices do not define a proper polygon
+	 *    | PointArrays.checkDefinesProperPolygon(vertices) != null
+	 * @throws IllegalArgumentException if {@code radius} is negative
+	 *    | radius < 0
+	 * @throws IllegalArgumentException if {@code color} is null
+	 *    | color == null
+	 * @mutates | this
+	 * @inspects | vertices
+	 * @post | result != null && result.getArena() == this && result.isLeaf()
+	 * @post | Arrays.equals(result.getVertices(), vertices)
+	 * @post | result.getRadius() == radius && result.getColor().equals(color)
+	 * @post | result.getParentGroup() == null && result.getTransform().isIdentity()
+	 */
+	public ArenaShapeGroup createLeaf(IntPoint[] vertices, int radius, Color color) {
+		checkVertices(vertices);
+		if (radius < 0)
+			throw new IllegalArgumentException("radius is negative");
+		if (color == null)
+			throw new IllegalArgumentException("color is null");
+
+		return new ArenaShapeGroup(this, addLeaf(vertices, radius, color.getRGB(), Transform.IDENTITY));
+	}
+
+	/**
+	 * Creates a non-leaf node in this arena whose children are the nodes of the given shape groups, in the given order.
+	 *
+	 * @throws IllegalArgumentException if {@code subgroups} is null
+	 *    | subgroups == null
+	 * @throws IllegalArgumentException if {@code subgroups} has less than two elements
+	 *    | subgroups.size() < 2
+	 * @throws IllegalArgumentException if any element of {@code subgroups} is null or belongs to another arena
+	 *    | subgroups.stream().anyMatch(g -> g == null || g.getArena() != this)
+	 * @throws IllegalArgumentException if the given subgroups are not distinct
+	 *    | subgroups.stream().distinct().count() < subgroups.size()
+	 * @throws IllegalArgumentException if any of the given subgroups already has a parent
+	 *    | subgroups.stream().anyMatch(g -> g.getParentGroup() != null)
+	 * @mutates | this
+	 * @inspects | subgroups
+	 * @post | result != null && result.getArena() == this && !result.isLeaf()
+	 * @post | result.getSubgroups().equals(subgroups)
+	 * @post | result.getParentGroup() == null && result.getTransform().isIdentity()
+	 */
+	public ArenaShapeGroup createNonleaf(List<ArenaShapeGroup> subgroups) {
+		if (subgroups == null)
+			throw new IllegalArgumentException("subgroups is null");
+		if (subgroups.size() < 2)
+			throw new IllegalArgumentException("subgroups has less than two elements");
+		int[] nodes = new int[subgroups.size()];
+		for (int i = 0; i < nodes.length; i++) {
+			ArenaShapeGroup subgroup = subgroups.get(i);
+			if (subgroup == null)
+				throw new IllegalArgumentException("subgroups has null elements");
+			if (subgroup.arena != this)
+				throw new IllegalArgumentException("a subgroup belongs to another arena");
+			nodes[i] = subgroup.node;
+		}
+		BitSet distinctNodes = new BitSet(nodeCount);
+		for (int node : nodes) {
+			if (distinctNodes.get(node))
+				throw new IllegalArgumentException("subgroups has duplicate elements");
+			distinctNodes.set(node);
+		}
+		for (int node : nodes)
+			if (parent[node] != NONE)
+				throw new IllegalArgumentException("some of the given groups already have a parent");
+
+		int node = addNode(Transform.IDENTITY);
+		for (int child : nodes)
+			appendChild(node, child);
+		return new ArenaShapeGroup(this, node);
+	}
+
+	/**
+	 * Copies the given shape group graph into this arena and returns the copy of {@code group}.
+	 * The copy has the same structure, shapes and transforms; it does not share any state with the given graph.
+	 *
+	 * @throws IllegalArgumentException if {@code group} is null
+	 *    | group == null
+	 * @throws IllegalArgumentException if some shape of the given graph has less than three vertices
+	 *    | group.getAllShapes().stream().anyMatch(s -> s.getVertices().length < 3)
+	 * @mutates | this
+	 * @inspects | group, ...group.getAllShapes()
+	 * @post | result != null && result.getArena() == this && result.getParentGroup() == null
+	 * @post | result.getDrawingCommands().equals(group.getDrawingCommands())
+	 */
+	public ArenaShapeGroup importGroup(ShapeGroup group) {
+		if (group == null)
+			throw new IllegalArgumentException("group is null");
+
+		// Copy the graph in pre-order, using explicit stacks so that arbitrarily deep graphs can be imported.
+		ArrayDeque<ShapeGroup> stack = new ArrayDeque<>();
+		ArrayDeque<Integer> parents = new ArrayDeque<>();
+		stack.push(group);
+		parents.push(NONE);
+		int root = NONE;
+		while (!stack.isEmpty()) {
+			ShapeGroup current = stack.pop();
+			int parentNode = parents.pop();
+			int node;
+			if (current instanceof LeafShapeGroup) {
+				RoundedPolygon shape = ((LeafShapeGroup)current).getShape();
+				if (shape.getVertices().length < 3)
+					throw new IllegalArgumentException("a shape has less than three vertices");
+				node = addLeaf(shape.getVertices(), shape.getRadius(), shape.getColor().getRGB(), current.getTransform());
+			} else {
+				node = addNode(current.getTransform());
+				List<ShapeGroup> subgroups = ((NonleafShapeGroup)current).getSubgroups();
+				for (int i = subgroups.size() - 1; 0 <= i; i--) {
+					stack.push(subgroups.get(i));
+					parents.push(node);
+				}
+			}
+			if (parentNode == NONE)
+				root = node;
+			else
+				appendChild(parentNode, node);
+		}
+		return new ArenaShapeGroup(this, root);
+	}
+
+	// Storage management
+
+	private void ensureNodeCapacity() {
+		if (nodeCount < parent.length)
+			return;
+		int capacity = 2 * parent.length;
+		parent = Arrays.copyOf(parent, capacity);
+		firstChild = Arrays.copyOf(firstChild, capacity);
+		lastChild = Arrays.copyOf(lastChild, capacity);
+		previousSibling = Arrays.copyOf(previousSibling, capacity);
+		nextSibling = Arrays.copyOf(nextSibling, capacity);
+		vertexOffset = Arrays.copyOf(vertexOffset, capacity);
+		vertexCount = Arrays.copyOf(vertexCount, capacity);
+		radius = Arrays.copyOf(radius, capacity);
+		color = Arrays.copyOf(color, capacity);
+		xScale = Arrays.copyOf(xScale, capacity);
+		yScale = Arrays.copyOf(yScale, capacity);
+		xOffset = Arrays.copyOf(xOffset, capacity);
+		yOffset = Arrays.copyOf(yOffset, capacity);
+	}
+
+	/**
+	 * Adds a node without children or vertices, with the given transform, and returns its number.
+	 */
+	private int addNode(Transform transform) {
+		ensureNodeCapacity();
+		int node = nodeCount++;
+		parent[node] = NONE;
+		firstChild[node] = NONE;
+		lastChild[node] = NONE;
+		previousSibling[node] = NONE;
+		nextSibling[node] = NONE;
+		setTransform(node, transform);
+		return node;
+	}
+
+	private int addLeaf(IntPoint[] vertices, int radius, int color, Transform transform) {
+		int node = addNode(transform);
+		storeVertices(node, vertices);
+		this.radius[node] = radius;
+		this.color[node] = color;
+		return node;
+	}
+
+	static void checkVertices(IntPoint[] vertices) {
+		if (vertices == null)
+			throw new IllegalArgumentException("vertices is null");
+		for (IntPoint vertex : vertices)
+			if (vertex == null)
+				throw new IllegalArgumentException("an element of vertices is null");
+		if (vertices.length < 3)
+			throw new IllegalArgumentException("vertices has less than three elements");
+		String message = PointArrays.checkDefinesProperPolygon(vertices);
+		if (message != null)
+			throw new IllegalArgumentException(message);
+	}
+
+	/**
+	 * Stores the given vertices as the vertices of the given node, reusing the node's slice if it is large enough.
+	 */
+	void storeVertices(int node, IntPoint[] vertices) {
+		int count = vertices.length;
+		int offset;
+		if (count <= vertexCount[node]) {
+			offset = vertexOffset[node];
+			garbageVertexCount += vertexCount[node] - count;
+		} else {
+			garbageVertexCount += vertexCount[node];
+			vertexCount[node] = 0;
+			if (vertexTop + count > vertexX.length)
+				growVertices(count);
+			offset = vertexTop;
+			vertexTop += count;
+		}
+		for (int i = 0; i < count; i++) {
+			vertexX[offset + i] = vertices[i].getX();
+			vertexY[offset + i] = vertices[i].getY();
+		}
+		vertexOffset[node] = offset;
+		vertexCount[node] = count;
+	}
+
+	/**
+	 * Makes room for at least {@code count} more vertices, compacting the vertex arrays if at least half of their
+	 * used part belongs to discarded slices, and enlarging them otherwise.
+	 */
+	private void growVertices(int count) {
+		if (2 * garbageVertexCount >= vertexTop) {
+			int live = vertexTop - garbageVertexCount;
+			int capacity = Math.max(vertexX.length, 2 * (live + count));
+			int[] newX = new int[capacity];
+			int[] newY = new int[capacity];
+			int top = 0;
+			for (int node = 0; node < nodeCount; node++) {
+				int length = vertexCount[node];
+				if (length == 0)
+					continue;
+				System.arraycopy(vertexX, vertexOffset[node], newX, top, length);
+				System.arraycopy(vertexY, vertexOffset[node], newY, top, length);
+				vertexOffset[node] = top;
+				top += length;
+			}
+			vertexX = newX;
+			vertexY = newY;
+			vertexTop = top;
+			garbageVertexCount = 0;
+		} else {
+			int capacity = Math.max(2 * vertexX.length, vertexTop + count);
+			vertexX = Arrays.copyOf(vertexX, capacity);
+			vertexY = Arrays.copyOf(vertexY, capacity);
+		}
+	}
+
+	// Node accessors
+
+	boolean isLeaf(int node) {
+		return vertexCount[node] != 0;
+	}
+
+	IntPoint[] getVertices(int node) {
+		int offset = vertexOffset[node];
+		IntPoint[] result = new IntPoint[vertexCount[node]];
+		for (int i = 0; i < result.length; i++)
+			result[i] = new IntPoint(vertexX[offset + i], vertexY[offset + i]);
+		return result;
+	}
+
+	Transform getTransform(int node) {
+		if (xScale[node] == 1 && yScale[node] == 1 && xOffset[node] == 0 && yOffset[node] == 0)
+			return Transform.IDENTITY;
+		return new Transform(xScale[node], yScale[node], xOffset[node], yOffset[node]);
+	}
+
+	void setTransform(int node, Transform transform) {
+		xScale[node] = transform.getXScale();
+		yScale[node] = transform.getYScale();
+		xOffset[node] = transform.getXOffset();
+		yOffset[node] = transform.getYOffset();
+	}
+
+	int getChildCount(int node) {
+		int count = 0;
+		for (int child = firstChild[node]; child != NONE; child = nextSibling[child])
+			count++;
+		return count;
+	}
+
+	int getChild(int node, int index) {
+		int child = firstChild[node];
+		for (int i = 0; i < index; i++)
+			child = nextSibling[child];
+		return child;
+	}
+
+	// Structure
+
+	void appendChild(int node, int child) {
+		insertChildBefore(node, child, NONE);
+	}
+
+	/**
+	 * Links {@code child} into the list of children of {@code node}, before {@code sibling}, or at the end if
+	 * {@code sibling} is {@code NONE}.
+	 */
+	void insertChildBefore(int node, int child, int sibling) {
+		int previous = sibling == NONE ? lastChild[node] : previousSibling[sibling];
+		parent[child] = node;
+		previousSibling[child] = previous;
+		nextSibling[child] = sibling;
+		if (previous == NONE)
+			firstChild[node] = child;
+		else
+			nextSibling[previous] = child;
+		if (sibling == NONE)
+			lastChild[node] = child;
+		else
+			previousSibling[sibling] = child;
+	}
+
+	/**
+	 * Unlinks {@code child} from the list of children of its parent, leaving it without a parent.
+	 */
+	void unlinkChild(int child) {
+		int node = parent[child];
+		int previous = previousSibling[child];
+		int next = nextSibling[child];
+		if (previous == NONE)
+			firstChild[node] = next;
+		else
+			nextSibling[previous] = next;
+		if (next == NONE)
+			lastChild[node] = previous;
+		else
+			previousSibling[next] = previous;
+		parent[child] = NONE;
+		previousSibling[child] = NONE;
+		nextSibling[child] = NONE;
+	}
+
+	// Traversals; these use explicit stacks, so that arbitrarily deep graphs can be traversed.
+
+	/**
+	 * Returns the bounding box of the subtree rooted at {@code node}, expressed in the node's outer coordinate system,
+	 * computed in the same way as {@code ShapeGroup.getBoundingBox()}.
+	 */
+	Extent getBoundingBox(int node) {
+		int left = Integer.MAX_VALUE;
+		int top = Integer.MAX_VALUE;
+		int right = Integer.MIN_VALUE;
+		int bottom = Integer.MIN_VALUE;
+		IntStack stack = new IntStack();
+		// For each node on the stack, the transform from its outer coordinate system to that of {@code node}.
+		ArrayDeque<Transform> outers = new ArrayDeque<>();
+		stack.push(node);
+		outers.push(Transform.IDENTITY);
+		while (!stack.isEmpty()) {
+			int current = stack.pop();
+			Transform transform = getTransform(current).then(outers.pop());
+			if (isLeaf(current)) {
+				int offset = vertexOffset[current];
+				int minX = Integer.MAX_VALUE;
+				int maxX = Integer.MIN_VALUE;
+				int minY = Integer.MAX_VALUE;
+				int maxY = Integer.MIN_VALUE;
+				for (int i = offset; i < offset + vertexCount[current]; i++) {
+					minX = Math.min(minX, vertexX[i]);
+					maxX = Math.max(maxX, vertexX[i]);
+					minY = Math.min(minY, vertexY[i]);
+					maxY = Math.max(maxY, vertexY[i]);
+				}
+				int x1 = transform.applyToX(minX);
+				int x2 = transform.applyToX(maxX);
+				int y1 = transform.applyToY(minY);
+				int y2 = transform.applyToY(maxY);
+				left = Math.min(left, Math.min(x1, x2));
+				right = Math.max(right, Math.max(x1, x2));
+				top = Math.min(top, Math.min(y1, y2));
+				bottom = Math.max(bottom, Math.max(y1, y2));
+			} else {
+				for (int child = firstChild[current]; child != NONE; child = nextSibling[child]) {
+					stack.push(child);
+					outers.push(transform);
+				}
+			}
+		}
+		return Extent.ofLeftTopRightBottom(left, top, right, bottom);
+	}
+
+	/**
+	 * Returns the drawing commands for the subtree rooted at {@code node}, which are the same as those of the
+	 * corresponding {@code ShapeGroup}.
+	 */
+	String getDrawingCommands(int node) {
+		StringBuilder commands = new StringBuilder();
+		// A negative element ~n marks the end of the commands for non-leaf node n.
+		IntStack stack = new IntStack();
+		stack.push(node);
+		while (!stack.isEmpty()) {
+			int current = stack.pop();
+			if (current < 0) {
+				Transform transform = getTransform(~current);
+				if (!transform.isIdentity())
+					commands.append(transform.getPopCommands());
+				continue;
+			}
+			Transform transform = getTransform(current);
+			if (!transform.isIdentity())
+				commands.append(transform.getPushCommands());
+			if (isLeaf(current)) {
+				commands.append(RoundedPolygon.getDrawingCommands(getVertices(current), radius[current], new Color(color[current], true)));
+				if (!transform.isIdentity())
+					commands.append(transform.getPopCommands());
+			} else {
+				stack.push(~current);
+				// Subgroups are drawn back to front; the last one pushed is popped first.
+				for (int child = firstChild[current]; child != NONE; child = nextSibling[child])
+					stack.push(child);
+			}
+		}
+		return commands.toString();
+	}
+
+	/**
+	 * Returns whether {@code ancestor} is {@code node} or one of its ancestors.
+	 */
+	boolean isSelfOrAncestor(int ancestor, int node) {
+		for (; node != NONE; node = parent[node])
+			if (node == ancestor)
+				return true;
+		return false;
+	}
+
+	/**
+	 * Applies the transforms of the subtree rooted at {@code node} to its vertices, then replaces the vertices of each
+	 * leaf by the result of applying {@code transformation} to them and resets the transforms, as a single atomic step.
+	 *
+	 * @throws IllegalArgumentException if the new vertices of some leaf do not define a proper polygon;
+	 *     in that case, nothing is changed
+	 */
+	void transformSubtree(int node, UnaryOperator<IntPoint[]> transformation) {
+		ArrayList<Integer> leaves = new ArrayList<>();
+		ArrayList<IntPoint[]> newVertices = new ArrayList<>();
+		ArrayList<Integer> nodes = new ArrayList<>();
+		IntStack stack = new IntStack();
+		ArrayDeque<Transform> outers = new ArrayDeque<>();
+		stack.push(node);
+		outers.push(Transform.IDENTITY);
+		while (!stack.isEmpty()) {
+			int current = stack.pop();
+			nodes.add(current);
+			Transform transform = getTransform(current).then(outers.pop());
+			if (isLeaf(current)) {
+				IntPoint[] vertices = transformation.apply(transform.apply(getVertices(current)));
+				String message = PointArrays.checkDefinesProperPolygon(vertices);
+				if (message != null)
+					throw new IllegalArgumentException("shape " + leaves.size() + " would not be a proper polygon: " + message);
+				leaves.add(current);
+				newVertices.add(vertices);
+			} else {
+				// Push the children last child first, so that the leaves are numbered in depth-first order.
+				for (int child = lastChild[current]; child != NONE; child = previousSibling[child]) {
+					stack.push(child);
+					outers.push(transform);
+				}
+			}
+		}
+		for (int i = 0; i < leaves.size(); i++)
+			storeVertices(leaves.get(i), newVertices.get(i));
+		for (int current : nodes)
+			setTransform(current, Transform.IDENTITY);
+	}
+
+	/**
+	 * Returns a new shape group graph with the same structure, shapes and transforms as the subtree rooted at
+	 * {@code node}.
+	 */
+	ShapeGroup toShapeGroup(int node) {
+		// Build the graph bottom-up: a non-leaf shape group is created once its subgroups, which are on top of
+		// {@code built}, have been created. A negative element ~n marks the creation of non-leaf node n.
+		ArrayList<ShapeGroup> built = new ArrayList<>();
+		IntStack stack = new IntStack();
+		stack.push(node);
+		while (!stack.isEmpty()) {
+			int current = stack.pop();
+			ShapeGroup group;
+			if (current < 0) {
+				current = ~current;
+				List<ShapeGroup> subgroups = built.subList(built.size() - getChildCount(current), built.size());
+				group = new NonleafShapeGroup(new ArrayList<>(subgroups));
+				subgroups.clear();
+			} else if (isLeaf(current)) {
+				RoundedPolygon shape = new RoundedPolygon();
+				shape.setVertices(getVertices(current));
+				shape.setRadius(radius[current]);
+				shape.setColor(new Color(color[current], true));
+				group = new LeafShapeGroup(shape);
+			} else {
+				stack.push(~current);
+				for (int child = lastChild[current]; child != NONE; child = previousSibling[child])
+					stack.push(child);
+				continue;
+			}
+			Transform transform = getTransform(current);
+			if (!transform.isIdentity())
+				group.applyTransform(transform);
+			built.add(group);
+		}
+		return built.get(0);
+	}
+
+	/**
+	 * A growable stack of {@code int} values, which avoids boxing.
+	 */
+	static final class IntStack {
+
+		private int[] elements = new int[16];
+		private int size;
+
+		boolean isEmpty() { return size == 0; }
+
+		void push(int value) {
+			if (size == elements.length)
+				elements = Arrays.copyOf(elements, 2 * size);
+			elements[size++] = value;
+		}
+
+		int pop() {
+			return elements[--size];
+		}
+
+	}
+
+}
@@ -0,0 +1,323 @@
+package drawit.shapegroups1.binary;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.List;
+
+import drawit.RoundedPolygon;
+import drawit.ShapeBinaryReader;
+import drawit.ShapeBinaryWriter;
+import drawit.Transform;
+import drawit.shapegroups1.Extent;
+import drawit.shapegroups1.LeafShapeGroup;
+import drawit.shapegroups1.NonleafShapeGroup;
+import drawit.shapegroups1.ShapeGroup;
+
+/**
+ * Each instance of this class is a saved shape group graph that is memory-mapped from a file and read lazily: the
+ * shape groups of the graph are read from the file on first access, through {@code MappedShapeGroup} objects, so
+ * opening a scene and drawing part of it reads only the records of the shape groups involved.
+ *
+ * <p>The file consists of a 16-byte header (the four bytes {@code DRWM}, the format version as an int and the
+ * position of the root's record as a long) followed by one record per shape group, in post-order: each non-leaf shape
+ * group's record follows those of its subgroups. A record consists of a tag byte, the shape group's transform as four
+ * doubles if the tag says it has one, its bounding box as four ints (left, top, right, bottom), and then either its
+ * shape, encoded as by {@code ShapeBinaryWriter}, for a leaf shape group, or the number of its subgroups as an int
+ * followed by the positions of their records as longs, for a non-leaf shape group. The bounding boxes allow subtrees
+ * outside a viewport to be skipped without reading them; the position tables allow any subgroup to be reached without
+ * reading its siblings. Since a subgroup's record always precedes its parent's, a corrupt file cannot make the graph
+ * cyclic.
+ *
+ * <p>Files larger than 2 GB are mapped as a sequence of segments. The mapping remains valid until the scene is
+ * garbage-collected. Scenes are not thread-safe: lazily read shape groups are cached without synchronization.
+ *
+ * <p>Data that turns out to be corrupt when it is read lazily is reported by throwing an
+ * {@code UncheckedIOException}.
+ *
+ * @invar | getRoot() != null
+ * @invar | getRoot().getParentGroup() == null
+ */
+public final class MappedScene {
+
+	private static final byte[] MAGIC = {'D', 'R', 'W', 'M'};
+	public static final int VERSION = 1;
+	static final int HEADER_SIZE = 16;
+
+	static final int TAG_NONLEAF = 1;
+	static final int TAG_TRANSFORM = 2;
+
+	private static final int SEGMENT_SHIFT = 30;
+	private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+
+	/**
+	 * The file's contents: segment {@code i} holds the bytes from position {@code i * SEGMENT_SIZE}.
+	 *
+	 * @representationObject
+	 */
+	private final MappedByteBuffer[] segments;
+	private final long size;
+	private final MappedShapeGroup root;
+	/**
+	 * The number of shape group records read so far.
+	 */
+	int loadedCount;
+
+	private MappedScene(MappedByteBuffer[] segments, long size) throws IOException {
+		this.segments = segments;
+		this.size = size;
+		if (size < HEADER_SIZE)
+			throw new IOException("Not a mapped scene file");
+		for (int i = 0; i < MAGIC.length; i++)
+			if (getByte(i) != MAGIC[i])
+				throw new IOException("Not a mapped scene file");
+		int version = getInt(4);
+		if (version != VERSION)
+			throw new IOException("Unsupported mapped scene format version: " + version);
+		long rootPosition = getLong(8);
+		if (rootPosition < HEADER_SIZE || size <= rootPosition)
+			throw new IOException("Corrupt mapped scene file: root position out of range");
+		try {
+			root = new MappedShapeGroup(this, null, rootPosition);
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * Returns the size of the scene's file, in bytes.
+	 */
+	public long getSize() { return size; }
+
+	/**
+	 * Returns the root shape group of the scene.
+	 */
+	public MappedShapeGroup getRoot() { return root; }
+
+	/**
+	 * Returns the number of shape group records that have been read from the file so far.
+	 *
+	 * @post | 1 <= result
+	 */
+	public int getLoadedCount() { return loadedCount; }
+
+	static UncheckedIOException corrupt(String message) {
+		return new UncheckedIOException(new IOException("Corrupt mapped scene file: " + message));
+	}
+
+	/**
+	 * Throws if fewer than {@code count} bytes are available at the given position.
+	 */
+	void checkRange(long position, long count) {
+		if (position < 0 || count < 0 || size - count < position)
+			throw corrupt("record out of range");
+	}
+
+	byte getByte(long position) {
+		checkRange(position, 1);
+		return segments[(int)(position >>> SEGMENT_SHIFT)].get((int)(position & (SEGMENT_SIZE - 1)));
+	}
+
+	int getInt(long position) {
+		checkRange(position, 4);
+		int offset = (int)(position & (SEGMENT_SIZE - 1));
+		ByteBuffer segment = segments[(int)(position >>> SEGMENT_SHIFT)];
+		if (offset <= segment.limit() - 4)
+			return segment.getInt(offset);
+		int result = 0;
+		for (int i = 0; i < 4; i++)
+			result = result << 8 | getByte(position + i) & 0xff;
+		return result;
+	}
+
+	long getLong(long position) {
+		checkRange(position, 8);
+		int offset = (int)(position & (SEGMENT_SIZE - 1));
+		ByteBuffer segment = segments[(int)(position >>> SEGMENT_SHIFT)];
+		if (offset <= segment.limit() - 8)
+			return segment.getLong(offset);
+		return (long)getInt(position) << 32 | getInt(position + 4) & 0xffffffffL;
+	}
+
+	double getDouble(long position) {
+		return Double.longBitsToDouble(getLong(position));
+	}
+
+	/**
+	 * Returns a stream that reads the file from the given position.
+	 */
+	InputStream openStream(long position) {
+		return new InputStream() {
+			long next = position;
+
+			@Override
+			public int read() {
+				return next < size ? getByte(next++) & 0xff : -1;
+			}
+
+			@Override
+			public int read(byte[] bytes, int offset, int length) {
+				if (length == 0)
+					return 0;
+				if (size <= next)
+					return -1;
+				ByteBuffer segment = segments[(int)(next >>> SEGMENT_SHIFT)];
+				int segmentOffset = (int)(next & (SEGMENT_SIZE - 1));
+				int count = Math.min(length, segment.limit() - segmentOffset);
+				segment.get(segmentOffset, bytes, offset, count);
+				next += count;
+				return count;
+			}
+		};
+	}
+
+	/**
+	 * Reads the shape of the leaf shape group encoded at the given position.
+	 */
+	RoundedPolygon readShape(long position) {
+		RoundedPolygon shape;
+		try {
+			shape = new ShapeBinaryReader(openStream(position)).readShape();
+		} catch (IOException e) {
+			throw corrupt(e.getMessage());
+		}
+		if (shape.getVertexCount() < 3)
+			throw corrupt("a leaf shape has fewer than three vertices");
+		return shape;
+	}
+
+	/**
+	 * Memory-maps the given file, which must have been written by {@code write}, and returns the scene it contains.
+	 * Only the file's header and the root's record are read.
+	 *
+	 * @throws IllegalArgumentException if {@code path} is null
+	 *    | path == null
+	 * @throws IOException if the file cannot be mapped, or is not a mapped scene file
+	 * @creates | result
+	 */
+	public static MappedScene open(Path path) throws IOException {
+		if (path == null)
+			throw new IllegalArgumentException("path is null");
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			int segmentCount = (int)((size + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT);
+			MappedByteBuffer[] segments = new MappedByteBuffer[Math.max(1, segmentCount)];
+			for (int i = 0; i < segments.length; i++) {
+				long start = (long)i << SEGMENT_SHIFT;
+				segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_SIZE, size - start));
+			}
+			// The mapping remains valid after the channel is closed.
+			return new MappedScene(segments, size);
+		}
+	}
+
+	/**
+	 * A non-leaf shape group whose subgroups' records are being written, and the positions of those written so far.
+	 */
+	private static final class WriteFrame {
+		final NonleafShapeGroup group;
+		final List<ShapeGroup> subgroups;
+		final long[] positions;
+		int count;
+
+		WriteFrame(NonleafShapeGroup group) {
+			this.group = group;
+			this.subgroups = group.getSubgroups();
+			this.positions = new long[subgroups.size()];
+		}
+	}
+
+	private static void writeRecordHeader(ShapeBinaryWriter writer, ShapeGroup group) throws IOException {
+		Transform transform = group.getTransform();
+		boolean hasTransform = !transform.isIdentity();
+		writer.writeByte((group instanceof NonleafShapeGroup ? TAG_NONLEAF : 0) | (hasTransform ? TAG_TRANSFORM : 0));
+		if (hasTransform) {
+			writer.writeDouble(transform.getXScale());
+			writer.writeDouble(transform.getYScale());
+			writer.writeDouble(transform.getXOffset());
+			writer.writeDouble(transform.getYOffset());
+		}
+		Extent boundingBox = group.getBoundingBox();
+		writer.writeInt(boundingBox.getLeft());
+		writer.writeInt(boundingBox.getTop());
+		writer.writeInt(boundingBox.getRight());
+		writer.writeInt(boundingBox.getBottom());
+	}
+
+	/**
+	 * Writes the given shape group graph to the given file in the format read by {@code open}, replacing the file's
+	 * contents if it exists.
+	 *
+	 * @throws IllegalArgumentException if {@code shapeGroup} is null
+	 *    | shapeGroup == null
+	 * @throws IllegalArgumentException if {@code path} is null
+	 *    | path == null
+	 * @throws IllegalStateException if some shape in the graph has no vertices, so that the bounding boxes are
+	 *    undefined
+	 * @throws IOException if writing the file fails
+	 * @inspects | shapeGroup
+	 */
+	public static void write(ShapeGroup shapeGroup, Path path) throws IOException {
+		if (shapeGroup == null)
+			throw new IllegalArgumentException("shapeGroup is null");
+		if (path == null)
+			throw new IllegalArgumentException("path is null");
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16);
+			ShapeBinaryWriter writer = new ShapeBinaryWriter(out);
+			writer.writeBytes(MAGIC);
+			writer.writeInt(VERSION);
+			writer.writeLong(0);
+			// Write the records in post-order, using an explicit stack, so that arbitrarily deep graphs can be saved.
+			ArrayDeque<WriteFrame> stack = new ArrayDeque<>();
+			ShapeGroup group = shapeGroup;
+			long rootPosition;
+			outer:
+			for (;;) {
+				if (group instanceof NonleafShapeGroup) {
+					WriteFrame frame = new WriteFrame((NonleafShapeGroup)group);
+					stack.push(frame);
+					group = frame.subgroups.get(0);
+					continue;
+				}
+				long position = writer.getByteCount();
+				writeRecordHeader(writer, group);
+				writer.writeShape(((LeafShapeGroup)group).getShape());
+				// Hand the record's position to the parent; write the parents whose last subgroup this is.
+				for (;;) {
+					WriteFrame frame = stack.peek();
+					if (frame == null) {
+						rootPosition = position;
+						break outer;
+					}
+					frame.positions[frame.count++] = position;
+					if (frame.count < frame.positions.length) {
+						group = frame.subgroups.get(frame.count);
+						break;
+					}
+					stack.pop();
+					position = writer.getByteCount();
+					writeRecordHeader(writer, frame.group);
+					writer.writeInt(frame.positions.length);
+					for (long subgroupPosition : frame.positions)
+						writer.writeLong(subgroupPosition);
+				}
+			}
+			writer.flush();
+			ByteBuffer header = ByteBuffer.allocate(8).putLong(rootPosition).flip();
+			while (header.hasRemaining())
+				channel.write(header, 8 + header.position());
+		}
+	}
+
+}
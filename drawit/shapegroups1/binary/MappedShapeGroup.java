@@ -0,0 +1,338 @@
+package drawit.shapegroups1.binary;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+
+import drawit.RoundedPolygon;
+import drawit.Transform;
+import drawit.shapegroups1.Extent;
+import drawit.shapegroups1.LeafShapeGroup;
+import drawit.shapegroups1.NonleafShapeGroup;
+import drawit.shapegroups1.ShapeGroup;
+
+/**
+ * Each instance of this class is a shape group of a {@code MappedScene}, read from the scene's file. Creating it
+ * reads only the shape group's record header: its transform, its bounding box and its number of subgroups. Its
+ * subgroups and its shape are read on first access, and then cached, so each record is read at most once.
+ *
+ * <p>A mapped shape group is read-only: its shape is a new rounded polygon, owned by the mapped shape group, whose
+ * changes are not written back to the file. {@code toShapeGroup} creates an ordinary shape group graph with the same
+ * contents, for editing.
+ *
+ * @invar | getScene() != null
+ * @invar | getTransform() != null
+ * @invar | getBoundingBox() != null
+ * @invar | isLeaf() ? getSubgroupCount() == 0 : 2 <= getSubgroupCount()
+ */
+public final class MappedShapeGroup {
+
+	/**
+	 * @invar | scene != null
+	 */
+	private final MappedScene scene;
+	/**
+	 * @peerObject
+	 */
+	private final MappedShapeGroup parent;
+	/**
+	 * The position of this shape group's record.
+	 */
+	private final long position;
+	private final boolean leaf;
+	private final Transform transform;
+	private final Extent boundingBox;
+	/**
+	 * The position of the shape's encoding, for a leaf shape group, or of the table of the positions of the
+	 * subgroups' records, for a non-leaf shape group.
+	 */
+	private final long contentPosition;
+	private final int subgroupCount;
+	/**
+	 * The subgroups read so far, or {@code null} if none has been read.
+	 *
+	 * @representationObject
+	 */
+	private MappedShapeGroup[] subgroups;
+	private RoundedPolygon shape;
+
+	MappedShapeGroup(MappedScene scene, MappedShapeGroup parent, long position) {
+		this.scene = scene;
+		this.parent = parent;
+		this.position = position;
+		int tag = scene.getByte(position);
+		if ((tag & ~(MappedScene.TAG_NONLEAF | MappedScene.TAG_TRANSFORM)) != 0)
+			throw MappedScene.corrupt("invalid shape group tag " + tag);
+		leaf = (tag & MappedScene.TAG_NONLEAF) == 0;
+		long next = position + 1;
+		if ((tag & MappedScene.TAG_TRANSFORM) != 0) {
+			double xScale = scene.getDouble(next);
+			double yScale = scene.getDouble(next + 8);
+			double xOffset = scene.getDouble(next + 16);
+			double yOffset = scene.getDouble(next + 24);
+			try {
+				transform = new Transform(xScale, yScale, xOffset, yOffset);
+			} catch (IllegalArgumentException e) {
+				throw MappedScene.corrupt("invalid transform");
+			}
+			next += 32;
+		} else {
+			transform = Transform.IDENTITY;
+		}
+		int left = scene.getInt(next);
+		int top = scene.getInt(next + 4);
+		int right = scene.getInt(next + 8);
+		int bottom = scene.getInt(next + 12);
+		if (right < left || bottom < top)
+			throw MappedScene.corrupt("invalid bounding box");
+		boundingBox = Extent.ofLeftTopRightBottom(left, top, right, bottom);
+		next += 16;
+		if (leaf) {
+			subgroupCount = 0;
+		} else {
+			subgroupCount = scene.getInt(next);
+			if (subgroupCount < 2)
+				throw MappedScene.corrupt("a non-leaf shape group has fewer than two subgroups");
+			next += 4;
+			scene.checkRange(next, 8L * subgroupCount);
+		}
+		contentPosition = next;
+		scene.loadedCount++;
+	}
+
+	/**
+	 * Returns the scene this shape group belongs to.
+	 *
+	 * @immutable
+	 */
+	public MappedScene getScene() { return scene; }
+
+	/**
+	 * Returns the shape group that directly contains this shape group, or {@code null} if this is the scene's root.
+	 *
+	 * @immutable
+	 */
+	public MappedShapeGroup getParentGroup() { return parent; }
+
+	/**
+	 * Returns whether this shape group is a leaf shape group, which contains a shape.
+	 *
+	 * @immutable
+	 */
+	public boolean isLeaf() { return leaf; }
+
+	/**
+	 * Returns the transform from this shape group's inner coordinate system to its outer coordinate system.
+	 *
+	 * @immutable
+	 */
+	public Transform getTransform() { return transform; }
+
+	/**
+	 * Returns the bounding box of this shape group, in its outer coordinate system, as saved in the file; see
+	 * {@code ShapeGroup.getBoundingBox()}.
+	 *
+	 * @immutable
+	 */
+	public Extent getBoundingBox() { return boundingBox; }
+
+	/**
+	 * Returns the number of subgroups of this shape group; zero for a leaf shape group.
+	 *
+	 * @immutable
+	 */
+	public int getSubgroupCount() { return subgroupCount; }
+
+	/**
+	 * Returns the subgroup at the given index of this shape group, reading its record if this is the first access.
+	 *
+	 * @throws IllegalArgumentException if the index is out of range
+	 *    | !(0 <= index && index < getSubgroupCount())
+	 * @post | result != null && result.getParentGroup() == this
+	 */
+	public MappedShapeGroup getSubgroup(int index) {
+		if (!(0 <= index && index < subgroupCount))
+			throw new IllegalArgumentException("index out of range");
+		if (subgroups == null)
+			subgroups = new MappedShapeGroup[subgroupCount];
+		MappedShapeGroup result = subgroups[index];
+		if (result == null) {
+			long subgroupPosition = scene.getLong(contentPosition + 8L * index);
+			// Subgroup records precede their parent's, so following positions always terminates.
+			if (subgroupPosition < MappedScene.HEADER_SIZE || position <= subgroupPosition)
+				throw MappedScene.corrupt("subgroup position out of range");
+			result = subgroups[index] = new MappedShapeGroup(scene, this, subgroupPosition);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the shape of this shape group, if it is a leaf shape group, decoding it if this is the first access;
+	 * returns {@code null} otherwise.
+	 *
+	 * @post | isLeaf() == (result != null)
+	 */
+	public RoundedPolygon getShape() {
+		if (leaf && shape == null)
+			shape = scene.readShape(contentPosition);
+		return shape;
+	}
+
+	/**
+	 * Returns the drawing commands for drawing the shapes in this subtree that may be visible in the given viewport,
+	 * expressed in this shape group's outer coordinate system; they are the same as those returned by
+	 * {@code ShapeGroup.getDrawingCommands(Extent)} for the shape group that was saved. Only the records of the
+	 * subgroups of the shape groups whose bounding box intersects the viewport are read, and only the shapes of the
+	 * leaf shape groups that may be visible are decoded.
+	 *
+	 * @throws IllegalArgumentException if {@code viewport} is null
+	 *    | viewport == null
+	 * @post | result != null
+	 */
+	public String getDrawingCommands(Extent viewport) {
+		if (viewport == null)
+			throw new IllegalArgumentException("viewport is null");
+		StringBuilder result = new StringBuilder();
+		// Each frame is a non-leaf shape group whose subgroups are being drawn, from the last to the first; a null
+		// viewport means that the whole subtree is visible.
+		ArrayDeque<DrawFrame> frames = new ArrayDeque<>();
+		MappedShapeGroup group = this;
+		for (;;) {
+			if (viewport == null || viewport.intersects(group.boundingBox)) {
+				if (viewport != null && viewport.contains(group.boundingBox))
+					viewport = null;
+				if (group.leaf) {
+					if (!group.transform.isIdentity())
+						result.append(group.transform.getPushCommands());
+					result.append(group.getShape().getDrawingCommands());
+					if (!group.transform.isIdentity())
+						result.append(group.transform.getPopCommands());
+				} else {
+					frames.push(new DrawFrame(group, viewport, result));
+				}
+			}
+			// Find the next shape group to draw, completing the frames whose subgroups have all been drawn.
+			group = null;
+			while (!frames.isEmpty()) {
+				DrawFrame frame = frames.peek();
+				if (0 < frame.next) {
+					group = frame.group.getSubgroup(--frame.next);
+					viewport = frame.innerViewport;
+					break;
+				}
+				frames.pop();
+				frame.finish(result);
+			}
+			if (group == null)
+				return result.toString();
+		}
+	}
+
+	/**
+	 * The state of {@code getDrawingCommands} for a non-leaf shape group whose subgroups are being drawn.
+	 */
+	private static final class DrawFrame {
+		final MappedShapeGroup group;
+		/**
+		 * The viewport, expressed in the group's inner coordinate system, or {@code null} if all of the subgroups are
+		 * visible.
+		 */
+		final Extent innerViewport;
+		/**
+		 * The length of the commands before the group's transform's push commands.
+		 */
+		final int start;
+		/**
+		 * The length of the commands after the group's transform's push commands.
+		 */
+		final int contentStart;
+		/**
+		 * The number of subgroups that remain to be drawn.
+		 */
+		int next;
+
+		DrawFrame(MappedShapeGroup group, Extent viewport, StringBuilder commands) {
+			this.group = group;
+			this.innerViewport = viewport == null || group.transform.isIdentity() ? viewport : getInverseImage(viewport, group.transform);
+			this.start = commands.length();
+			if (!group.transform.isIdentity())
+				commands.append(group.transform.getPushCommands());
+			this.contentStart = commands.length();
+			this.next = group.subgroupCount;
+		}
+
+		void finish(StringBuilder commands) {
+			if (group.transform.isIdentity())
+				return;
+			// Like ShapeGroup, omit the transform's commands if no subgroup is visible.
+			if (commands.length() == contentStart)
+				commands.setLength(start);
+			else
+				commands.append(group.transform.getPopCommands());
+		}
+	}
+
+	/**
+	 * Returns the smallest extent that contains the image of the given extent under the inverse of the given
+	 * transform, widened by one unit on each side to allow for the rounding of vertices in transformed bounding boxes;
+	 * this is the viewport culling of {@code ShapeGroup}.
+	 */
+	private static Extent getInverseImage(Extent extent, Transform transform) {
+		Transform inverse = transform.inverse();
+		double x1 = inverse.getXScale() * extent.getLeft() + inverse.getXOffset();
+		double x2 = inverse.getXScale() * extent.getRight() + inverse.getXOffset();
+		double y1 = inverse.getYScale() * extent.getTop() + inverse.getYOffset();
+		double y2 = inverse.getYScale() * extent.getBottom() + inverse.getYOffset();
+		return Extent.ofLeftTopRightBottom(
+				clampToInt(Math.floor(Math.min(x1, x2)) - 1), clampToInt(Math.floor(Math.min(y1, y2)) - 1),
+				clampToInt(Math.ceil(Math.max(x1, x2)) + 1), clampToInt(Math.ceil(Math.max(y1, y2)) + 1));
+	}
+
+	private static int clampToInt(double value) {
+		return (int)Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, value));
+	}
+
+	/**
+	 * Returns a new shape group graph with the same contents as this subtree, reading all of its records. The shapes
+	 * of the new graph are new rounded polygons, distinct from those returned by {@code getShape}.
+	 *
+	 * @creates | result
+	 * @post | result != null && result.getParentGroup() == null
+	 * @post | result.getTransform().equals(getTransform())
+	 */
+	public ShapeGroup toShapeGroup() {
+		// Build the graph bottom-up with an explicit stack, since the subgroups must exist before their parent.
+		ArrayDeque<MappedShapeGroup> groups = new ArrayDeque<>();
+		ArrayDeque<ArrayList<ShapeGroup>> built = new ArrayDeque<>();
+		MappedShapeGroup group = this;
+		for (;;) {
+			ShapeGroup result;
+			if (group.leaf) {
+				result = new LeafShapeGroup(scene.readShape(group.contentPosition));
+			} else {
+				groups.push(group);
+				built.push(new ArrayList<>(group.subgroupCount));
+				group = group.getSubgroup(0);
+				continue;
+			}
+			if (!group.transform.isIdentity())
+				result.applyTransform(group.transform);
+			for (;;) {
+				if (groups.isEmpty())
+					return result;
+				ArrayList<ShapeGroup> subgroups = built.peek();
+				subgroups.add(result);
+				MappedShapeGroup parent = groups.peek();
+				if (subgroups.size() < parent.subgroupCount) {
+					group = parent.getSubgroup(subgroups.size());
+					break;
+				}
+				groups.pop();
+				built.pop();
+				result = new NonleafShapeGroup(subgroups);
+				if (!parent.transform.isIdentity())
+					result.applyTransform(parent.transform);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,208 @@
+package drawit.shapegroups1.binary;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import drawit.RoundedPolygon;
+import drawit.ShapeBinaryReader;
+import drawit.ShapeBinaryWriter;
+import drawit.Transform;
+import drawit.shapegroups1.LeafShapeGroup;
+import drawit.shapegroups1.NonleafShapeGroup;
+import drawit.shapegroups1.ShapeGroup;
+
+/**
+ * Saves shape group graphs in a compact binary format, and loads them back.
+ *
+ * <p>The data consists of the four bytes {@code DRWB}, the format version as a varint, and the root shape group.
+ * Each shape group is written in pre-order, as a tag byte followed by its transform, if the tag says it has one, as
+ * four doubles (x scale, y scale, x offset, y offset), and then either its shape, for a leaf shape group, or the
+ * number of its subgroups as a varint followed by its subgroups, for a non-leaf shape group. Shapes, varints and
+ * doubles are encoded as described by {@code ShapeBinaryWriter}; vertex coordinates are delta-encoded, so a typical
+ * vertex takes two to four bytes, against some 20 characters in the JSON text of the plain data.
+ *
+ * <p>Unlike the plain data, the format includes the transforms, so loading a saved shape group graph yields an
+ * equivalent graph. Both directions traverse the graph with explicit stacks, so arbitrarily deep graphs can be saved
+ * and loaded, and neither builds an intermediate representation of the whole graph.
+ */
+public final class ShapeGroupBinaryFormat {
+
+	private ShapeGroupBinaryFormat() { throw new AssertionError("This class is not meant to be instantiated"); }
+
+	private static final byte[] MAGIC = {'D', 'R', 'W', 'B'};
+	public static final int VERSION = 1;
+
+	private static final int TAG_NONLEAF = 1;
+	private static final int TAG_TRANSFORM = 2;
+
+	private static void writeGroupHeader(ShapeBinaryWriter writer, ShapeGroup group) throws IOException {
+		Transform transform = group.getTransform();
+		boolean hasTransform = !transform.isIdentity();
+		writer.writeByte((group instanceof NonleafShapeGroup ? TAG_NONLEAF : 0) | (hasTransform ? TAG_TRANSFORM : 0));
+		if (hasTransform)
+			writeTransform(writer, transform);
+	}
+
+	static void writeTransform(ShapeBinaryWriter writer, Transform transform) throws IOException {
+		writer.writeDouble(transform.getXScale());
+		writer.writeDouble(transform.getYScale());
+		writer.writeDouble(transform.getXOffset());
+		writer.writeDouble(transform.getYOffset());
+	}
+
+	/**
+	 * Writes the given shape group graph to the given byte stream in the binary format. The stream is flushed, but
+	 * not closed.
+	 *
+	 * @throws IllegalArgumentException if {@code shapeGroup} is null
+	 *    | shapeGroup == null
+	 * @throws IllegalArgumentException if {@code out} is null
+	 *    | out == null
+	 * @throws IOException if writing to {@code out} fails
+	 * @inspects | shapeGroup
+	 */
+	public static void write(ShapeGroup shapeGroup, OutputStream out) throws IOException {
+		if (shapeGroup == null)
+			throw new IllegalArgumentException("shapeGroup is null");
+		ShapeBinaryWriter writer = new ShapeBinaryWriter(out);
+		writer.writeBytes(MAGIC);
+		writer.writeVarInt(VERSION);
+		writeGraph(writer, shapeGroup);
+		writer.flush();
+	}
+
+	/**
+	 * Writes the given shape group graph, without a header.
+	 */
+	static void writeGraph(ShapeBinaryWriter writer, ShapeGroup shapeGroup) throws IOException {
+		// For each non-leaf shape group whose subgroups are being written, the iterator over its remaining subgroups.
+		ArrayDeque<Iterator<ShapeGroup>> stack = new ArrayDeque<>();
+		ShapeGroup group = shapeGroup;
+		for (;;) {
+			writeGroupHeader(writer, group);
+			if (group instanceof LeafShapeGroup) {
+				writer.writeShape(((LeafShapeGroup)group).getShape());
+			} else {
+				NonleafShapeGroup nonleaf = (NonleafShapeGroup)group;
+				writer.writeVarInt(nonleaf.getSubgroupCount());
+				stack.push(nonleaf.getSubgroups().iterator());
+			}
+			group = null;
+			while (!stack.isEmpty()) {
+				Iterator<ShapeGroup> subgroups = stack.peek();
+				if (subgroups.hasNext()) {
+					group = subgroups.next();
+					break;
+				}
+				stack.pop();
+			}
+			if (group == null)
+				break;
+		}
+	}
+
+	/**
+	 * A non-leaf shape group that is being read: its transform, and the subgroups read so far.
+	 */
+	private static final class PendingGroup {
+		final Transform transform;
+		final int subgroupCount;
+		final ArrayList<ShapeGroup> subgroups;
+
+		PendingGroup(Transform transform, int subgroupCount) {
+			this.transform = transform;
+			this.subgroupCount = subgroupCount;
+			// Do not trust the count for the allocation; see ShapeBinaryReader.readVertices.
+			this.subgroups = new ArrayList<>(Math.min(subgroupCount, 1024));
+		}
+	}
+
+	static Transform readTransform(ShapeBinaryReader reader) throws IOException {
+		double xScale = reader.readDouble();
+		double yScale = reader.readDouble();
+		double xOffset = reader.readDouble();
+		double yOffset = reader.readDouble();
+		try {
+			return new Transform(xScale, yScale, xOffset, yOffset);
+		} catch (IllegalArgumentException e) {
+			throw new IOException("Invalid transform: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Reads a shape group graph in the binary format from the given byte stream, and returns its root. The stream is
+	 * read up to the end of the graph, possibly with some read-ahead; it is not closed.
+	 *
+	 * @throws IllegalArgumentException if {@code in} is null
+	 *    | in == null
+	 * @throws IOException if reading from {@code in} fails, or the data is not a shape group graph in the binary
+	 *    format
+	 * @creates | result
+	 * @post | result != null && result.getParentGroup() == null
+	 */
+	public static ShapeGroup read(InputStream in) throws IOException {
+		ShapeBinaryReader reader = new ShapeBinaryReader(in);
+		if (!Arrays.equals(reader.readBytes(MAGIC.length), MAGIC))
+			throw new IOException("Not a shape group binary file");
+		int version = reader.readVarInt();
+		if (version != VERSION)
+			throw new IOException("Unsupported shape group binary format version: " + version);
+		return readGraph(reader);
+	}
+
+	/**
+	 * Reads a shape group graph written by {@code writeGraph}.
+	 */
+	static ShapeGroup readGraph(ShapeBinaryReader reader) throws IOException {
+		// The non-leaf shape groups whose subgroups are being read, innermost first. A non-leaf shape group is
+		// created when its last subgroup has been read, since the subgroups must exist before their parent.
+		ArrayDeque<PendingGroup> stack = new ArrayDeque<>();
+		for (;;) {
+			int tag = reader.readByte();
+			if ((tag & ~(TAG_NONLEAF | TAG_TRANSFORM)) != 0)
+				throw new IOException("Invalid shape group tag: " + tag);
+			Transform transform = (tag & TAG_TRANSFORM) != 0 ? readTransform(reader) : Transform.IDENTITY;
+			if ((tag & TAG_NONLEAF) != 0) {
+				int subgroupCount = reader.readCount();
+				if (subgroupCount < 2)
+					throw new IOException("A non-leaf shape group has fewer than two subgroups");
+				stack.push(new PendingGroup(transform, subgroupCount));
+				continue;
+			}
+			RoundedPolygon shape = reader.readShape();
+			ShapeGroup group;
+			// The constructors reject shapes with fewer than three vertices and other invalid contents; for a
+			// reader, these are corrupt input.
+			try {
+				group = new LeafShapeGroup(shape);
+			} catch (IllegalArgumentException e) {
+				throw new IOException("Invalid leaf shape group: " + e.getMessage(), e);
+			}
+			if (!transform.isIdentity())
+				group.applyTransform(transform);
+			// Add the shape group to its parent; create the parents whose last subgroup it is.
+			for (;;) {
+				PendingGroup parent = stack.peek();
+				if (parent == null)
+					return group;
+				parent.subgroups.add(group);
+				if (parent.subgroups.size() < parent.subgroupCount)
+					break;
+				stack.pop();
+				try {
+					group = new NonleafShapeGroup(parent.subgroups);
+				} catch (IllegalArgumentException e) {
+					throw new IOException("Invalid non-leaf shape group: " + e.getMessage(), e);
+				}
+				if (!parent.transform.isIdentity())
+					group.applyTransform(parent.transform);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,204 @@
+package drawit.shapegroups1.binary;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import drawit.RoundedPolygon;
+import drawit.ShapeBinaryReader;
+import drawit.ShapeBinaryWriter;
+import drawit.VersionClock;
+import drawit.shapegroups1.LeafShapeGroup;
+import drawit.shapegroups1.NonleafShapeGroup;
+import drawit.shapegroups1.ShapeGroup;
+
+/**
+ * Writes the changes made to a shape group graph since a given version as a stream of patches, and applies such a
+ * stream to a replica of the graph, so that a replica can be kept up to date without sending the whole graph.
+ *
+ * <p>A version token is a version number returned by {@code VersionClock.current()}, or by {@code writeChanges},
+ * which returns the token to pass to its next call. The changes since a version are found using the version numbers
+ * with which rounded polygons and shape groups are stamped when they change: a non-leaf shape group whose list of
+ * subgroups changed is sent as a whole; otherwise, a shape group whose transform changed is sent as its transform,
+ * and a leaf shape group whose shape changed is sent as its shape. Finding the changes skips each subtree whose subtree
+ * version (see {@code ShapeGroup.getSubtreeVersion()}) is not after the given version, so that it visits only the
+ * paths from the root to the changes and the subgroups of the shape groups on these paths.
+ *
+ * <p>The patch stream consists of the four bytes {@code DRWP}, the format version as a varint, and the patches, in
+ * pre-order, followed by a zero byte. Each patch is a byte giving its kind, followed by the path of the shape group it
+ * applies to (the number of steps from the root, as a varint, and the index of the subgroup taken at each step, as
+ * varints) and by its contents: a shape group graph as in {@code ShapeGroupBinaryFormat}, a transform as four
+ * doubles, or a shape as in {@code ShapeBinaryWriter}. Since a shape group is replaced as a whole when its list of
+ * subgroups changes, the paths of the patches are valid in the replica, whose lists of subgroups are still those of
+ * the given version wherever patches are applied.
+ */
+public final class ShapeGroupPatches {
+
+	private ShapeGroupPatches() { throw new AssertionError("This class is not meant to be instantiated"); }
+
+	private static final byte[] MAGIC = {'D', 'R', 'W', 'P'};
+	public static final int VERSION = 1;
+
+	private static final int PATCH_END = 0;
+	private static final int PATCH_REPLACE = 1;
+	private static final int PATCH_TRANSFORM = 2;
+	private static final int PATCH_SHAPE = 3;
+
+	private static void writePatchHeader(ShapeBinaryWriter writer, int kind, int[] path, int depth) throws IOException {
+		writer.writeByte(kind);
+		writer.writeVarInt(depth);
+		for (int i = 0; i < depth; i++)
+			writer.writeVarInt(path[i]);
+	}
+
+	/**
+	 * Writes the patches that bring a replica of the given shape group graph, as it was at the given version, up to
+	 * date, to the given byte stream, and returns the version token to use for the next call. The stream is flushed,
+	 * but not closed.
+	 *
+	 * @throws IllegalArgumentException if {@code shapeGroup} is null
+	 *    | shapeGroup == null
+	 * @throws IllegalArgumentException if {@code sinceVersion} is negative
+	 *    | sinceVersion < 0
+	 * @throws IllegalArgumentException if {@code out} is null
+	 *    | out == null
+	 * @throws IOException if writing to {@code out} fails
+	 * @inspects | shapeGroup
+	 * @post | result <= VersionClock.current()
+	 */
+	public static long writeChanges(ShapeGroup shapeGroup, long sinceVersion, OutputStream out) throws IOException {
+		if (shapeGroup == null)
+			throw new IllegalArgumentException("shapeGroup is null");
+		if (sinceVersion < 0)
+			throw new IllegalArgumentException("sinceVersion is negative");
+		ShapeBinaryWriter writer = new ShapeBinaryWriter(out);
+		long token = VersionClock.current();
+		writer.writeBytes(MAGIC);
+		writer.writeVarInt(VERSION);
+		// For each non-leaf shape group being visited, the iterator over its remaining subgroups; path[i] is the index
+		// of the subgroup being visited at depth i.
+		ArrayDeque<Iterator<ShapeGroup>> stack = new ArrayDeque<>();
+		int[] path = new int[16];
+		ShapeGroup group = shapeGroup;
+		for (;;) {
+			int depth = stack.size();
+			// Skip the subtrees in which nothing changed.
+			if (group.getSubtreeVersion() > sinceVersion) {
+				if (group instanceof NonleafShapeGroup && ((NonleafShapeGroup)group).getSubgroupsVersion() > sinceVersion) {
+					writePatchHeader(writer, PATCH_REPLACE, path, depth);
+					ShapeGroupBinaryFormat.writeGraph(writer, group);
+				} else {
+					if (group.getTransformVersion() > sinceVersion) {
+						writePatchHeader(writer, PATCH_TRANSFORM, path, depth);
+						ShapeGroupBinaryFormat.writeTransform(writer, group.getTransform());
+					}
+					if (group instanceof LeafShapeGroup) {
+						RoundedPolygon shape = ((LeafShapeGroup)group).getShape();
+						if (shape.getVersion() > sinceVersion) {
+							writePatchHeader(writer, PATCH_SHAPE, path, depth);
+							writer.writeShape(shape);
+						}
+					} else {
+						stack.push(((NonleafShapeGroup)group).getSubgroups().iterator());
+						if (path.length == depth)
+							path = Arrays.copyOf(path, 2 * depth);
+						path[depth] = -1;
+					}
+				}
+			}
+			group = null;
+			while (!stack.isEmpty()) {
+				Iterator<ShapeGroup> subgroups = stack.peek();
+				if (subgroups.hasNext()) {
+					group = subgroups.next();
+					path[stack.size() - 1]++;
+					break;
+				}
+				stack.pop();
+			}
+			if (group == null)
+				break;
+		}
+		writer.writeByte(PATCH_END);
+		writer.flush();
+		return token;
+	}
+
+	/**
+	 * Applies the patches read from the given byte stream, written by {@code writeChanges}, to the given shape group
+	 * graph, which must be a replica of the graph they were written for, as it was at the version they were written
+	 * since. Returns the root of the updated replica: the given shape group, unless the patches replace it as a whole.
+	 * The stream is read up to the end of the patches, possibly with some read-ahead; it is not closed.
+	 *
+	 * <p>If reading fails, the patches read before the failure have been applied.
+	 *
+	 * @throws IllegalArgumentException if {@code replica} is null
+	 *    | replica == null
+	 * @throws IllegalArgumentException if {@code in} is null
+	 *    | in == null
+	 * @throws IOException if reading from {@code in} fails, or the data is not a patch stream that applies to the
+	 *    replica
+	 * @mutates | replica
+	 * @post | result != null
+	 */
+	public static ShapeGroup applyChanges(ShapeGroup replica, InputStream in) throws IOException {
+		if (replica == null)
+			throw new IllegalArgumentException("replica is null");
+		ShapeBinaryReader reader = new ShapeBinaryReader(in);
+		if (!Arrays.equals(reader.readBytes(MAGIC.length), MAGIC))
+			throw new IOException("Not a shape group patch stream");
+		int version = reader.readVarInt();
+		if (version != VERSION)
+			throw new IOException("Unsupported shape group patch format version: " + version);
+		ShapeGroup root = replica;
+		for (;;) {
+			int kind = reader.readByte();
+			if (kind == PATCH_END)
+				return root;
+			if (kind != PATCH_REPLACE && kind != PATCH_TRANSFORM && kind != PATCH_SHAPE)
+				throw new IOException("Invalid patch kind: " + kind);
+			int depth = reader.readCount();
+			ShapeGroup group = root;
+			int index = -1;
+			for (int i = 0; i < depth; i++) {
+				index = reader.readCount();
+				if (!(group instanceof NonleafShapeGroup) || ((NonleafShapeGroup)group).getSubgroupCount() <= index)
+					throw new IOException("Patch path does not exist in the replica");
+				group = ((NonleafShapeGroup)group).getSubgroup(index);
+			}
+			switch (kind) {
+			case PATCH_REPLACE: {
+				ShapeGroup replacement = ShapeGroupBinaryFormat.readGraph(reader);
+				if (depth == 0) {
+					root = replacement;
+				} else {
+					// Add the replacement first, since a non-leaf shape group cannot have fewer than two subgroups.
+					NonleafShapeGroup parent = group.getParentGroup();
+					parent.addSubgroup(index, replacement);
+					parent.removeSubgroup(group);
+				}
+				break;
+			}
+			case PATCH_TRANSFORM:
+				group.replaceTransform(ShapeGroupBinaryFormat.readTransform(reader));
+				break;
+			default: {
+				if (!(group instanceof LeafShapeGroup))
+					throw new IOException("Shape patch for a non-leaf shape group");
+				RoundedPolygon shape = reader.readShape();
+				if (shape.getVertexCount() < 3)
+					throw new IOException("Shape patch with fewer than three vertices");
+				RoundedPolygon target = ((LeafShapeGroup)group).getShape();
+				target.setVertices(shape.getVertices());
+				target.setRadius(shape.getRadius());
+				target.setColor(shape.getColor());
+				break;
+			}
+			}
+		}
+	}
+
+}
@@ -1,38 +1,92 @@
 package drawit.shapegroups1.exporter;
 
 import java.awt.Color;
-import java.util.Arrays;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
 
 import drawit.IntPoint;
 import drawit.RoundedPolygon;
+import drawit.ShapeTree;
+import drawit.ShapeTreeExporter;
+import drawit.Transform;
 import drawit.shapegroups1.LeafShapeGroup;
 import drawit.shapegroups1.NonleafShapeGroup;
 import drawit.shapegroups1.ShapeGroup;
 
+/**
+ * Converts shape groups to plain data or JSON text, by means of {@code ShapeTreeExporter}.
+ */
 public class ShapeGroupExporter {
 	
+	private static final ShapeTree<ShapeGroup> TREE = new ShapeTree<ShapeGroup>() {
+		@Override
+		public RoundedPolygon getShape(ShapeGroup group) {
+			return group instanceof LeafShapeGroup ? ((LeafShapeGroup)group).getShape() : null;
+		}
+		@Override
+		public Transform getTransform(ShapeGroup group) {
+			return group.getTransform();
+		}
+		@Override
+		public Iterator<ShapeGroup> subgroups(ShapeGroup group) {
+			return ((NonleafShapeGroup)group).getSubgroups().iterator();
+		}
+	};
+	
 	public static Object toPlainData(IntPoint point) {
-		return Map.of("x", point.getX(), "y", point.getY());
+		return ShapeTreeExporter.toPlainData(point);
 	}
 	
 	public static Object toPlainData(Color color) {
-		return Map.of("red", color.getRed(), "green", color.getGreen(), "blue", color.getBlue());
+		return ShapeTreeExporter.toPlainData(color);
 	}
 	
 	public static Object toPlainData(RoundedPolygon polygon) {
-		return Map.of(
-				"vertices", Arrays.stream(polygon.getVertices()).map(p -> toPlainData(p)).collect(Collectors.toList()),
-				"radius", polygon.getRadius(),
-				"color", toPlainData(polygon.getColor()));
+		return ShapeTreeExporter.toPlainData(polygon);
 	}
 	
 	public static Object toPlainData(ShapeGroup shapeGroup) {
-		if (shapeGroup instanceof LeafShapeGroup)
-			return Map.of("shape", toPlainData(((LeafShapeGroup)shapeGroup).getShape()));
-		else
-			return Map.of("subgroups", ((NonleafShapeGroup)shapeGroup).getSubgroups().stream().map(g -> toPlainData(g)).collect(Collectors.toList()));
+		return ShapeTreeExporter.toPlainData(shapeGroup, TREE);
+	}
+	
+	/**
+	 * Writes the JSON text of the plain data of the given shape group (see {@code toPlainData}) to the given
+	 * character stream, while traversing the shape group graph (see {@code ShapeTreeExporter.writeJson}). The stream
+	 * is flushed, but not closed.
+	 * 
+	 * @throws IllegalArgumentException if {@code shapeGroup} is null
+	 *    | shapeGroup == null
+	 * @throws IllegalArgumentException if {@code out} is null
+	 *    | out == null
+	 * @throws IOException if writing to {@code out} fails
+	 * @inspects | shapeGroup
+	 */
+	public static void writeJson(ShapeGroup shapeGroup, Writer out) throws IOException {
+		if (shapeGroup == null)
+			throw new IllegalArgumentException("shapeGroup is null");
+		ShapeTreeExporter.writeJson(shapeGroup, TREE, out);
+	}
+	
+	/**
+	 * Writes the JSON text of the plain data of the given shape group to the given byte stream, encoded in UTF-8
+	 * (see {@code writeJson(ShapeGroup, Writer)}). The stream is flushed, but not closed.
+	 * 
+	 * @throws IllegalArgumentException if {@code shapeGroup} is null
+	 *    | shapeGroup == null
+	 * @throws IllegalArgumentException if {@code out} is null
+	 *    | out == null
+	 * @throws IOException if writing to {@code out} fails
+	 * @inspects | shapeGroup
+	 */
+	public static void writeJson(ShapeGroup shapeGroup, OutputStream out) throws IOException {
+		if (out == null)
+			throw new IllegalArgumentException("out is null");
+		writeJson(shapeGroup, new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
 	}
 
 }
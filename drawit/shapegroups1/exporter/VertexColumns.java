@@ -0,0 +1,421 @@
+package drawit.shapegroups1.exporter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import drawit.shapegroups1.ShapeGroup;
+
+/**
+ * The vertices, radii and colors of the shapes of a shape group graph, stored in columns of primitive values, for
+ * clients that scan all geometry; for example, analytics jobs. Unlike {@code ShapeGroup.getAllVertices()}, writing
+ * the columns creates no {@code IntPoint} objects, vertex arrays or maps; the memory used, apart from the target
+ * buffer, does not grow with the size of the graph. Transforms are not applied: the coordinates are those of the
+ * shapes' own coordinate systems.
+ *
+ * <p>The shapes are numbered in depth-first order, starting at zero. The columns are stored as a 16-byte header (the
+ * four bytes {@code DRWC}, the format version, the number of shapes and the number of vertices, as ints) followed by
+ * the columns, in this order, with all ints in little-endian byte order:
+ * <ul>
+ * <li>the vertex offsets: for each shape, the index of its first vertex in the vertex columns, followed by the number
+ *     of vertices;</li>
+ * <li>the radius and the color (as a packed ARGB int; see {@code Color.getRGB()}) of each shape;</li>
+ * <li>the shape id, the X coordinate and the Y coordinate of each vertex.</li>
+ * </ul>
+ *
+ * @immutable
+ */
+public final class VertexColumns {
+
+	private static final byte[] MAGIC = {'D', 'R', 'W', 'C'};
+	public static final int VERSION = 1;
+	static final int HEADER_SIZE = 16;
+	/**
+	 * The number of ints buffered for each column written to a file.
+	 */
+	private static final int CHUNK_SIZE = 1 << 14;
+
+	/**
+	 * @invar | 0 <= shapeCount
+	 * @invar | 0 <= vertexCount
+	 */
+	private final int shapeCount;
+	private final int vertexCount;
+	/**
+	 * @representationObject
+	 */
+	private final IntBuffer vertexOffsets;
+	private final IntBuffer radii;
+	private final IntBuffer colors;
+	private final IntBuffer shapeIds;
+	private final IntBuffer xs;
+	private final IntBuffer ys;
+
+	private VertexColumns(int shapeCount, int vertexCount, IntBuffer[] columns) {
+		this.shapeCount = shapeCount;
+		this.vertexCount = vertexCount;
+		this.vertexOffsets = columns[0];
+		this.radii = columns[1];
+		this.colors = columns[2];
+		this.shapeIds = columns[3];
+		this.xs = columns[4];
+		this.ys = columns[5];
+	}
+
+	/**
+	 * @post | 0 <= result
+	 */
+	public int getShapeCount() { return shapeCount; }
+
+	/**
+	 * @post | 0 <= result
+	 */
+	public int getVertexCount() { return vertexCount; }
+
+	/**
+	 * Returns a read-only view of the vertex offsets column: element {@code i} is the index of shape {@code i}'s
+	 * first vertex in the vertex columns, and element {@code getShapeCount()} is the number of vertices.
+	 *
+	 * @creates | result
+	 * @post | result.isReadOnly() && result.remaining() == getShapeCount() + 1
+	 */
+	public IntBuffer getVertexOffsets() { return vertexOffsets.duplicate(); }
+
+	/**
+	 * Returns a read-only view of the column of the shapes' radii.
+	 *
+	 * @creates | result
+	 * @post | result.isReadOnly() && result.remaining() == getShapeCount()
+	 */
+	public IntBuffer getRadii() { return radii.duplicate(); }
+
+	/**
+	 * Returns a read-only view of the column of the shapes' colors, as packed ARGB ints.
+	 *
+	 * @creates | result
+	 * @post | result.isReadOnly() && result.remaining() == getShapeCount()
+	 */
+	public IntBuffer getColors() { return colors.duplicate(); }
+
+	/**
+	 * Returns a read-only view of the column of the vertices' shape ids.
+	 *
+	 * @creates | result
+	 * @post | result.isReadOnly() && result.remaining() == getVertexCount()
+	 */
+	public IntBuffer getShapeIds() { return shapeIds.duplicate(); }
+
+	/**
+	 * Returns a read-only view of the column of the vertices' X coordinates.
+	 *
+	 * @creates | result
+	 * @post | result.isReadOnly() && result.remaining() == getVertexCount()
+	 */
+	public IntBuffer getXs() { return xs.duplicate(); }
+
+	/**
+	 * Returns a read-only view of the column of the vertices' Y coordinates.
+	 *
+	 * @creates | result
+	 * @post | result.isReadOnly() && result.remaining() == getVertexCount()
+	 */
+	public IntBuffer getYs() { return ys.duplicate(); }
+
+	/**
+	 * Returns the number of bytes taken by the columns of a graph with the given numbers of shapes and vertices.
+	 */
+	private static long getByteCount(long shapeCount, long vertexCount) {
+		return HEADER_SIZE + 4 * (3 * shapeCount + 1 + 3 * vertexCount);
+	}
+
+	/**
+	 * Returns the number of bytes written by {@code write} for the given shape group graph.
+	 *
+	 * @throws IllegalArgumentException if {@code shapeGroup} is null
+	 *    | shapeGroup == null
+	 * @inspects | shapeGroup
+	 * @post | 0 < result
+	 */
+	public static long getByteCount(ShapeGroup shapeGroup) {
+		if (shapeGroup == null)
+			throw new IllegalArgumentException("shapeGroup is null");
+		long[] counts = count(shapeGroup);
+		return getByteCount(counts[0], counts[1]);
+	}
+
+	/**
+	 * Returns the number of shapes and the number of vertices of the given shape group graph.
+	 */
+	private static long[] count(ShapeGroup shapeGroup) {
+		long[] counts = new long[2];
+		shapeGroup.forEachShape(shape -> {
+			counts[0]++;
+			counts[1] += shape.getVertexCount();
+		});
+		if (Integer.MAX_VALUE < counts[1])
+			throw new IllegalArgumentException("The shape group graph has too many vertices");
+		return counts;
+	}
+
+	/**
+	 * The target of one column: a slice of the target buffer, or a buffer that is written to the target file at
+	 * {@code position} whenever it is full.
+	 */
+	private static final class ColumnWriter {
+		final FileChannel channel;
+		final ByteBuffer buffer;
+		final IntBuffer ints;
+		long position;
+
+		ColumnWriter(ByteBuffer buffer) {
+			this.channel = null;
+			this.buffer = buffer;
+			this.ints = buffer.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+		}
+
+		ColumnWriter(FileChannel channel, long position) {
+			this.channel = channel;
+			this.buffer = ByteBuffer.allocateDirect(4 * CHUNK_SIZE);
+			this.ints = buffer.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+			this.position = position;
+		}
+
+		void put(int value) throws IOException {
+			if (!ints.hasRemaining())
+				flush();
+			ints.put(value);
+		}
+
+		void put(int value, int count) throws IOException {
+			for (int i = 0; i < count; i++)
+				put(value);
+		}
+
+		void put(int[] values, int count) throws IOException {
+			for (int offset = 0; offset < count; ) {
+				if (!ints.hasRemaining())
+					flush();
+				int length = Math.min(count - offset, ints.remaining());
+				ints.put(values, offset, length);
+				offset += length;
+			}
+		}
+
+		void flush() throws IOException {
+			if (channel == null)
+				return;
+			buffer.limit(4 * ints.position());
+			buffer.position(0);
+			while (buffer.hasRemaining())
+				position += channel.write(buffer, position);
+			buffer.clear();
+			ints.clear();
+		}
+	}
+
+	/**
+	 * Writes the columns of the shapes of the given shape group graph, which has the given numbers of shapes and
+	 * vertices, to the given column writers, whose header has already been written.
+	 */
+	private static void writeColumns(ShapeGroup shapeGroup, int shapeCount, int vertexCount, ColumnWriter[] columns)
+			throws IOException {
+		// The shapes' coordinates are copied to these arrays, which grow as needed, before they are written.
+		int[][] coordinates = {new int[16], new int[16]};
+		int[] offset = new int[1];
+		int[] shapeId = new int[1];
+		IOException[] failure = new IOException[1];
+		shapeGroup.forEachShape(shape -> {
+			if (failure[0] != null)
+				return;
+			int count = shape.getVertexCount();
+			if (shapeId[0] == shapeCount || vertexCount - count < offset[0])
+				throw new IllegalStateException("The shape group graph changed during the export");
+			if (coordinates[0].length < count) {
+				coordinates[0] = new int[Math.max(count, 2 * coordinates[0].length)];
+				coordinates[1] = new int[coordinates[0].length];
+			}
+			shape.copyCoordinates(coordinates[0], coordinates[1], 0);
+			try {
+				columns[0].put(offset[0]);
+				columns[1].put(shape.getRadius());
+				columns[2].put(shape.getColor().getRGB());
+				columns[3].put(shapeId[0], count);
+				columns[4].put(coordinates[0], count);
+				columns[5].put(coordinates[1], count);
+			} catch (IOException e) {
+				failure[0] = e;
+			}
+			offset[0] += count;
+			shapeId[0]++;
+		});
+		if (failure[0] != null)
+			throw failure[0];
+		if (shapeId[0] != shapeCount || offset[0] != vertexCount)
+			throw new IllegalStateException("The shape group graph changed during the export");
+		columns[0].put(vertexCount);
+		for (ColumnWriter column : columns)
+			column.flush();
+	}
+
+	private static void writeHeader(ByteBuffer buffer, int shapeCount, int vertexCount) {
+		buffer.put(MAGIC);
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt(VERSION);
+		buffer.putInt(shapeCount);
+		buffer.putInt(vertexCount);
+	}
+
+	/**
+	 * Returns the sizes, in ints, of the columns of a graph with the given numbers of shapes and vertices.
+	 */
+	private static int[] getColumnSizes(int shapeCount, int vertexCount) {
+		return new int[] {shapeCount + 1, shapeCount, shapeCount, vertexCount, vertexCount, vertexCount};
+	}
+
+	/**
+	 * Writes the columns of the given shape group graph to the given buffer, starting at its position, and advances
+	 * its position past them. The buffer's byte order is not changed. The graph must not be mutated during the
+	 * export.
+	 *
+	 * @throws IllegalArgumentException if {@code shapeGroup} is null
+	 *    | shapeGroup == null
+	 * @throws IllegalArgumentException if {@code buffer} is null
+	 *    | buffer == null
+	 * @throws IllegalArgumentException if {@code buffer} has fewer than {@code getByteCount(shapeGroup)} bytes remaining;
+	 *    nothing is written in that case
+	 *    | buffer.remaining() < getByteCount(shapeGroup)
+	 * @throws java.nio.ReadOnlyBufferException if {@code buffer} is read-only
+	 * @inspects | shapeGroup
+	 * @mutates | buffer
+	 * @post | buffer.position() == old(buffer.position()) + getByteCount(shapeGroup)
+	 */
+	public static void write(ShapeGroup shapeGroup, ByteBuffer buffer) {
+		if (shapeGroup == null)
+			throw new IllegalArgumentException("shapeGroup is null");
+		if (buffer == null)
+			throw new IllegalArgumentException("buffer is null");
+		long[] counts = count(shapeGroup);
+		int shapeCount = (int)counts[0];
+		int vertexCount = (int)counts[1];
+		long byteCount = getByteCount(shapeCount, vertexCount);
+		if (buffer.remaining() < byteCount)
+			throw new IllegalArgumentException("buffer has too few bytes remaining");
+		ByteBuffer target = buffer.slice();
+		writeHeader(target, shapeCount, vertexCount);
+		int[] sizes = getColumnSizes(shapeCount, vertexCount);
+		ColumnWriter[] columns = new ColumnWriter[sizes.length];
+		for (int i = 0; i < sizes.length; i++) {
+			columns[i] = new ColumnWriter(target.slice().limit(4 * sizes[i]));
+			target.position(target.position() + 4 * sizes[i]);
+		}
+		try {
+			writeColumns(shapeGroup, shapeCount, vertexCount, columns);
+		} catch (IOException e) {
+			throw new AssertionError(e);
+		}
+		buffer.position(buffer.position() + (int)byteCount);
+	}
+
+	/**
+	 * Writes the columns of the given shape group graph to the given file, replacing the file's contents if it
+	 * exists. The graph is traversed twice: once to size the columns, and once to write them, all at once, each
+	 * through a buffer of its own. The graph must not be mutated during the export.
+	 *
+	 * @throws IllegalArgumentException if {@code shapeGroup} is null
+	 *    | shapeGroup == null
+	 * @throws IllegalArgumentException if {@code path} is null
+	 *    | path == null
+	 * @throws IOException if writing the file fails
+	 * @inspects | shapeGroup
+	 */
+	public static void write(ShapeGroup shapeGroup, Path path) throws IOException {
+		if (shapeGroup == null)
+			throw new IllegalArgumentException("shapeGroup is null");
+		if (path == null)
+			throw new IllegalArgumentException("path is null");
+		long[] counts = count(shapeGroup);
+		int shapeCount = (int)counts[0];
+		int vertexCount = (int)counts[1];
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			writeHeader(header, shapeCount, vertexCount);
+			header.flip();
+			while (header.hasRemaining())
+				channel.write(header, header.position());
+			int[] sizes = getColumnSizes(shapeCount, vertexCount);
+			ColumnWriter[] columns = new ColumnWriter[sizes.length];
+			long position = HEADER_SIZE;
+			for (int i = 0; i < sizes.length; i++) {
+				columns[i] = new ColumnWriter(channel, position);
+				position += 4L * sizes[i];
+			}
+			writeColumns(shapeGroup, shapeCount, vertexCount, columns);
+		}
+	}
+
+	/**
+	 * Returns the columns stored in the given buffer, starting at its position, as written by {@code write}. The
+	 * columns are views of the buffer; they are not copied. The buffer's position and byte order are not changed.
+	 *
+	 * @throws IllegalArgumentException if {@code buffer} is null
+	 *    | buffer == null
+	 * @throws IOException if the buffer does not contain columns written by {@code write}
+	 * @creates | result
+	 */
+	public static VertexColumns read(ByteBuffer buffer) throws IOException {
+		if (buffer == null)
+			throw new IllegalArgumentException("buffer is null");
+		ByteBuffer source = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+		if (source.remaining() < HEADER_SIZE)
+			throw new IOException("Not a vertex columns file");
+		byte[] magic = new byte[MAGIC.length];
+		source.get(magic);
+		if (!Arrays.equals(magic, MAGIC))
+			throw new IOException("Not a vertex columns file");
+		int version = source.getInt();
+		if (version != VERSION)
+			throw new IOException("Unsupported vertex columns format version: " + version);
+		int shapeCount = source.getInt();
+		int vertexCount = source.getInt();
+		if (shapeCount < 0 || vertexCount < 0 || source.capacity() < getByteCount(shapeCount, vertexCount))
+			throw new IOException("Truncated or corrupt vertex columns");
+		int[] sizes = getColumnSizes(shapeCount, vertexCount);
+		IntBuffer[] columns = new IntBuffer[sizes.length];
+		for (int i = 0; i < sizes.length; i++) {
+			columns[i] = source.slice().order(ByteOrder.LITTLE_ENDIAN).limit(4 * sizes[i]).asIntBuffer().asReadOnlyBuffer();
+			source.position(source.position() + 4 * sizes[i]);
+		}
+		if (columns[0].get(0) != 0 || columns[0].get(shapeCount) != vertexCount)
+			throw new IOException("Truncated or corrupt vertex columns");
+		return new VertexColumns(shapeCount, vertexCount, columns);
+	}
+
+	/**
+	 * Memory-maps the given file, which must have been written by {@code write}, and returns the columns it contains.
+	 * The columns are views of the mapping; they are not copied.
+	 *
+	 * @throws IllegalArgumentException if {@code path} is null
+	 *    | path == null
+	 * @throws IOException if the file cannot be mapped, for example because it is larger than 2 GB, or does not
+	 *    contain columns written by {@code write}
+	 * @creates | result
+	 */
+	public static VertexColumns open(Path path) throws IOException {
+		if (path == null)
+			throw new IllegalArgumentException("path is null");
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (Integer.MAX_VALUE < size)
+				throw new IOException("The vertex columns file is too large to be mapped");
+			// The mapping remains valid after the channel is closed.
+			return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+		}
+	}
+
+}
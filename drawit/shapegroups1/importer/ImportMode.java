@@ -0,0 +1,21 @@
+package drawit.shapegroups1.importer;
+
+/**
+ * The ways in which {@code ShapeGroupImporter} can build shape group graphs.
+ */
+public enum ImportMode {
+
+	/**
+	 * Each shape and shape group is created as soon as it has been read, on the calling thread.
+	 */
+	SEQUENTIAL,
+
+	/**
+	 * The whole graph is read first; then its rounded polygons are created, and their vertices validated, in
+	 * parallel, and finally the shape groups are linked bottom-up on the calling thread. This is faster for graphs with
+	 * many shapes, or shapes with many vertices, since validating a polygon's vertices takes time quadratic in their
+	 * number; it uses more memory, since the vertices of all shapes are held before any shape is created.
+	 */
+	BULK
+
+}
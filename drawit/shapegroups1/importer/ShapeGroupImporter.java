@@ -0,0 +1,385 @@
+package drawit.shapegroups1.importer;
+
+import java.awt.Color;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import drawit.IntPoint;
+import drawit.RoundedPolygon;
+import drawit.ShapeJsonReader;
+import drawit.shapegroups1.LeafShapeGroup;
+import drawit.shapegroups1.NonleafShapeGroup;
+import drawit.shapegroups1.ShapeGroup;
+
+/**
+ * Rebuilds shape group graphs from the plain data produced by {@code ShapeGroupExporter.toPlainData}, and from its
+ * JSON text, as written by {@code ShapeGroupExporter.writeJson}. Both traverse the data with explicit stacks, so
+ * arbitrarily deep graphs can be imported; the JSON text is read as a stream, without building the plain data.
+ *
+ * <p>The plain data does not include transforms; since the exporter applies them to the vertices of the shapes, all
+ * shape groups of an imported graph have the identity transform and it is drawn the same way as the exported graph.
+ */
+public final class ShapeGroupImporter {
+
+	private ShapeGroupImporter() { throw new AssertionError("This class is not meant to be instantiated"); }
+
+	private static int toInt(Object value, String name) {
+		if (!(value instanceof Integer))
+			throw new IllegalArgumentException(name + " is not an Integer");
+		return (Integer)value;
+	}
+
+	private static Map<?, ?> toMap(Object plainData, int size, String name) {
+		if (!(plainData instanceof Map) || ((Map<?, ?>)plainData).size() != size)
+			throw new IllegalArgumentException(name + " is not a map with " + size + " entries");
+		return (Map<?, ?>)plainData;
+	}
+
+	/**
+	 * Returns the point whose plain data is the given object: a map from {@code "x"} and {@code "y"} to integers.
+	 *
+	 * @throws IllegalArgumentException if {@code plainData} is not the plain data of a point
+	 * @creates | result
+	 */
+	public static IntPoint toIntPoint(Object plainData) {
+		Map<?, ?> map = toMap(plainData, 2, "point");
+		return new IntPoint(toInt(map.get("x"), "x"), toInt(map.get("y"), "y"));
+	}
+
+	/**
+	 * Returns the color whose plain data is the given object: a map from {@code "red"}, {@code "green"} and
+	 * {@code "blue"} to integers between 0 and 255.
+	 *
+	 * @throws IllegalArgumentException if {@code plainData} is not the plain data of a color
+	 * @creates | result
+	 */
+	public static Color toColor(Object plainData) {
+		Map<?, ?> map = toMap(plainData, 3, "color");
+		return new Color(toInt(map.get("red"), "red"), toInt(map.get("green"), "green"), toInt(map.get("blue"), "blue"));
+	}
+
+	/**
+	 * The contents of a rounded polygon that is yet to be created.
+	 */
+	private static final class ShapeData {
+		final IntPoint[] vertices;
+		final int radius;
+		final Color color;
+
+		ShapeData(IntPoint[] vertices, int radius, Color color) {
+			this.vertices = vertices;
+			this.radius = radius;
+			this.color = color;
+		}
+
+		/**
+		 * @throws IllegalArgumentException if the vertices do not define a proper polygon, or the radius is negative
+		 */
+		RoundedPolygon create() {
+			RoundedPolygon result = new RoundedPolygon();
+			result.setVertices(vertices);
+			result.setRadius(radius);
+			result.setColor(color);
+			return result;
+		}
+	}
+
+	private static ShapeData toShapeData(Object plainData) {
+		Map<?, ?> map = toMap(plainData, 3, "shape");
+		if (!(map.get("vertices") instanceof List))
+			throw new IllegalArgumentException("vertices is not a List");
+		List<?> vertices = (List<?>)map.get("vertices");
+		IntPoint[] points = new IntPoint[vertices.size()];
+		for (int i = 0; i < points.length; i++)
+			points[i] = toIntPoint(vertices.get(i));
+		return new ShapeData(points, toInt(map.get("radius"), "radius"), toColor(map.get("color")));
+	}
+
+	/**
+	 * Returns the rounded polygon whose plain data is the given object: a map from {@code "vertices"} to a list of
+	 * the plain data of points, from {@code "radius"} to an integer, and from {@code "color"} to the plain data of a
+	 * color.
+	 *
+	 * @throws IllegalArgumentException if {@code plainData} is not the plain data of a rounded polygon, or its
+	 *    vertices do not define a proper polygon
+	 * @creates | result
+	 */
+	public static RoundedPolygon toRoundedPolygon(Object plainData) {
+		return toShapeData(plainData).create();
+	}
+
+	/**
+	 * Receives the shapes and the shape groups of a graph in pre-order, and links them into a graph.
+	 */
+	private static class GraphBuilder {
+
+		/**
+		 * For each non-leaf shape group being built, innermost first, the subgroups built so far.
+		 */
+		final ArrayDeque<ArrayList<ShapeGroup>> stack = new ArrayDeque<>();
+		ShapeGroup root;
+
+		void add(ShapeGroup group) {
+			if (stack.isEmpty())
+				root = group;
+			else
+				stack.peek().add(group);
+		}
+
+		void shape(ShapeData shape) {
+			add(new LeafShapeGroup(shape.create()));
+		}
+
+		void beginGroup() {
+			stack.push(new ArrayList<>());
+		}
+
+		/**
+		 * @throws IllegalArgumentException if the group has fewer than two subgroups
+		 */
+		void endGroup() {
+			add(new NonleafShapeGroup(stack.pop()));
+		}
+
+		ShapeGroup finish() {
+			return root;
+		}
+
+	}
+
+	/**
+	 * A graph builder that records the graph's structure and shapes, and builds it when the graph is complete: the
+	 * rounded polygons in parallel, and then the shape groups.
+	 */
+	private static final class BulkGraphBuilder extends GraphBuilder {
+
+		private static final int BEGIN_GROUP = -1;
+		private static final int END_GROUP = -2;
+
+		final ArrayList<ShapeData> shapes = new ArrayList<>();
+		/**
+		 * The graph's structure: for each shape, its index in {@code shapes}; for each non-leaf shape group,
+		 * {@code BEGIN_GROUP} before its subgroups and {@code END_GROUP} after them.
+		 */
+		int[] events = new int[64];
+		int eventCount;
+
+		void event(int event) {
+			if (eventCount == events.length)
+				events = Arrays.copyOf(events, 2 * events.length);
+			events[eventCount++] = event;
+		}
+
+		@Override
+		void shape(ShapeData shape) {
+			event(shapes.size());
+			shapes.add(shape);
+		}
+
+		@Override
+		void beginGroup() {
+			event(BEGIN_GROUP);
+		}
+
+		@Override
+		void endGroup() {
+			event(END_GROUP);
+		}
+
+		@Override
+		ShapeGroup finish() {
+			RoundedPolygon[] polygons = new RoundedPolygon[shapes.size()];
+			// Creating distinct rounded polygons involves no shared state, so it can proceed in parallel.
+			IntStream.range(0, polygons.length).parallel().forEach(i -> polygons[i] = shapes.get(i).create());
+			shapes.clear();
+			for (int i = 0; i < eventCount; i++) {
+				int event = events[i];
+				if (event == BEGIN_GROUP)
+					super.beginGroup();
+				else if (event == END_GROUP)
+					super.endGroup();
+				else
+					add(new LeafShapeGroup(polygons[event]));
+			}
+			return root;
+		}
+
+	}
+
+	private static GraphBuilder createBuilder(ImportMode mode) {
+		if (mode == null)
+			throw new IllegalArgumentException("mode is null");
+		return mode == ImportMode.BULK ? new BulkGraphBuilder() : new GraphBuilder();
+	}
+
+	/**
+	 * Returns a new shape group graph whose plain data, as returned by {@code ShapeGroupExporter.toPlainData}, is the
+	 * given object.
+	 *
+	 * @throws IllegalArgumentException if {@code plainData} is not the plain data of a shape group graph, or some of
+	 *    its shapes' vertices do not define a proper polygon
+	 * @creates | result
+	 * @post | result != null && result.getParentGroup() == null
+	 */
+	public static ShapeGroup toShapeGroup(Object plainData) {
+		return toShapeGroup(plainData, ImportMode.SEQUENTIAL);
+	}
+
+	/**
+	 * Returns a new shape group graph whose plain data, as returned by {@code ShapeGroupExporter.toPlainData}, is the
+	 * given object, building it in the given mode.
+	 *
+	 * @throws IllegalArgumentException if {@code mode} is null
+	 *    | mode == null
+	 * @throws IllegalArgumentException if {@code plainData} is not the plain data of a shape group graph, or some of
+	 *    its shapes' vertices do not define a proper polygon
+	 * @creates | result
+	 * @post | result != null && result.getParentGroup() == null
+	 */
+	public static ShapeGroup toShapeGroup(Object plainData, ImportMode mode) {
+		GraphBuilder builder = createBuilder(mode);
+		// For each non-leaf shape group being visited, the iterator over its remaining subgroups' plain data.
+		ArrayDeque<Iterator<?>> stack = new ArrayDeque<>();
+		Object data = plainData;
+		for (;;) {
+			Map<?, ?> map = toMap(data, 1, "shape group");
+			if (map.containsKey("shape")) {
+				builder.shape(toShapeData(map.get("shape")));
+			} else if (map.get("subgroups") instanceof List) {
+				builder.beginGroup();
+				stack.push(((List<?>)map.get("subgroups")).iterator());
+			} else {
+				throw new IllegalArgumentException("shape group has neither a shape nor a list of subgroups");
+			}
+			data = null;
+			while (!stack.isEmpty()) {
+				Iterator<?> subgroups = stack.peek();
+				if (subgroups.hasNext()) {
+					data = subgroups.next();
+					break;
+				}
+				stack.pop();
+				builder.endGroup();
+			}
+			if (data == null && stack.isEmpty())
+				return builder.finish();
+		}
+	}
+
+	private static ShapeData readShapeData(ShapeJsonReader json) throws IOException {
+		IntPoint[] vertices = null;
+		Integer radius = null;
+		Color color = null;
+		json.expect('{');
+		for (int count = 0; count < 3; count++) {
+			if (count > 0)
+				json.expect(',');
+			String name = json.readName();
+			if (name.equals("vertices") && vertices == null) {
+				ArrayList<IntPoint> points = new ArrayList<>();
+				json.expect('[');
+				if (!json.tryConsume(']')) {
+					do
+						points.add(json.readPoint());
+					while (json.tryConsume(','));
+					json.expect(']');
+				}
+				vertices = points.toArray(new IntPoint[points.size()]);
+			} else if (name.equals("radius") && radius == null) {
+				radius = json.readInt();
+			} else if (name.equals("color") && color == null) {
+				color = json.readColor();
+			} else {
+				throw json.error("unexpected member \"" + name + "\"");
+			}
+		}
+		json.expect('}');
+		return new ShapeData(vertices, radius, color);
+	}
+
+	/**
+	 * Reads the JSON text of the plain data of a shape group graph (see {@code ShapeGroupExporter.writeJson}) from
+	 * the given character stream, and returns a new shape group graph with that plain data, building it in the given
+	 * mode. The text is read up to its end; the stream is not closed.
+	 *
+	 * @throws IllegalArgumentException if {@code in} is null
+	 *    | in == null
+	 * @throws IllegalArgumentException if {@code mode} is null
+	 *    | mode == null
+	 * @throws IOException if reading from {@code in} fails, or the text is not the JSON text of the plain data of a
+	 *    shape group graph, or some of its shapes' vertices do not define a proper polygon
+	 * @creates | result
+	 * @post | result != null && result.getParentGroup() == null
+	 */
+	public static ShapeGroup readJson(Reader in, ImportMode mode) throws IOException {
+		ShapeJsonReader json = new ShapeJsonReader(in);
+		GraphBuilder builder = createBuilder(mode);
+		try {
+			// The number of lists of subgroups being read.
+			int depth = 0;
+			for (;;) {
+				json.expect('{');
+				String name = json.readName();
+				if (name.equals("shape")) {
+					builder.shape(readShapeData(json));
+					json.expect('}');
+				} else if (name.equals("subgroups")) {
+					json.expect('[');
+					builder.beginGroup();
+					if (!json.tryConsume(']')) {
+						depth++;
+						continue;
+					}
+					json.expect('}');
+					builder.endGroup();
+				} else {
+					throw json.error("unexpected member \"" + name + "\"");
+				}
+				// Close the lists of subgroups that have been read completely.
+				while (0 < depth && !json.tryConsume(',')) {
+					json.expect(']');
+					json.expect('}');
+					builder.endGroup();
+					depth--;
+				}
+				if (depth == 0)
+					break;
+			}
+			json.expectEnd();
+			return builder.finish();
+		} catch (IllegalArgumentException e) {
+			throw json.error(e.getMessage());
+		}
+	}
+
+	/**
+	 * Reads the JSON text of the plain data of a shape group graph, encoded in UTF-8, from the given byte stream (see
+	 * {@code readJson(Reader, ImportMode)}).
+	 *
+	 * @throws IllegalArgumentException if {@code in} is null
+	 *    | in == null
+	 * @throws IllegalArgumentException if {@code mode} is null
+	 *    | mode == null
+	 * @throws IOException if reading from {@code in} fails, or the text is not the JSON text of the plain data of a
+	 *    shape group graph, or some of its shapes' vertices do not define a proper polygon
+	 * @creates | result
+	 * @post | result != null && result.getParentGroup() == null
+	 */
+	public static ShapeGroup readJson(InputStream in, ImportMode mode) throws IOException {
+		if (in == null)
+			throw new IllegalArgumentException("in is null");
+		return readJson(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)), mode);
+	}
+
+}
@@ -0,0 +1,579 @@
+package drawit.shapegroups1.mvcc;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import drawit.DrawingCommandsRope;
+import drawit.IntPoint;
+import drawit.Transform;
+import drawit.shapegroups1.Extent;
+import drawit.shapegroups1.LeafShapeGroup;
+import drawit.shapegroups1.NonleafShapeGroup;
+import drawit.shapegroups1.ShapeGroup;
+
+/**
+ * Each instance of this class is an immutable shape group: the state of a {@code ShapeGroup} subtree at some point in
+ * time. A leaf group snapshot stores a shape snapshot; a non-leaf group snapshot stores two or more subgroup snapshots.
+ * Like a shape group, each group snapshot has a transform from its inner to its outer coordinate system.
+ *
+ * <p>Group snapshots are never mutated: the {@code with...} methods and {@code update} return new group snapshots
+ * that share all unchanged subtrees with the original, so an edit creates new group snapshots only along the path from
+ * the root to the edited group. Subgroup lists are persistent lists, so that each of those group snapshots shares
+ * most of its subgroup list with the original as well: an edit at depth D of a tree whose groups have at most N
+ * subgroups creates O(D log N) new objects. Since group snapshots have no parent references, one group snapshot can
+ * appear in any number of trees, and old versions of a tree remain valid after an edit.
+ *
+ * <p>Since their state is stored in final fields, group snapshots can be shared freely between threads. Bounding
+ * boxes and drawing commands are computed on demand and memoized per group snapshot; since they are themselves
+ * immutable, a thread that does not yet see another thread's result merely computes it again.
+ *
+ * @immutable
+ * @invar | getTransform() != null
+ * @invar | isLeaf() == (getShape() != null)
+ * @invar | isLeaf() ? getSubgroupCount() == 0 : 2 <= getSubgroupCount()
+ */
+public final class GroupSnapshot {
+
+	/**
+	 * @invar | transform != null
+	 * @invar | (shape == null) != (subgroups == null)
+	 * @invar | subgroups == null || 2 <= subgroups.size()
+	 * @invar | subgroups == null || subgroups.asList().stream().allMatch(g -> g != null)
+	 *
+	 * @representationObject
+	 */
+	private final Transform transform;
+	private final ShapeSnapshot shape;
+	private final PersistentList<GroupSnapshot> subgroups;
+	/**
+	 * The bounding box and drawing commands, once computed.
+	 */
+	private Extent boundingBox;
+	private DrawingCommandsRope drawingCommands;
+
+	private GroupSnapshot(Transform transform, ShapeSnapshot shape, PersistentList<GroupSnapshot> subgroups) {
+		this.transform = transform;
+		this.shape = shape;
+		this.subgroups = subgroups;
+	}
+
+	/**
+	 * Returns a leaf group snapshot that stores the given shape snapshot and whose transform is the identity.
+	 *
+	 * @throws IllegalArgumentException if {@code shape} is null
+	 *    | shape == null
+	 * @post | result.isLeaf() && result.getShape() == shape
+	 * @post | result.getTransform().isIdentity()
+	 */
+	public static GroupSnapshot leaf(ShapeSnapshot shape) {
+		if (shape == null)
+			throw new IllegalArgumentException("shape is null");
+		return new GroupSnapshot(Transform.IDENTITY, shape, null);
+	}
+
+	/**
+	 * Returns a non-leaf group snapshot that stores the given subgroup snapshots and whose transform is the identity.
+	 *
+	 * @throws IllegalArgumentException if {@code subgroups} is null or contains null elements
+	 *    | subgroups == null || subgroups.stream().anyMatch(g -> g == null)
+	 * @throws IllegalArgumentException if {@code subgroups} has less than two elements
+	 *    | subgroups.size() < 2
+	 * @inspects | subgroups
+	 * @post | !result.isLeaf() && result.getSubgroups().equals(subgroups)
+	 * @post | result.getTransform().isIdentity()
+	 */
+	public static GroupSnapshot nonleaf(List<GroupSnapshot> subgroups) {
+		if (subgroups == null)
+			throw new IllegalArgumentException("subgroups is null");
+		GroupSnapshot[] array = subgroups.toArray(new GroupSnapshot[0]);
+		for (GroupSnapshot subgroup : array)
+			if (subgroup == null)
+				throw new IllegalArgumentException("an element of subgroups is null");
+		if (array.length < 2)
+			throw new IllegalArgumentException("subgroups has less than two elements");
+		return new GroupSnapshot(Transform.IDENTITY, null, PersistentList.of(array));
+	}
+
+	/**
+	 * Returns a snapshot of the current state of the given shape group graph.
+	 *
+	 * @throws IllegalArgumentException if {@code group} is null
+	 *    | group == null
+	 * @throws IllegalArgumentException if some shape of the given graph has less than three vertices
+	 *    | group.getAllShapes().stream().anyMatch(s -> s.getVertices().length < 3)
+	 * @inspects | group, ...group.getAllShapes()
+	 * @post | result.getDrawingCommands().equals(group.getDrawingCommands())
+	 */
+	public static GroupSnapshot of(ShapeGroup group) {
+		if (group == null)
+			throw new IllegalArgumentException("group is null");
+
+		// Build the snapshots bottom-up: a non-leaf group's snapshot is created once its subgroups' snapshots, which are
+		// on top of {@code built}, have been created. A group is pushed a second time, marked as expanded, to trigger
+		// its creation.
+		ArrayList<GroupSnapshot> built = new ArrayList<>();
+		ArrayDeque<ShapeGroup> stack = new ArrayDeque<>();
+		ArrayDeque<Boolean> expanded = new ArrayDeque<>();
+		stack.push(group);
+		expanded.push(false);
+		while (!stack.isEmpty()) {
+			ShapeGroup current = stack.pop();
+			GroupSnapshot snapshot;
+			if (current instanceof LeafShapeGroup) {
+				expanded.pop();
+				snapshot = new GroupSnapshot(current.getTransform(), ShapeSnapshot.of(((LeafShapeGroup)current).getShape()), null);
+			} else if (expanded.pop()) {
+				List<GroupSnapshot> subgroups = built.subList(built.size() - ((NonleafShapeGroup)current).getSubgroupCount(), built.size());
+				snapshot = new GroupSnapshot(current.getTransform(), null, PersistentList.of(subgroups.toArray(new GroupSnapshot[0])));
+				subgroups.clear();
+			} else {
+				stack.push(current);
+				expanded.push(true);
+				List<ShapeGroup> subgroups = ((NonleafShapeGroup)current).getSubgroups();
+				for (int i = subgroups.size() - 1; 0 <= i; i--) {
+					stack.push(subgroups.get(i));
+					expanded.push(false);
+				}
+				continue;
+			}
+			built.add(snapshot);
+		}
+		return built.get(0);
+	}
+
+	/**
+	 * Returns whether this group snapshot is a leaf group snapshot.
+	 */
+	public boolean isLeaf() { return shape != null; }
+
+	/**
+	 * Returns the shape snapshot stored by this group snapshot, or {@code null} if this is a non-leaf group snapshot.
+	 */
+	public ShapeSnapshot getShape() { return shape; }
+
+	public Transform getTransform() { return transform; }
+
+	/**
+	 * Returns the number of subgroup snapshots of this group snapshot; zero if this is a leaf group snapshot.
+	 */
+	public int getSubgroupCount() { return subgroups == null ? 0 : subgroups.size(); }
+
+	/**
+	 * Returns the subgroup snapshot at the given (zero-based) index.
+	 *
+	 * @throws IllegalArgumentException if the given index is out of bounds
+	 *    | index < 0 || getSubgroupCount() <= index
+	 */
+	public GroupSnapshot getSubgroup(int index) {
+		if (index < 0 || getSubgroupCount() <= index)
+			throw new IllegalArgumentException("index out of bounds");
+		return subgroups.get(index);
+	}
+
+	/**
+	 * Returns an unmodifiable list of the subgroup snapshots of this group snapshot, or {@code null} if this is a leaf
+	 * group snapshot.
+	 */
+	public List<GroupSnapshot> getSubgroups() {
+		return subgroups == null ? null : subgroups.asList();
+	}
+
+	/**
+	 * Returns the group snapshot reached from this group snapshot by following the given sequence of subgroup indices.
+	 *
+	 * @throws IllegalArgumentException if {@code path} is null
+	 *    | path == null
+	 * @throws IllegalArgumentException if some index of {@code path} is out of bounds
+	 * @post | result != null
+	 */
+	public GroupSnapshot get(int... path) {
+		if (path == null)
+			throw new IllegalArgumentException("path is null");
+		GroupSnapshot group = this;
+		for (int index : path)
+			group = group.getSubgroup(index);
+		return group;
+	}
+
+	/**
+	 * Returns a group snapshot that is like this one, except that the group snapshot reached by following the given
+	 * sequence of subgroup indices is replaced by the result of applying {@code edit} to it. Only the group snapshots
+	 * along the path are copied.
+	 *
+	 * @throws IllegalArgumentException if {@code path} or {@code edit} is null
+	 *    | path == null || edit == null
+	 * @throws IllegalArgumentException if some index of {@code path} is out of bounds
+	 * @throws IllegalArgumentException if {@code edit} returns null
+	 * @post | result != null
+	 */
+	public GroupSnapshot update(int[] path, UnaryOperator<GroupSnapshot> edit) {
+		if (path == null)
+			throw new IllegalArgumentException("path is null");
+		if (edit == null)
+			throw new IllegalArgumentException("edit is null");
+		GroupSnapshot[] groups = new GroupSnapshot[path.length + 1];
+		groups[0] = this;
+		for (int i = 0; i < path.length; i++)
+			groups[i + 1] = groups[i].getSubgroup(path[i]);
+		GroupSnapshot result = edit.apply(groups[path.length]);
+		if (result == null)
+			throw new IllegalArgumentException("edit returned null");
+		for (int i = path.length - 1; 0 <= i; i--)
+			result = groups[i].withSubgroup(path[i], result);
+		return result;
+	}
+
+	/**
+	 * Returns a group snapshot that is like this one, except for its transform.
+	 *
+	 * @throws IllegalArgumentException if {@code transform} is null
+	 *    | transform == null
+	 * @post | result.getTransform() == transform
+	 */
+	public GroupSnapshot withTransform(Transform transform) {
+		if (transform == null)
+			throw new IllegalArgumentException("transform is null");
+		return new GroupSnapshot(transform, shape, subgroups);
+	}
+
+	/**
+	 * Returns a group snapshot that is like this one, except that the given transform is composed with its transform
+	 * (see {@code ShapeGroup.applyTransform}).
+	 *
+	 * @throws IllegalArgumentException if {@code transform} is null
+	 *    | transform == null
+	 * @post | result.getTransform().equals(getTransform().then(transform))
+	 */
+	public GroupSnapshot withAppliedTransform(Transform transform) {
+		if (transform == null)
+			throw new IllegalArgumentException("transform is null");
+		return new GroupSnapshot(this.transform.then(transform), shape, subgroups);
+	}
+
+	/**
+	 * Returns a leaf group snapshot that is like this one, except for its shape snapshot.
+	 *
+	 * @throws UnsupportedOperationException if this is not a leaf group snapshot
+	 *    | !isLeaf()
+	 * @throws IllegalArgumentException if {@code shape} is null
+	 *    | shape == null
+	 * @post | result.getShape() == shape && result.getTransform() == getTransform()
+	 */
+	public GroupSnapshot withShape(ShapeSnapshot shape) {
+		if (!isLeaf())
+			throw new UnsupportedOperationException("not a leaf group snapshot");
+		if (shape == null)
+			throw new IllegalArgumentException("shape is null");
+		return new GroupSnapshot(transform, shape, null);
+	}
+
+	private void checkNonleaf() {
+		if (isLeaf())
+			throw new UnsupportedOperationException("a leaf group snapshot has no subgroups");
+	}
+
+	/**
+	 * Returns a non-leaf group snapshot that is like this one, except that the subgroup snapshot at the given index is
+	 * replaced by the given one.
+	 *
+	 * @throws UnsupportedOperationException if this is a leaf group snapshot
+	 *    | isLeaf()
+	 * @throws IllegalArgumentException if the given index is out of bounds
+	 *    | index < 0 || getSubgroupCount() <= index
+	 * @throws IllegalArgumentException if {@code subgroup} is null
+	 *    | subgroup == null
+	 * @post | result.getSubgroup(index) == subgroup
+	 */
+	public GroupSnapshot withSubgroup(int index, GroupSnapshot subgroup) {
+		checkNonleaf();
+		if (index < 0 || subgroups.size() <= index)
+			throw new IllegalArgumentException("index out of bounds");
+		if (subgroup == null)
+			throw new IllegalArgumentException("subgroup is null");
+		return new GroupSnapshot(transform, null, subgroups.set(index, subgroup));
+	}
+
+	/**
+	 * Returns a non-leaf group snapshot that is like this one, except that the given subgroup snapshot is inserted at
+	 * the given index.
+	 *
+	 * @throws UnsupportedOperationException if this is a leaf group snapshot
+	 *    | isLeaf()
+	 * @throws IllegalArgumentException if the given index is out of bounds
+	 *    | index < 0 || getSubgroupCount() < index
+	 * @throws IllegalArgumentException if {@code subgroup} is null
+	 *    | subgroup == null
+	 * @post | result.getSubgroupCount() == getSubgroupCount() + 1
+	 * @post | result.getSubgroup(index) == subgroup
+	 */
+	public GroupSnapshot withSubgroupInserted(int index, GroupSnapshot subgroup) {
+		checkNonleaf();
+		if (index < 0 || subgroups.size() < index)
+			throw new IllegalArgumentException("index out of bounds");
+		if (subgroup == null)
+			throw new IllegalArgumentException("subgroup is null");
+		return new GroupSnapshot(transform, null, subgroups.insert(index, subgroup));
+	}
+
+	/**
+	 * Returns a non-leaf group snapshot that is like this one, except that the subgroup snapshot at the given index is
+	 * removed.
+	 *
+	 * @throws UnsupportedOperationException if this is a leaf group snapshot
+	 *    | isLeaf()
+	 * @throws IllegalArgumentException if the given index is out of bounds
+	 *    | index < 0 || getSubgroupCount() <= index
+	 * @throws IllegalStateException if this group snapshot has only two subgroup snapshots
+	 *    | getSubgroupCount() == 2
+	 * @post | result.getSubgroupCount() == getSubgroupCount() - 1
+	 */
+	public GroupSnapshot withSubgroupRemoved(int index) {
+		checkNonleaf();
+		if (index < 0 || subgroups.size() <= index)
+			throw new IllegalArgumentException("index out of bounds");
+		if (subgroups.size() == 2)
+			throw new IllegalStateException("a non-leaf group snapshot must have at least two subgroups");
+		return new GroupSnapshot(transform, null, subgroups.remove(index));
+	}
+
+	/**
+	 * Returns a non-leaf group snapshot that is like this one, except that the subgroup snapshot at index {@code from}
+	 * is moved to index {@code to} (see {@code ShapeGroup.moveToIndex}).
+	 *
+	 * @throws UnsupportedOperationException if this is a leaf group snapshot
+	 *    | isLeaf()
+	 * @throws IllegalArgumentException if either index is out of bounds
+	 *    | from < 0 || getSubgroupCount() <= from || to < 0 || getSubgroupCount() <= to
+	 * @post | result.getSubgroup(to) == getSubgroup(from)
+	 */
+	public GroupSnapshot withSubgroupMoved(int from, int to) {
+		checkNonleaf();
+		if (from < 0 || subgroups.size() <= from || to < 0 || subgroups.size() <= to)
+			throw new IllegalArgumentException("index out of bounds");
+		return new GroupSnapshot(transform, null, subgroups.move(from, to));
+	}
+
+	/**
+	 * Returns the group snapshots of the subtree rooted at this group snapshot whose memoized value is missing,
+	 * in pre-order, without descending below group snapshots whose value is present.
+	 */
+	private List<GroupSnapshot> getMissing(boolean boundingBoxes) {
+		ArrayList<GroupSnapshot> result = new ArrayList<>();
+		ArrayDeque<GroupSnapshot> stack = new ArrayDeque<>();
+		stack.push(this);
+		while (!stack.isEmpty()) {
+			GroupSnapshot group = stack.pop();
+			if ((boundingBoxes ? group.boundingBox : group.drawingCommands) != null)
+				continue;
+			result.add(group);
+			if (group.subgroups != null)
+				for (Iterator<GroupSnapshot> iterator = group.subgroups.iterator(); iterator.hasNext(); )
+					stack.push(iterator.next());
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the smallest extent that contains all of the shapes contained directly or indirectly by this group
+	 * snapshot, expressed in its outer coordinate system. The result is the same as that of
+	 * {@code ShapeGroup.getBoundingBox()} for the corresponding shape group.
+	 *
+	 * @post | result != null
+	 * @post | result.equals(toShapeGroup().getBoundingBox())
+	 */
+	public Extent getBoundingBox() {
+		Extent result = boundingBox;
+		if (result == null) {
+			// Compute the missing bounding boxes bottom-up, so that each one reuses those of its subgroups.
+			List<GroupSnapshot> groups = getMissing(true);
+			for (int i = groups.size() - 1; 0 <= i; i--)
+				groups.get(i).boundingBox = groups.get(i).computeBoundingBox();
+			result = groups.get(0).boundingBox;
+		}
+		return result;
+	}
+
+	private static Extent getLeafBoundingBox(ShapeSnapshot shape, Transform transform) {
+		int minX = Integer.MAX_VALUE;
+		int maxX = Integer.MIN_VALUE;
+		int minY = Integer.MAX_VALUE;
+		int maxY = Integer.MIN_VALUE;
+		for (IntPoint p : shape.getVertices()) {
+			minX = Math.min(minX, p.getX());
+			maxX = Math.max(maxX, p.getX());
+			minY = Math.min(minY, p.getY());
+			maxY = Math.max(maxY, p.getY());
+		}
+		int left = transform.applyToX(minX);
+		int right = transform.applyToX(maxX);
+		int top = transform.applyToY(minY);
+		int bottom = transform.applyToY(maxY);
+		return Extent.ofLeftTopRightBottom(Math.min(left, right), Math.min(top, bottom), Math.max(left, right), Math.max(top, bottom));
+	}
+
+	private Extent computeBoundingBox() {
+		if (isLeaf())
+			return getLeafBoundingBox(shape, transform);
+		int minX = Integer.MAX_VALUE;
+		int maxX = Integer.MIN_VALUE;
+		int minY = Integer.MAX_VALUE;
+		int maxY = Integer.MIN_VALUE;
+		// As in {@code NonleafShapeGroup}, the memoized bounding boxes of the subtrees whose outer coordinate system
+		// maps to this group snapshot's through the identity are used; other subtrees are traversed.
+		ArrayDeque<GroupSnapshot> stack = new ArrayDeque<>();
+		ArrayDeque<Transform> outers = new ArrayDeque<>();
+		stack.push(this);
+		outers.push(Transform.IDENTITY);
+		while (!stack.isEmpty()) {
+			GroupSnapshot group = stack.pop();
+			Transform groupOuter = outers.pop();
+			Extent extent = null;
+			if (group.isLeaf())
+				extent = getLeafBoundingBox(group.shape, group.transform.then(groupOuter));
+			else if (group != this && groupOuter.isIdentity())
+				extent = group.boundingBox;
+			if (extent != null) {
+				minX = Math.min(minX, extent.getLeft());
+				maxX = Math.max(maxX, extent.getRight());
+				minY = Math.min(minY, extent.getTop());
+				maxY = Math.max(maxY, extent.getBottom());
+			} else {
+				Transform transform = group.transform.then(groupOuter);
+				for (Iterator<GroupSnapshot> iterator = group.subgroups.iterator(); iterator.hasNext(); ) {
+					stack.push(iterator.next());
+					outers.push(transform);
+				}
+			}
+		}
+		return Extent.ofLeftTopRightBottom(minX, minY, maxX, maxY);
+	}
+
+	/**
+	 * Returns the first subgroup snapshot of this group snapshot whose bounding box contains the given point, or
+	 * {@code null} if there is none.
+	 *
+	 * @throws IllegalArgumentException if {@code point} is null
+	 *    | point == null
+	 * @throws UnsupportedOperationException if this is a leaf group snapshot
+	 *    | isLeaf()
+	 */
+	public GroupSnapshot getSubgroupAt(IntPoint point) {
+		if (point == null)
+			throw new IllegalArgumentException("point is null");
+		checkNonleaf();
+		for (Iterator<GroupSnapshot> iterator = subgroups.iterator(); iterator.hasNext(); ) {
+			GroupSnapshot subgroup = iterator.next();
+			if (subgroup.getBoundingBox().contains(point))
+				return subgroup;
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the drawing commands for the shapes contained directly or indirectly by this group snapshot, as a rope
+	 * that shares the memoized commands of its subtrees. The commands are the same as those of
+	 * {@code ShapeGroup.getDrawingCommandsRope()} for the corresponding shape group.
+	 *
+	 * @post | result != null
+	 */
+	public DrawingCommandsRope getDrawingCommandsRope() {
+		DrawingCommandsRope result = drawingCommands;
+		if (result == null) {
+			List<GroupSnapshot> groups = getMissing(false);
+			for (int i = groups.size() - 1; 0 <= i; i--)
+				groups.get(i).drawingCommands = groups.get(i).computeDrawingCommands();
+			result = groups.get(0).drawingCommands;
+		}
+		return result;
+	}
+
+	private DrawingCommandsRope computeDrawingCommands() {
+		ArrayList<DrawingCommandsRope> parts = new ArrayList<>(getSubgroupCount() + 2);
+		if (!transform.isIdentity())
+			parts.add(DrawingCommandsRope.of(transform.getPushCommands()));
+		if (isLeaf())
+			parts.add(DrawingCommandsRope.of(shape.getDrawingCommands()));
+		else
+			// Subgroups are drawn back to front.
+			for (Iterator<GroupSnapshot> iterator = subgroups.descendingIterator(); iterator.hasNext(); )
+				parts.add(iterator.next().drawingCommands);
+		if (!transform.isIdentity())
+			parts.add(DrawingCommandsRope.of(transform.getPopCommands()));
+		return DrawingCommandsRope.concat(parts);
+	}
+
+	/**
+	 * Returns a textual representation of the drawing commands for the shapes contained directly or indirectly by this
+	 * group snapshot (see {@code ShapeGroup.getDrawingCommands()}).
+	 *
+	 * @post | result != null
+	 * @post | result.equals(getDrawingCommandsRope().toString())
+	 */
+	public String getDrawingCommands() {
+		return getDrawingCommandsRope().toString();
+	}
+
+	/**
+	 * Returns the shape snapshots contained directly or indirectly by this group snapshot, in depth-first order.
+	 *
+	 * @creates | result
+	 */
+	public List<ShapeSnapshot> getAllShapes() {
+		ArrayList<ShapeSnapshot> result = new ArrayList<>();
+		ArrayDeque<GroupSnapshot> stack = new ArrayDeque<>();
+		stack.push(this);
+		while (!stack.isEmpty()) {
+			GroupSnapshot group = stack.pop();
+			if (group.isLeaf())
+				result.add(group.shape);
+			else
+				for (Iterator<GroupSnapshot> iterator = group.subgroups.descendingIterator(); iterator.hasNext(); )
+					stack.push(iterator.next());
+		}
+		return result;
+	}
+
+	/**
+	 * Returns a new shape group graph with the same structure, shapes and transforms as this group snapshot.
+	 * A group snapshot that appears more than once in this tree yields a separate shape group for each occurrence.
+	 *
+	 * @creates | result
+	 * @post | result != null && result.getParentGroup() == null
+	 * @post | result.getDrawingCommands().equals(getDrawingCommands())
+	 */
+	public ShapeGroup toShapeGroup() {
+		ArrayList<ShapeGroup> built = new ArrayList<>();
+		ArrayDeque<GroupSnapshot> stack = new ArrayDeque<>();
+		ArrayDeque<Boolean> expanded = new ArrayDeque<>();
+		stack.push(this);
+		expanded.push(false);
+		while (!stack.isEmpty()) {
+			GroupSnapshot current = stack.pop();
+			ShapeGroup group;
+			if (current.isLeaf()) {
+				expanded.pop();
+				group = new LeafShapeGroup(current.shape.toRoundedPolygon());
+			} else if (expanded.pop()) {
+				List<ShapeGroup> subgroups = built.subList(built.size() - current.subgroups.size(), built.size());
+				group = new NonleafShapeGroup(new ArrayList<>(subgroups));
+				subgroups.clear();
+			} else {
+				stack.push(current);
+				expanded.push(true);
+				for (Iterator<GroupSnapshot> iterator = current.subgroups.descendingIterator(); iterator.hasNext(); ) {
+					stack.push(iterator.next());
+					expanded.push(false);
+				}
+				continue;
+			}
+			if (!current.transform.isIdentity())
+				group.applyTransform(current.transform);
+			built.add(group);
+		}
+		return built.get(0);
+	}
+
+}
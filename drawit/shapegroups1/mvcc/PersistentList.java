@@ -0,0 +1,320 @@
+package drawit.shapegroups1.mvcc;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * An immutable list whose update methods return new lists that share most of their structure with the original.
+ *
+ * <p>Short lists are stored as arrays, which are copied on update. Longer lists are stored as treaps (binary search
+ * trees on positions, heap-ordered on random priorities) whose nodes record the sizes of their subtrees; an update
+ * copies only the nodes on the paths it visits, so it creates O(log N) new nodes in expectation, and the original list
+ * remains valid.
+ *
+ * @immutable
+ * @invar | 0 <= size()
+ */
+final class PersistentList<E> {
+
+	/**
+	 * The maximum size of a list stored as an array.
+	 */
+	static final int ARRAY_LIMIT = 32;
+
+	private static final class Node {
+		final Object element;
+		final int priority;
+		final Node left;
+		final Node right;
+		/**
+		 * The number of nodes in the subtree rooted at this node.
+		 */
+		final int size;
+
+		Node(Object element, int priority, Node left, Node right) {
+			this.element = element;
+			this.priority = priority;
+			this.left = left;
+			this.right = right;
+			this.size = 1 + size(left) + size(right);
+		}
+
+		Node withChildren(Node left, Node right) {
+			return new Node(element, priority, left, right);
+		}
+	}
+
+	/**
+	 * Exactly one of {@code array} and {@code root} is used: {@code array} is non-null iff this list is stored as an
+	 * array. An empty list stored as a treap has a null root.
+	 *
+	 * @representationObject
+	 */
+	private final Object[] array;
+	private final Node root;
+
+	private PersistentList(Object[] array, Node root) {
+		this.array = array;
+		this.root = root;
+	}
+
+	/**
+	 * Returns a list with the given elements, which are copied.
+	 */
+	static <E> PersistentList<E> of(E[] elements) {
+		if (elements.length <= ARRAY_LIMIT)
+			return new PersistentList<>(elements.clone(), null);
+		return new PersistentList<>(null, build(elements));
+	}
+
+	/**
+	 * Returns a treap with the given elements, in O(N) time: the nodes are linked by the stack-based construction of a
+	 * Cartesian tree, and then created bottom-up.
+	 */
+	private static Node build(Object[] elements) {
+		int n = elements.length;
+		int[] priorities = new int[n];
+		int[] left = new int[n];
+		int[] right = new int[n];
+		int[] stack = new int[n];
+		int top = 0;
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		for (int i = 0; i < n; i++) {
+			priorities[i] = random.nextInt();
+			right[i] = -1;
+			int last = -1;
+			while (0 < top && priorities[stack[top - 1]] < priorities[i])
+				last = stack[--top];
+			left[i] = last;
+			if (0 < top)
+				right[stack[top - 1]] = i;
+			stack[top++] = i;
+		}
+		int rootIndex = stack[0];
+		// Create the nodes in post-order; an element is expanded once its children have been pushed.
+		Node[] nodes = new Node[n];
+		boolean[] expanded = new boolean[n];
+		top = 0;
+		stack[top++] = rootIndex;
+		while (0 < top) {
+			int i = stack[top - 1];
+			if (!expanded[i]) {
+				expanded[i] = true;
+				if (left[i] != -1)
+					stack[top++] = left[i];
+				if (right[i] != -1)
+					stack[top++] = right[i];
+			} else {
+				top--;
+				nodes[i] = new Node(elements[i], priorities[i], left[i] == -1 ? null : nodes[left[i]], right[i] == -1 ? null : nodes[right[i]]);
+			}
+		}
+		return nodes[rootIndex];
+	}
+
+	private static int size(Node node) {
+		return node == null ? 0 : node.size;
+	}
+
+	int size() {
+		return array != null ? array.length : size(root);
+	}
+
+	@SuppressWarnings("unchecked")
+	E get(int index) {
+		if (index < 0 || size() <= index)
+			throw new IndexOutOfBoundsException(index);
+		if (array != null)
+			return (E)array[index];
+		Node node = root;
+		for (;;) {
+			int leftSize = size(node.left);
+			if (index < leftSize)
+				node = node.left;
+			else if (index == leftSize)
+				return (E)node.element;
+			else {
+				index -= leftSize + 1;
+				node = node.right;
+			}
+		}
+	}
+
+	private static Node set(Node node, int index, Object element) {
+		int leftSize = size(node.left);
+		if (index < leftSize)
+			return node.withChildren(set(node.left, index, element), node.right);
+		if (index == leftSize)
+			return new Node(element, node.priority, node.left, node.right);
+		return node.withChildren(node.left, set(node.right, index - leftSize - 1, element));
+	}
+
+	/**
+	 * Returns a list that is like this one, except that the element at the given index is replaced.
+	 */
+	PersistentList<E> set(int index, E element) {
+		if (index < 0 || size() <= index)
+			throw new IndexOutOfBoundsException(index);
+		if (array != null) {
+			Object[] newArray = array.clone();
+			newArray[index] = element;
+			return new PersistentList<>(newArray, null);
+		}
+		return new PersistentList<>(null, set(root, index, element));
+	}
+
+	private static Node merge(Node a, Node b) {
+		if (a == null)
+			return b;
+		if (b == null)
+			return a;
+		if (a.priority > b.priority)
+			return a.withChildren(a.left, merge(a.right, b));
+		return b.withChildren(merge(a, b.left), b.right);
+	}
+
+	/**
+	 * Splits the given tree into a tree holding its first {@code count} nodes and a tree holding the others.
+	 */
+	private static Node[] split(Node node, int count) {
+		if (node == null)
+			return new Node[2];
+		if (count <= size(node.left)) {
+			Node[] parts = split(node.left, count);
+			parts[1] = node.withChildren(parts[1], node.right);
+			return parts;
+		}
+		Node[] parts = split(node.right, count - size(node.left) - 1);
+		parts[0] = node.withChildren(node.left, parts[0]);
+		return parts;
+	}
+
+	/**
+	 * Returns a list that is like this one, except that the given element is inserted at the given index.
+	 */
+	PersistentList<E> insert(int index, E element) {
+		if (index < 0 || size() < index)
+			throw new IndexOutOfBoundsException(index);
+		if (array != null) {
+			if (array.length < ARRAY_LIMIT) {
+				Object[] newArray = new Object[array.length + 1];
+				System.arraycopy(array, 0, newArray, 0, index);
+				newArray[index] = element;
+				System.arraycopy(array, index, newArray, index + 1, array.length - index);
+				return new PersistentList<>(newArray, null);
+			}
+			return new PersistentList<E>(null, build(array)).insert(index, element);
+		}
+		Node node = new Node(element, ThreadLocalRandom.current().nextInt(), null, null);
+		Node[] parts = split(root, index);
+		return new PersistentList<>(null, merge(merge(parts[0], node), parts[1]));
+	}
+
+	/**
+	 * Returns a list that is like this one, except that the element at the given index is removed.
+	 */
+	PersistentList<E> remove(int index) {
+		if (index < 0 || size() <= index)
+			throw new IndexOutOfBoundsException(index);
+		if (array != null) {
+			Object[] newArray = new Object[array.length - 1];
+			System.arraycopy(array, 0, newArray, 0, index);
+			System.arraycopy(array, index + 1, newArray, index, array.length - index - 1);
+			return new PersistentList<>(newArray, null);
+		}
+		Node[] parts = split(root, index);
+		Node[] rest = split(parts[1], 1);
+		return new PersistentList<>(null, merge(parts[0], rest[1]));
+	}
+
+	/**
+	 * Returns a list that is like this one, except that the element at index {@code from} is moved to index
+	 * {@code to}.
+	 */
+	PersistentList<E> move(int from, int to) {
+		if (from < 0 || size() <= from || to < 0 || size() <= to)
+			throw new IndexOutOfBoundsException();
+		return remove(from).insert(to, get(from));
+	}
+
+	/**
+	 * Returns a new array holding the elements of this list.
+	 */
+	E[] toArray(E[] result) {
+		int size = size();
+		if (result.length < size)
+			result = Arrays.copyOf(result, size);
+		int i = 0;
+		for (Iterator<E> iterator = iterator(); iterator.hasNext(); )
+			result[i++] = iterator.next();
+		return result;
+	}
+
+	Iterator<E> iterator() {
+		return iterator(false);
+	}
+
+	Iterator<E> descendingIterator() {
+		return iterator(true);
+	}
+
+	private Iterator<E> iterator(boolean descending) {
+		if (array != null)
+			return new Iterator<E>() {
+				int index = descending ? array.length - 1 : 0;
+				@Override
+				public boolean hasNext() { return descending ? 0 <= index : index < array.length; }
+				@SuppressWarnings("unchecked")
+				@Override
+				public E next() {
+					if (!hasNext())
+						throw new NoSuchElementException();
+					E result = (E)array[index];
+					index += descending ? -1 : 1;
+					return result;
+				}
+			};
+		return new Iterator<E>() {
+			// The nodes whose elements and far subtrees remain to be visited, innermost on top.
+			final ArrayDeque<Node> stack = new ArrayDeque<>();
+			{
+				pushNear(root);
+			}
+			private void pushNear(Node node) {
+				for (; node != null; node = descending ? node.right : node.left)
+					stack.push(node);
+			}
+			@Override
+			public boolean hasNext() { return !stack.isEmpty(); }
+			@SuppressWarnings("unchecked")
+			@Override
+			public E next() {
+				if (stack.isEmpty())
+					throw new NoSuchElementException();
+				Node node = stack.pop();
+				pushNear(descending ? node.left : node.right);
+				return (E)node.element;
+			}
+		};
+	}
+
+	/**
+	 * Returns an unmodifiable view of this list.
+	 */
+	List<E> asList() {
+		return new AbstractList<E>() {
+			@Override
+			public E get(int index) { return PersistentList.this.get(index); }
+			@Override
+			public int size() { return PersistentList.this.size(); }
+			@Override
+			public Iterator<E> iterator() { return PersistentList.this.iterator(); }
+		};
+	}
+
+}
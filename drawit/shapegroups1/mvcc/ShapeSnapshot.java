@@ -0,0 +1,281 @@
+package drawit.shapegroups1.mvcc;
+
+import java.awt.Color;
+import java.util.Arrays;
+
+import drawit.IntPoint;
+import drawit.PointArrays;
+import drawit.RoundedPolygon;
+
+/**
+ * Each instance of this class is an immutable rounded polygon: the state of a {@code RoundedPolygon} at some point in
+ * time. Since its state never changes and is stored in final fields, an instance can be shared freely between threads.
+ *
+ * <p>The vertices are stored in a persistent list: the {@code withVertex...} methods return shape snapshots that share
+ * most of their vertex list with the original, creating O(log N) new objects for a polygon with N vertices. (The new
+ * vertices are still checked to define a proper polygon, which takes time quadratic in N, as in
+ * {@code RoundedPolygon}.)
+ *
+ * @immutable
+ * @invar | getVertices() != null
+ * @invar | 3 <= getVertices().length
+ * @invar | PointArrays.checkDefinesProperPolygon(getVertices()) == null
+ * @invar | 0 <= getRadius()
+ * @invar | getColor() != null
+ */
+public final class ShapeSnapshot {
+
+	/**
+	 * @representationObject
+	 * @invar | vertices != null && 3 <= vertices.size()
+	 * @invar | vertices.asList().stream().allMatch(v -> v != null)
+	 * @invar | PointArrays.checkDefinesProperPolygon(vertices.toArray(new IntPoint[0])) == null
+	 * @invar | 0 <= radius
+	 * @invar | color != null
+	 */
+	private final PersistentList<IntPoint> vertices;
+	private final int radius;
+	private final Color color;
+	/**
+	 * The drawing commands, once computed. Since strings are immutable, a thread that reads a stale {@code null}
+	 * merely computes them again.
+	 */
+	private String drawingCommands;
+
+	/**
+	 * Initializes this shape snapshot with the given vertices, corner radius and color.
+	 *
+	 * @throws IllegalArgumentException if {@code vertices} is null or contains null elements
+	 *    | vertices == null || Arrays.stream(vertices).anyMatch(v -> v == null)
+	 * @throws IllegalArgumentException if {@code vertices} has less than three elements
+	 *    | vertices.length < 3
+	 * @throws IllegalArgumentException if the given vertices do not define a proper polygon
+	 *    | PointArrays.checkDefinesProperPolygon(vertices) != null
+	 * @throws IllegalArgumentException if the given radius is negative
+	 *    | radius < 0
+	 * @throws IllegalArgumentException if {@code color} is null
+	 *    | color == null
+	 * @inspects | vertices
+	 * @post | Arrays.equals(getVertices(), vertices)
+	 * @post | getRadius() == radius
+	 * @post | getColor().equals(color)
+	 */
+	public ShapeSnapshot(IntPoint[] vertices, int radius, Color color) {
+		if (vertices == null)
+			throw new IllegalArgumentException("vertices is null");
+		if (Arrays.stream(vertices).anyMatch(v -> v == null))
+			throw new IllegalArgumentException("an element of vertices is null");
+		if (vertices.length < 3)
+			throw new IllegalArgumentException("vertices has less than three elements");
+		IntPoint[] copy = PointArrays.copy(vertices);
+		checkProperPolygon(copy);
+		if (radius < 0)
+			throw new IllegalArgumentException("radius is negative");
+		if (color == null)
+			throw new IllegalArgumentException("color is null");
+		this.vertices = PersistentList.of(copy);
+		this.radius = radius;
+		this.color = color;
+	}
+
+	private static void checkProperPolygon(IntPoint[] vertices) {
+		String message = PointArrays.checkDefinesProperPolygon(vertices);
+		if (message != null)
+			throw new IllegalArgumentException(message);
+	}
+
+	/**
+	 * Returns a snapshot of the current state of the given rounded polygon.
+	 *
+	 * @throws IllegalArgumentException if {@code shape} is null
+	 *    | shape == null
+	 * @throws IllegalArgumentException if {@code shape} has less than three vertices
+	 *    | shape.getVertices().length < 3
+	 * @inspects | shape
+	 * @post | Arrays.equals(result.getVertices(), shape.getVertices())
+	 * @post | result.getRadius() == shape.getRadius()
+	 * @post | result.getColor().equals(shape.getColor())
+	 */
+	public static ShapeSnapshot of(RoundedPolygon shape) {
+		if (shape == null)
+			throw new IllegalArgumentException("shape is null");
+		return new ShapeSnapshot(shape.getVertices(), shape.getRadius(), shape.getColor());
+	}
+
+	/**
+	 * Returns a new array whose elements are the vertices of this shape snapshot.
+	 *
+	 * @creates | result
+	 */
+	public IntPoint[] getVertices() { return vertices.toArray(new IntPoint[0]); }
+
+	public int getVertexCount() { return vertices.size(); }
+
+	/**
+	 * @throws IllegalArgumentException if the given index is out of bounds
+	 *    | index < 0 || getVertexCount() <= index
+	 * @post | result.equals(getVertices()[index])
+	 */
+	public IntPoint getVertex(int index) {
+		if (index < 0 || vertices.size() <= index)
+			throw new IllegalArgumentException("index out of bounds");
+		return vertices.get(index);
+	}
+
+	public int getRadius() { return radius; }
+
+	public Color getColor() { return color; }
+
+	/**
+	 * Returns a shape snapshot that is like this one, except for its vertices.
+	 *
+	 * @throws IllegalArgumentException if the given vertices are not valid (see the constructor)
+	 * @inspects | vertices
+	 * @post | Arrays.equals(result.getVertices(), vertices)
+	 * @post | result.getRadius() == getRadius() && result.getColor().equals(getColor())
+	 */
+	public ShapeSnapshot withVertices(IntPoint[] vertices) {
+		return new ShapeSnapshot(vertices, radius, color);
+	}
+
+	/**
+	 * Returns a shape snapshot that is like this one, except that the vertex at the given index is replaced by the
+	 * given point (see {@code RoundedPolygon.update}).
+	 *
+	 * @throws IllegalArgumentException if the given index is out of bounds
+	 *    | index < 0 || getVertexCount() <= index
+	 * @throws IllegalArgumentException if {@code point} is null
+	 *    | point == null
+	 * @throws IllegalArgumentException if the new vertices do not define a proper polygon
+	 *    | PointArrays.checkDefinesProperPolygon(PointArrays.update(getVertices(), index, point)) != null
+	 * @post | Arrays.equals(result.getVertices(), PointArrays.update(getVertices(), index, point))
+	 */
+	public ShapeSnapshot withVertex(int index, IntPoint point) {
+		if (index < 0 || vertices.size() <= index)
+			throw new IllegalArgumentException("index out of bounds");
+		if (point == null)
+			throw new IllegalArgumentException("point is null");
+		return withVertexList(vertices.set(index, point));
+	}
+
+	/**
+	 * Returns a shape snapshot that is like this one, except that the given point is inserted into its vertices at the
+	 * given index (see {@code RoundedPolygon.insert}).
+	 *
+	 * @throws IllegalArgumentException if the given index is out of bounds
+	 *    | index < 0 || getVertexCount() < index
+	 * @throws IllegalArgumentException if {@code point} is null
+	 *    | point == null
+	 * @throws IllegalArgumentException if the new vertices do not define a proper polygon
+	 *    | PointArrays.checkDefinesProperPolygon(PointArrays.insert(getVertices(), index, point)) != null
+	 * @post | Arrays.equals(result.getVertices(), PointArrays.insert(getVertices(), index, point))
+	 */
+	public ShapeSnapshot withVertexInserted(int index, IntPoint point) {
+		if (index < 0 || vertices.size() < index)
+			throw new IllegalArgumentException("index out of bounds");
+		if (point == null)
+			throw new IllegalArgumentException("point is null");
+		return withVertexList(vertices.insert(index, point));
+	}
+
+	/**
+	 * Returns a shape snapshot that is like this one, except that the vertex at the given index is removed (see
+	 * {@code RoundedPolygon.remove}).
+	 *
+	 * @throws IllegalArgumentException if the given index is out of bounds
+	 *    | index < 0 || getVertexCount() <= index
+	 * @throws IllegalArgumentException if this shape snapshot has only three vertices
+	 *    | getVertexCount() == 3
+	 * @throws IllegalArgumentException if the new vertices do not define a proper polygon
+	 *    | PointArrays.checkDefinesProperPolygon(PointArrays.remove(getVertices(), index)) != null
+	 * @post | Arrays.equals(result.getVertices(), PointArrays.remove(getVertices(), index))
+	 */
+	public ShapeSnapshot withVertexRemoved(int index) {
+		if (index < 0 || vertices.size() <= index)
+			throw new IllegalArgumentException("index out of bounds");
+		if (vertices.size() == 3)
+			throw new IllegalArgumentException("a shape snapshot must have at least three vertices");
+		return withVertexList(vertices.remove(index));
+	}
+
+	private ShapeSnapshot withVertexList(PersistentList<IntPoint> newVertices) {
+		checkProperPolygon(newVertices.toArray(new IntPoint[0]));
+		return new ShapeSnapshot(newVertices, radius, color);
+	}
+
+	/**
+	 * Returns a shape snapshot that is like this one, except for its corner radius.
+	 *
+	 * @throws IllegalArgumentException if the given radius is negative
+	 *    | radius < 0
+	 * @post | Arrays.equals(result.getVertices(), getVertices())
+	 * @post | result.getRadius() == radius && result.getColor().equals(getColor())
+	 */
+	public ShapeSnapshot withRadius(int radius) {
+		if (radius < 0)
+			throw new IllegalArgumentException("radius is negative");
+		return new ShapeSnapshot(vertices, radius, color);
+	}
+
+	/**
+	 * Returns a shape snapshot that is like this one, except for its color.
+	 *
+	 * @throws IllegalArgumentException if {@code color} is null
+	 *    | color == null
+	 * @post | Arrays.equals(result.getVertices(), getVertices())
+	 * @post | result.getRadius() == getRadius() && result.getColor().equals(color)
+	 */
+	public ShapeSnapshot withColor(Color color) {
+		if (color == null)
+			throw new IllegalArgumentException("color is null");
+		return new ShapeSnapshot(vertices, radius, color);
+	}
+
+	private ShapeSnapshot(PersistentList<IntPoint> vertices, int radius, Color color) {
+		this.vertices = vertices;
+		this.radius = radius;
+		this.color = color;
+	}
+
+	/**
+	 * Returns whether the given point is contained by the (non-rounded) polygon defined by this shape snapshot's
+	 * vertices (see {@code RoundedPolygon.contains}).
+	 *
+	 * @throws IllegalArgumentException if {@code point} is null
+	 *    | point == null
+	 */
+	public boolean contains(IntPoint point) {
+		if (point == null)
+			throw new IllegalArgumentException("point is null");
+		return RoundedPolygon.contains(getVertices(), point);
+	}
+
+	/**
+	 * Returns the drawing commands for this shape snapshot (see {@code RoundedPolygon.getDrawingCommands()}).
+	 *
+	 * @post | result != null
+	 */
+	public String getDrawingCommands() {
+		String result = drawingCommands;
+		if (result == null)
+			drawingCommands = result = RoundedPolygon.getDrawingCommands(getVertices(), radius, color);
+		return result;
+	}
+
+	/**
+	 * Returns a new rounded polygon with the same vertices, corner radius and color as this shape snapshot.
+	 *
+	 * @creates | result
+	 * @post | Arrays.equals(result.getVertices(), getVertices())
+	 * @post | result.getRadius() == getRadius()
+	 * @post | result.getColor().equals(getColor())
+	 */
+	public RoundedPolygon toRoundedPolygon() {
+		RoundedPolygon shape = new RoundedPolygon();
+		shape.setVertices(getVertices());
+		shape.setRadius(radius);
+		shape.setColor(color);
+		return shape;
+	}
+
+}
@@ -0,0 +1,138 @@
+package drawit.shapegroups1.mvcc;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * Each instance of this class is a scene that can be read and edited by multiple threads concurrently, using
+ * multiversion concurrency control: the scene's state is a sequence of immutable versions, the latest of which is
+ * published through an atomic reference.
+ *
+ * <p>Readers call {@code getCurrentVersion()} and then work on the returned version for as long as they like; they
+ * never block, and never observe a partially applied edit, since versions are immutable. Writers call {@code commit},
+ * which computes a new root group snapshot from the current one and publishes it as the next version. Edits that use
+ * the path-copying methods of {@code GroupSnapshot} share all unchanged structure with the previous version.
+ *
+ * @invar | getCurrentVersion() != null
+ */
+public final class VersionedScene {
+
+	/**
+	 * Each instance of this class is an immutable version of a scene: its root group snapshot and its number.
+	 *
+	 * @immutable
+	 * @invar | getRoot() != null
+	 * @invar | 0 <= getNumber()
+	 */
+	public static final class Version {
+
+		private final long number;
+		private final GroupSnapshot root;
+
+		private Version(long number, GroupSnapshot root) {
+			this.number = number;
+			this.root = root;
+		}
+
+		/**
+		 * Returns the number of this version; the initial version of a scene has number zero, and each commit increments
+		 * it by one.
+		 */
+		public long getNumber() { return number; }
+
+		public GroupSnapshot getRoot() { return root; }
+
+	}
+
+	/**
+	 * @invar | current.get() != null
+	 */
+	private final AtomicReference<Version> current;
+
+	/**
+	 * Initializes this scene so that its initial version has the given root.
+	 *
+	 * @throws IllegalArgumentException if {@code root} is null
+	 *    | root == null
+	 * @post | getCurrentVersion().getRoot() == root
+	 * @post | getCurrentVersion().getNumber() == 0
+	 */
+	public VersionedScene(GroupSnapshot root) {
+		if (root == null)
+			throw new IllegalArgumentException("root is null");
+		current = new AtomicReference<>(new Version(0, root));
+	}
+
+	/**
+	 * Returns the most recently committed version of this scene. This method never blocks.
+	 *
+	 * @post | result != null
+	 */
+	public Version getCurrentVersion() {
+		return current.get();
+	}
+
+	/**
+	 * Publishes the version whose root is the result of applying {@code edit} to the root of the current version, and
+	 * returns it. If another thread commits a version in the meantime, {@code edit} is applied again to the root of
+	 * that version; therefore, {@code edit} must not have side effects.
+	 *
+	 * @throws IllegalArgumentException if {@code edit} is null
+	 *    | edit == null
+	 * @throws IllegalArgumentException if {@code edit} returns null
+	 * @post | result.getRoot() != null
+	 * @post The result was the current version of this scene at the time of the commit, and its number is one more than
+	 *    that of the version it was computed from.
+	 */
+	public Version commit(UnaryOperator<GroupSnapshot> edit) {
+		if (edit == null)
+			throw new IllegalArgumentException("edit is null");
+
+		for (;;) {
+			Version expected = current.get();
+			GroupSnapshot root = edit.apply(expected.root);
+			if (root == null)
+				throw new IllegalArgumentException("edit returned null");
+			Version version = new Version(expected.number + 1, root);
+			if (current.compareAndSet(expected, version))
+				return version;
+		}
+	}
+
+	/**
+	 * Publishes the version whose root is the result of applying {@code edit} to the group snapshot reached from the
+	 * current root by following the given sequence of subgroup indices (see {@code GroupSnapshot.update}), and
+	 * returns it.
+	 *
+	 * @throws IllegalArgumentException if {@code path} or {@code edit} is null
+	 *    | path == null || edit == null
+	 * @throws IllegalArgumentException if some index of {@code path} is out of bounds, or {@code edit} returns null
+	 * @post | result.getRoot() != null
+	 */
+	public Version commit(int[] path, UnaryOperator<GroupSnapshot> edit) {
+		if (path == null)
+			throw new IllegalArgumentException("path is null");
+		if (edit == null)
+			throw new IllegalArgumentException("edit is null");
+		int[] copy = path.clone();
+		return commit(root -> root.update(copy, edit));
+	}
+
+	/**
+	 * Publishes the version with the given root if the current version is {@code expected}, and returns whether it did.
+	 * This allows a writer to compute a new root at leisure and detect a conflicting commit by another thread.
+	 *
+	 * @throws IllegalArgumentException if {@code expected} or {@code root} is null
+	 *    | expected == null || root == null
+	 * @post | result == (old(getCurrentVersion()) == expected)
+	 * @post | !result || getCurrentVersion().getRoot() == root && getCurrentVersion().getNumber() == expected.getNumber() + 1
+	 */
+	public boolean compareAndCommit(Version expected, GroupSnapshot root) {
+		if (expected == null)
+			throw new IllegalArgumentException("expected is null");
+		if (root == null)
+			throw new IllegalArgumentException("root is null");
+		return current.compareAndSet(expected, new Version(expected.number + 1, root));
+	}
+
+}
@@ -3,6 +3,7 @@ package drawit.shapes1;
 import drawit.IntPoint;
 import drawit.IntVector;
 import drawit.RoundedPolygon;
+import drawit.shapegroups1.Extent;
 import drawit.shapegroups1.ShapeGroup;
 
 /**
@@ -42,6 +43,13 @@ public class RoundedPolygonShape extends ShapeImpl {
 		return polygon.getDrawingCommands();
 	}
 	
+	/**
+	 * Returns this polygon's drawing commands, or an empty string if it does not intersect the given viewport.
+	 */
+	public String getDrawingCommands(Extent viewport) {
+		return polygon.getDrawingCommands(viewport.getLeft(), viewport.getTop(), viewport.getRight(), viewport.getBottom());
+	}
+	
 	/**
 	 * Returns the ShapeGroup reference stored by this object.
 	 */
@@ -1,6 +1,7 @@
 package drawit.shapes1;
 
 import drawit.IntPoint;
+import drawit.shapegroups1.Extent;
 import drawit.shapegroups1.ShapeGroup;
 
 /**
@@ -14,6 +15,8 @@ public interface Shape {
 
 	String getDrawingCommands();
 
+	String getDrawingCommands(Extent viewport);
+
 	ControlPoint[] createControlPoints();
 
 }
\ No newline at end of file
@@ -42,6 +42,11 @@ public class ShapeGroupShape extends ShapeImpl {
 		return group.getDrawingCommands();
 	}
 	
+	/** Returns the drawing commands for the parts of this shape group that may be visible in the given viewport. */
+	public String getDrawingCommands(Extent viewport) {
+		return group.getDrawingCommands(viewport);
+	}
+	
 	/** Initializes this object to store the given ShapeGroup reference. */
 	public ShapeGroupShape(ShapeGroup group) {
 		this.group = group;
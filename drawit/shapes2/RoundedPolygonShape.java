@@ -3,7 +3,8 @@ package drawit.shapes2;
 import drawit.IntPoint;
 import drawit.IntVector;
 import drawit.RoundedPolygon;
-import drawit.shapegroups2.ShapeGroup;
+import drawit.shapegroups1.Extent;
+import drawit.shapegroups1.ShapeGroup;
 
 /**
  * Each instance of this class stores a reference to a RoundedPolygon object and, optionally,
@@ -42,6 +43,13 @@ public class RoundedPolygonShape extends ShapeImpl {
 		return polygon.getDrawingCommands();
 	}
 	
+	/**
+	 * Returns this polygon's drawing commands, or an empty string if it does not intersect the given viewport.
+	 */
+	public String getDrawingCommands(Extent viewport) {
+		return polygon.getDrawingCommands(viewport.getLeft(), viewport.getTop(), viewport.getRight(), viewport.getBottom());
+	}
+	
 	/**
 	 * Returns the ShapeGroup reference stored by this object.
 	 */
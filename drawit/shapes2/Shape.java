@@ -1,7 +1,8 @@
 package drawit.shapes2;
 
 import drawit.IntPoint;
-import drawit.shapegroups2.ShapeGroup;
+import drawit.shapegroups1.Extent;
+import drawit.shapegroups1.ShapeGroup;
 
 /**
  * Interface that generalizes classes {@code RoundedPolygonShape} and {@code ShapeGroupShape}.
@@ -14,6 +15,8 @@ public interface Shape {
 
 	String getDrawingCommands();
 
+	String getDrawingCommands(Extent viewport);
+
 	ControlPoint[] createControlPoints();
 
 }
\ No newline at end of file
@@ -2,8 +2,8 @@ package drawit.shapes2;
 
 import drawit.IntPoint;
 import drawit.IntVector;
-import drawit.shapegroups2.Extent;
-import drawit.shapegroups2.ShapeGroup;
+import drawit.shapegroups1.Extent;
+import drawit.shapegroups1.ShapeGroup;
 
 /**
  * Each instance of this class stores a reference to a ShapeGroup object.
@@ -42,6 +42,11 @@ public class ShapeGroupShape extends ShapeImpl {
 		return group.getDrawingCommands();
 	}
 	
+	/** Returns the drawing commands for the parts of this shape group that may be visible in the given viewport. */
+	public String getDrawingCommands(Extent viewport) {
+		return group.getDrawingCommands(viewport);
+	}
+	
 	/** Initializes this object to store the given ShapeGroup reference. */
 	public ShapeGroupShape(ShapeGroup group) {
 		this.group = group;
@@ -2,7 +2,7 @@ package drawit.shapes2;
 
 import drawit.IntPoint;
 import drawit.IntVector;
-import drawit.shapegroups2.ShapeGroup;
+import drawit.shapegroups1.ShapeGroup;
 
 abstract class ShapeImpl implements Shape {
 	
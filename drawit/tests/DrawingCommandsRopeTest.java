@@ -0,0 +1,53 @@
+package drawit.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import drawit.DrawingCommandsRope;
+
+class DrawingCommandsRopeTest {
+	
+	DrawingCommandsRope a = DrawingCommandsRope.of("line 0 0 1 1\n");
+	DrawingCommandsRope b = DrawingCommandsRope.of("fill 0 0 0\n");
+	
+	@Test
+	void testOf() {
+		assert a.toString().equals("line 0 0 1 1\n");
+		assert a.length() == 13;
+		assert DrawingCommandsRope.of("") == DrawingCommandsRope.EMPTY;
+		assertThrows(IllegalArgumentException.class, () -> DrawingCommandsRope.of(null));
+	}
+	
+	@Test
+	void testConcat() {
+		DrawingCommandsRope ab = DrawingCommandsRope.concat(a, DrawingCommandsRope.EMPTY, b);
+		assert ab.length() == a.length() + b.length();
+		assert ab.toString().equals("line 0 0 1 1\nfill 0 0 0\n");
+		assert ab.toString() == ab.toString();
+		assert DrawingCommandsRope.concat(List.of(DrawingCommandsRope.EMPTY, a)) == a;
+		assert DrawingCommandsRope.concat() == DrawingCommandsRope.EMPTY;
+		assertThrows(IllegalArgumentException.class, () -> DrawingCommandsRope.concat(a, null));
+	}
+	
+	@Test
+	void testWriteTo() throws IOException {
+		StringWriter writer = new StringWriter();
+		DrawingCommandsRope.concat(b, DrawingCommandsRope.concat(a, b)).writeTo(writer);
+		assert writer.toString().equals("fill 0 0 0\nline 0 0 1 1\nfill 0 0 0\n");
+	}
+	
+	@Test
+	void testDeepRope() {
+		DrawingCommandsRope rope = a;
+		for (int i = 0; i < 100000; i++)
+			rope = DrawingCommandsRope.concat(b, rope);
+		assert rope.length() == 100000 * b.length() + a.length();
+		assert rope.toString().endsWith("fill 0 0 0\nline 0 0 1 1\n");
+	}
+
+}
@@ -0,0 +1,144 @@
+package drawit.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import drawit.IntPoint;
+import drawit.OffHeapVertexArena;
+import drawit.RoundedPolygon;
+
+class OffHeapVertexArenaTest {
+
+	static IntPoint p(int x, int y) { return new IntPoint(x, y); }
+
+	static final IntPoint[] SQUARE = {p(0, 0), p(100, 0), p(100, 100), p(0, 100)};
+	static final IntPoint[] PENTAGON = {p(0, 0), p(100, 0), p(100, 100), p(50, 150), p(0, 100)};
+	static final IntPoint[] TRIANGLE = {p(10, 10), p(90, 10), p(50, 80)};
+
+	@Test
+	void testRoundedPolygon_matchesHeapPolygon() throws IOException {
+		try (OffHeapVertexArena arena = OffHeapVertexArena.allocateDirect(100)) {
+			RoundedPolygon offHeap = new RoundedPolygon(arena);
+			RoundedPolygon onHeap = new RoundedPolygon();
+			assert offHeap.getVertexArena() == arena && onHeap.getVertexArena() == null;
+			assert offHeap.getVertices().length == 0;
+
+			for (RoundedPolygon polygon : new RoundedPolygon[] {offHeap, onHeap}) {
+				polygon.setVertices(SQUARE);
+				polygon.setRadius(10);
+				polygon.setColor(Color.red);
+				polygon.insert(3, p(50, 150));
+			}
+			assert Arrays.equals(offHeap.getVertices(), PENTAGON);
+			assert offHeap.getDrawingCommands().equals(onHeap.getDrawingCommands());
+			assert offHeap.getDrawingCommands(0, 0, 10, 10).equals(onHeap.getDrawingCommands());
+			assert offHeap.getDrawingCommands(200, 200, 300, 300).isEmpty();
+			assert offHeap.contains(p(50, 120)) && !offHeap.contains(p(10, 140));
+
+			offHeap.remove(3);
+			offHeap.update(0, p(5, 5));
+			assert Arrays.equals(offHeap.getVertices(), new IntPoint[] {p(5, 5), p(100, 0), p(100, 100), p(0, 100)});
+			assertThrows(IllegalArgumentException.class, () -> offHeap.setVertices(new IntPoint[] {p(0, 0), p(1, 1), p(0, 1), p(1, 0)}));
+			assert offHeap.getVertices()[0].equals(p(5, 5));
+		}
+	}
+
+	@Test
+	void testVertexCoordinates() throws IOException {
+		try (OffHeapVertexArena arena = OffHeapVertexArena.allocateDirect(10)) {
+			RoundedPolygon offHeap = new RoundedPolygon(arena);
+			RoundedPolygon onHeap = new RoundedPolygon();
+			for (RoundedPolygon polygon : new RoundedPolygon[] {offHeap, onHeap}) {
+				polygon.setVertices(PENTAGON);
+				for (int i = 0; i < PENTAGON.length; i++)
+					assert polygon.getVertexX(i) == PENTAGON[i].getX() && polygon.getVertexY(i) == PENTAGON[i].getY();
+				assertThrows(IllegalArgumentException.class, () -> polygon.getVertexX(-1));
+				assertThrows(IllegalArgumentException.class, () -> polygon.getVertexY(PENTAGON.length));
+			}
+		}
+	}
+
+	@Test
+	void testSetVertices_reusesRoom() throws IOException {
+		try (OffHeapVertexArena arena = OffHeapVertexArena.allocateDirect(9)) {
+			RoundedPolygon polygon = new RoundedPolygon(arena);
+			polygon.setVertices(SQUARE);
+			assert arena.getVertexCount() == 4;
+			polygon.setVertices(TRIANGLE);
+			assert arena.getVertexCount() == 4;
+			assert Arrays.equals(polygon.getVertices(), TRIANGLE);
+			polygon.setVertices(PENTAGON);
+			assert arena.getVertexCount() == 9;
+			assert arena.getVertex(4).equals(PENTAGON[0]);
+			assertThrows(IllegalStateException.class, () -> new RoundedPolygon(arena).setVertices(TRIANGLE));
+		}
+	}
+
+	@Test
+	void testClose() throws IOException {
+		OffHeapVertexArena arena = OffHeapVertexArena.allocateDirect(10);
+		RoundedPolygon polygon = new RoundedPolygon(arena);
+		polygon.setVertices(SQUARE);
+		arena.close();
+		assert !arena.isOpen();
+		arena.close();
+		assertThrows(IllegalStateException.class, () -> polygon.getVertices());
+		assertThrows(IllegalStateException.class, () -> polygon.getDrawingCommands());
+		assertThrows(IllegalStateException.class, () -> polygon.getVertexX(0));
+		assertThrows(IllegalStateException.class, () -> polygon.setVertices(TRIANGLE));
+		assertThrows(IllegalStateException.class, () -> arena.getVertex(0));
+		assertThrows(IllegalStateException.class, () -> new RoundedPolygon(arena));
+	}
+
+	@Test
+	void testArguments() {
+		assertThrows(IllegalArgumentException.class, () -> OffHeapVertexArena.allocateDirect(-1));
+		assertThrows(IllegalArgumentException.class, () -> new RoundedPolygon(null));
+		OffHeapVertexArena arena = OffHeapVertexArena.allocateDirect(10);
+		new RoundedPolygon(arena).setVertices(SQUARE);
+		assertThrows(IllegalArgumentException.class, () -> arena.getVertex(4));
+		assertThrows(IllegalArgumentException.class, () -> new RoundedPolygon(arena, 2, 3));
+		assertThrows(IllegalArgumentException.class, () -> new RoundedPolygon(arena, -1, 3));
+		assert Arrays.equals(new RoundedPolygon(arena, 1, 3).getVertices(), Arrays.copyOfRange(SQUARE, 1, 4));
+	}
+
+	@Test
+	void testMapFile(@TempDir Path directory) throws IOException {
+		Path file = directory.resolve("vertices.bin");
+		try (OffHeapVertexArena arena = OffHeapVertexArena.mapFile(file, 1000)) {
+			assert arena.isMapped() && arena.getVertexCount() == 0;
+			new RoundedPolygon(arena).setVertices(SQUARE);
+			new RoundedPolygon(arena).setVertices(TRIANGLE);
+		}
+
+		try (OffHeapVertexArena arena = OffHeapVertexArena.mapFile(file, 1000)) {
+			assert arena.getVertexCount() == 7;
+			RoundedPolygon square = new RoundedPolygon(arena, 0, 4);
+			RoundedPolygon triangle = new RoundedPolygon(arena, 4, 3);
+			assert Arrays.equals(square.getVertices(), SQUARE);
+			assert Arrays.equals(triangle.getVertices(), TRIANGLE);
+			square.update(0, p(1, 1));
+			new RoundedPolygon(arena).setVertices(PENTAGON);
+		}
+
+		try (OffHeapVertexArena arena = OffHeapVertexArena.mapFile(file, 1000)) {
+			assert arena.getVertexCount() == 12;
+			assert arena.getVertex(0).equals(p(1, 1));
+			assert Arrays.equals(new RoundedPolygon(arena, 7, 5).getVertices(), PENTAGON);
+		}
+
+		assertThrows(IllegalArgumentException.class, () -> OffHeapVertexArena.mapFile(file, 11));
+		Path garbage = directory.resolve("garbage.bin");
+		Files.write(garbage, new byte[] {1, 2, 3});
+		assertThrows(IllegalArgumentException.class, () -> OffHeapVertexArena.mapFile(garbage, 1000));
+	}
+
+}
@@ -0,0 +1,76 @@
+package drawit.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import drawit.IntPoint;
+import drawit.RoundedPolygon;
+import drawit.RoundedPolygonListener;
+
+class RoundedPolygonListenerTest {
+
+	static IntPoint p(int x, int y) { return new IntPoint(x, y); }
+
+	static IntPoint[] square(int x, int y, int size) {
+		return new IntPoint[] {p(x, y), p(x + size, y), p(x + size, y + size), p(x, y + size)};
+	}
+
+	static class Log implements RoundedPolygonListener {
+		final List<String> events = new ArrayList<>();
+		@Override
+		public void verticesChanged(RoundedPolygon shape, int index, int removedCount, int insertedCount) {
+			events.add("vertices " + index + " " + removedCount + " " + insertedCount);
+		}
+		@Override
+		public void radiusChanged(RoundedPolygon shape) { events.add("radius"); }
+		@Override
+		public void colorChanged(RoundedPolygon shape) { events.add("color"); }
+	}
+
+	@Test
+	void testNotifications() {
+		RoundedPolygon polygon = new RoundedPolygon();
+		Log log = new Log();
+		polygon.addListener(log);
+		polygon.setVertices(square(0, 0, 10));
+		polygon.insert(2, p(15, 5));
+		polygon.update(0, p(-1, -1));
+		polygon.remove(4);
+		polygon.setRadius(2);
+		polygon.setColor(Color.red);
+		assert log.events.equals(List.of("vertices 0 0 4", "vertices 2 0 1", "vertices 0 1 1", "vertices 4 1 0", "radius", "color"));
+		assertThrows(IllegalArgumentException.class, () -> polygon.update(0, p(10, 10)));
+		assert log.events.size() == 6;
+
+		polygon.removeListener(log);
+		polygon.setRadius(3);
+		assert log.events.size() == 6 && polygon.getListeners().isEmpty();
+		assertThrows(IllegalArgumentException.class, () -> polygon.addListener(null));
+	}
+
+	@Test
+	void testBatch_coalesces() {
+		RoundedPolygon polygon = new RoundedPolygon();
+		polygon.setVertices(new IntPoint[] {p(0, 0), p(10, 0), p(20, 0), p(20, 10), p(10, 10), p(0, 10)});
+		Log log = new Log();
+		polygon.addListener(log);
+		polygon.beginBatch();
+		polygon.update(2, p(21, 0));
+		polygon.insert(4, p(15, 12));
+		polygon.beginBatch();
+		polygon.setRadius(1);
+		polygon.setRadius(2);
+		polygon.endBatch();
+		assert log.events.isEmpty();
+		polygon.endBatch();
+		// Vertices 2..4 of the old six were replaced by vertices 2..5 of the new seven.
+		assert log.events.equals(List.of("vertices 2 2 3", "radius"));
+		assertThrows(IllegalStateException.class, () -> polygon.endBatch());
+	}
+
+}
@@ -138,4 +138,14 @@ class RoundedPolygonTest {
 		assert !poly.contains(new IntPoint(105, 120));
 		assert !poly.contains(new IntPoint(295, 120));
 	}
+	
+	@Test
+	void testGetDrawingCommands_viewport() {
+		poly.setVertices(new IntPoint[] {pt(10, 10), pt(100, 10), pt(100, 100), pt(10, 100)});
+		assert poly.getDrawingCommands(0, 0, 50, 50).equals(poly.getDrawingCommands());
+		assert poly.getDrawingCommands(100, 100, 200, 200).equals(poly.getDrawingCommands());
+		assert poly.getDrawingCommands(101, 0, 200, 200).isEmpty();
+		assert poly.getDrawingCommands(0, 0, 200, 9).isEmpty();
+		assertThrows(IllegalArgumentException.class, () -> poly.getDrawingCommands(10, 10, 9, 20));
+	}
 }
@@ -0,0 +1,192 @@
+package drawit.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Arc2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import drawit.IntPoint;
+import drawit.RoundedPolygon;
+import drawit.ScanlineRasterizer;
+import drawit.Transform;
+
+class ScanlineRasterizerTest {
+
+	static RoundedPolygon polygon(int radius, Color color, int... coordinates) {
+		IntPoint[] vertices = new IntPoint[coordinates.length / 2];
+		for (int i = 0; i < vertices.length; i++)
+			vertices[i] = new IntPoint(coordinates[2 * i], coordinates[2 * i + 1]);
+		RoundedPolygon polygon = new RoundedPolygon();
+		polygon.setVertices(vertices);
+		polygon.setRadius(radius);
+		polygon.setColor(color);
+		return polygon;
+	}
+
+	static double coveredArea(int[] pixels) {
+		return Arrays.stream(pixels).mapToDouble(p -> (p >>> 24) / 255.0).sum();
+	}
+
+	/**
+	 * Fills the outline described by the given drawing commands with Java2D, without antialiasing, as the GUI does, but
+	 * without the normalization by which Java2D by default snaps the outline to the pixel grid.
+	 */
+	static int[] fillWithJava2D(String commands, int width, int height) {
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = image.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+		Path2D.Double path = new Path2D.Double();
+		String[] tokens = commands.trim().split("\\s+");
+		for (int i = 0; i < tokens.length; ) {
+			switch (tokens[i++]) {
+			case "line":
+				path.append(new Line2D.Double(Double.parseDouble(tokens[i]), Double.parseDouble(tokens[i + 1]),
+						Double.parseDouble(tokens[i + 2]), Double.parseDouble(tokens[i + 3])), true);
+				i += 4;
+				break;
+			case "arc": {
+				double x = Double.parseDouble(tokens[i]), y = Double.parseDouble(tokens[i + 1]), r = Double.parseDouble(tokens[i + 2]);
+				path.append(new Arc2D.Double(x - r, y - r, 2 * r, 2 * r, -Double.parseDouble(tokens[i + 3]) * 180 / Math.PI,
+						-Double.parseDouble(tokens[i + 4]) * 180 / Math.PI, Arc2D.OPEN), true);
+				i += 5;
+				break;
+			}
+			case "fill":
+				g.setColor(new Color(Integer.parseInt(tokens[i]), Integer.parseInt(tokens[i + 1]), Integer.parseInt(tokens[i + 2])));
+				i += 3;
+				path.closePath();
+				g.fill(path);
+				path = new Path2D.Double();
+				break;
+			default: throw new AssertionError();
+			}
+		}
+		g.dispose();
+		return image.getRGB(0, 0, width, height, null, 0, width);
+	}
+
+	@Test
+	void testRectangle() {
+		int[] pixels = new int[10 * 8];
+		ScanlineRasterizer rasterizer = new ScanlineRasterizer(pixels, 10, 8);
+		rasterizer.fill(polygon(0, Color.red, 2, 2, 8, 2, 8, 6, 2, 6));
+		for (int y = 0; y < 8; y++)
+			for (int x = 0; x < 10; x++)
+				assert pixels[y * 10 + x] == (2 <= x && x < 8 && 2 <= y && y < 6 ? Color.red.getRGB() : 0);
+	}
+
+	@Test
+	void testAntialiasedEdges() {
+		int[] pixels = new int[8 * 4];
+		ScanlineRasterizer rasterizer = new ScanlineRasterizer(pixels, 8, 4);
+		rasterizer.setAntialiased(true);
+		rasterizer.addLine(1.5, 0, 5.25, 0);
+		rasterizer.addLine(5.25, 4, 1.5, 4);
+		rasterizer.fillPath(0xFF0000FF);
+		for (int y = 0; y < 4; y++) {
+			assert pixels[y * 8] == 0 && pixels[y * 8 + 1] >>> 24 == 128 && pixels[y * 8 + 2] == 0xFF0000FF;
+			assert pixels[y * 8 + 4] == 0xFF0000FF && pixels[y * 8 + 5] >>> 24 == 64 && pixels[y * 8 + 6] == 0;
+			assert (pixels[y * 8 + 5] & 0xFFFFFF) == 0xFF;
+		}
+	}
+
+	@Test
+	void testArea() {
+		// A rounded square's area is that of the square less the corners cut off by the arcs.
+		double expected = 40 * 40 - (4 - Math.PI) * 10 * 10;
+		int[] pixels = new int[200 * 100];
+		ScanlineRasterizer rasterizer = new ScanlineRasterizer(pixels, 200, 100);
+		rasterizer.setAntialiased(true);
+		RoundedPolygon square = polygon(10, Color.green, 3, 7, 43, 7, 43, 47, 3, 47);
+		rasterizer.fill(square);
+		assert Math.abs(coveredArea(pixels) - expected) < 1;
+		Arrays.fill(pixels, 0);
+		rasterizer.setTransform(new Transform(3.5, -1.5, 10, 90.25));
+		rasterizer.fill(square);
+		assert Math.abs(coveredArea(pixels) - expected * 3.5 * 1.5) < 3;
+		Arrays.fill(pixels, 0);
+		rasterizer.setAntialiased(false);
+		rasterizer.fill(square);
+		assert Math.abs(coveredArea(pixels) - expected * 3.5 * 1.5) < 30;
+	}
+
+	@Test
+	void testMatchesJava2D() {
+		RoundedPolygon[] polygons = {
+				polygon(10, Color.red, 10, 10, 90, 15, 50, 70),
+				polygon(25, Color.blue, 5, 5, 95, 5, 95, 95, 50, 30, 5, 95),
+				polygon(7, Color.black, 60, 10, 95, 50, 60, 90, 20, 90, 40, 50, 20, 10),
+				polygon(4, Color.yellow, 10, 10, 50, 10, 90, 10, 90, 60, 10, 60),
+		};
+		for (RoundedPolygon polygon : polygons) {
+			int[] pixels = new int[100 * 100];
+			new ScanlineRasterizer(pixels, 100, 100).fill(polygon);
+			int[] expected = fillWithJava2D(polygon.getDrawingCommands(), 100, 100);
+			int differences = 0;
+			for (int i = 0; i < pixels.length; i++)
+				if (pixels[i] != expected[i])
+					differences++;
+			// Java2D approximates arcs by cubic curves and rounds coordinates to subpixels, so a few pixels whose
+			// centers are very close to the outline may differ.
+			assert differences <= 10 : differences;
+		}
+	}
+
+	@Test
+	void testExecute() {
+		RoundedPolygon polygon = polygon(12, new Color(10, 20, 30), 5, 5, 60, 8, 40, 50, 8, 35);
+		Transform transform = new Transform(1.5, 0.75, 3, -1);
+		int[] filled = new int[100 * 60];
+		ScanlineRasterizer rasterizer = new ScanlineRasterizer(filled, 100, 60);
+		rasterizer.setAntialiased(true);
+		rasterizer.setTransform(transform);
+		rasterizer.fill(polygon);
+		int[] executed = new int[100 * 60];
+		rasterizer = new ScanlineRasterizer(executed, 100, 60);
+		rasterizer.setAntialiased(true);
+		rasterizer.execute(transform.getPushCommands() + polygon.getDrawingCommands() + transform.getPopCommands());
+		assert rasterizer.getTransform().isIdentity();
+		for (int i = 0; i < filled.length; i++)
+			assert Math.abs((filled[i] >>> 24) - (executed[i] >>> 24)) <= 1;
+		ScanlineRasterizer r = rasterizer;
+		assertThrows(IllegalArgumentException.class, () -> r.execute("line 1 2 3"));
+		assertThrows(IllegalArgumentException.class, () -> r.execute("popTransform"));
+		assertThrows(IllegalArgumentException.class, () -> r.execute("fill 1 2 256"));
+		assertThrows(IllegalArgumentException.class, () -> r.execute("circle 1 2 3"));
+	}
+
+	@Test
+	void testRegionAndBlending() {
+		int[] pixels = new int[20 * 10];
+		Arrays.fill(pixels, 0xFFFFFFFF);
+		ScanlineRasterizer rasterizer = new ScanlineRasterizer(pixels, 2 * 20 + 5, 20, 10, 6);
+		rasterizer.clear(0xFF000000);
+		rasterizer.fill(polygon(0, new Color(255, 0, 0, 128), -100, -100, 100, -100, 100, 100, -100, 100));
+		for (int y = 0; y < 10; y++)
+			for (int x = 0; x < 20; x++) {
+				boolean inside = 5 <= x && x < 15 && 2 <= y && y < 8;
+				assert pixels[y * 20 + x] == (inside ? 0xFF800000 : 0xFFFFFFFF);
+			}
+	}
+
+	@Test
+	void testInvalidArguments() {
+		assertThrows(IllegalArgumentException.class, () -> new ScanlineRasterizer(null, 1, 1));
+		assertThrows(IllegalArgumentException.class, () -> new ScanlineRasterizer(new int[10], 5, 3));
+		assertThrows(IllegalArgumentException.class, () -> new ScanlineRasterizer(new int[10], 1, 4, 5, 2));
+		assertThrows(IllegalArgumentException.class, () -> new ScanlineRasterizer(new int[10], 0, 3, 4, 2));
+		ScanlineRasterizer rasterizer = new ScanlineRasterizer(new int[10], 5, 2);
+		assertThrows(IllegalArgumentException.class, () -> rasterizer.fill(null));
+		assertThrows(IllegalArgumentException.class, () -> rasterizer.setTransform(null));
+		assertThrows(IllegalArgumentException.class, () -> rasterizer.execute(null));
+	}
+
+}
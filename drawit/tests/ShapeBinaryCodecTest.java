@@ -0,0 +1,108 @@
+package drawit.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import drawit.IntPoint;
+import drawit.RoundedPolygon;
+import drawit.ShapeBinaryReader;
+import drawit.ShapeBinaryWriter;
+
+class ShapeBinaryCodecTest {
+
+	static final int[] VALUES = {0, 1, -1, 63, -64, 64, 127, 128, 300, -300, 1 << 20, Integer.MAX_VALUE, Integer.MIN_VALUE};
+
+	static ShapeBinaryReader reader(ByteArrayOutputStream bytes) {
+		return new ShapeBinaryReader(new ByteArrayInputStream(bytes.toByteArray()));
+	}
+
+	@Test
+	void testZigzag() {
+		assert ShapeBinaryWriter.zigzagEncode(0) == 0;
+		assert ShapeBinaryWriter.zigzagEncode(-1) == 1;
+		assert ShapeBinaryWriter.zigzagEncode(1) == 2;
+		assert ShapeBinaryWriter.zigzagEncode(-2) == 3;
+		assert ShapeBinaryWriter.zigzagEncode(Integer.MIN_VALUE) == -1;
+		for (int value : VALUES)
+			assert ShapeBinaryReader.zigzagDecode(ShapeBinaryWriter.zigzagEncode(value)) == value;
+	}
+
+	@Test
+	void testVarInts() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ShapeBinaryWriter writer = new ShapeBinaryWriter(bytes);
+		writer.writeVarInt(127);
+		writer.flush();
+		assert bytes.size() == 1;
+		writer.writeVarInt(128);
+		writer.flush();
+		assert bytes.size() == 3;
+		for (int value : VALUES) {
+			writer.writeVarInt(value);
+			writer.writeSignedVarInt(value);
+			writer.writeDouble(value / 3.0);
+		}
+		// Enough values to fill the buffer several times.
+		for (int i = 0; i < 10000; i++)
+			writer.writeSignedVarInt(i * 7919);
+		writer.flush();
+
+		ShapeBinaryReader reader = reader(bytes);
+		assert reader.readVarInt() == 127 && reader.readVarInt() == 128;
+		for (int value : VALUES) {
+			assert reader.readVarInt() == value;
+			assert reader.readSignedVarInt() == value;
+			assert reader.readDouble() == value / 3.0;
+		}
+		for (int i = 0; i < 10000; i++)
+			assert reader.readSignedVarInt() == i * 7919;
+		assertThrows(EOFException.class, () -> reader.readByte());
+
+		ShapeBinaryReader malformed = new ShapeBinaryReader(new ByteArrayInputStream(new byte[] {-1, -1, -1, -1, -1, 1}));
+		assertThrows(IOException.class, () -> malformed.readVarInt());
+		ShapeBinaryReader negative = new ShapeBinaryReader(new ByteArrayInputStream(new byte[] {-1, -1, -1, -1, 15}));
+		assertThrows(IOException.class, () -> negative.readCount());
+	}
+
+	@Test
+	void testShapes() throws IOException {
+		RoundedPolygon polygon = new RoundedPolygon();
+		polygon.setVertices(new IntPoint[] {
+				new IntPoint(Integer.MIN_VALUE, Integer.MIN_VALUE), new IntPoint(Integer.MAX_VALUE, 0), new IntPoint(0, Integer.MAX_VALUE)});
+		polygon.setRadius(300);
+		polygon.setColor(new Color(10, 20, 30, 40));
+		RoundedPolygon empty = new RoundedPolygon();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ShapeBinaryWriter writer = new ShapeBinaryWriter(bytes);
+		writer.writeShape(polygon);
+		writer.writeShape(empty);
+		writer.flush();
+
+		ShapeBinaryReader reader = reader(bytes);
+		RoundedPolygon copy = reader.readShape();
+		assert Arrays.equals(copy.getVertices(), polygon.getVertices());
+		assert copy.getRadius() == 300;
+		assert copy.getColor().equals(new Color(10, 20, 30, 40)) && copy.getColor().getAlpha() == 40;
+		RoundedPolygon emptyCopy = reader.readShape();
+		assert emptyCopy.getVertices().length == 0 && emptyCopy.getColor().equals(Color.yellow);
+
+		// Three vertices on a line do not define a proper polygon.
+		bytes.reset();
+		writer.writeVertices(new IntPoint[] {new IntPoint(0, 0), new IntPoint(1, 1), new IntPoint(2, 2)});
+		writer.writeVarInt(0);
+		writer.writeColor(Color.red);
+		writer.flush();
+		assertThrows(IOException.class, () -> reader(bytes).readShape());
+		assertThrows(IllegalArgumentException.class, () -> writer.writeShape(null));
+		assertThrows(IllegalArgumentException.class, () -> new ShapeBinaryWriter(null));
+	}
+
+}
@@ -0,0 +1,65 @@
+package drawit.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import drawit.IntPoint;
+import drawit.IntVector;
+import drawit.Transform;
+
+class TransformTest {
+	
+	@Test
+	void testIdentity() {
+		assert Transform.IDENTITY.isIdentity();
+		assert Transform.IDENTITY.apply(new IntPoint(3, -4)).equals(new IntPoint(3, -4));
+		IntPoint[] points = {new IntPoint(1, 2)};
+		assert Transform.IDENTITY.apply(points) == points;
+	}
+	
+	@Test
+	void testTranslation() {
+		Transform t = Transform.translation(new IntVector(10, -5));
+		assert !t.isIdentity();
+		assert t.apply(new IntPoint(1, 2)).equals(new IntPoint(11, -3));
+	}
+	
+	@Test
+	void testScaling() {
+		Transform t = Transform.scaling(new IntPoint(10, 10), 3, 5);
+		assert t.apply(new IntPoint(20, 20)).equals(new IntPoint(40, 60));
+		assert t.apply(new IntPoint(10, 10)).equals(new IntPoint(10, 10));
+	}
+	
+	@Test
+	void testThen() {
+		Transform t = Transform.scaling(new IntPoint(0, 0), 2, 3).then(Transform.translation(new IntVector(1, 1)));
+		assert t.apply(new IntPoint(5, 5)).equals(new IntPoint(11, 16));
+		assert t.then(Transform.IDENTITY) == t;
+		assert Transform.IDENTITY.then(t) == t;
+	}
+	
+	@Test
+	void testThen_roundsOnce() {
+		Transform half = Transform.scaling(new IntPoint(0, 0), 0.5, 0.5);
+		Transform t = half.then(Transform.scaling(new IntPoint(0, 0), 2, 2));
+		assert t.apply(new IntPoint(3, 3)).equals(new IntPoint(3, 3));
+	}
+	
+	@Test
+	void testInverse() {
+		Transform t = Transform.scaling(new IntPoint(10, 10), 2, 4).then(Transform.translation(new IntVector(3, -8)));
+		assert t.then(t.inverse()).apply(new IntPoint(7, 9)).equals(new IntPoint(7, 9));
+		assert t.inverse().apply(t.apply(new IntPoint(-5, 12))).equals(new IntPoint(-5, 12));
+		assert Transform.IDENTITY.inverse() == Transform.IDENTITY;
+	}
+	
+	@Test
+	void testConstructor_illegal() {
+		assertThrows(IllegalArgumentException.class, () -> new Transform(0, 1, 0, 0));
+		assertThrows(IllegalArgumentException.class, () -> new Transform(1, Double.NaN, 0, 0));
+		assertThrows(IllegalArgumentException.class, () -> new Transform(1, 1, Double.POSITIVE_INFINITY, 0));
+	}
+
+}
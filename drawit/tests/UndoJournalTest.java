@@ -0,0 +1,120 @@
+package drawit.tests;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import drawit.IntPoint;
+import drawit.RoundedPolygon;
+import drawit.UndoJournal;
+
+class UndoJournalTest {
+
+	static IntPoint p(int x, int y) { return new IntPoint(x, y); }
+
+	static IntPoint[] square(int x, int y, int size) {
+		return new IntPoint[] {p(x, y), p(x + size, y), p(x + size, y + size), p(x, y + size)};
+	}
+
+	@Test
+	void testPolygonEdits_undoAndRedo() {
+		UndoJournal journal = new UndoJournal(1 << 20);
+		RoundedPolygon polygon = new RoundedPolygon();
+		polygon.setUndoJournal(journal);
+		polygon.setVertices(square(0, 0, 10));
+		polygon.insert(2, p(15, 5));
+		polygon.update(0, p(-5, -5));
+		polygon.remove(4);
+		polygon.setRadius(3);
+		polygon.setColor(Color.red);
+		assert journal.getUndoCount() == 6;
+
+		IntPoint[] last = polygon.getVertices();
+		IntPoint[][] states = {
+			{p(-5, -5), p(10, 0), p(15, 5), p(10, 10), p(0, 10)},
+			{p(0, 0), p(10, 0), p(15, 5), p(10, 10), p(0, 10)},
+			square(0, 0, 10),
+			{},
+		};
+		journal.undo();
+		assert polygon.getColor().equals(Color.yellow);
+		journal.undo();
+		assert polygon.getRadius() == 0;
+		for (IntPoint[] state : states) {
+			journal.undo();
+			assert Arrays.equals(polygon.getVertices(), state);
+		}
+		assert journal.getUndoCount() == 0 && journal.getRedoCount() == 6;
+		assertThrows(IllegalStateException.class, () -> journal.undo());
+
+		for (int i = 0; i < 6; i++)
+			journal.redo();
+		assert Arrays.equals(polygon.getVertices(), last);
+		assert polygon.getRadius() == 3 && polygon.getColor().equals(Color.red);
+		assertThrows(IllegalStateException.class, () -> journal.redo());
+	}
+
+	@Test
+	void testRecord_discardsRedo() {
+		UndoJournal journal = new UndoJournal(1 << 20);
+		RoundedPolygon polygon = new RoundedPolygon();
+		polygon.setVertices(square(0, 0, 10));
+		polygon.setUndoJournal(journal);
+		polygon.setRadius(1);
+		polygon.setRadius(2);
+		journal.undo();
+		polygon.setRadius(5);
+		assert journal.getRedoCount() == 0 && journal.getUndoCount() == 2;
+		journal.undo();
+		journal.undo();
+		assert polygon.getRadius() == 0;
+	}
+
+	@Test
+	void testMemoryLimit_discardsOldestEdits() {
+		RoundedPolygon polygon = new RoundedPolygon();
+		polygon.setVertices(square(0, 0, 1000));
+		UndoJournal journal = new UndoJournal(1000);
+		polygon.setUndoJournal(journal);
+		for (int i = 1; i <= 100; i++)
+			polygon.update(0, p(-i, -i));
+		assert 0 < journal.getUndoCount() && journal.getUndoCount() < 100;
+		assert journal.getMemoryUsage() <= 1000;
+		int count = journal.getUndoCount();
+		for (int i = 0; i < count; i++)
+			journal.undo();
+		assert polygon.getVertices()[0].equals(p(-100 + count, -100 + count));
+
+		// An edit that exceeds the limit by itself cannot be undone.
+		UndoJournal tiny = new UndoJournal(10);
+		polygon.setUndoJournal(tiny);
+		polygon.setVertices(square(0, 0, 5));
+		assert tiny.getUndoCount() == 0 && tiny.getMemoryUsage() == 0;
+	}
+
+	@Test
+	void testCompound() {
+		UndoJournal journal = new UndoJournal(1 << 20);
+		RoundedPolygon polygon = new RoundedPolygon();
+		polygon.setVertices(square(0, 0, 10));
+		polygon.setUndoJournal(journal);
+		journal.compound(() -> {
+			polygon.setRadius(2);
+			polygon.update(2, p(20, 20));
+		});
+		assert journal.getUndoCount() == 1;
+		journal.undo();
+		assert polygon.getRadius() == 0 && Arrays.equals(polygon.getVertices(), square(0, 0, 10));
+
+		assertThrows(IllegalArgumentException.class, () -> journal.compound(() -> {
+			polygon.setRadius(4);
+			polygon.update(0, p(10, 10));
+		}));
+		assert polygon.getRadius() == 0 && journal.getUndoCount() == 0 && journal.getRedoCount() == 1;
+		assertThrows(IllegalArgumentException.class, () -> new UndoJournal(-1));
+	}
+
+}
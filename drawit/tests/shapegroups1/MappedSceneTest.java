@@ -0,0 +1,149 @@
+package drawit.tests.shapegroups1;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import drawit.IntPoint;
+import drawit.IntVector;
+import drawit.RoundedPolygon;
+import drawit.Transform;
+import drawit.shapegroups1.Extent;
+import drawit.shapegroups1.LeafShapeGroup;
+import drawit.shapegroups1.NonleafShapeGroup;
+import drawit.shapegroups1.ShapeGroup;
+import drawit.shapegroups1.binary.MappedScene;
+import drawit.shapegroups1.binary.MappedShapeGroup;
+
+class MappedSceneTest {
+
+	@TempDir
+	Path directory;
+
+	static RoundedPolygon square(int x, int y) {
+		RoundedPolygon polygon = new RoundedPolygon();
+		polygon.setVertices(new IntPoint[] {new IntPoint(x, y), new IntPoint(x + 10, y), new IntPoint(x + 10, y + 10), new IntPoint(x, y + 10)});
+		return polygon;
+	}
+
+	/**
+	 * Returns a grid of 100 x 100 squares, grouped in rows of ten groups of ten squares.
+	 */
+	static ShapeGroup grid() {
+		List<ShapeGroup> rows = new ArrayList<>();
+		for (int row = 0; row < 100; row++) {
+			List<ShapeGroup> cells = new ArrayList<>();
+			for (int cell = 0; cell < 10; cell++) {
+				List<ShapeGroup> leaves = new ArrayList<>();
+				for (int i = 0; i < 10; i++)
+					leaves.add(new LeafShapeGroup(square((cell * 10 + i) * 20, row * 20)));
+				cells.add(new NonleafShapeGroup(leaves));
+			}
+			rows.add(new NonleafShapeGroup(cells));
+		}
+		return new NonleafShapeGroup(rows);
+	}
+
+	@Test
+	void testOpen_readsLazily() throws IOException {
+		ShapeGroup graph = grid();
+		Path file = directory.resolve("grid.drwm");
+		MappedScene.write(graph, file);
+		MappedScene scene = MappedScene.open(file);
+		assert scene.getSize() == Files.size(file);
+		assert scene.getLoadedCount() == 1;
+		MappedShapeGroup root = scene.getRoot();
+		assert root.getSubgroupCount() == 100 && root.getParentGroup() == null;
+		assert root.getBoundingBox().equals(graph.getBoundingBox());
+
+		Extent viewport = Extent.ofLeftTopWidthHeight(105, 105, 30, 30);
+		assert root.getDrawingCommands(viewport).equals(graph.getDrawingCommands(viewport));
+		// The root, all rows (to test their bounding boxes), and the cells and squares near the viewport.
+		assert scene.getLoadedCount() < 200;
+		assert root.getSubgroup(5) == root.getSubgroup(5);
+		assert root.getSubgroup(5).getParentGroup() == root;
+
+		MappedShapeGroup leaf = root.getSubgroup(3).getSubgroup(4).getSubgroup(5);
+		assert leaf.isLeaf() && leaf.getShape() == leaf.getShape();
+		assert leaf.getShape().getDrawingCommands().equals(((LeafShapeGroup)((NonleafShapeGroup)((NonleafShapeGroup)((NonleafShapeGroup)graph)
+				.getSubgroup(3)).getSubgroup(4)).getSubgroup(5)).getShape().getDrawingCommands());
+		assert root.getShape() == null;
+		assertThrows(IllegalArgumentException.class, () -> root.getSubgroup(100));
+	}
+
+	@Test
+	void testDrawingCommands_withTransforms() throws IOException {
+		Random random = new Random(41);
+		for (int round = 0; round < 10; round++) {
+			ShapeGroup graph = ShapeGroupExporterTest.randomGraph(random, 2 + random.nextInt(40));
+			NonleafShapeGroup nonleaf = (NonleafShapeGroup)graph;
+			nonleaf.getSubgroup(0).applyTransform(new Transform(2, 3, -50, 20));
+			nonleaf.getSubgroup(1).applyTransform(new Transform(-1, 0.5, 7, 0));
+			graph.applyTransform(Transform.translation(new IntVector(100, -100)));
+			Path file = directory.resolve("graph" + round + ".drwm");
+			MappedScene.write(graph, file);
+			MappedShapeGroup root = MappedScene.open(file).getRoot();
+			for (int i = 0; i < 20; i++) {
+				Extent viewport = Extent.ofLeftTopWidthHeight(random.nextInt(3000) - 1500, random.nextInt(3000) - 1500,
+						random.nextInt(1500), random.nextInt(1500));
+				assert root.getDrawingCommands(viewport).equals(graph.getDrawingCommands(viewport));
+			}
+			ShapeGroup copy = root.toShapeGroup();
+			ShapeGroupBinaryFormatTest.assertEquivalent(graph, copy);
+			assert copy.getDrawingCommands().equals(graph.getDrawingCommands());
+		}
+	}
+
+	@Test
+	void testDeepGraph() throws IOException {
+		ShapeGroup group = new LeafShapeGroup(square(0, 0));
+		for (int i = 1; i <= 50000; i++)
+			group = new NonleafShapeGroup(List.of(new LeafShapeGroup(square(i % 100 * 20, i / 100 * 20)), group));
+		Path file = directory.resolve("deep.drwm");
+		MappedScene.write(group, file);
+		MappedShapeGroup root = MappedScene.open(file).getRoot();
+		Extent everything = Extent.ofLeftTopRightBottom(-10, -10, 3000, 11000);
+		assert root.getDrawingCommands(everything).equals(group.getDrawingCommands());
+		assert root.toShapeGroup().getDrawingCommands().equals(group.getDrawingCommands());
+	}
+
+	@Test
+	void testOpen_invalidFiles() throws IOException {
+		Path file = directory.resolve("grid.drwm");
+		MappedScene.write(grid(), file);
+		byte[] bytes = Files.readAllBytes(file);
+
+		Path bad = directory.resolve("bad.drwm");
+		Files.write(bad, new byte[] {'D', 'R', 'W'});
+		assertThrows(IOException.class, () -> MappedScene.open(bad));
+		byte[] badVersion = bytes.clone();
+		badVersion[7] = 2;
+		Files.write(bad, badVersion);
+		assertThrows(IOException.class, () -> MappedScene.open(bad));
+		byte[] badRoot = bytes.clone();
+		badRoot[8] = 1;
+		Files.write(bad, badRoot);
+		assertThrows(IOException.class, () -> MappedScene.open(bad));
+
+		// A subgroup position that points past its parent's record is detected when the subgroup is accessed.
+		long rootPosition = java.nio.ByteBuffer.wrap(bytes, 8, 8).getLong();
+		int table = (int)rootPosition + 1 + 16 + 4;
+		byte[] badSubgroup = bytes.clone();
+		java.nio.ByteBuffer.wrap(badSubgroup).putLong(table, rootPosition);
+		Files.write(bad, badSubgroup);
+		MappedShapeGroup root = MappedScene.open(bad).getRoot();
+		assertThrows(UncheckedIOException.class, () -> root.getSubgroup(0));
+		root.getSubgroup(1);
+		assertThrows(IllegalArgumentException.class, () -> MappedScene.open(null));
+	}
+
+}
@@ -0,0 +1,116 @@
+package drawit.tests.shapegroups1;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import drawit.IntVector;
+import drawit.Transform;
+import drawit.shapegroups1.LeafShapeGroup;
+import drawit.shapegroups1.NonleafShapeGroup;
+import drawit.shapegroups1.ShapeGroup;
+import drawit.shapegroups1.binary.ShapeGroupBinaryFormat;
+import drawit.shapegroups1.exporter.ShapeGroupExporter;
+
+class ShapeGroupBinaryFormatTest {
+
+	static byte[] save(ShapeGroup group) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ShapeGroupBinaryFormat.write(group, bytes);
+		return bytes.toByteArray();
+	}
+
+	static ShapeGroup load(byte[] bytes) throws IOException {
+		return ShapeGroupBinaryFormat.read(new ByteArrayInputStream(bytes));
+	}
+
+	static void assertEquivalent(ShapeGroup expected, ShapeGroup actual) {
+		assert expected.getClass() == actual.getClass();
+		assert expected.getTransform().equals(actual.getTransform());
+		if (expected instanceof LeafShapeGroup) {
+			var expectedShape = ((LeafShapeGroup)expected).getShape();
+			var actualShape = ((LeafShapeGroup)actual).getShape();
+			assert Arrays.equals(expectedShape.getVertices(), actualShape.getVertices());
+			assert expectedShape.getRadius() == actualShape.getRadius();
+			assert expectedShape.getColor().equals(actualShape.getColor());
+		} else {
+			List<ShapeGroup> expectedSubgroups = ((NonleafShapeGroup)expected).getSubgroups();
+			List<ShapeGroup> actualSubgroups = ((NonleafShapeGroup)actual).getSubgroups();
+			assert expectedSubgroups.size() == actualSubgroups.size();
+			for (int i = 0; i < expectedSubgroups.size(); i++)
+				assertEquivalent(expectedSubgroups.get(i), actualSubgroups.get(i));
+		}
+	}
+
+	@Test
+	void testRoundTrip() throws IOException {
+		Random random = new Random(23);
+		for (int round = 0; round < 20; round++) {
+			ShapeGroup graph = ShapeGroupExporterTest.randomGraph(random, 1 + random.nextInt(30));
+			if (graph instanceof NonleafShapeGroup) {
+				((NonleafShapeGroup)graph).getSubgroup(0).applyTransform(new Transform(2, 0.5, 3, -4));
+				graph.applyTransform(Transform.translation(new IntVector(7, 9)));
+			}
+			ShapeGroup copy = load(save(graph));
+			assertEquivalent(graph, copy);
+			assert copy.getParentGroup() == null;
+			assert ShapeGroupExporter.toPlainData(copy).equals(ShapeGroupExporter.toPlainData(graph));
+			assert copy.getDrawingCommands().equals(graph.getDrawingCommands());
+		}
+	}
+
+	@Test
+	void testSize_smallerThanJson() throws IOException {
+		ShapeGroup graph = ShapeGroupExporterTest.randomGraph(new Random(5), 1000);
+		StringWriter json = new StringWriter();
+		ShapeGroupExporter.writeJson(graph, json);
+		assert save(graph).length * 4 < json.toString().length();
+	}
+
+	@Test
+	void testDeepGraph() throws IOException {
+		Random random = new Random(3);
+		ShapeGroup group = new LeafShapeGroup(ShapeGroupExporterTest.polygon(random));
+		for (int i = 0; i < 50000; i++)
+			group = new NonleafShapeGroup(List.of(new LeafShapeGroup(ShapeGroupExporterTest.polygon(random)), group));
+		ShapeGroup copy = load(save(group));
+		int depth = 0;
+		ShapeGroup expected = group;
+		for (ShapeGroup actual = copy; actual instanceof NonleafShapeGroup; actual = ((NonleafShapeGroup)actual).getSubgroup(1)) {
+			assertEquivalent(((NonleafShapeGroup)expected).getSubgroup(0), ((NonleafShapeGroup)actual).getSubgroup(0));
+			expected = ((NonleafShapeGroup)expected).getSubgroup(1);
+			depth++;
+		}
+		assert depth == 50000;
+	}
+
+	@Test
+	void testRead_invalidData() throws IOException {
+		byte[] bytes = save(ShapeGroupExporterTest.randomGraph(new Random(8), 10));
+		assertThrows(IOException.class, () -> load(Arrays.copyOf(bytes, bytes.length - 1)));
+		byte[] badMagic = bytes.clone();
+		badMagic[0] = 'X';
+		assertThrows(IOException.class, () -> load(badMagic));
+		byte[] badVersion = bytes.clone();
+		badVersion[4] = 9;
+		assertThrows(IOException.class, () -> load(badVersion));
+		byte[] badTag = bytes.clone();
+		badTag[5] = 7;
+		assertThrows(IOException.class, () -> load(badTag));
+		// A leaf whose shape has no vertices: magic, version, leaf tag, vertex count, radius and color.
+		byte[] noVertices = {'D', 'R', 'W', 'B', 1, 0, 0, 0, -1, 0, 0, 0};
+		IOException e = assertThrows(IOException.class, () -> load(noVertices));
+		assert e.getMessage().startsWith("Invalid leaf shape group") : e.getMessage();
+		assertThrows(IllegalArgumentException.class, () -> ShapeGroupBinaryFormat.read(null));
+		assertThrows(IllegalArgumentException.class, () -> ShapeGroupBinaryFormat.write(null, new ByteArrayOutputStream()));
+	}
+
+}
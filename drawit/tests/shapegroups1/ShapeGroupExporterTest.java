@@ -0,0 +1,162 @@
+package drawit.tests.shapegroups1;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import drawit.IntPoint;
+import drawit.RoundedPolygon;
+import drawit.ShapeJsonWriter;
+import drawit.shapegroups1.LeafShapeGroup;
+import drawit.shapegroups1.NonleafShapeGroup;
+import drawit.shapegroups1.ShapeGroup;
+import drawit.shapegroups1.exporter.ShapeGroupExporter;
+
+class ShapeGroupExporterTest {
+
+	/**
+	 * A parser for the JSON text written by the exporter: objects, arrays and integers.
+	 */
+	static class Parser {
+		final String text;
+		int position;
+
+		Parser(String text) { this.text = text; }
+
+		static Object parse(String text) {
+			Parser parser = new Parser(text);
+			Object result = parser.value();
+			assert parser.position == text.length();
+			return result;
+		}
+
+		void expect(char c) {
+			assert text.charAt(position) == c : "expected " + c + " at " + position;
+			position++;
+		}
+
+		Object value() {
+			char c = text.charAt(position);
+			if (c == '{') {
+				Map<String, Object> result = new LinkedHashMap<>();
+				position++;
+				while (text.charAt(position) != '}') {
+					if (!result.isEmpty())
+						expect(',');
+					expect('"');
+					int end = text.indexOf('"', position);
+					String name = text.substring(position, end);
+					position = end + 1;
+					expect(':');
+					result.put(name, value());
+				}
+				position++;
+				return result;
+			}
+			if (c == '[') {
+				List<Object> result = new ArrayList<>();
+				position++;
+				while (text.charAt(position) != ']') {
+					if (!result.isEmpty())
+						expect(',');
+					result.add(value());
+				}
+				position++;
+				return result;
+			}
+			int start = position;
+			if (c == '-')
+				position++;
+			while (position < text.length() && Character.isDigit(text.charAt(position)))
+				position++;
+			return Integer.parseInt(text.substring(start, position));
+		}
+	}
+
+	static RoundedPolygon polygon(Random random) {
+		int x = random.nextInt(2000) - 1000;
+		int y = random.nextInt(2000) - 1000;
+		int size = 1 + random.nextInt(100);
+		RoundedPolygon polygon = new RoundedPolygon();
+		polygon.setVertices(new IntPoint[] {new IntPoint(x, y), new IntPoint(x + size, y), new IntPoint(x, y + size)});
+		polygon.setRadius(random.nextInt(10));
+		return polygon;
+	}
+
+	static ShapeGroup randomGraph(Random random, int leafCount) {
+		List<ShapeGroup> groups = new ArrayList<>();
+		for (int i = 0; i < leafCount; i++)
+			groups.add(new LeafShapeGroup(polygon(random)));
+		while (groups.size() > 1) {
+			int count = Math.min(groups.size(), 2 + random.nextInt(4));
+			List<ShapeGroup> subgroups = new ArrayList<>();
+			for (int i = 0; i < count; i++)
+				subgroups.add(groups.remove(random.nextInt(groups.size())));
+			groups.add(new NonleafShapeGroup(subgroups));
+		}
+		return groups.get(0);
+	}
+
+	@Test
+	void testWriteJson_matchesPlainData() throws IOException {
+		Random random = new Random(17);
+		for (int round = 0; round < 20; round++) {
+			ShapeGroup graph = randomGraph(random, 1 + random.nextInt(30));
+			StringWriter writer = new StringWriter();
+			ShapeGroupExporter.writeJson(graph, writer);
+			assert Parser.parse(writer.toString()).equals(ShapeGroupExporter.toPlainData(graph));
+
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			ShapeGroupExporter.writeJson(graph, bytes);
+			assert new String(bytes.toByteArray(), StandardCharsets.UTF_8).equals(writer.toString());
+		}
+		assertThrows(IllegalArgumentException.class, () -> ShapeGroupExporter.writeJson(null, new StringWriter()));
+		assertThrows(IllegalArgumentException.class, () -> ShapeGroupExporter.writeJson(randomGraph(random, 1), (StringWriter)null));
+	}
+
+	@Test
+	void testWriteJson_deepGraph() throws IOException {
+		RoundedPolygon shape = polygon(new Random(1));
+		ShapeGroup group = new LeafShapeGroup(shape);
+		int depth = 50000;
+		for (int i = 0; i < depth; i++)
+			group = new NonleafShapeGroup(List.of(new LeafShapeGroup(polygon(new Random(i))), group));
+		StringWriter writer = new StringWriter();
+		ShapeGroupExporter.writeJson(group, writer);
+		String text = writer.toString();
+		assert text.startsWith("{\"subgroups\":[{\"shape\":");
+		assert text.endsWith("]}".repeat(depth));
+		StringWriter shapeWriter = new StringWriter();
+		ShapeJsonWriter json = new ShapeJsonWriter(shapeWriter);
+		json.writeShape(shape);
+		json.flush();
+		assert text.contains("{\"shape\":" + shapeWriter + "}]}");
+	}
+
+	@Test
+	void testShapeJsonWriter_writeInt() throws IOException {
+		StringWriter writer = new StringWriter();
+		ShapeJsonWriter json = new ShapeJsonWriter(writer);
+		int[] values = {0, 7, -7, 10, 1234567890, Integer.MAX_VALUE, Integer.MIN_VALUE, -1000};
+		for (int value : values) {
+			json.writeInt(value);
+			json.write(" ");
+		}
+		json.flush();
+		StringBuilder expected = new StringBuilder();
+		for (int value : values)
+			expected.append(value).append(' ');
+		assert writer.toString().equals(expected.toString());
+	}
+
+}
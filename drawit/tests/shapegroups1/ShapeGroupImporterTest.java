@@ -0,0 +1,132 @@
+package drawit.tests.shapegroups1;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import drawit.IntPoint;
+import drawit.IntVector;
+import drawit.RoundedPolygon;
+import drawit.Transform;
+import drawit.shapegroups1.LeafShapeGroup;
+import drawit.shapegroups1.NonleafShapeGroup;
+import drawit.shapegroups1.ShapeGroup;
+import drawit.shapegroups1.exporter.ShapeGroupExporter;
+import drawit.shapegroups1.importer.ImportMode;
+import drawit.shapegroups1.importer.ShapeGroupImporter;
+
+class ShapeGroupImporterTest {
+
+	static String toJson(ShapeGroup group) throws IOException {
+		StringWriter writer = new StringWriter();
+		ShapeGroupExporter.writeJson(group, writer);
+		return writer.toString();
+	}
+
+	static ShapeGroup readJson(String text, ImportMode mode) throws IOException {
+		return ShapeGroupImporter.readJson(new StringReader(text), mode);
+	}
+
+	@Test
+	void testRoundTrip() throws IOException {
+		Random random = new Random(11);
+		for (int round = 0; round < 20; round++) {
+			ShapeGroup graph = ShapeGroupExporterTest.randomGraph(random, 1 + random.nextInt(40));
+			Object plainData = ShapeGroupExporter.toPlainData(graph);
+			String json = toJson(graph);
+			for (ImportMode mode : ImportMode.values()) {
+				ShapeGroupBinaryFormatTest.assertEquivalent(graph, ShapeGroupImporter.toShapeGroup(plainData, mode));
+				ShapeGroup copy = readJson(json, mode);
+				ShapeGroupBinaryFormatTest.assertEquivalent(graph, copy);
+				assert copy.getParentGroup() == null;
+			}
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			ShapeGroupExporter.writeJson(graph, bytes);
+			ShapeGroup copy = ShapeGroupImporter.readJson(new ByteArrayInputStream(bytes.toByteArray()), ImportMode.BULK);
+			assert ShapeGroupExporter.toPlainData(copy).equals(plainData);
+		}
+	}
+
+	@Test
+	void testRoundTrip_transforms() throws IOException {
+		Random random = new Random(5);
+		for (int round = 0; round < 20; round++) {
+			ShapeGroup graph = ShapeGroupExporterTest.randomGraph(random, 2 + random.nextInt(40));
+			graph.applyTransform(Transform.scaling(new IntPoint(random.nextInt(100), random.nextInt(100)), 2, 3));
+			ShapeGroup subgroup = ((NonleafShapeGroup)graph).getSubgroup(random.nextInt(((NonleafShapeGroup)graph).getSubgroupCount()));
+			subgroup.applyTransform(Transform.translation(new IntVector(random.nextInt(200) - 100, random.nextInt(200) - 100)));
+			Object plainData = ShapeGroupExporter.toPlainData(graph);
+			String json = toJson(graph);
+			Map<RoundedPolygon, IntPoint[]> outerVertices = graph.getAllOuterVertices();
+			ShapeGroup fromPlainData = ShapeGroupImporter.toShapeGroup(plainData);
+			ShapeGroup fromJson = readJson(json, ImportMode.SEQUENTIAL);
+			
+			graph.bakeTransforms();
+			String drawingCommands = graph.getDrawingCommands();
+			assert fromPlainData.getDrawingCommands().equals(drawingCommands);
+			assert fromJson.getDrawingCommands().equals(drawingCommands);
+			assert fromJson.getTransform().isIdentity();
+			List<RoundedPolygon> shapes = graph.getAllShapes();
+			List<RoundedPolygon> importedShapes = fromJson.getAllShapes();
+			for (int i = 0; i < shapes.size(); i++)
+				assert Arrays.equals(importedShapes.get(i).getVertices(), outerVertices.get(shapes.get(i)));
+		}
+	}
+
+	@Test
+	void testReadJson_whitespaceAndMemberOrder() throws IOException {
+		String json = "{ \"subgroups\" : [\n"
+				+ "  {\"shape\": {\"color\": {\"blue\": 3, \"red\": 1, \"green\": 2}, \"radius\": 4,\n"
+				+ "    \"vertices\": [{\"y\": 0, \"x\": 0}, {\"x\": 10, \"y\": 0}, {\"x\": 0, \"y\": -10}]}},\n"
+				+ "  {\"shape\": {\"vertices\": [{\"x\": 0, \"y\": 0}, {\"x\": 1, \"y\": 0}, {\"x\": 0, \"y\": 1}], \"radius\": 0, "
+				+ "\"color\": {\"red\": 0, \"green\": 0, \"blue\": 0}}}\n"
+				+ "] }\n";
+		ShapeGroup group = readJson(json, ImportMode.SEQUENTIAL);
+		RoundedPolygon shape = ((LeafShapeGroup)((NonleafShapeGroup)group).getSubgroup(0)).getShape();
+		assert shape.getRadius() == 4 && shape.getColor().getBlue() == 3;
+		assert shape.getVertices()[2].equals(new IntPoint(0, -10));
+	}
+
+	@Test
+	void testDeepGraph() throws IOException {
+		Random random = new Random(2);
+		ShapeGroup group = new LeafShapeGroup(ShapeGroupExporterTest.polygon(random));
+		for (int i = 0; i < 50000; i++)
+			group = new NonleafShapeGroup(List.of(new LeafShapeGroup(ShapeGroupExporterTest.polygon(random)), group));
+		String json = toJson(group);
+		for (ImportMode mode : ImportMode.values())
+			assert toJson(readJson(json, mode)).equals(json);
+		assert toJson(ShapeGroupImporter.toShapeGroup(ShapeGroupExporter.toPlainData(group))).equals(json);
+	}
+
+	@Test
+	void testInvalidInput() {
+		String shape = "{\"shape\":{\"vertices\":[{\"x\":0,\"y\":0},{\"x\":1,\"y\":0},{\"x\":0,\"y\":1}],\"radius\":0,\"color\":{\"red\":0,\"green\":0,\"blue\":0}}}";
+		String line = "{\"shape\":{\"vertices\":[{\"x\":0,\"y\":0},{\"x\":1,\"y\":1},{\"x\":2,\"y\":2}],\"radius\":0,\"color\":{\"red\":0,\"green\":0,\"blue\":0}}}";
+		for (ImportMode mode : ImportMode.values()) {
+			assertThrows(IOException.class, () -> readJson("{\"subgroups\":[" + shape + "]}", mode));
+			assertThrows(IOException.class, () -> readJson("{\"subgroups\":[" + shape + "," + line + "]}", mode));
+			assertThrows(IOException.class, () -> readJson("{\"subgroups\":[" + shape + "," + shape, mode));
+			assertThrows(IOException.class, () -> readJson(shape + "x", mode));
+			assertThrows(IOException.class, () -> readJson(shape.replace("\"radius\":0", "\"radius\":99999999999"), mode));
+			assertThrows(IOException.class, () -> readJson(shape.replace("\"red\":0", "\"red\":256"), mode));
+			assertThrows(IOException.class, () -> readJson(shape.replace("radius", "size"), mode));
+			assertThrows(IllegalArgumentException.class, () -> ShapeGroupImporter.toShapeGroup(Map.of("subgroups", List.of()), mode));
+		}
+		assertThrows(IllegalArgumentException.class, () -> ShapeGroupImporter.toShapeGroup(null));
+		assertThrows(IllegalArgumentException.class, () -> ShapeGroupImporter.toShapeGroup(Map.of("shape", Map.of())));
+		assertThrows(IllegalArgumentException.class, () -> ShapeGroupImporter.toIntPoint(Map.of("x", 1, "y", "2")));
+		assertThrows(IllegalArgumentException.class, () -> ShapeGroupImporter.readJson(new StringReader(shape), null));
+	}
+
+}
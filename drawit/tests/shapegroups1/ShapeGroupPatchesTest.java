@@ -0,0 +1,169 @@
+package drawit.tests.shapegroups1;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import drawit.IntPoint;
+import drawit.IntVector;
+import drawit.RoundedPolygon;
+import drawit.Transform;
+import drawit.VersionClock;
+import drawit.shapegroups1.LeafShapeGroup;
+import drawit.shapegroups1.NonleafShapeGroup;
+import drawit.shapegroups1.ShapeGroup;
+import drawit.shapegroups1.binary.ShapeGroupPatches;
+
+class ShapeGroupPatchesTest {
+
+	ShapeGroup graph = ShapeGroupExporterTest.randomGraph(new Random(31), 200);
+	ShapeGroup replica;
+	long token;
+
+	ShapeGroupPatchesTest() throws IOException {
+		replica = ShapeGroupBinaryFormatTest.load(ShapeGroupBinaryFormatTest.save(graph));
+		token = VersionClock.current();
+	}
+
+	/**
+	 * Sends the changes since the last synchronization to the replica, and returns the size of the patch stream.
+	 */
+	int synchronize() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		token = ShapeGroupPatches.writeChanges(graph, token, bytes);
+		replica = ShapeGroupPatches.applyChanges(replica, new ByteArrayInputStream(bytes.toByteArray()));
+		ShapeGroupBinaryFormatTest.assertEquivalent(graph, replica);
+		return bytes.size();
+	}
+
+	static NonleafShapeGroup firstNonleaf(ShapeGroup group) {
+		NonleafShapeGroup result = (NonleafShapeGroup)group;
+		while (((NonleafShapeGroup)group).getSubgroup(0) instanceof NonleafShapeGroup)
+			result = (NonleafShapeGroup)(group = ((NonleafShapeGroup)group).getSubgroup(0));
+		return result;
+	}
+
+	static RoundedPolygon firstShape(ShapeGroup group) {
+		return ((LeafShapeGroup)firstNonleaf(group).getSubgroup(0)).getShape();
+	}
+
+	@Test
+	void testNoChanges() throws IOException {
+		assert synchronize() == 6;
+		assert synchronize() == 6;
+	}
+
+	@Test
+	void testShapeChange() throws IOException {
+		int fullSize = ShapeGroupBinaryFormatTest.save(graph).length;
+		RoundedPolygon shape = firstShape(graph);
+		shape.update(0, new IntPoint(shape.getVertices()[0].getX() - 1, shape.getVertices()[0].getY()));
+		int size = synchronize();
+		assert size * 20 < fullSize;
+		shape.setColor(Color.blue);
+		shape.setRadius(5);
+		synchronize();
+	}
+
+	@Test
+	void testTransformAndStructureChanges() throws IOException {
+		NonleafShapeGroup inner = firstNonleaf(graph);
+		inner.getSubgroup(1).applyTransform(new Transform(3, 0.25, 1, 2));
+		inner.getParentGroup().applyTransform(Transform.translation(new IntVector(-4, 4)));
+		synchronize();
+
+		inner.getSubgroup(0).bringToFront();
+		synchronize();
+		inner.addSubgroup(1, new LeafShapeGroup(ShapeGroupExporterTest.polygon(new Random(4))));
+		firstShape(graph).setRadius(9);
+		synchronize();
+		inner.removeSubgroup(inner.getSubgroup(2));
+		graph.translate(new IntVector(10, 10));
+		synchronize();
+	}
+
+	@Test
+	void testSubtreeVersions() throws IOException {
+		NonleafShapeGroup root = (NonleafShapeGroup)graph;
+		NonleafShapeGroup inner = firstNonleaf(graph);
+		long before = VersionClock.current();
+		assert root.getSubtreeVersion() <= before;
+		firstShape(graph).setRadius(8);
+		assert before < root.getSubtreeVersion() && before < inner.getSubtreeVersion();
+		assert inner.getSubgroup(1).getSubtreeVersion() <= before;
+		assert root.getSubgroup(root.getSubgroupCount() - 1).getSubtreeVersion() <= before;
+		synchronize();
+
+		long synchronizedVersion = VersionClock.current();
+		inner.getSubgroup(1).applyTransform(Transform.translation(new IntVector(1, 2)));
+		assert synchronizedVersion < root.getSubtreeVersion() && inner.getSubgroup(0).getSubtreeVersion() <= synchronizedVersion;
+		synchronize();
+		assert root.getSubtreeVersion() <= token;
+		assert synchronize() == 6;
+	}
+
+	@Test
+	void testShapeChangeInBatch() throws IOException {
+		RoundedPolygon shape = firstShape(graph);
+		int radius = shape.getRadius() + 1;
+		graph.getSubtreeVersion();
+		shape.beginBatch();
+		shape.setRadius(radius);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		token = ShapeGroupPatches.writeChanges(graph, token, bytes);
+		replica = ShapeGroupPatches.applyChanges(replica, new ByteArrayInputStream(bytes.toByteArray()));
+		shape.endBatch();
+		synchronize();
+		assert firstShape(replica).getRadius() == radius;
+	}
+
+	@Test
+	void testRootReplaced() throws IOException {
+		NonleafShapeGroup root = (NonleafShapeGroup)graph;
+		root.getSubgroup(0).sendToBack();
+		ShapeGroup oldReplica = replica;
+		synchronize();
+		assert replica != oldReplica;
+	}
+
+	@Test
+	void testApply_invalidStreams() throws IOException {
+		firstShape(graph).setRadius(7);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ShapeGroupPatches.writeChanges(graph, token, bytes);
+		byte[] patches = bytes.toByteArray();
+		LeafShapeGroup leaf = new LeafShapeGroup(ShapeGroupExporterTest.polygon(new Random(1)));
+		assertThrows(IOException.class, () -> ShapeGroupPatches.applyChanges(leaf, new ByteArrayInputStream(patches)));
+		byte[] truncated = java.util.Arrays.copyOf(patches, patches.length - 1);
+		assertThrows(IOException.class, () -> ShapeGroupPatches.applyChanges(replica, new ByteArrayInputStream(truncated)));
+		assertThrows(IllegalArgumentException.class, () -> ShapeGroupPatches.writeChanges(graph, -1, new ByteArrayOutputStream()));
+		assertThrows(IllegalArgumentException.class, () -> ShapeGroupPatches.applyChanges(null, new ByteArrayInputStream(patches)));
+	}
+
+	@Test
+	void testVersions() {
+		RoundedPolygon shape = new RoundedPolygon();
+		long created = shape.getVersion();
+		assert 0 < created && created <= VersionClock.current();
+		shape.setRadius(1);
+		assert created < shape.getVersion();
+		LeafShapeGroup leaf1 = new LeafShapeGroup(ShapeGroupExporterTest.polygon(new Random(1)));
+		LeafShapeGroup leaf2 = new LeafShapeGroup(ShapeGroupExporterTest.polygon(new Random(2)));
+		long before = VersionClock.current();
+		NonleafShapeGroup group = new NonleafShapeGroup(List.of(leaf1, leaf2));
+		assert before < group.getSubgroupsVersion() && leaf1.getTransformVersion() <= before;
+		leaf1.replaceTransform(new Transform(2, 2, 0, 0));
+		assert before < leaf1.getTransformVersion() && leaf1.getTransform().equals(new Transform(2, 2, 0, 0));
+		long reordered = VersionClock.current();
+		leaf2.bringToFront();
+		assert reordered < group.getSubgroupsVersion();
+	}
+
+}
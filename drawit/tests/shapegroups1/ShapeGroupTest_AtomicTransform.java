@@ -0,0 +1,120 @@
+package drawit.tests.shapegroups1;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import drawit.IntPoint;
+import drawit.IntVector;
+import drawit.OffHeapVertexArena;
+import drawit.RoundedPolygon;
+import drawit.RoundedPolygonListener;
+import drawit.UndoJournal;
+import drawit.shapegroups1.LeafShapeGroup;
+import drawit.shapegroups1.NonleafShapeGroup;
+import drawit.shapegroups1.ShapeGroup;
+
+class ShapeGroupTest_AtomicTransform {
+	
+	static IntPoint p(int x, int y) { return new IntPoint(x, y); }
+	
+	static RoundedPolygon square(int x, int y, int size) {
+		RoundedPolygon polygon = new RoundedPolygon();
+		polygon.setVertices(new IntPoint[] {p(x, y), p(x + size, y), p(x + size, y + size), p(x, y + size)});
+		return polygon;
+	}
+	
+	@Test
+	void testScale_rollsBackOnFailure() {
+		RoundedPolygon big = square(0, 0, 1000);
+		RoundedPolygon small = square(2000, 2000, 2);
+		NonleafShapeGroup group = new NonleafShapeGroup(new ShapeGroup[] {new LeafShapeGroup(big), new LeafShapeGroup(small)});
+		IntPoint[] bigVertices = big.getVertices();
+		IntPoint[] smallVertices = small.getVertices();
+		
+		IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> group.scale(p(0, 0), 0.1, 0.1));
+		assert e.getMessage().startsWith("shape 1 ");
+		assert Arrays.equals(bigVertices, big.getVertices());
+		assert Arrays.equals(smallVertices, small.getVertices());
+	}
+	
+	@Test
+	void testTranslate_manyShapes() {
+		ShapeGroup[] leaves = new ShapeGroup[100];
+		for (int i = 0; i < leaves.length; i++)
+			leaves[i] = new LeafShapeGroup(square(20 * i, 0, 10));
+		NonleafShapeGroup group = new NonleafShapeGroup(leaves);
+		group.translate(new IntVector(5, 7));
+		for (int i = 0; i < leaves.length; i++)
+			assert Arrays.equals(square(20 * i + 5, 7, 10).getVertices(), ((LeafShapeGroup)leaves[i]).getShape().getVertices());
+	}
+	
+	@Test
+	void testScale_manyShapes_rollsBackOnFailure() {
+		ShapeGroup[] leaves = new ShapeGroup[100];
+		for (int i = 0; i < leaves.length; i++)
+			leaves[i] = new LeafShapeGroup(square(100 * i, 0, i == 57 ? 1 : 100));
+		NonleafShapeGroup group = new NonleafShapeGroup(leaves);
+		
+		IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> group.scale(p(0, 0), 0.4, 0.4));
+		assert e.getMessage().startsWith("shape 57 ");
+		for (int i = 0; i < leaves.length; i++)
+			assert Arrays.equals(square(100 * i, 0, i == 57 ? 1 : 100).getVertices(), ((LeafShapeGroup)leaves[i]).getShape().getVertices());
+	}
+	
+	@Test
+	void testScale_failureChangesNothing() throws IOException {
+		try (OffHeapVertexArena arena = OffHeapVertexArena.allocateDirect(1000)) {
+			ShapeGroup[] leaves = new ShapeGroup[100];
+			for (int i = 0; i < leaves.length; i++) {
+				RoundedPolygon shape = new RoundedPolygon(arena);
+				shape.setVertices(square(100 * i, 0, i == 90 ? 1 : 100).getVertices());
+				leaves[i] = new LeafShapeGroup(shape);
+			}
+			NonleafShapeGroup group = new NonleafShapeGroup(leaves);
+			int[] events = {0};
+			RoundedPolygonListener listener = new RoundedPolygonListener() {
+				@Override
+				public void verticesChanged(RoundedPolygon shape, int index, int removedCount, int insertedCount) {
+					events[0]++;
+				}
+			};
+			UndoJournal journal = new UndoJournal(1 << 20);
+			group.setUndoJournal(journal);
+			for (RoundedPolygon shape : group.getAllShapes())
+				shape.addListener(listener);
+			long[] versions = group.getAllShapes().stream().mapToLong(s -> s.getVersion()).toArray();
+			long vertexCount = arena.getVertexCount();
+			
+			assertThrows(IllegalArgumentException.class, () -> group.scale(p(0, 0), 0.4, 0.4));
+			assert events[0] == 0 && journal.getUndoCount() == 0;
+			assert Arrays.equals(versions, group.getAllShapes().stream().mapToLong(s -> s.getVersion()).toArray());
+			assert arena.getVertexCount() == vertexCount;
+			
+			group.scale(p(0, 0), 2, 2);
+			assert events[0] == 100 && journal.getUndoCount() == 1;
+			assert Arrays.equals(square(0, 0, 200).getVertices(), group.getAllShapes().get(0).getVertices());
+		}
+	}
+	
+	@Test
+	void testSetVertices_arenaFull() throws IOException {
+		try (OffHeapVertexArena arena = OffHeapVertexArena.allocateDirect(13)) {
+			RoundedPolygon first = new RoundedPolygon(arena);
+			first.setVertices(square(0, 0, 10).getVertices());
+			RoundedPolygon second = new RoundedPolygon(arena);
+			second.setVertices(square(20, 0, 10).getVertices());
+			IntPoint[] triangle = {p(0, 0), p(10, 0), p(0, 10)};
+			IntPoint[] pentagon = {p(0, 0), p(10, 0), p(15, 5), p(10, 10), p(0, 10)};
+			assertThrows(IllegalStateException.class, () -> RoundedPolygon.setVertices(List.of(first, second), List.of(pentagon, pentagon)));
+			assert first.getVertexCount() == 4 && second.getVertexCount() == 4;
+			RoundedPolygon.setVertices(List.of(first, second), List.of(triangle, pentagon));
+			assert Arrays.equals(triangle, first.getVertices()) && Arrays.equals(pentagon, second.getVertices());
+		}
+	}
+
+}
@@ -0,0 +1,155 @@
+package drawit.tests.shapegroups1;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import drawit.IntPoint;
+import drawit.IntVector;
+import drawit.RoundedPolygon;
+import drawit.Transform;
+import drawit.shapegroups1.Extent;
+import drawit.shapegroups1.LeafShapeGroup;
+import drawit.shapegroups1.NonleafShapeGroup;
+import drawit.shapegroups1.ShapeGroup;
+import drawit.shapegroups1.exporter.ShapeGroupExporter;
+
+class ShapeGroupTest_DeepNesting {
+
+	/**
+	 * Deep enough to overflow the stack of a recursive traversal.
+	 */
+	static final int DEPTH = 50000;
+
+	static IntPoint p(int x, int y) { return new IntPoint(x, y); }
+
+	static RoundedPolygon square(int x, int y) {
+		RoundedPolygon polygon = new RoundedPolygon();
+		polygon.setVertices(new IntPoint[] {p(x, y), p(x + 10, y), p(x + 10, y + 10), p(x, y + 10)});
+		return polygon;
+	}
+
+	RoundedPolygon[] shapes = new RoundedPolygon[DEPTH + 1];
+	LeafShapeGroup deepestLeaf;
+	NonleafShapeGroup root;
+
+	/**
+	 * A chain of non-leaf shape groups; the shape group at level {@code i} contains the leaf with shape {@code shapes[i]}
+	 * and the shape group at level {@code i + 1}. The deepest leaf has shape {@code shapes[DEPTH]}.
+	 */
+	{
+		for (int i = 0; i <= DEPTH; i++)
+			shapes[i] = square(i % 100 * 20, i / 100 * 20);
+		deepestLeaf = new LeafShapeGroup(shapes[DEPTH]);
+		ShapeGroup group = deepestLeaf;
+		for (int i = DEPTH - 1; 0 <= i; i--)
+			group = new NonleafShapeGroup(new ShapeGroup[] {new LeafShapeGroup(shapes[i]), group});
+		root = (NonleafShapeGroup)group;
+	}
+
+	@Test
+	void testGetAllShapes() {
+		assert root.getAllShapes().equals(List.of(shapes));
+		int[] count = {0};
+		root.forEachShape(shape -> {
+			assert shape == shapes[count[0]];
+			count[0]++;
+		});
+		assert count[0] == DEPTH + 1;
+	}
+
+	@Test
+	void testGetBoundingBox() {
+		Extent boundingBox = root.getBoundingBox();
+		assert boundingBox.getLeft() == 0 && boundingBox.getTop() == 0;
+		assert boundingBox.getRight() == 99 * 20 + 10 && boundingBox.getBottom() == DEPTH / 100 * 20 + 10;
+
+		shapes[DEPTH].setVertices(new IntPoint[] {p(-5, -5), p(0, -5), p(0, 0)});
+		assert root.getBoundingBox().getLeft() == -5 && root.getBoundingBox().getTop() == -5;
+
+		deepestLeaf.applyTransform(new Transform(2, 2, -10, 0));
+		root.applyTransform(Transform.translation(new IntVector(100, 100)));
+		assert root.getBoundingBox().getLeft() == 80 && root.getBoundingBox().getTop() == 90;
+		assert root.getBoundingBox().getRight() == 99 * 20 + 110;
+	}
+
+	@Test
+	void testGetDrawingCommands() {
+		StringBuilder expected = new StringBuilder();
+		for (int i = DEPTH; 0 <= i; i--)
+			expected.append(shapes[i].getDrawingCommands());
+		assert root.getDrawingCommands().equals(expected.toString());
+
+		shapes[DEPTH].setRadius(3);
+		assert root.getDrawingCommands().startsWith(shapes[DEPTH].getDrawingCommands());
+
+		Transform transform = Transform.translation(new IntVector(1, 2));
+		root.applyTransform(transform);
+		String commands = root.getDrawingCommands();
+		assert commands.startsWith(transform.getPushCommands() + shapes[DEPTH].getDrawingCommands());
+		assert commands.endsWith(shapes[0].getDrawingCommands() + transform.getPopCommands());
+	}
+
+	@Test
+	void testGetDrawingCommands_viewport() {
+		// Only the shapes in the first row and the deepest shape, which is moved there, intersect the viewport.
+		shapes[DEPTH].setVertices(new IntPoint[] {p(0, 0), p(5, 0), p(5, 5)});
+		String commands = root.getDrawingCommands(Extent.ofLeftTopRightBottom(0, 0, 10000, 15));
+		StringBuilder expected = new StringBuilder(shapes[DEPTH].getDrawingCommands());
+		for (int i = 99; 0 <= i; i--)
+			expected.append(shapes[i].getDrawingCommands());
+		assert commands.equals(expected.toString());
+	}
+
+	@Test
+	void testBakeTransforms() {
+		deepestLeaf.applyTransform(Transform.translation(new IntVector(1, 1)));
+		root.applyTransform(Transform.translation(new IntVector(2, 3)));
+		root.bakeTransforms();
+		assert root.getTransform().isIdentity() && deepestLeaf.getTransform().isIdentity();
+		assert shapes[0].getVertices()[0].equals(p(2, 3));
+		assert shapes[DEPTH].getVertices()[0].equals(p(DEPTH % 100 * 20 + 3, DEPTH / 100 * 20 + 4));
+	}
+
+	@Test
+	void testZOrder() {
+		LeafShapeGroup frontLeaf = (LeafShapeGroup)root.getSubgroup(0);
+		assert root.compareZOrder(deepestLeaf) < 0;
+		assert frontLeaf.compareZOrder(deepestLeaf) < 0;
+		assert deepestLeaf.getParentGroup().compareZOrder(deepestLeaf) < 0;
+
+		deepestLeaf.bringToFront();
+		assert deepestLeaf.getParentGroup().getSubgroup(0) == deepestLeaf;
+		assert frontLeaf.compareZOrder(deepestLeaf) < 0;
+		assert deepestLeaf.compareZOrder(deepestLeaf.getParentGroup().getSubgroup(1)) < 0;
+	}
+
+	@Test
+	void testAddSubgroup_cycle() {
+		// The z-order labels of a newly built graph are assigned lazily; the cycle check must not rely on them.
+		NonleafShapeGroup deepestGroup = deepestLeaf.getParentGroup();
+		assertThrows(IllegalArgumentException.class, () -> deepestGroup.addSubgroup(0, root));
+		NonleafShapeGroup newRoot = new NonleafShapeGroup(new ShapeGroup[] {root, new LeafShapeGroup(square(0, 0))});
+		assertThrows(IllegalArgumentException.class, () -> deepestGroup.addSubgroup(0, newRoot));
+		LeafShapeGroup leaf = new LeafShapeGroup(square(0, 0));
+		deepestGroup.addSubgroup(2, leaf);
+		assert deepestLeaf.compareZOrder(leaf) < 0;
+		assert newRoot.compareZOrder(leaf) < 0;
+	}
+
+	@Test
+	void testToPlainData() {
+		Object data = ShapeGroupExporter.toPlainData(root);
+		for (int i = 0; i < DEPTH; i++) {
+			List<?> subgroups = (List<?>)((Map<?, ?>)data).get("subgroups");
+			assert subgroups.size() == 2;
+			assert ((Map<?, ?>)subgroups.get(0)).get("shape").equals(ShapeGroupExporter.toPlainData(shapes[i]));
+			data = subgroups.get(1);
+		}
+		assert ((Map<?, ?>)data).get("shape").equals(ShapeGroupExporter.toPlainData(shapes[DEPTH]));
+	}
+
+}
@@ -0,0 +1,119 @@
+package drawit.tests.shapegroups1;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.Test;
+
+import drawit.IntPoint;
+import drawit.IntVector;
+import drawit.RoundedPolygon;
+import drawit.Transform;
+import drawit.shapegroups1.LeafShapeGroup;
+import drawit.shapegroups1.NonleafShapeGroup;
+import drawit.shapegroups1.ShapeGroup;
+
+class ShapeGroupTest_DrawingCommandsCache {
+	
+	static IntPoint p(int x, int y) { return new IntPoint(x, y); }
+	
+	static RoundedPolygon square(int x, int y) {
+		RoundedPolygon polygon = new RoundedPolygon();
+		polygon.setVertices(new IntPoint[] {p(x, y), p(x + 10, y), p(x + 10, y + 10), p(x, y + 10)});
+		return polygon;
+	}
+	
+	RoundedPolygon poly1 = square(0, 0);
+	RoundedPolygon poly2 = square(20, 0);
+	RoundedPolygon poly3 = square(40, 0);
+	LeafShapeGroup leaf1 = new LeafShapeGroup(poly1);
+	LeafShapeGroup leaf2 = new LeafShapeGroup(poly2);
+	LeafShapeGroup leaf3 = new LeafShapeGroup(poly3);
+	NonleafShapeGroup group = new NonleafShapeGroup(new ShapeGroup[] {leaf1, leaf2});
+	NonleafShapeGroup root = new NonleafShapeGroup(new ShapeGroup[] {group, leaf3});
+	
+	String expected() {
+		return poly3.getDrawingCommands() + poly2.getDrawingCommands() + poly1.getDrawingCommands();
+	}
+	
+	@Test
+	void testUnchanged_returnsCachedCommands() {
+		String commands = root.getDrawingCommands();
+		assert commands.equals(expected());
+		assert root.getDrawingCommands() == commands;
+	}
+	
+	@Test
+	void testShapeChanged() {
+		root.getDrawingCommands();
+		poly2.setColor(Color.red);
+		assert root.getDrawingCommands().equals(expected());
+		poly1.update(0, p(1, 1));
+		assert root.getDrawingCommands().equals(expected());
+		assert group.getDrawingCommands().equals(poly2.getDrawingCommands() + poly1.getDrawingCommands());
+	}
+	
+	@Test
+	void testSubgroupChangedAfterDirectCall() {
+		root.getDrawingCommands();
+		leaf1.getDrawingCommands();
+		poly1.setRadius(3);
+		leaf1.getDrawingCommands();
+		assert root.getDrawingCommands().equals(expected());
+	}
+	
+	@Test
+	void testShapeChanged_listensOnlyWhileCached() {
+		assert poly1.getListeners().isEmpty();
+		root.getDrawingCommands();
+		assert poly1.getListeners().size() == 1;
+		poly1.setRadius(2);
+		assert poly1.getListeners().isEmpty();
+		assert root.getBoundingBox().getRight() == 50;
+		assert poly1.getListeners().size() == 1;
+	}
+	
+	@Test
+	void testShapeChangedInBatch() {
+		root.getDrawingCommands();
+		poly2.beginBatch();
+		poly2.setColor(Color.red);
+		poly2.update(1, p(35, 0));
+		poly2.endBatch();
+		assert root.getDrawingCommands().equals(expected());
+		assert root.getBoundingBox().getRight() == 50;
+		assert group.getBoundingBox().getRight() == 35;
+	}
+	
+	@Test
+	void testReordered() {
+		root.getDrawingCommands();
+		leaf2.bringToFront();
+		assert root.getDrawingCommands().equals(poly3.getDrawingCommands() + poly1.getDrawingCommands() + poly2.getDrawingCommands());
+		leaf2.sendToBack();
+		assert root.getDrawingCommands().equals(expected());
+	}
+	
+	@Test
+	void testTransformed() {
+		root.getDrawingCommands();
+		Transform transform = Transform.translation(new IntVector(5, 5));
+		group.applyTransform(transform);
+		assert root.getDrawingCommands().equals(poly3.getDrawingCommands() +
+				transform.getPushCommands() + poly2.getDrawingCommands() + poly1.getDrawingCommands() + transform.getPopCommands());
+		root.bakeTransforms();
+		assert root.getDrawingCommands().equals(expected());
+		root.translate(new IntVector(1, 2));
+		assert root.getDrawingCommands().equals(expected());
+	}
+
+	@Test
+	void testWriteDrawingCommands() throws IOException {
+		StringWriter writer = new StringWriter();
+		root.writeDrawingCommands(writer);
+		assert writer.toString().equals(expected());
+		assert root.getDrawingCommandsRope().length() == expected().length();
+	}
+
+}
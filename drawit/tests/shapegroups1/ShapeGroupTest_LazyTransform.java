@@ -0,0 +1,97 @@
+package drawit.tests.shapegroups1;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import drawit.IntPoint;
+import drawit.IntVector;
+import drawit.RoundedPolygon;
+import drawit.Transform;
+import drawit.shapegroups1.Extent;
+import drawit.shapegroups1.LeafShapeGroup;
+import drawit.shapegroups1.NonleafShapeGroup;
+import drawit.shapegroups1.ShapeGroup;
+
+class ShapeGroupTest_LazyTransform {
+	
+	static IntPoint p(int x, int y) { return new IntPoint(x, y); }
+	
+	static IntPoint[] square(int x, int y, int size) {
+		return new IntPoint[] {p(x, y), p(x + size, y), p(x + size, y + size), p(x, y + size)};
+	}
+	
+	static RoundedPolygon polygon(IntPoint[] vertices) {
+		RoundedPolygon polygon = new RoundedPolygon();
+		polygon.setVertices(vertices);
+		return polygon;
+	}
+	
+	RoundedPolygon poly1 = polygon(square(0, 0, 10));
+	RoundedPolygon poly2 = polygon(square(20, 0, 10));
+	LeafShapeGroup leaf1 = new LeafShapeGroup(poly1);
+	LeafShapeGroup leaf2 = new LeafShapeGroup(poly2);
+	NonleafShapeGroup group = new NonleafShapeGroup(new ShapeGroup[] {leaf1, leaf2});
+	
+	@Test
+	void testApplyTransform_leavesVerticesUntouched() {
+		group.applyTransform(Transform.translation(new IntVector(100, 50)));
+		assert Arrays.equals(square(0, 0, 10), poly1.getVertices());
+		assert Arrays.equals(square(100, 50, 10), group.getAllOuterVertices().get(poly1));
+		assert group.getBoundingBox().equals(Extent.ofLeftTopRightBottom(100, 50, 130, 60));
+		assert leaf1.getBoundingBox().equals(Extent.ofLeftTopRightBottom(0, 0, 10, 10));
+	}
+	
+	@Test
+	void testApplyTransform_composesAcrossLevels() {
+		leaf2.applyTransform(Transform.scaling(p(20, 0), 2, 2));
+		group.applyTransform(Transform.translation(new IntVector(5, 5)));
+		assert Arrays.equals(square(25, 5, 20), group.getAllOuterVertices().get(poly2));
+		assert group.getBoundingBox().equals(Extent.ofLeftTopRightBottom(5, 5, 45, 25));
+	}
+	
+	@Test
+	void testApplyTransform_negativeScale() {
+		group.applyTransform(Transform.scaling(p(0, 0), -1, 1));
+		assert group.getBoundingBox().equals(Extent.ofLeftTopRightBottom(-30, 0, 0, 10));
+	}
+	
+	@Test
+	void testGetDrawingCommands() {
+		String untransformed = group.getDrawingCommands();
+		Transform transform = Transform.translation(new IntVector(100, 50));
+		group.applyTransform(transform);
+		assert group.getDrawingCommands().equals(transform.getPushCommands() + untransformed + transform.getPopCommands());
+	}
+	
+	@Test
+	void testBakeTransforms() {
+		leaf1.applyTransform(Transform.scaling(p(0, 0), 0.5, 0.5));
+		leaf1.applyTransform(Transform.scaling(p(0, 0), 2, 2));
+		group.applyTransform(Transform.translation(new IntVector(100, 50)));
+		group.bakeTransforms();
+		assert group.getTransform().isIdentity();
+		assert leaf1.getTransform().isIdentity();
+		assert Arrays.equals(square(100, 50, 10), poly1.getVertices());
+		assert Arrays.equals(square(120, 50, 10), poly2.getVertices());
+	}
+	
+	@Test
+	void testTranslate_bakesPendingTransforms() {
+		leaf2.applyTransform(Transform.translation(new IntVector(0, 100)));
+		group.translate(new IntVector(1, 1));
+		assert leaf2.getTransform().isIdentity();
+		assert Arrays.equals(square(21, 101, 10), poly2.getVertices());
+	}
+	
+	@Test
+	void testBakeTransforms_rollsBackOnFailure() {
+		leaf1.applyTransform(Transform.scaling(p(0, 0), 0.01, 0.01));
+		assertThrows(IllegalArgumentException.class, () -> group.bakeTransforms());
+		assert !leaf1.getTransform().isIdentity();
+		assert Arrays.equals(square(0, 0, 10), poly1.getVertices());
+	}
+
+}
@@ -0,0 +1,126 @@
+package drawit.tests.shapegroups1;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import drawit.IntPoint;
+import drawit.IntVector;
+import drawit.RoundedPolygon;
+import drawit.RoundedPolygonListener;
+import drawit.Transform;
+import drawit.shapegroups1.LeafShapeGroup;
+import drawit.shapegroups1.NonleafShapeGroup;
+import drawit.shapegroups1.ShapeGroup;
+import drawit.shapegroups1.ShapeGroupListener;
+
+class ShapeGroupTest_Listeners {
+
+	static IntPoint p(int x, int y) { return new IntPoint(x, y); }
+
+	static RoundedPolygon square(int x, int y) {
+		RoundedPolygon polygon = new RoundedPolygon();
+		polygon.setVertices(new IntPoint[] {p(x, y), p(x + 10, y), p(x + 10, y + 10), p(x, y + 10)});
+		return polygon;
+	}
+
+	static class Log implements ShapeGroupListener {
+		final List<String> events = new ArrayList<>();
+		final List<ShapeGroup> sources = new ArrayList<>();
+		void add(String event, ShapeGroup group) {
+			events.add(event);
+			sources.add(group);
+		}
+		@Override
+		public void shapesChanged(ShapeGroup group) { add("shapes", group); }
+		@Override
+		public void transformChanged(ShapeGroup group) { add("transform", group); }
+		@Override
+		public void subgroupsReordered(NonleafShapeGroup group) { add("reordered", group); }
+		@Override
+		public void subgroupsChanged(NonleafShapeGroup group) { add("subgroups", group); }
+	}
+
+	RoundedPolygon poly1 = square(0, 0);
+	RoundedPolygon poly2 = square(20, 0);
+	RoundedPolygon poly3 = square(40, 0);
+	LeafShapeGroup leaf1 = new LeafShapeGroup(poly1);
+	LeafShapeGroup leaf2 = new LeafShapeGroup(poly2);
+	LeafShapeGroup leaf3 = new LeafShapeGroup(poly3);
+	NonleafShapeGroup group = new NonleafShapeGroup(List.of(leaf1, leaf2));
+	NonleafShapeGroup root = new NonleafShapeGroup(List.of(group, leaf3));
+
+	@Test
+	void testNotifications_bubble() {
+		Log rootLog = new Log();
+		Log groupLog = new Log();
+		root.addListener(rootLog);
+		group.addListener(groupLog);
+		leaf2.applyTransform(new Transform(2, 2, 0, 0));
+		leaf2.bringToFront();
+		leaf3.applyTransform(Transform.translation(new IntVector(1, 1)));
+		assert groupLog.events.equals(List.of("transform", "reordered"));
+		assert groupLog.sources.equals(List.of(leaf2, group));
+		assert rootLog.events.equals(List.of("transform", "reordered", "transform"));
+		assert rootLog.sources.equals(List.of(leaf2, group, leaf3));
+
+		rootLog.events.clear();
+		rootLog.sources.clear();
+		root.translate(new IntVector(5, 5));
+		// Baking resets the transforms of leaf2 and leaf3.
+		assert rootLog.events.equals(List.of("transform", "transform", "shapes"));
+		assert rootLog.sources.get(2) == root;
+		assert groupLog.events.size() == 3 && groupLog.sources.get(2) == leaf2;
+
+		LeafShapeGroup leaf4 = new LeafShapeGroup(square(60, 0));
+		root.addSubgroup(2, leaf4);
+		leaf4.applyTransform(new Transform(3, 3, 0, 0));
+		root.removeSubgroup(leaf4);
+		leaf4.applyTransform(new Transform(3, 3, 0, 0));
+		assert rootLog.events.subList(3, 6).equals(List.of("subgroups", "transform", "subgroups"));
+
+		group.removeListener(groupLog);
+		root.removeListener(rootLog);
+		leaf1.applyTransform(new Transform(2, 2, 0, 0));
+		assert rootLog.events.size() == 6 && groupLog.events.size() == 3;
+	}
+
+	@Test
+	void testBatch_coalesces() {
+		Log log = new Log();
+		root.addListener(log);
+		root.beginBatch();
+		leaf1.applyTransform(new Transform(2, 2, 0, 0));
+		leaf1.applyTransform(new Transform(2, 2, 0, 0));
+		leaf3.bringToFront();
+		leaf3.sendToBack();
+		assert log.events.isEmpty();
+		root.endBatch();
+		assert log.events.equals(List.of("transform", "reordered"));
+		assert log.sources.equals(List.of(leaf1, root));
+	}
+
+	@Test
+	void testTranslate_notifiesShapesOnCallingThread() {
+		List<ShapeGroup> leaves = new ArrayList<>();
+		for (int i = 0; i < 64; i++)
+			leaves.add(new LeafShapeGroup(square(20 * i, 0)));
+		NonleafShapeGroup wide = new NonleafShapeGroup(leaves);
+		Thread caller = Thread.currentThread();
+		int[] count = {0};
+		RoundedPolygonListener listener = new RoundedPolygonListener() {
+			@Override
+			public void verticesChanged(RoundedPolygon shape, int index, int removedCount, int insertedCount) {
+				assert Thread.currentThread() == caller;
+				assert index == 0 && removedCount == 4 && insertedCount == 4;
+				count[0]++;
+			}
+		};
+		for (RoundedPolygon shape : wide.getAllShapes())
+			shape.addListener(listener);
+		wide.translate(new IntVector(1, 2));
+		assert count[0] == 64;
+	}
+
+}
@@ -0,0 +1,160 @@
+package drawit.tests.shapegroups1;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import drawit.IntPoint;
+import drawit.IntVector;
+import drawit.RoundedPolygon;
+import drawit.Transform;
+import drawit.shapegroups1.Extent;
+import drawit.shapegroups1.LeafShapeGroup;
+import drawit.shapegroups1.NonleafShapeGroup;
+import drawit.shapegroups1.ShapeGroup;
+
+class ShapeGroupTest_Membership {
+	
+	static IntPoint p(int x, int y) { return new IntPoint(x, y); }
+	
+	static RoundedPolygon square(int x, int y) {
+		RoundedPolygon polygon = new RoundedPolygon();
+		polygon.setVertices(new IntPoint[] {p(x, y), p(x + 10, y), p(x + 10, y + 10), p(x, y + 10)});
+		return polygon;
+	}
+	
+	RoundedPolygon poly1 = square(0, 0);
+	RoundedPolygon poly2 = square(20, 0);
+	RoundedPolygon poly3 = square(40, 0);
+	RoundedPolygon poly4 = square(60, 0);
+	LeafShapeGroup leaf1 = new LeafShapeGroup(poly1);
+	LeafShapeGroup leaf2 = new LeafShapeGroup(poly2);
+	LeafShapeGroup leaf3 = new LeafShapeGroup(poly3);
+	LeafShapeGroup leaf4 = new LeafShapeGroup(poly4);
+	NonleafShapeGroup group = new NonleafShapeGroup(new ShapeGroup[] {leaf1, leaf2});
+	NonleafShapeGroup root = new NonleafShapeGroup(List.of(group, leaf3));
+	
+	@Test
+	void testAddSubgroup() {
+		root.getDrawingCommands();
+		root.getBoundingBox();
+		group.addSubgroup(1, leaf4);
+		assert group.getSubgroups().equals(List.of(leaf1, leaf4, leaf2));
+		assert leaf4.getParentGroup() == group;
+		assert root.getAllShapes().equals(List.of(poly1, poly4, poly2, poly3));
+		assert root.getDrawingCommands().equals(
+				poly3.getDrawingCommands() + poly2.getDrawingCommands() + poly4.getDrawingCommands() + poly1.getDrawingCommands());
+		assert root.getBoundingBox().equals(Extent.ofLeftTopRightBottom(0, 0, 70, 10));
+		assert leaf1.compareZOrder(leaf4) < 0 && leaf4.compareZOrder(leaf2) < 0;
+		ShapeGroupTest_ZOrder.checkZOrder(root);
+	}
+	
+	@Test
+	void testAddSubgroup_atEnds() {
+		LeafShapeGroup leaf5 = new LeafShapeGroup(square(80, 0));
+		root.addSubgroup(0, leaf4);
+		root.addSubgroup(3, leaf5);
+		assert root.getSubgroups().equals(List.of(leaf4, group, leaf3, leaf5));
+		ShapeGroupTest_ZOrder.checkZOrder(root);
+	}
+	
+	@Test
+	void testAddSubgroup_transformedParent() {
+		group.applyTransform(Transform.translation(new IntVector(100, 0)));
+		group.addSubgroup(2, leaf4);
+		assert group.getBoundingBox().equals(Extent.ofLeftTopRightBottom(100, 0, 170, 10));
+	}
+	
+	@Test
+	void testAddSubgroup_illegal() {
+		assertThrows(IllegalArgumentException.class, () -> group.addSubgroup(0, null));
+		assertThrows(IllegalArgumentException.class, () -> group.addSubgroup(0, leaf3));
+		assertThrows(IllegalArgumentException.class, () -> group.addSubgroup(0, root));
+		assertThrows(IllegalArgumentException.class, () -> group.addSubgroup(3, leaf4));
+		assertThrows(IllegalArgumentException.class, () -> group.addSubgroup(-1, leaf4));
+		assert leaf4.getParentGroup() == null;
+	}
+	
+	@Test
+	void testRemoveSubgroup() {
+		group.addSubgroup(2, leaf4);
+		root.getDrawingCommands();
+		group.removeSubgroup(leaf1);
+		assert group.getSubgroups().equals(List.of(leaf2, leaf4));
+		assert leaf1.getParentGroup() == null;
+		assert root.getAllShapes().equals(List.of(poly2, poly4, poly3));
+		assert root.getDrawingCommands().equals(poly3.getDrawingCommands() + poly4.getDrawingCommands() + poly2.getDrawingCommands());
+		assert root.getBoundingBox().equals(Extent.ofLeftTopRightBottom(20, 0, 70, 10));
+		assertThrows(IllegalArgumentException.class, () -> leaf1.compareZOrder(leaf2));
+		ShapeGroupTest_ZOrder.checkZOrder(root);
+		
+		root.addSubgroup(1, leaf1);
+		assert root.getSubgroups().equals(List.of(group, leaf1, leaf3));
+		ShapeGroupTest_ZOrder.checkZOrder(root);
+	}
+	
+	@Test
+	void testRemoveSubgroup_illegal() {
+		assertThrows(IllegalArgumentException.class, () -> group.removeSubgroup(null));
+		assertThrows(IllegalArgumentException.class, () -> group.removeSubgroup(leaf3));
+		assertThrows(IllegalStateException.class, () -> group.removeSubgroup(leaf1));
+		assert group.getSubgroups().equals(List.of(leaf1, leaf2));
+	}
+	
+	@Test
+	void testMoveToIndex() {
+		group.addSubgroup(2, leaf4);
+		root.getDrawingCommands();
+		leaf1.moveToIndex(1);
+		assert group.getSubgroups().equals(List.of(leaf2, leaf1, leaf4));
+		leaf4.moveToIndex(0);
+		assert group.getSubgroups().equals(List.of(leaf4, leaf2, leaf1));
+		leaf4.moveToIndex(2);
+		assert group.getSubgroups().equals(List.of(leaf2, leaf1, leaf4));
+		assert root.getDrawingCommands().equals(
+				poly3.getDrawingCommands() + poly4.getDrawingCommands() + poly1.getDrawingCommands() + poly2.getDrawingCommands());
+		ShapeGroupTest_ZOrder.checkZOrder(root);
+		assertThrows(IllegalArgumentException.class, () -> leaf1.moveToIndex(3));
+		assertThrows(UnsupportedOperationException.class, () -> root.moveToIndex(0));
+	}
+	
+	@Test
+	void testRandomMoves() {
+		Random random = new Random(3);
+		ArrayList<ShapeGroup> leaves = new ArrayList<>();
+		for (int i = 0; i < 50; i++)
+			leaves.add(new LeafShapeGroup(square(i, i)));
+		NonleafShapeGroup big = new NonleafShapeGroup(leaves);
+		ArrayList<ShapeGroup> expected = new ArrayList<>(leaves);
+		for (int i = 0; i < 5000; i++) {
+			ShapeGroup g = expected.remove(random.nextInt(expected.size()));
+			int index = random.nextInt(expected.size() + 1);
+			expected.add(index, g);
+			g.moveToIndex(index);
+		}
+		assert big.getSubgroups().equals(expected);
+		ShapeGroupTest_ZOrder.checkZOrder(big);
+	}
+	
+	@Test
+	void testBulkConstructor() {
+		ArrayList<ShapeGroup> leaves = new ArrayList<>();
+		for (int i = 0; i < 20000; i++)
+			leaves.add(new LeafShapeGroup(square(i, 0)));
+		NonleafShapeGroup big = new NonleafShapeGroup(leaves);
+		assert big.getSubgroupCount() == 20000;
+		assert big.getSubgroup(19999) == leaves.get(19999);
+		
+		ArrayList<ShapeGroup> duplicates = new ArrayList<>(List.of(leaf4, new LeafShapeGroup(square(0, 0)), leaf4));
+		assertThrows(IllegalArgumentException.class, () -> new NonleafShapeGroup(duplicates));
+		assert leaf4.getParentGroup() == null;
+		assertThrows(IllegalArgumentException.class, () -> new NonleafShapeGroup(List.of(leaf4)));
+		assertThrows(IllegalArgumentException.class, () -> new NonleafShapeGroup(List.of(leaf4, leaf1)));
+		assertThrows(IllegalArgumentException.class, () -> new NonleafShapeGroup((List<ShapeGroup>)null));
+	}
+	
+}
@@ -0,0 +1,138 @@
+package drawit.tests.shapegroups1;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import drawit.IntPoint;
+import drawit.RoundedPolygon;
+import drawit.shapegroups1.LeafShapeGroup;
+import drawit.shapegroups1.NonleafShapeGroup;
+import drawit.shapegroups1.ShapeGroup;
+import drawit.shapegroups1.SubgroupStorage;
+
+class ShapeGroupTest_SubgroupStorage {
+	
+	static IntPoint p(int x, int y) { return new IntPoint(x, y); }
+	
+	static LeafShapeGroup leaf(int x) {
+		RoundedPolygon polygon = new RoundedPolygon();
+		polygon.setVertices(new IntPoint[] {p(x, 0), p(x + 10, 0), p(x + 10, 10), p(x, 10)});
+		return new LeafShapeGroup(polygon);
+	}
+	
+	static void checkGroup(NonleafShapeGroup group, List<ShapeGroup> expected) {
+		assert group.getSubgroups().equals(expected);
+		assert group.getSubgroupCount() == expected.size();
+		for (int i = 0; i < expected.size(); i++)
+			assert group.getSubgroup(i) == expected.get(i);
+		StringBuilder commands = new StringBuilder();
+		for (int i = expected.size() - 1; 0 <= i; i--)
+			commands.append(expected.get(i).getDrawingCommands());
+		assert group.getDrawingCommands().equals(commands.toString());
+		ShapeGroupTest_ZOrder.checkZOrder(group);
+	}
+	
+	@Test
+	void testStorage() {
+		for (SubgroupStorage storage : SubgroupStorage.values()) {
+			LeafShapeGroup leaf1 = leaf(0);
+			LeafShapeGroup leaf2 = leaf(20);
+			NonleafShapeGroup group = new NonleafShapeGroup(List.of(leaf1, leaf2), storage);
+			assert group.getSubgroupStorage() == storage;
+			checkGroup(group, List.of(leaf1, leaf2));
+		}
+		assert new NonleafShapeGroup(List.of(leaf(0), leaf(20))).getSubgroupStorage() == SubgroupStorage.ARRAY;
+		assertThrows(IllegalArgumentException.class, () -> new NonleafShapeGroup(List.of(leaf(0), leaf(20)), null));
+	}
+	
+	@Test
+	void testRandomOperations_sameForEachStorage() {
+		for (SubgroupStorage storage : SubgroupStorage.values()) {
+			Random random = new Random(11);
+			ArrayList<ShapeGroup> expected = new ArrayList<>();
+			for (int i = 0; i < 20; i++)
+				expected.add(leaf(i * 20));
+			NonleafShapeGroup group = new NonleafShapeGroup(expected, storage);
+			ArrayList<ShapeGroup> removed = new ArrayList<>();
+			for (int i = 0; i < 2000; i++) {
+				int operation = random.nextInt(5);
+				if (operation == 0 && !removed.isEmpty()) {
+					ShapeGroup subgroup = removed.remove(removed.size() - 1);
+					int index = random.nextInt(expected.size() + 1);
+					group.addSubgroup(index, subgroup);
+					expected.add(index, subgroup);
+				} else if (operation == 1 && expected.size() > 2) {
+					ShapeGroup subgroup = expected.remove(random.nextInt(expected.size()));
+					group.removeSubgroup(subgroup);
+					removed.add(subgroup);
+				} else {
+					ShapeGroup subgroup = expected.remove(random.nextInt(expected.size()));
+					if (operation == 2) {
+						subgroup.bringToFront();
+						expected.add(0, subgroup);
+					} else if (operation == 3) {
+						subgroup.sendToBack();
+						expected.add(subgroup);
+					} else {
+						int index = random.nextInt(expected.size() + 1);
+						subgroup.moveToIndex(index);
+						expected.add(index, subgroup);
+					}
+				}
+				if (i % 100 == 0)
+					checkGroup(group, expected);
+			}
+			checkGroup(group, expected);
+			for (ShapeGroup subgroup : removed)
+				assert subgroup.getParentGroup() == null;
+		}
+	}
+	
+	@Test
+	void testLinked_moveBetweenGroups() {
+		LeafShapeGroup leaf1 = leaf(0);
+		LeafShapeGroup leaf2 = leaf(20);
+		LeafShapeGroup leaf3 = leaf(40);
+		LeafShapeGroup leaf4 = leaf(60);
+		LeafShapeGroup leaf5 = leaf(80);
+		NonleafShapeGroup group1 = new NonleafShapeGroup(List.of(leaf1, leaf2, leaf3), SubgroupStorage.LINKED);
+		NonleafShapeGroup group2 = new NonleafShapeGroup(List.of(leaf4, leaf5), SubgroupStorage.LINKED);
+		NonleafShapeGroup root = new NonleafShapeGroup(List.of(group1, group2), SubgroupStorage.LINKED);
+		group1.removeSubgroup(leaf2);
+		group2.addSubgroup(1, leaf2);
+		checkGroup(group1, List.of(leaf1, leaf3));
+		checkGroup(group2, List.of(leaf4, leaf2, leaf5));
+		assert group1.getSubgroups().indexOf(leaf2) == -1 && leaf2.getParentGroup() == group2;
+		assertThrows(IllegalArgumentException.class, () -> group1.removeSubgroup(leaf2));
+		leaf1.sendToBack();
+		group1.sendToBack();
+		checkGroup(group1, List.of(leaf3, leaf1));
+		checkGroup(root, List.of(group2, group1));
+	}
+	
+	@Test
+	void testLargeTree() {
+		ArrayList<ShapeGroup> expected = new ArrayList<>();
+		for (int i = 0; i < 10000; i++)
+			expected.add(leaf(i));
+		NonleafShapeGroup group = new NonleafShapeGroup(expected, SubgroupStorage.TREE);
+		Random random = new Random(5);
+		for (int i = 0; i < 10000; i++) {
+			ShapeGroup subgroup = expected.remove(random.nextInt(expected.size()));
+			int index = random.nextInt(expected.size() + 1);
+			subgroup.moveToIndex(index);
+			expected.add(index, subgroup);
+		}
+		for (int i = 0; i < 1000; i++) {
+			int index = random.nextInt(expected.size());
+			assert group.getSubgroup(index) == expected.get(index);
+		}
+		assert group.getSubgroups().equals(expected);
+	}
+	
+}
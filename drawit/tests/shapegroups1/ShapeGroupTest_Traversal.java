@@ -0,0 +1,91 @@
+package drawit.tests.shapegroups1;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import org.junit.jupiter.api.Test;
+
+import drawit.IntPoint;
+import drawit.RoundedPolygon;
+import drawit.shapegroups1.LeafShapeGroup;
+import drawit.shapegroups1.NonleafShapeGroup;
+import drawit.shapegroups1.ShapeGroup;
+
+class ShapeGroupTest_Traversal {
+	
+	static IntPoint p(int x, int y) { return new IntPoint(x, y); }
+	
+	static RoundedPolygon square(int x, int y) {
+		RoundedPolygon polygon = new RoundedPolygon();
+		polygon.setVertices(new IntPoint[] {p(x, y), p(x + 10, y), p(x + 10, y + 10), p(x, y + 10)});
+		return polygon;
+	}
+	
+	RoundedPolygon poly1 = square(0, 0);
+	RoundedPolygon poly2 = square(20, 0);
+	RoundedPolygon poly3 = square(40, 0);
+	RoundedPolygon poly4 = square(60, 0);
+	RoundedPolygon poly5 = square(80, 0);
+	
+	LeafShapeGroup leaf1 = new LeafShapeGroup(poly1);
+	LeafShapeGroup leaf2 = new LeafShapeGroup(poly2);
+	LeafShapeGroup leaf3 = new LeafShapeGroup(poly3);
+	LeafShapeGroup leaf4 = new LeafShapeGroup(poly4);
+	LeafShapeGroup leaf5 = new LeafShapeGroup(poly5);
+	
+	NonleafShapeGroup group1 = new NonleafShapeGroup(new ShapeGroup[] {leaf1, leaf2});
+	NonleafShapeGroup group2 = new NonleafShapeGroup(new ShapeGroup[] {leaf3, leaf4, leaf5});
+	NonleafShapeGroup root = new NonleafShapeGroup(new ShapeGroup[] {group2, group1});
+	
+	List<RoundedPolygon> expected = List.of(poly3, poly4, poly5, poly1, poly2);
+	
+	@Test
+	void testForEachShape() {
+		ArrayList<RoundedPolygon> visited = new ArrayList<>();
+		root.forEachShape(visited::add);
+		assert visited.equals(expected);
+		assert visited.equals(root.getAllShapes());
+		
+		visited.clear();
+		leaf1.forEachShape(visited::add);
+		assert visited.equals(List.of(poly1));
+		
+		assertThrows(IllegalArgumentException.class, () -> root.forEachShape(null));
+	}
+	
+	@Test
+	void testShapeIterator() {
+		ArrayList<RoundedPolygon> visited = new ArrayList<>();
+		for (Iterator<RoundedPolygon> iterator = root.shapeIterator(); iterator.hasNext(); )
+			visited.add(iterator.next());
+		assert visited.equals(expected);
+	}
+	
+	@Test
+	void testShapeSpliterator() {
+		Spliterator<RoundedPolygon> spliterator = root.shapeSpliterator();
+		assert spliterator.hasCharacteristics(Spliterator.ORDERED);
+		Spliterator<RoundedPolygon> prefix = spliterator.trySplit();
+		assert prefix != null;
+		ArrayList<RoundedPolygon> visited = new ArrayList<>();
+		prefix.forEachRemaining(visited::add);
+		assert visited.equals(List.of(poly3, poly4, poly5));
+		spliterator.forEachRemaining(visited::add);
+		assert visited.equals(expected);
+		
+		assert new LeafShapeGroup(square(0, 0)).shapeSpliterator().trySplit() == null;
+	}
+	
+	@Test
+	void testParallelStream() {
+		List<RoundedPolygon> shapes = StreamSupport.stream(root.shapeSpliterator(), true).collect(Collectors.toList());
+		assert shapes.equals(expected);
+	}
+
+}
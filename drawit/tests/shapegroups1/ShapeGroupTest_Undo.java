@@ -0,0 +1,133 @@
+package drawit.tests.shapegroups1;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import drawit.IntPoint;
+import drawit.IntVector;
+import drawit.RoundedPolygon;
+import drawit.Transform;
+import drawit.UndoJournal;
+import drawit.shapegroups1.LeafShapeGroup;
+import drawit.shapegroups1.NonleafShapeGroup;
+import drawit.shapegroups1.ShapeGroup;
+
+class ShapeGroupTest_Undo {
+
+	static IntPoint p(int x, int y) { return new IntPoint(x, y); }
+
+	static RoundedPolygon square(int x, int y) {
+		RoundedPolygon polygon = new RoundedPolygon();
+		polygon.setVertices(new IntPoint[] {p(x, y), p(x + 10, y), p(x + 10, y + 10), p(x, y + 10)});
+		return polygon;
+	}
+
+	UndoJournal journal = new UndoJournal(1 << 20);
+	RoundedPolygon poly1 = square(0, 0);
+	RoundedPolygon poly2 = square(20, 0);
+	RoundedPolygon poly3 = square(40, 0);
+	LeafShapeGroup leaf1 = new LeafShapeGroup(poly1);
+	LeafShapeGroup leaf2 = new LeafShapeGroup(poly2);
+	LeafShapeGroup leaf3 = new LeafShapeGroup(poly3);
+	NonleafShapeGroup root = new NonleafShapeGroup(List.of(leaf1, leaf2, leaf3));
+
+	/**
+	 * Undoes all recorded edits, checking that the drawing commands go through the given states in reverse order, and
+	 * then redoes them, checking the states in order.
+	 */
+	void checkUndoRedo(ShapeGroup group, List<String> states) {
+		assert journal.getUndoCount() == states.size() - 1;
+		for (int i = states.size() - 2; 0 <= i; i--) {
+			journal.undo();
+			assert group.getDrawingCommands().equals(states.get(i));
+		}
+		for (int i = 1; i < states.size(); i++) {
+			journal.redo();
+			assert group.getDrawingCommands().equals(states.get(i));
+		}
+	}
+
+	@Test
+	void testTranslate_recordsVector() {
+		root.setUndoJournal(journal);
+		assert poly2.getUndoJournal() == journal;
+		String before = root.getDrawingCommands();
+		long usage = journal.getMemoryUsage();
+		root.translate(new IntVector(1000, 5));
+		// A translation costs the same regardless of the number of vertices.
+		assert journal.getMemoryUsage() - usage < 100;
+		checkUndoRedo(root, List.of(before, root.getDrawingCommands()));
+	}
+
+	@Test
+	void testTransformsAndScale() {
+		root.setUndoJournal(journal);
+		String s0 = root.getDrawingCommands();
+		leaf2.applyTransform(new Transform(2, 2, 1, 1));
+		String s1 = root.getDrawingCommands();
+		root.translate(new IntVector(3, 4));
+		String s2 = root.getDrawingCommands();
+		root.scale(p(0, 0), 1.5, 0.7);
+		String s3 = root.getDrawingCommands();
+		root.applyTransform(Transform.translation(new IntVector(1, 1)));
+		String s4 = root.getDrawingCommands();
+		root.bakeTransforms();
+		String s5 = root.getDrawingCommands();
+		journal.undo();
+		assert root.getTransform().equals(Transform.translation(new IntVector(1, 1)));
+		journal.redo();
+		checkUndoRedo(root, List.of(s0, s1, s2, s3, s4, s5));
+		assert root.getTransform().isIdentity();
+	}
+
+	@Test
+	void testZOrder() {
+		root.setUndoJournal(journal);
+		String s0 = root.getDrawingCommands();
+		leaf3.bringToFront();
+		String s1 = root.getDrawingCommands();
+		leaf3.sendToBack();
+		leaf1.sendToBack();
+		String s3 = root.getDrawingCommands();
+		leaf2.moveToIndex(1);
+		checkUndoRedo(root, List.of(s0, s1, s0, s3, root.getDrawingCommands()));
+		assert root.getSubgroups().equals(List.of(leaf3, leaf2, leaf1));
+		ShapeGroupTest_ZOrder.checkZOrder(root);
+	}
+
+	@Test
+	void testGrouping() {
+		LeafShapeGroup leaf4 = new LeafShapeGroup(square(60, 0));
+		root.addSubgroup(3, leaf4);
+		root.setUndoJournal(journal);
+		String s0 = root.getDrawingCommands();
+		journal.compound(() -> {
+			root.removeSubgroup(leaf1);
+			root.removeSubgroup(leaf2);
+			root.addSubgroup(0, new NonleafShapeGroup(List.of(leaf1, leaf2)));
+		});
+		assert root.getSubgroupCount() == 3;
+		NonleafShapeGroup group = (NonleafShapeGroup)root.getSubgroup(0);
+		assert group.getUndoJournal() == journal;
+		assert journal.getUndoCount() == 1;
+		journal.undo();
+		assert root.getSubgroups().equals(List.of(leaf1, leaf2, leaf3, leaf4));
+		assert root.getDrawingCommands().equals(s0);
+		ShapeGroupTest_ZOrder.checkZOrder(root);
+		journal.redo();
+		assert root.getSubgroups().equals(List.of(group, leaf3, leaf4));
+		assert group.getSubgroups().equals(List.of(leaf1, leaf2)) && leaf1.getParentGroup() == group;
+		assert root.getDrawingCommands().equals(s0);
+		ShapeGroupTest_ZOrder.checkZOrder(root);
+
+		RoundedPolygon poly5 = square(80, 0);
+		root.addSubgroup(3, new LeafShapeGroup(poly5));
+		assert poly5.getUndoJournal() == journal;
+		poly5.setRadius(2);
+		journal.undo();
+		journal.undo();
+		assert root.getSubgroups().equals(List.of(group, leaf3, leaf4)) && poly5.getRadius() == 0;
+	}
+
+}
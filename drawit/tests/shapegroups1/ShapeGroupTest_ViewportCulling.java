@@ -0,0 +1,93 @@
+package drawit.tests.shapegroups1;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import drawit.IntPoint;
+import drawit.IntVector;
+import drawit.RoundedPolygon;
+import drawit.Transform;
+import drawit.shapegroups1.Extent;
+import drawit.shapegroups1.LeafShapeGroup;
+import drawit.shapegroups1.NonleafShapeGroup;
+import drawit.shapegroups1.ShapeGroup;
+
+class ShapeGroupTest_ViewportCulling {
+	
+	static IntPoint p(int x, int y) { return new IntPoint(x, y); }
+	
+	static RoundedPolygon square(int x, int y) {
+		RoundedPolygon polygon = new RoundedPolygon();
+		polygon.setVertices(new IntPoint[] {p(x, y), p(x + 10, y), p(x + 10, y + 10), p(x, y + 10)});
+		return polygon;
+	}
+	
+	RoundedPolygon poly1 = square(0, 0);
+	RoundedPolygon poly2 = square(20, 0);
+	RoundedPolygon poly3 = square(100, 100);
+	LeafShapeGroup leaf1 = new LeafShapeGroup(poly1);
+	LeafShapeGroup leaf2 = new LeafShapeGroup(poly2);
+	LeafShapeGroup leaf3 = new LeafShapeGroup(poly3);
+	NonleafShapeGroup group = new NonleafShapeGroup(new ShapeGroup[] {leaf1, leaf2});
+	NonleafShapeGroup root = new NonleafShapeGroup(new ShapeGroup[] {group, leaf3});
+	
+	@Test
+	void testViewportContainsEverything() {
+		assert root.getDrawingCommands(Extent.ofLeftTopRightBottom(-5, -5, 200, 200)).equals(root.getDrawingCommands());
+	}
+	
+	@Test
+	void testViewportMissesEverything() {
+		assert root.getDrawingCommands(Extent.ofLeftTopRightBottom(200, 0, 300, 50)).isEmpty();
+	}
+	
+	@Test
+	void testSkipsSubtrees() {
+		assert root.getDrawingCommands(Extent.ofLeftTopRightBottom(0, 0, 50, 50)).equals(
+				poly2.getDrawingCommands() + poly1.getDrawingCommands());
+		assert root.getDrawingCommands(Extent.ofLeftTopRightBottom(15, 5, 150, 150)).equals(
+				poly3.getDrawingCommands() + poly2.getDrawingCommands());
+		assert root.getDrawingCommands(Extent.ofLeftTopRightBottom(5, 5, 6, 6)).equals(poly1.getDrawingCommands());
+	}
+	
+	@Test
+	void testEdgeTouchingCounts() {
+		assert root.getDrawingCommands(Extent.ofLeftTopRightBottom(10, 10, 10, 10)).equals(poly1.getDrawingCommands());
+	}
+	
+	@Test
+	void testFollowsShapeChanges() {
+		root.getDrawingCommands(Extent.ofLeftTopRightBottom(0, 0, 50, 50));
+		poly3.setVertices(new IntPoint[] {p(30, 30), p(40, 30), p(40, 40), p(30, 40)});
+		assert root.getBoundingBox().equals(Extent.ofLeftTopRightBottom(0, 0, 40, 40));
+		assert root.getDrawingCommands(Extent.ofLeftTopRightBottom(25, 25, 50, 50)).equals(poly3.getDrawingCommands());
+	}
+	
+	@Test
+	void testTransformedSubtree() {
+		group.applyTransform(Transform.translation(new IntVector(100, 0)));
+		String groupPrefix = Transform.translation(new IntVector(100, 0)).getPushCommands();
+		String groupSuffix = Transform.translation(new IntVector(100, 0)).getPopCommands();
+		assert root.getDrawingCommands(Extent.ofLeftTopRightBottom(0, 0, 50, 50)).isEmpty();
+		assert root.getDrawingCommands(Extent.ofLeftTopRightBottom(125, 0, 150, 50)).equals(
+				groupPrefix + poly2.getDrawingCommands() + groupSuffix);
+		assert root.getDrawingCommands(Extent.ofLeftTopRightBottom(95, 5, 150, 150)).equals(
+				poly3.getDrawingCommands() + groupPrefix + poly2.getDrawingCommands() + poly1.getDrawingCommands() + groupSuffix);
+	}
+	
+	@Test
+	void testScaledSubtree() {
+		group.applyTransform(Transform.scaling(p(0, 0), 2, 2));
+		assert group.getBoundingBox().equals(Extent.ofLeftTopRightBottom(0, 0, 60, 20));
+		String commands = root.getDrawingCommands(Extent.ofLeftTopRightBottom(45, 0, 50, 50));
+		assert !commands.contains(poly1.getDrawingCommands());
+		assert commands.contains(poly2.getDrawingCommands());
+	}
+	
+	@Test
+	void testNullViewport() {
+		assertThrows(IllegalArgumentException.class, () -> root.getDrawingCommands(null));
+	}
+	
+}
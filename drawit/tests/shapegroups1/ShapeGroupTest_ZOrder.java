@@ -0,0 +1,138 @@
+package drawit.tests.shapegroups1;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import drawit.IntPoint;
+import drawit.RoundedPolygon;
+import drawit.shapegroups1.LeafShapeGroup;
+import drawit.shapegroups1.NonleafShapeGroup;
+import drawit.shapegroups1.ShapeGroup;
+
+class ShapeGroupTest_ZOrder {
+	
+	static IntPoint p(int x, int y) { return new IntPoint(x, y); }
+	
+	static LeafShapeGroup leaf() {
+		RoundedPolygon polygon = new RoundedPolygon();
+		polygon.setVertices(new IntPoint[] {p(0, 0), p(10, 0), p(10, 10), p(0, 10)});
+		return new LeafShapeGroup(polygon);
+	}
+	
+	static void addPreorder(ShapeGroup group, List<ShapeGroup> result) {
+		result.add(group);
+		if (group instanceof NonleafShapeGroup)
+			for (ShapeGroup subgroup : ((NonleafShapeGroup)group).getSubgroups())
+				addPreorder(subgroup, result);
+	}
+	
+	static void checkZOrder(ShapeGroup root) {
+		ArrayList<ShapeGroup> preorder = new ArrayList<>();
+		addPreorder(root, preorder);
+		for (int i = 1; i < preorder.size(); i++)
+			assert preorder.get(i - 1).compareZOrder(preorder.get(i)) < 0;
+	}
+	
+	LeafShapeGroup leaf1 = leaf();
+	LeafShapeGroup leaf2 = leaf();
+	LeafShapeGroup leaf3 = leaf();
+	NonleafShapeGroup group = new NonleafShapeGroup(new ShapeGroup[] {leaf1, leaf2});
+	NonleafShapeGroup root = new NonleafShapeGroup(new ShapeGroup[] {group, leaf3});
+	
+	@Test
+	void testCompareZOrder() {
+		assert leaf1.compareZOrder(leaf1) == 0;
+		assert leaf1.compareZOrder(leaf2) < 0;
+		assert leaf2.compareZOrder(leaf1) > 0;
+		assert leaf2.compareZOrder(leaf3) < 0;
+		assert root.compareZOrder(leaf1) < 0;
+		assert leaf1.compareZOrder(group) > 0;
+		checkZOrder(root);
+	}
+	
+	@Test
+	void testBringToFrontAndSendToBack() {
+		leaf3.bringToFront();
+		assert leaf3.compareZOrder(leaf1) < 0;
+		assert leaf3.compareZOrder(group) < 0;
+		leaf2.bringToFront();
+		assert leaf2.compareZOrder(leaf1) < 0;
+		assert leaf3.compareZOrder(leaf2) < 0;
+		leaf3.sendToBack();
+		assert leaf1.compareZOrder(leaf3) < 0;
+		checkZOrder(root);
+	}
+	
+	@Test
+	void testGrouping() {
+		LeafShapeGroup leaf4 = leaf();
+		NonleafShapeGroup newRoot = new NonleafShapeGroup(new ShapeGroup[] {leaf4, root});
+		assert leaf4.compareZOrder(leaf1) < 0;
+		assert newRoot.compareZOrder(leaf4) < 0;
+		checkZOrder(newRoot);
+	}
+	
+	@Test
+	void testDifferentGraphs() {
+		assertThrows(IllegalArgumentException.class, () -> leaf1.compareZOrder(leaf()));
+		assertThrows(IllegalArgumentException.class, () -> leaf1.compareZOrder(null));
+	}
+	
+	@Test
+	void testDeepChain() {
+		ShapeGroup chain = leaf();
+		for (int i = 0; i < 2000; i++)
+			chain = new NonleafShapeGroup(new ShapeGroup[] {leaf(), chain});
+		checkZOrder(chain);
+	}
+	
+	@Test
+	void testRandomReordering() {
+		Random random = new Random(7);
+		ArrayList<ShapeGroup> groups = new ArrayList<>();
+		for (int i = 0; i < 300; i++)
+			groups.add(leaf());
+		ArrayList<ShapeGroup> all = new ArrayList<>(groups);
+		while (groups.size() > 1) {
+			int count = Math.min(groups.size(), 2 + random.nextInt(4));
+			ShapeGroup[] children = new ShapeGroup[count];
+			for (int i = 0; i < count; i++)
+				children[i] = groups.remove(random.nextInt(groups.size()));
+			NonleafShapeGroup parent = new NonleafShapeGroup(children);
+			groups.add(parent);
+			all.add(parent);
+		}
+		ShapeGroup scene = groups.get(0);
+		for (int i = 0; i < 20000; i++) {
+			ShapeGroup g = all.get(random.nextInt(all.size()));
+			if (g.getParentGroup() == null)
+				continue;
+			// Favour repeated moves of the same kind, which exhaust the gaps fastest.
+			if (i / 1000 % 2 == 0)
+				g.bringToFront();
+			else
+				g.sendToBack();
+			if (i % 500 == 0)
+				checkZOrder(scene);
+		}
+		checkZOrder(scene);
+		
+		ArrayList<ShapeGroup> preorder = new ArrayList<>();
+		addPreorder(scene, preorder);
+		IdentityHashMap<ShapeGroup, Integer> positions = new IdentityHashMap<>();
+		for (int i = 0; i < preorder.size(); i++)
+			positions.put(preorder.get(i), i);
+		for (int i = 0; i < 2000; i++) {
+			ShapeGroup a = all.get(random.nextInt(all.size()));
+			ShapeGroup b = all.get(random.nextInt(all.size()));
+			assert Integer.signum(a.compareZOrder(b)) == Integer.signum(Integer.compare(positions.get(a), positions.get(b)));
+		}
+	}
+	
+}
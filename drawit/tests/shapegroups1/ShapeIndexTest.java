@@ -0,0 +1,192 @@
+package drawit.tests.shapegroups1;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import drawit.IntPoint;
+import drawit.IntVector;
+import drawit.RoundedPolygon;
+import drawit.Transform;
+import drawit.shapegroups1.Extent;
+import drawit.shapegroups1.LeafShapeGroup;
+import drawit.shapegroups1.NonleafShapeGroup;
+import drawit.shapegroups1.ShapeGroup;
+import drawit.shapegroups1.ShapeIndex;
+
+class ShapeIndexTest {
+	
+	static IntPoint p(int x, int y) { return new IntPoint(x, y); }
+	
+	static RoundedPolygon square(int x, int y, int size) {
+		RoundedPolygon polygon = new RoundedPolygon();
+		polygon.setVertices(new IntPoint[] {p(x, y), p(x + size, y), p(x + size, y + size), p(x, y + size)});
+		return polygon;
+	}
+	
+	RoundedPolygon poly1 = square(0, 0, 10);
+	RoundedPolygon poly2 = square(5, 5, 10);
+	RoundedPolygon poly3 = square(100, 100, 10);
+	LeafShapeGroup leaf1 = new LeafShapeGroup(poly1);
+	LeafShapeGroup leaf2 = new LeafShapeGroup(poly2);
+	LeafShapeGroup leaf3 = new LeafShapeGroup(poly3);
+	NonleafShapeGroup group = new NonleafShapeGroup(new ShapeGroup[] {leaf1, leaf2});
+	NonleafShapeGroup root = new NonleafShapeGroup(new ShapeGroup[] {group, leaf3});
+	ShapeIndex index = new ShapeIndex(root);
+	
+	@Test
+	void testQueries() {
+		assert index.getSize() == 3;
+		assert index.getShapesIntersecting(Extent.ofLeftTopRightBottom(0, 0, 200, 200)).equals(List.of(poly1, poly2, poly3));
+		assert index.getShapesIntersecting(Extent.ofLeftTopRightBottom(12, 12, 50, 50)).equals(List.of(poly2));
+		assert index.getShapesIntersecting(Extent.ofLeftTopRightBottom(20, 20, 50, 50)).isEmpty();
+		assert index.getShapesAt(p(7, 7)).equals(List.of(poly1, poly2));
+		assert index.getShapesAt(p(105, 110)).equals(List.of(poly3));
+		assert index.getShapesAt(p(50, 50)).isEmpty();
+	}
+	
+	@Test
+	void testZOrderFollowsReordering() {
+		group.sendToBack();
+		index.refresh();
+		assert index.getShapesIntersecting(Extent.ofLeftTopRightBottom(0, 0, 200, 200)).equals(List.of(poly3, poly1, poly2));
+		leaf2.bringToFront();
+		index.refresh();
+		assert index.getShapesAt(p(7, 7)).equals(List.of(poly2, poly1));
+	}
+	
+	@Test
+	void testTranslateScaleAndVertexEdits() {
+		leaf3.translate(new IntVector(-100, -100));
+		poly1.setVertices(new IntPoint[] {p(1000, 1000), p(1010, 1000), p(1010, 1010)});
+		index.refresh();
+		assert index.getShapesAt(p(2, 2)).equals(List.of(poly3));
+		assert index.getShapesIntersecting(Extent.ofLeftTopRightBottom(900, 900, 2000, 2000)).equals(List.of(poly1));
+		group.scale(p(0, 0), 0.5, 0.5);
+		index.refresh();
+		assert index.getShapesIntersecting(Extent.ofLeftTopRightBottom(500, 500, 505, 505)).equals(List.of(poly1));
+	}
+	
+	@Test
+	void testLazyTransforms() {
+		group.applyTransform(Transform.translation(new IntVector(-300, 200)));
+		index.refresh();
+		assert index.getShapesAt(p(-293, 207)).equals(List.of(poly1, poly2));
+		assert index.getShapesAt(p(7, 7)).isEmpty();
+		group.applyTransform(Transform.scaling(p(0, 0), 2, 2));
+		index.refresh();
+		assert index.getShapesAt(p(-595, 405)).equals(List.of(poly1));
+	}
+	
+	@Test
+	void testRegrouping() {
+		RoundedPolygon poly4 = square(3, 3, 4);
+		NonleafShapeGroup newRoot = new NonleafShapeGroup(new ShapeGroup[] {new LeafShapeGroup(poly4), root});
+		ShapeIndex newIndex = new ShapeIndex(newRoot);
+		assert newIndex.getShapesAt(p(5, 5)).equals(List.of(poly4, poly1, poly2));
+		index.refresh();
+		assert index.getShapesAt(p(5, 5)).equals(List.of(poly1, poly2));
+	}
+	
+	@Test
+	void testUpdatesWithoutRefresh() {
+		leaf3.translate(new IntVector(-100, -100));
+		assert index.getShapesAt(p(2, 2)).equals(List.of(poly1, poly3));
+		poly2.setVertices(new IntPoint[] {p(500, 500), p(510, 500), p(510, 510)});
+		assert index.getShapesAt(p(508, 502)).equals(List.of(poly2));
+		group.applyTransform(Transform.translation(new IntVector(1000, 0)));
+		assert index.getShapesAt(p(1508, 502)).equals(List.of(poly2));
+		assert index.getShapesAt(p(508, 502)).isEmpty();
+		root.beginBatch();
+		leaf3.applyTransform(Transform.translation(new IntVector(50, 50)));
+		assert index.getShapesAt(p(52, 52)).isEmpty();
+		root.endBatch();
+		assert index.getShapesAt(p(52, 52)).equals(List.of(poly3));
+	}
+	
+	@Test
+	void testSubgroupChanges() {
+		RoundedPolygon poly4 = square(3, 3, 4);
+		LeafShapeGroup leaf4 = new LeafShapeGroup(poly4);
+		group.addSubgroup(0, leaf4);
+		assert index.getSize() == 4;
+		assert index.getShapesAt(p(5, 5)).equals(List.of(poly4, poly1, poly2));
+		int listenerCount = poly1.getListeners().size();
+		group.removeSubgroup(leaf1);
+		assert index.getSize() == 3;
+		assert index.getShapesAt(p(5, 5)).equals(List.of(poly4, poly2));
+		assert poly1.getListeners().size() == listenerCount - 1;
+		group.addSubgroup(2, leaf1);
+		assert index.getShapesAt(p(5, 5)).equals(List.of(poly4, poly2, poly1));
+		// A subtree that moves within the graph keeps its entries.
+		group.removeSubgroup(leaf4);
+		root.addSubgroup(2, leaf4);
+		leaf4.translate(new IntVector(100, 100));
+		assert index.getSize() == 4;
+		assert index.getShapesAt(p(105, 105)).equals(List.of(poly3, poly4));
+		// Edits of shapes that were removed from the graph no longer affect the index.
+		root.removeSubgroup(leaf3);
+		poly3.setVertices(new IntPoint[] {p(0, 0), p(10, 0), p(10, 10)});
+		assert index.getShapesAt(p(105, 105)).equals(List.of(poly4));
+		assert index.getShapesAt(p(8, 2)).equals(List.of(poly1));
+	}
+	
+	@Test
+	void testClose() {
+		int listenerCount = poly1.getListeners().size();
+		index.close();
+		assert root.getListeners().isEmpty() && poly1.getListeners().size() == listenerCount - 1;
+		index.close();
+		assertThrows(IllegalStateException.class, () -> index.getShapesAt(p(5, 5)));
+		assertThrows(IllegalStateException.class, () -> index.refresh());
+	}
+	
+	@Test
+	void testRandomScene_matchesLinearScan() {
+		Random random = new Random(42);
+		ArrayList<ShapeGroup> groups = new ArrayList<>();
+		for (int i = 0; i < 2000; i++)
+			groups.add(new LeafShapeGroup(square(random.nextInt(100000) - 50000, random.nextInt(100000) - 50000, 1 + random.nextInt(500))));
+		while (groups.size() > 1) {
+			int count = Math.min(groups.size(), 2 + random.nextInt(6));
+			ShapeGroup[] children = new ShapeGroup[count];
+			for (int i = 0; i < count; i++)
+				children[i] = groups.remove(random.nextInt(groups.size()));
+			groups.add(0, new NonleafShapeGroup(children));
+		}
+		ShapeGroup scene = groups.get(0);
+		ShapeIndex sceneIndex = new ShapeIndex(scene);
+		List<RoundedPolygon> shapes = scene.getAllShapes();
+		for (int round = 0; round < 5; round++) {
+			for (int i = 0; i < 100; i++) {
+				RoundedPolygon shape = shapes.get(random.nextInt(shapes.size()));
+				shape.setVertices(square(random.nextInt(100000) - 50000, random.nextInt(100000) - 50000, 1 + random.nextInt(500)).getVertices());
+			}
+			sceneIndex.refresh();
+			for (int i = 0; i < 50; i++) {
+				int left = random.nextInt(100000) - 50000;
+				int top = random.nextInt(100000) - 50000;
+				Extent extent = Extent.ofLeftTopWidthHeight(left, top, random.nextInt(10000), random.nextInt(10000));
+				List<RoundedPolygon> expected = shapes.stream().filter(shape -> {
+					IntPoint[] vertices = shape.getVertices();
+					return vertices[0].getX() <= extent.getRight() && extent.getLeft() <= vertices[2].getX() &&
+							vertices[0].getY() <= extent.getBottom() && extent.getTop() <= vertices[2].getY();
+				}).collect(Collectors.toList());
+				assert sceneIndex.getShapesIntersecting(extent).equals(expected);
+			}
+		}
+	}
+	
+	@Test
+	void testIllegalArguments() {
+		assertThrows(IllegalArgumentException.class, () -> new ShapeIndex(null));
+		assertThrows(IllegalArgumentException.class, () -> index.getShapesIntersecting(null));
+		assertThrows(IllegalArgumentException.class, () -> index.getShapesAt(null));
+	}
+	
+}
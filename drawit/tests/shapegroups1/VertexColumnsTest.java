@@ -0,0 +1,122 @@
+package drawit.tests.shapegroups1;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import drawit.IntPoint;
+import drawit.OffHeapVertexArena;
+import drawit.RoundedPolygon;
+import drawit.shapegroups1.LeafShapeGroup;
+import drawit.shapegroups1.NonleafShapeGroup;
+import drawit.shapegroups1.ShapeGroup;
+import drawit.shapegroups1.exporter.VertexColumns;
+
+class VertexColumnsTest {
+
+	static void assertColumns(ShapeGroup graph, VertexColumns columns) {
+		List<RoundedPolygon> shapes = graph.getAllShapes();
+		IntBuffer offsets = columns.getVertexOffsets();
+		IntBuffer radii = columns.getRadii();
+		IntBuffer colors = columns.getColors();
+		IntBuffer shapeIds = columns.getShapeIds();
+		IntBuffer xs = columns.getXs();
+		IntBuffer ys = columns.getYs();
+		assert columns.getShapeCount() == shapes.size();
+		for (int i = 0; i < shapes.size(); i++) {
+			RoundedPolygon shape = shapes.get(i);
+			assert radii.get(i) == shape.getRadius() && colors.get(i) == shape.getColor().getRGB();
+			IntPoint[] vertices = shape.getVertices();
+			assert offsets.get(i + 1) - offsets.get(i) == vertices.length;
+			for (int j = 0; j < vertices.length; j++) {
+				int index = offsets.get(i) + j;
+				assert shapeIds.get(index) == i && xs.get(index) == vertices[j].getX() && ys.get(index) == vertices[j].getY();
+			}
+		}
+		assert offsets.get(shapes.size()) == columns.getVertexCount() && xs.remaining() == columns.getVertexCount();
+	}
+
+	@Test
+	void testBufferRoundTrip() throws IOException {
+		Random random = new Random(8);
+		for (int round = 0; round < 10; round++) {
+			ShapeGroup graph = ShapeGroupExporterTest.randomGraph(random, 1 + random.nextInt(100));
+			long byteCount = VertexColumns.getByteCount(graph);
+			ByteBuffer buffer = ByteBuffer.allocate(3 + (int)byteCount);
+			buffer.position(3);
+			VertexColumns.write(graph, buffer);
+			assert buffer.position() == 3 + byteCount && buffer.order() == java.nio.ByteOrder.BIG_ENDIAN;
+			buffer.position(3);
+			VertexColumns columns = VertexColumns.read(buffer);
+			assert buffer.position() == 3;
+			assertColumns(graph, columns);
+			assert columns.getXs().isReadOnly();
+		}
+	}
+
+	@Test
+	void testFileRoundTrip() throws IOException {
+		// Enough vertices for the file writer's buffers to be flushed several times.
+		List<ShapeGroup> leaves = new ArrayList<>();
+		try (OffHeapVertexArena arena = OffHeapVertexArena.allocateDirect(1 << 16)) {
+			for (int i = 0; i < 2; i++) {
+				IntPoint[] vertices = new IntPoint[30000];
+				for (int j = 0; j < vertices.length; j++) {
+					double angle = 2 * Math.PI * j / vertices.length;
+					vertices[j] = new IntPoint(i * 30000 + (int)Math.round(10000 * Math.cos(angle)), (int)Math.round(10000 * Math.sin(angle)));
+				}
+				RoundedPolygon shape = new RoundedPolygon(arena);
+				shape.setVertices(vertices);
+				shape.setRadius(i);
+				leaves.add(new LeafShapeGroup(shape));
+			}
+			leaves.add(ShapeGroupExporterTest.randomGraph(new Random(3), 50));
+			ShapeGroup graph = new NonleafShapeGroup(leaves);
+			Path path = Files.createTempFile("columns", ".drwc");
+			try {
+				VertexColumns.write(graph, path);
+				assert Files.size(path) == VertexColumns.getByteCount(graph);
+				assertColumns(graph, VertexColumns.open(path));
+			} finally {
+				Files.delete(path);
+			}
+		}
+	}
+
+	@Test
+	void testCopyCoordinates() {
+		RoundedPolygon shape = ShapeGroupExporterTest.polygon(new Random(5));
+		int count = shape.getVertexCount();
+		int[] xs = new int[count + 2];
+		int[] ys = new int[count + 2];
+		shape.copyCoordinates(xs, ys, 2);
+		for (int i = 0; i < count; i++)
+			assert xs[i + 2] == shape.getVertices()[i].getX() && ys[i + 2] == shape.getVertices()[i].getY();
+		assertThrows(IllegalArgumentException.class, () -> shape.copyCoordinates(xs, ys, 3));
+		assertThrows(IllegalArgumentException.class, () -> shape.copyCoordinates(xs, null, 0));
+	}
+
+	@Test
+	void testInvalidArguments() {
+		ShapeGroup graph = ShapeGroupExporterTest.randomGraph(new Random(1), 5);
+		ByteBuffer small = ByteBuffer.allocate((int)VertexColumns.getByteCount(graph) - 1);
+		assertThrows(IllegalArgumentException.class, () -> VertexColumns.write(graph, small));
+		assert small.position() == 0;
+		assertThrows(IllegalArgumentException.class, () -> VertexColumns.write(null, small));
+		ByteBuffer buffer = ByteBuffer.allocate((int)VertexColumns.getByteCount(graph));
+		VertexColumns.write(graph, buffer);
+		assertThrows(IOException.class, () -> VertexColumns.read(ByteBuffer.wrap(buffer.array(), 0, buffer.capacity() - 4)));
+		buffer.put(0, (byte)'X');
+		assertThrows(IOException.class, () -> VertexColumns.read(buffer.rewind()));
+	}
+
+}
@@ -0,0 +1,271 @@
+package drawit.tests.shapegroups1.arena;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import drawit.IntPoint;
+import drawit.IntVector;
+import drawit.RoundedPolygon;
+import drawit.Transform;
+import drawit.shapegroups1.LeafShapeGroup;
+import drawit.shapegroups1.NonleafShapeGroup;
+import drawit.shapegroups1.ShapeGroup;
+import drawit.shapegroups1.arena.ArenaShapeGroup;
+import drawit.shapegroups1.arena.ShapeArena;
+
+class ArenaShapeGroupTest {
+
+	static IntPoint p(int x, int y) { return new IntPoint(x, y); }
+
+	static IntPoint[] square(int x, int y, int size) {
+		return new IntPoint[] {p(x, y), p(x + size, y), p(x + size, y + size), p(x, y + size)};
+	}
+
+	static RoundedPolygon polygon(int x, int y, int size, int radius, Color color) {
+		RoundedPolygon polygon = new RoundedPolygon();
+		polygon.setVertices(square(x, y, size));
+		polygon.setRadius(radius);
+		polygon.setColor(color);
+		return polygon;
+	}
+
+	/**
+	 * Returns a random graph with the given number of leaves; some shape groups have non-trivial transforms.
+	 */
+	static ShapeGroup randomGraph(Random random, int leafCount) {
+		List<ShapeGroup> groups = new ArrayList<>();
+		for (int i = 0; i < leafCount; i++)
+			groups.add(new LeafShapeGroup(polygon(random.nextInt(1000), random.nextInt(1000), 1 + random.nextInt(50),
+					random.nextInt(5), new Color(random.nextInt(), true))));
+		while (groups.size() > 1) {
+			int count = Math.min(groups.size(), 2 + random.nextInt(3));
+			ShapeGroup[] subgroups = new ShapeGroup[count];
+			for (int i = 0; i < count; i++)
+				subgroups[i] = groups.remove(random.nextInt(groups.size()));
+			NonleafShapeGroup group = new NonleafShapeGroup(subgroups);
+			if (random.nextInt(3) == 0)
+				group.applyTransform(new Transform(1 + random.nextInt(3), 1 + random.nextInt(3), random.nextInt(100), random.nextInt(100)));
+			groups.add(group);
+		}
+		return groups.get(0);
+	}
+
+	@Test
+	void testImportGroup_matchesShapeGroup() {
+		Random random = new Random(42);
+		for (int round = 0; round < 20; round++) {
+			ShapeGroup graph = randomGraph(random, 1 + random.nextInt(40));
+			ShapeArena arena = new ShapeArena();
+			ArenaShapeGroup group = arena.importGroup(graph);
+			assert group.getParentGroup() == null;
+			assert group.getBoundingBox().equals(graph.getBoundingBox());
+			assert group.getDrawingCommands().equals(graph.getDrawingCommands());
+			assert group.getSubgroupCount() == (graph instanceof NonleafShapeGroup ? ((NonleafShapeGroup)graph).getSubgroupCount() : 0);
+
+			ShapeGroup copy = group.toShapeGroup();
+			assert copy != graph;
+			assert copy.getBoundingBox().equals(graph.getBoundingBox());
+			assert copy.getDrawingCommands().equals(graph.getDrawingCommands());
+		}
+	}
+
+	@Test
+	void testCreateLeaf() {
+		ShapeArena arena = new ShapeArena();
+		ArenaShapeGroup leaf = arena.createLeaf(square(10, 20, 30), 4, Color.red);
+		assert leaf.isLeaf() && leaf.getSubgroups() == null && leaf.getSubgroupCount() == 0;
+		assert Arrays.equals(leaf.getVertices(), square(10, 20, 30));
+		assert leaf.getRadius() == 4;
+		assert leaf.getColor().equals(Color.red);
+		assert leaf.getTransform().isIdentity();
+		assert leaf.getDrawingCommands().equals(polygon(10, 20, 30, 4, Color.red).getDrawingCommands());
+		assert arena.getNodeCount() == 1 && arena.getVertexCount() == 4;
+
+		assertThrows(IllegalArgumentException.class, () -> arena.createLeaf(null, 0, Color.red));
+		assertThrows(IllegalArgumentException.class, () -> arena.createLeaf(new IntPoint[] {p(0, 0), p(1, 0)}, 0, Color.red));
+		assertThrows(IllegalArgumentException.class, () -> arena.createLeaf(new IntPoint[] {p(0, 0), p(1, 1), p(0, 1), p(1, 0)}, 0, Color.red));
+		assertThrows(IllegalArgumentException.class, () -> arena.createLeaf(square(0, 0, 1), -1, Color.red));
+		assertThrows(IllegalArgumentException.class, () -> arena.createLeaf(square(0, 0, 1), 0, null));
+		assertThrows(UnsupportedOperationException.class, () -> leaf.getSubgroupAt(p(15, 25)));
+	}
+
+	@Test
+	void testCreateNonleaf() {
+		ShapeArena arena = new ShapeArena();
+		ArenaShapeGroup a = arena.createLeaf(square(0, 0, 10), 0, Color.red);
+		ArenaShapeGroup b = arena.createLeaf(square(20, 0, 10), 0, Color.blue);
+		ArenaShapeGroup group = arena.createNonleaf(List.of(a, b));
+		assert !group.isLeaf();
+		assert group.getSubgroups().equals(List.of(a, b));
+		assert a.getParentGroup().equals(group) && b.getParentGroup().equals(group);
+		assert group.getSubgroupAt(p(25, 5)).equals(b);
+		assert group.getSubgroupAt(p(15, 5)) == null;
+		assertThrows(UnsupportedOperationException.class, () -> group.getVertices());
+
+		ArenaShapeGroup c = arena.createLeaf(square(40, 0, 10), 0, Color.green);
+		assertThrows(IllegalArgumentException.class, () -> arena.createNonleaf(List.of(c)));
+		assertThrows(IllegalArgumentException.class, () -> arena.createNonleaf(List.of(c, c)));
+		assertThrows(IllegalArgumentException.class, () -> arena.createNonleaf(List.of(a, c)));
+		ArenaShapeGroup other = new ShapeArena().createLeaf(square(0, 0, 10), 0, Color.red);
+		assertThrows(IllegalArgumentException.class, () -> arena.createNonleaf(List.of(c, other)));
+	}
+
+	@Test
+	void testSetters() {
+		ShapeArena arena = new ShapeArena();
+		ArenaShapeGroup a = arena.createLeaf(square(0, 0, 10), 0, Color.red);
+		ArenaShapeGroup b = arena.createLeaf(square(20, 0, 10), 0, Color.blue);
+		ArenaShapeGroup group = arena.createNonleaf(List.of(a, b));
+		a.setVertices(new IntPoint[] {p(0, 0), p(100, 0), p(100, 100), p(50, 150), p(0, 100)});
+		a.setRadius(7);
+		a.setColor(Color.yellow);
+		b.setVertices(new IntPoint[] {p(20, 0), p(30, 0), p(25, 5)});
+		assert group.getBoundingBox().getBottom() == 150;
+		assert group.getDrawingCommands().equals(group.toShapeGroup().getDrawingCommands());
+		assert a.getRadius() == 7 && a.getColor().equals(Color.yellow);
+		assertThrows(IllegalArgumentException.class, () -> a.setRadius(-1));
+		assertThrows(IllegalArgumentException.class, () -> a.setColor(null));
+		assertThrows(IllegalArgumentException.class, () -> a.setVertices(new IntPoint[] {p(0, 0), p(1, 1), p(0, 1), p(1, 0)}));
+		assertThrows(UnsupportedOperationException.class, () -> group.setRadius(1));
+	}
+
+	@Test
+	void testSetVertices_compactsVertexStorage() {
+		ShapeArena arena = new ShapeArena();
+		List<ArenaShapeGroup> leaves = new ArrayList<>();
+		for (int i = 0; i < 10; i++)
+			leaves.add(arena.createLeaf(square(10 * i, 0, 5), 0, Color.red));
+		for (int round = 1; round <= 100; round++)
+			for (int i = 0; i < leaves.size(); i++) {
+				IntPoint[] vertices = new IntPoint[3 + round % 7];
+				for (int j = 0; j < vertices.length; j++) {
+					double angle = 2 * Math.PI * j / vertices.length;
+					vertices[j] = p(1000 * i + (int)Math.round(100 * Math.cos(angle)), (int)Math.round(100 * Math.sin(angle)));
+				}
+				leaves.get(i).setVertices(vertices);
+				assert Arrays.equals(leaves.get(i).getVertices(), vertices);
+			}
+		assert arena.getVertexCount() == 10 * (3 + 100 % 7);
+		for (int i = 0; i < leaves.size(); i++)
+			assert leaves.get(i).getVertices()[0].equals(p(1000 * i + 100, 0));
+	}
+
+	@Test
+	void testReorder() {
+		ShapeGroup graph = randomGraph(new Random(7), 30);
+		NonleafShapeGroup expected = (NonleafShapeGroup)graph;
+		ArenaShapeGroup group = new ShapeArena().importGroup(graph);
+
+		Random random = new Random(11);
+		for (int round = 0; round < 50; round++) {
+			int count = expected.getSubgroupCount();
+			int index = random.nextInt(count);
+			ShapeGroup expectedSubgroup = expected.getSubgroup(index);
+			ArenaShapeGroup subgroup = group.getSubgroup(index);
+			switch (random.nextInt(3)) {
+			case 0 -> { expectedSubgroup.bringToFront(); subgroup.bringToFront(); }
+			case 1 -> { expectedSubgroup.sendToBack(); subgroup.sendToBack(); }
+			default -> {
+				int target = random.nextInt(count);
+				expectedSubgroup.moveToIndex(target);
+				subgroup.moveToIndex(target);
+				assert group.getSubgroup(target).equals(subgroup);
+			}
+			}
+			assert group.getDrawingCommands().equals(graph.getDrawingCommands());
+		}
+		assertThrows(UnsupportedOperationException.class, () -> group.bringToFront());
+		assertThrows(IllegalArgumentException.class, () -> group.getSubgroup(0).moveToIndex(group.getSubgroupCount()));
+	}
+
+	@Test
+	void testAddAndRemoveSubgroup() {
+		ShapeArena arena = new ShapeArena();
+		ArenaShapeGroup a = arena.createLeaf(square(0, 0, 10), 0, Color.red);
+		ArenaShapeGroup b = arena.createLeaf(square(20, 0, 10), 0, Color.blue);
+		ArenaShapeGroup c = arena.createLeaf(square(40, 0, 10), 0, Color.green);
+		ArenaShapeGroup group = arena.createNonleaf(List.of(a, b));
+		ArenaShapeGroup root = arena.createNonleaf(List.of(group, arena.createLeaf(square(0, 40, 10), 0, Color.black)));
+
+		assertThrows(IllegalStateException.class, () -> group.removeSubgroup(a));
+		group.addSubgroup(1, c);
+		assert group.getSubgroups().equals(List.of(a, c, b));
+		assert c.getParentGroup().equals(group);
+		assert root.getBoundingBox().getRight() == 50;
+
+		group.removeSubgroup(a);
+		assert group.getSubgroups().equals(List.of(c, b));
+		assert a.getParentGroup() == null;
+		assert root.getBoundingBox().getLeft() == 0 && group.getBoundingBox().getLeft() == 20;
+
+		assertThrows(IllegalArgumentException.class, () -> group.removeSubgroup(a));
+		assertThrows(IllegalArgumentException.class, () -> group.addSubgroup(0, b));
+		assertThrows(IllegalArgumentException.class, () -> group.addSubgroup(0, root));
+		assertThrows(IllegalArgumentException.class, () -> group.addSubgroup(3, a));
+		assertThrows(IllegalArgumentException.class, () -> group.addSubgroup(0, null));
+		assertThrows(UnsupportedOperationException.class, () -> c.addSubgroup(0, a));
+		group.addSubgroup(2, a);
+		assert group.getSubgroups().equals(List.of(c, b, a));
+	}
+
+	@Test
+	void testTransforms() {
+		Random random = new Random(3);
+		ShapeGroup graph = randomGraph(random, 25);
+		ArenaShapeGroup group = new ShapeArena().importGroup(graph);
+
+		Transform transform = new Transform(2, 3, 10, -5);
+		graph.applyTransform(transform);
+		group.applyTransform(transform);
+		assert group.getTransform().equals(graph.getTransform());
+		assert group.getDrawingCommands().equals(graph.getDrawingCommands());
+
+		graph.translate(new IntVector(7, -3));
+		group.translate(new IntVector(7, -3));
+		assert group.getTransform().isIdentity();
+		assert group.getDrawingCommands().equals(graph.getDrawingCommands());
+
+		graph.scale(p(100, 100), 1.5, 2);
+		group.scale(p(100, 100), 1.5, 2);
+		assert group.getDrawingCommands().equals(graph.getDrawingCommands());
+		assert group.toShapeGroup().getDrawingCommands().equals(graph.getDrawingCommands());
+	}
+
+	@Test
+	void testScale_rollsBackOnFailure() {
+		ShapeArena arena = new ShapeArena();
+		ArenaShapeGroup big = arena.createLeaf(square(0, 0, 1000), 0, Color.red);
+		ArenaShapeGroup small = arena.createLeaf(square(2000, 2000, 2), 0, Color.red);
+		ArenaShapeGroup group = arena.createNonleaf(List.of(big, small));
+		group.applyTransform(Transform.translation(new IntVector(1, 1)));
+		String commands = group.getDrawingCommands();
+
+		IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> group.scale(p(0, 0), 0.1, 0.1));
+		assert e.getMessage().startsWith("shape 1 ");
+		assert Arrays.equals(big.getVertices(), square(0, 0, 1000));
+		assert Arrays.equals(small.getVertices(), square(2000, 2000, 2));
+		assert group.getDrawingCommands().equals(commands);
+	}
+
+	@Test
+	void testDeepNesting() {
+		ShapeArena arena = new ShapeArena();
+		ArenaShapeGroup group = arena.createLeaf(square(0, 0, 10), 0, Color.red);
+		for (int i = 1; i <= 50000; i++)
+			group = arena.createNonleaf(List.of(arena.createLeaf(square(i % 100 * 20, i / 100 * 20, 10), 0, Color.red), group));
+		group.applyTransform(Transform.translation(new IntVector(5, 5)));
+		assert group.getBoundingBox().getRight() == 99 * 20 + 15;
+		assert group.getDrawingCommands().length() > 0;
+		ShapeGroup copy = group.toShapeGroup();
+		assert copy.getBoundingBox().equals(group.getBoundingBox());
+		assert arena.importGroup(copy).getDrawingCommands().equals(group.getDrawingCommands());
+	}
+
+}
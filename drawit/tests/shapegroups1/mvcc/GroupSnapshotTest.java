@@ -0,0 +1,157 @@
+package drawit.tests.shapegroups1.mvcc;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import drawit.IntPoint;
+import drawit.IntVector;
+import drawit.RoundedPolygon;
+import drawit.Transform;
+import drawit.shapegroups1.LeafShapeGroup;
+import drawit.shapegroups1.NonleafShapeGroup;
+import drawit.shapegroups1.ShapeGroup;
+import drawit.shapegroups1.mvcc.GroupSnapshot;
+import drawit.shapegroups1.mvcc.ShapeSnapshot;
+
+class GroupSnapshotTest {
+
+	static IntPoint p(int x, int y) { return new IntPoint(x, y); }
+
+	static IntPoint[] square(int x, int y, int size) {
+		return new IntPoint[] {p(x, y), p(x + size, y), p(x + size, y + size), p(x, y + size)};
+	}
+
+	static GroupSnapshot leaf(int x, int y) {
+		return GroupSnapshot.leaf(new ShapeSnapshot(square(x, y, 10), 0, Color.red));
+	}
+
+	static ShapeGroup randomGraph(Random random, int leafCount) {
+		List<ShapeGroup> groups = new ArrayList<>();
+		for (int i = 0; i < leafCount; i++) {
+			RoundedPolygon polygon = new RoundedPolygon();
+			polygon.setVertices(square(random.nextInt(1000), random.nextInt(1000), 1 + random.nextInt(50)));
+			polygon.setRadius(random.nextInt(5));
+			groups.add(new LeafShapeGroup(polygon));
+		}
+		while (groups.size() > 1) {
+			int count = Math.min(groups.size(), 2 + random.nextInt(3));
+			ShapeGroup[] subgroups = new ShapeGroup[count];
+			for (int i = 0; i < count; i++)
+				subgroups[i] = groups.remove(random.nextInt(groups.size()));
+			NonleafShapeGroup group = new NonleafShapeGroup(subgroups);
+			if (random.nextInt(3) == 0)
+				group.applyTransform(new Transform(1 + random.nextInt(3), 1 + random.nextInt(3), random.nextInt(100), random.nextInt(100)));
+			groups.add(group);
+		}
+		return groups.get(0);
+	}
+
+	@Test
+	void testShapeSnapshot() {
+		RoundedPolygon polygon = new RoundedPolygon();
+		polygon.setVertices(square(0, 0, 10));
+		polygon.setRadius(2);
+		ShapeSnapshot shape = ShapeSnapshot.of(polygon);
+		polygon.setVertices(square(5, 5, 10));
+		assert Arrays.equals(shape.getVertices(), square(0, 0, 10));
+		assert shape.getRadius() == 2 && shape.getColor().equals(Color.yellow);
+		assert shape.contains(p(5, 5)) && !shape.contains(p(15, 5));
+		assert shape.getDrawingCommands().equals(shape.toRoundedPolygon().getDrawingCommands());
+		assert shape.withRadius(3).getRadius() == 3 && shape.getRadius() == 2;
+		assert shape.withColor(Color.blue).getColor().equals(Color.blue);
+		assert Arrays.equals(shape.withVertices(square(1, 1, 1)).getVertices(), square(1, 1, 1));
+
+		assertThrows(IllegalArgumentException.class, () -> new ShapeSnapshot(new IntPoint[] {p(0, 0), p(1, 0)}, 0, Color.red));
+		assertThrows(IllegalArgumentException.class, () -> new ShapeSnapshot(square(0, 0, 1), -1, Color.red));
+		assertThrows(IllegalArgumentException.class, () -> new ShapeSnapshot(square(0, 0, 1), 0, null));
+		assertThrows(IllegalArgumentException.class, () -> shape.withVertices(new IntPoint[] {p(0, 0), p(1, 1), p(0, 1), p(1, 0)}));
+		assertThrows(IllegalArgumentException.class, () -> shape.getVertex(4));
+	}
+
+	@Test
+	void testOf_matchesShapeGroup() {
+		Random random = new Random(5);
+		for (int round = 0; round < 20; round++) {
+			ShapeGroup graph = randomGraph(random, 1 + random.nextInt(40));
+			GroupSnapshot snapshot = GroupSnapshot.of(graph);
+			assert snapshot.getBoundingBox().equals(graph.getBoundingBox());
+			assert snapshot.getDrawingCommands().equals(graph.getDrawingCommands());
+			assert snapshot.getAllShapes().size() == graph.getAllShapes().size();
+			ShapeGroup copy = snapshot.toShapeGroup();
+			assert copy.getDrawingCommands().equals(graph.getDrawingCommands());
+			assert copy.getBoundingBox().equals(graph.getBoundingBox());
+		}
+	}
+
+	@Test
+	void testUpdate_sharesUnchangedStructure() {
+		GroupSnapshot inner = GroupSnapshot.nonleaf(List.of(leaf(0, 0), leaf(20, 0), leaf(40, 0)));
+		GroupSnapshot other = GroupSnapshot.nonleaf(List.of(leaf(0, 40), leaf(20, 40)));
+		GroupSnapshot root = GroupSnapshot.nonleaf(List.of(inner, other));
+		String commands = root.getDrawingCommands();
+
+		GroupSnapshot edited = root.update(new int[] {0, 1}, g -> g.withShape(g.getShape().withVertices(square(100, 100, 10))));
+		assert edited.get(1) == other;
+		assert edited.get(0, 0) == inner.get(0) && edited.get(0, 2) == inner.get(2);
+		assert edited.get(0, 1) != inner.get(1);
+		assert edited.getBoundingBox().getRight() == 110;
+		assert root.getBoundingBox().getRight() == 50;
+		assert root.getDrawingCommands().equals(commands);
+		assert edited.getDrawingCommands().equals(edited.toShapeGroup().getDrawingCommands());
+
+		assertThrows(IllegalArgumentException.class, () -> root.update(new int[] {2}, g -> g));
+		assertThrows(IllegalArgumentException.class, () -> root.update(new int[] {0, 0, 0}, g -> g));
+		assertThrows(IllegalArgumentException.class, () -> root.update(new int[] {0}, g -> null));
+	}
+
+	@Test
+	void testSubgroupEdits_matchShapeGroup() {
+		GroupSnapshot a = leaf(0, 0);
+		GroupSnapshot b = leaf(20, 0);
+		GroupSnapshot c = leaf(40, 0);
+		GroupSnapshot d = leaf(60, 0);
+		GroupSnapshot group = GroupSnapshot.nonleaf(List.of(a, b, c));
+		assert group.withSubgroupInserted(1, d).getSubgroups().equals(List.of(a, d, b, c));
+		assert group.withSubgroupInserted(3, d).getSubgroups().equals(List.of(a, b, c, d));
+		assert group.withSubgroupRemoved(0).getSubgroups().equals(List.of(b, c));
+		assert group.withSubgroupMoved(0, 2).getSubgroups().equals(List.of(b, c, a));
+		assert group.withSubgroupMoved(2, 0).getSubgroups().equals(List.of(c, a, b));
+		assert group.withSubgroup(1, d).getSubgroups().equals(List.of(a, d, c));
+		assert group.getSubgroups().equals(List.of(a, b, c));
+		assertThrows(IllegalStateException.class, () -> group.withSubgroupRemoved(0).withSubgroupRemoved(0));
+		assertThrows(IllegalArgumentException.class, () -> group.withSubgroupInserted(4, d));
+		assertThrows(UnsupportedOperationException.class, () -> a.withSubgroupRemoved(0));
+		assertThrows(UnsupportedOperationException.class, () -> group.withShape(a.getShape()));
+		assertThrows(IllegalArgumentException.class, () -> GroupSnapshot.nonleaf(List.of(a)));
+
+		GroupSnapshot transformed = group.withAppliedTransform(Transform.translation(new IntVector(5, 5)))
+				.withAppliedTransform(new Transform(2, 2, 0, 0));
+		ShapeGroup expected = group.toShapeGroup();
+		expected.applyTransform(Transform.translation(new IntVector(5, 5)));
+		expected.applyTransform(new Transform(2, 2, 0, 0));
+		assert transformed.getBoundingBox().equals(expected.getBoundingBox());
+		assert transformed.getDrawingCommands().equals(expected.getDrawingCommands());
+		assert group.getSubgroupAt(p(25, 5)) == b;
+	}
+
+	@Test
+	void testDeepNesting() {
+		GroupSnapshot group = leaf(0, 0);
+		for (int i = 1; i <= 50000; i++)
+			group = GroupSnapshot.nonleaf(List.of(leaf(i % 100 * 20, i / 100 * 20), group));
+		group = group.withAppliedTransform(Transform.translation(new IntVector(5, 5)));
+		assert group.getBoundingBox().getRight() == 99 * 20 + 15;
+		assert group.getDrawingCommandsRope().length() > 0;
+		assert group.getAllShapes().size() == 50001;
+		ShapeGroup copy = group.toShapeGroup();
+		assert GroupSnapshot.of(copy).getBoundingBox().equals(group.getBoundingBox());
+	}
+
+}
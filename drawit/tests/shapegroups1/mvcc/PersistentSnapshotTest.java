@@ -0,0 +1,129 @@
+package drawit.tests.shapegroups1.mvcc;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import drawit.IntPoint;
+import drawit.PointArrays;
+import drawit.shapegroups1.mvcc.GroupSnapshot;
+import drawit.shapegroups1.mvcc.ShapeSnapshot;
+
+class PersistentSnapshotTest {
+
+	static IntPoint p(int x, int y) { return new IntPoint(x, y); }
+
+	static GroupSnapshot leaf(int i) {
+		return GroupSnapshot.leaf(new ShapeSnapshot(new IntPoint[] {p(20 * i, 0), p(20 * i + 10, 0), p(20 * i + 10, 10)}, 0, Color.red));
+	}
+
+	/**
+	 * Returns the vertices of a regular polygon with the given number of vertices, centered at the origin.
+	 */
+	static IntPoint[] regularPolygon(int count, int radius) {
+		IntPoint[] vertices = new IntPoint[count];
+		for (int i = 0; i < count; i++) {
+			double angle = 2 * Math.PI * i / count;
+			vertices[i] = p((int)Math.round(radius * Math.cos(angle)), (int)Math.round(radius * Math.sin(angle)));
+		}
+		return vertices;
+	}
+
+	@Test
+	void testWideGroup_keepsAllVersions() {
+		Random random = new Random(13);
+		List<GroupSnapshot> model = new ArrayList<>();
+		for (int i = 0; i < 1000; i++)
+			model.add(leaf(i));
+		GroupSnapshot group = GroupSnapshot.nonleaf(model);
+		List<GroupSnapshot> versions = new ArrayList<>();
+		List<List<GroupSnapshot>> models = new ArrayList<>();
+		for (int round = 0; round < 300; round++) {
+			versions.add(group);
+			models.add(new ArrayList<>(model));
+			int index = random.nextInt(model.size());
+			switch (random.nextInt(4)) {
+			case 0 -> {
+				GroupSnapshot subgroup = leaf(1000 + round);
+				group = group.withSubgroupInserted(index, subgroup);
+				model.add(index, subgroup);
+			}
+			case 1 -> {
+				group = group.withSubgroupRemoved(index);
+				model.remove(index);
+			}
+			case 2 -> {
+				int to = random.nextInt(model.size());
+				group = group.withSubgroupMoved(index, to);
+				model.add(to, model.remove(index));
+			}
+			default -> {
+				GroupSnapshot subgroup = leaf(2000 + round);
+				group = group.withSubgroup(index, subgroup);
+				model.set(index, subgroup);
+			}
+			}
+			assert group.getSubgroupCount() == model.size();
+			assert group.getSubgroup(index == model.size() ? index - 1 : index) == model.get(index == model.size() ? index - 1 : index);
+		}
+		for (int i = 0; i < versions.size(); i++)
+			assert versions.get(i).getSubgroups().equals(models.get(i));
+		assert group.getSubgroups().equals(model);
+
+		List<GroupSnapshot> reversed = new ArrayList<>(model);
+		Collections.reverse(reversed);
+		StringBuilder expected = new StringBuilder();
+		for (GroupSnapshot subgroup : reversed)
+			expected.append(subgroup.getDrawingCommands());
+		assert group.getDrawingCommands().equals(expected.toString());
+		assert group.getDrawingCommands().equals(group.toShapeGroup().getDrawingCommands());
+	}
+
+	@Test
+	void testManyVertices_keepsAllVersions() {
+		IntPoint[] vertices = regularPolygon(200, 10000);
+		ShapeSnapshot shape = new ShapeSnapshot(vertices, 5, Color.blue);
+		ShapeSnapshot moved = shape.withVertex(10, p(vertices[10].getX() * 101 / 100, vertices[10].getY() * 101 / 100));
+		ShapeSnapshot inserted = moved.withVertexInserted(0, p(10100, -1));
+		ShapeSnapshot removed = inserted.withVertexRemoved(100);
+
+		assert Arrays.equals(shape.getVertices(), vertices);
+		IntPoint[] expected = PointArrays.update(vertices, 10, moved.getVertex(10));
+		assert Arrays.equals(moved.getVertices(), expected);
+		expected = PointArrays.insert(expected, 0, p(10100, -1));
+		assert Arrays.equals(inserted.getVertices(), expected);
+		expected = PointArrays.remove(expected, 100);
+		assert Arrays.equals(removed.getVertices(), expected);
+		assert removed.getVertexCount() == 200 && removed.getRadius() == 5 && removed.getColor().equals(Color.blue);
+		assert removed.getDrawingCommands().equals(removed.toRoundedPolygon().getDrawingCommands());
+
+		assertThrows(IllegalArgumentException.class, () -> shape.withVertex(0, vertices[100]));
+		assertThrows(IllegalArgumentException.class, () -> shape.withVertexInserted(201, p(0, 0)));
+		assertThrows(IllegalArgumentException.class, () -> shape.withVertex(0, null));
+		ShapeSnapshot triangle = new ShapeSnapshot(regularPolygon(3, 10), 0, Color.red);
+		assertThrows(IllegalArgumentException.class, () -> triangle.withVertexRemoved(0));
+		assert Arrays.equals(triangle.withVertexInserted(3, p(10, -10)).getVertices(), PointArrays.insert(regularPolygon(3, 10), 3, p(10, -10)));
+	}
+
+	@Test
+	void testDeepEdit_sharesSiblings() {
+		List<GroupSnapshot> leaves = new ArrayList<>();
+		for (int i = 0; i < 100; i++)
+			leaves.add(leaf(i));
+		GroupSnapshot inner = GroupSnapshot.nonleaf(leaves);
+		GroupSnapshot root = GroupSnapshot.nonleaf(List.of(inner, leaf(200)));
+		GroupSnapshot edited = root.update(new int[] {0, 50}, g -> g.withShape(g.getShape().withRadius(3)));
+		for (int i = 0; i < 100; i++)
+			assert (edited.get(0, i) == root.get(0, i)) == (i != 50);
+		assert edited.get(1) == root.get(1);
+		assert edited.get(0, 50).getShape().getRadius() == 3 && root.get(0, 50).getShape().getRadius() == 0;
+	}
+
+}
@@ -0,0 +1,162 @@
+package drawit.tests.shapegroups1.mvcc;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+import drawit.IntPoint;
+import drawit.Transform;
+import drawit.shapegroups1.Extent;
+import drawit.shapegroups1.mvcc.GroupSnapshot;
+import drawit.shapegroups1.mvcc.ShapeSnapshot;
+import drawit.shapegroups1.mvcc.VersionedScene;
+
+class VersionedSceneTest {
+
+	static final int LEAF_COUNT = 50;
+
+	static IntPoint p(int x, int y) { return new IntPoint(x, y); }
+
+	static IntPoint[] square(int x, int y, int size) {
+		return new IntPoint[] {p(x, y), p(x + size, y), p(x + size, y + size), p(x, y + size)};
+	}
+
+	static GroupSnapshot createRoot() {
+		List<GroupSnapshot> leaves = new ArrayList<>();
+		for (int i = 0; i < LEAF_COUNT; i++)
+			leaves.add(GroupSnapshot.leaf(new ShapeSnapshot(square(20 * i, 0, 10), 0, Color.red)));
+		return GroupSnapshot.nonleaf(leaves);
+	}
+
+	/**
+	 * Runs the given actions on separate threads and rethrows the first failure.
+	 */
+	static void runConcurrently(List<Runnable> actions) throws Throwable {
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		List<Thread> threads = new ArrayList<>();
+		for (Runnable action : actions)
+			threads.add(new Thread(() -> {
+				try {
+					action.run();
+				} catch (Throwable t) {
+					failure.compareAndSet(null, t);
+				}
+			}));
+		for (Thread thread : threads)
+			thread.start();
+		for (Thread thread : threads)
+			thread.join();
+		if (failure.get() != null)
+			throw failure.get();
+	}
+
+	@Test
+	void testCommit() {
+		GroupSnapshot root = createRoot();
+		VersionedScene scene = new VersionedScene(root);
+		VersionedScene.Version initial = scene.getCurrentVersion();
+		assert initial.getNumber() == 0 && initial.getRoot() == root;
+
+		VersionedScene.Version version = scene.commit(new int[] {3}, g -> g.withShape(g.getShape().withRadius(4)));
+		assert version.getNumber() == 1 && scene.getCurrentVersion() == version;
+		assert version.getRoot().get(3).getShape().getRadius() == 4;
+		assert initial.getRoot().get(3).getShape().getRadius() == 0;
+		assert version.getRoot().get(4) == root.get(4);
+
+		assert !scene.compareAndCommit(initial, root);
+		assert scene.compareAndCommit(version, root);
+		assert scene.getCurrentVersion().getNumber() == 2 && scene.getCurrentVersion().getRoot() == root;
+
+		assertThrows(IllegalArgumentException.class, () -> new VersionedScene(null));
+		assertThrows(IllegalArgumentException.class, () -> scene.commit(g -> null));
+		assertThrows(IllegalArgumentException.class, () -> scene.commit(new int[] {LEAF_COUNT}, g -> g));
+		assert scene.getCurrentVersion().getNumber() == 2;
+	}
+
+	/**
+	 * One writer commits edits that change the root's transform and every leaf's shape together; readers check that
+	 * each version they see is consistent, and that versions never go back in time.
+	 */
+	@Test
+	void testStress_readersNeverSeeTornVersions() throws Throwable {
+		int commitCount = 2000;
+		VersionedScene scene = new VersionedScene(createRoot());
+		AtomicBoolean done = new AtomicBoolean();
+		List<Runnable> actions = new ArrayList<>();
+		actions.add(() -> {
+			try {
+				for (int n = 1; n <= commitCount; n++) {
+					int y = n;
+					scene.commit(root -> {
+						GroupSnapshot result = root.withTransform(new Transform(1, 1, 0, y));
+						for (int i = 0; i < LEAF_COUNT; i++)
+							result = result.withSubgroup(i, result.get(i).withShape(result.get(i).getShape().withRadius(y)));
+						return result;
+					});
+				}
+			} finally {
+				done.set(true);
+			}
+		});
+		for (int reader = 0; reader < 4; reader++)
+			actions.add(() -> {
+				long previous = -1;
+				int reads = 0;
+				while (!done.get() || reads == 0) {
+					VersionedScene.Version version = scene.getCurrentVersion();
+					long number = version.getNumber();
+					assert previous <= number;
+					previous = number;
+					GroupSnapshot root = version.getRoot();
+					assert root.getTransform().getYOffset() == number;
+					for (ShapeSnapshot shape : root.getAllShapes())
+						assert shape.getRadius() == number;
+					Extent boundingBox = root.getBoundingBox();
+					assert boundingBox.getTop() == number && boundingBox.getBottom() == number + 10;
+					if (reads++ % 50 == 0)
+						assert root.getDrawingCommands().equals(root.toShapeGroup().getDrawingCommands());
+				}
+			});
+		runConcurrently(actions);
+		assert scene.getCurrentVersion().getNumber() == commitCount;
+	}
+
+	/**
+	 * Several writers commit concurrently; no commit may be lost.
+	 */
+	@Test
+	void testStress_concurrentWritersLoseNoCommits() throws Throwable {
+		int writerCount = 4;
+		int commitsPerWriter = 1000;
+		VersionedScene scene = new VersionedScene(createRoot());
+		List<Runnable> actions = new ArrayList<>();
+		for (int writer = 0; writer < writerCount; writer++) {
+			int index = writer;
+			actions.add(() -> {
+				for (int n = 0; n < commitsPerWriter; n++)
+					scene.commit(new int[] {index}, g -> g.withShape(g.getShape().withRadius(g.getShape().getRadius() + 1)));
+			});
+		}
+		actions.add(() -> {
+			while (scene.getCurrentVersion().getNumber() < writerCount * commitsPerWriter) {
+				VersionedScene.Version version = scene.getCurrentVersion();
+				long sum = 0;
+				for (int i = 0; i < writerCount; i++)
+					sum += version.getRoot().get(i).getShape().getRadius();
+				assert sum == version.getNumber();
+			}
+		});
+		runConcurrently(actions);
+		VersionedScene.Version version = scene.getCurrentVersion();
+		assert version.getNumber() == writerCount * commitsPerWriter;
+		for (int i = 0; i < writerCount; i++)
+			assert version.getRoot().get(i).getShape().getRadius() == commitsPerWriter;
+	}
+
+}
@@ -0,0 +1,313 @@
+package drawitgui1;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import javax.imageio.ImageIO;
+
+import drawit.ScanlineRasterizer;
+import drawit.Transform;
+import drawit.shapegroups1.Extent;
+import drawit.shapegroups1.ShapeGroup;
+import drawit.shapegroups1.binary.MappedScene;
+import drawit.shapegroups1.binary.MappedShapeGroup;
+import drawit.shapegroups1.binary.ShapeGroupBinaryFormat;
+import drawit.shapegroups1.importer.ImportMode;
+import drawit.shapegroups1.importer.ShapeGroupImporter;
+
+/**
+ * Renders scene files to PNG images without a GUI, running in {@code java.awt.headless} mode.
+ *
+ * Each scene is read from a JSON file (see {@code ShapeGroupImporter}), a binary file (see
+ * {@code ShapeGroupBinaryFormat}), or a mapped scene file (see {@code MappedScene}), recognized by its first bytes.
+ * The image shows the scene's bounding box, scaled, on a white background; it is written next to the scene file, or to
+ * the given output directory, with the extension {@code .png}.
+ *
+ * The documents are rendered concurrently, and each document's canvas is split into tiles that are rendered in
+ * parallel, all in a single fork/join pool. The shape groups' drawing commands caches are not thread-safe, so the
+ * drawing commands of each tile, culled to the tile, are computed by the task that renders the document; only their
+ * execution by a {@code DrawingCommandsInterpreter}, or by a {@code ScanlineRasterizer}, on the tiles' regions of the image, runs in parallel.
+ *
+ * Usage: {@code java drawitgui1.BatchRenderer [options] scene...}, with the options
+ * <ul>
+ * <li>{@code -o dir}: the output directory;</li>
+ * <li>{@code --scale s}: the scale factor (default 1);</li>
+ * <li>{@code --fit n}: scale each scene so that its image is at most {@code n} pixels wide and high, for
+ *     thumbnails; overrides {@code --scale};</li>
+ * <li>{@code --tile n}: the tile size, in pixels (default 512);</li>
+ * <li>{@code --threads n}: the number of threads (default: the number of processors);</li>
+ * <li>{@code --software}: fill the shapes with a {@code ScanlineRasterizer} instead of Java2D; the result is the
+ *     same up to the rounding of the antialiased edges, and faster, since the rasterizer handles lines and arcs
+ *     directly instead of through Java2D's generic path filling.</li>
+ * </ul>
+ * The exit status is 1 if some scene could not be rendered, and 2 if the arguments are invalid.
+ */
+public class BatchRenderer {
+
+	static final int DEFAULT_TILE_SIZE = 512;
+	/**
+	 * The number of scene units by which each tile's viewport is enlarged on each side, so that the shapes that
+	 * touch the tile only through antialiased edge pixels are drawn.
+	 */
+	static final int VIEWPORT_MARGIN = 1;
+
+	Path outputDirectory;
+	double scale = 1;
+	int fit;
+	int tileSize = DEFAULT_TILE_SIZE;
+	boolean software;
+
+	/**
+	 * A scene to be rendered: its bounding box, and a function that returns the drawing commands for the shapes that
+	 * may be visible in a given viewport.
+	 */
+	static class Scene {
+		final Extent boundingBox;
+		final Function<Extent, String> drawingCommands;
+
+		Scene(Extent boundingBox, Function<Extent, String> drawingCommands) {
+			this.boundingBox = boundingBox;
+			this.drawingCommands = drawingCommands;
+		}
+	}
+
+	static Scene loadScene(Path path) throws IOException {
+		byte[] magic;
+		try (InputStream in = Files.newInputStream(path)) {
+			magic = in.readNBytes(4);
+		}
+		String format = new String(magic, StandardCharsets.ISO_8859_1);
+		if (format.equals("DRWM")) {
+			MappedShapeGroup root = MappedScene.open(path).getRoot();
+			return new Scene(root.getBoundingBox(), root::getDrawingCommands);
+		}
+		ShapeGroup root;
+		try (InputStream in = new BufferedInputStream(Files.newInputStream(path))) {
+			if (format.equals("DRWB"))
+				root = ShapeGroupBinaryFormat.read(in);
+			else
+				root = ShapeGroupImporter.readJson(new InputStreamReader(in, StandardCharsets.UTF_8), ImportMode.SEQUENTIAL);
+		}
+		return new Scene(root.getBoundingBox(), root::getDrawingCommands);
+	}
+
+	/**
+	 * Returns the scale at which the given scene is rendered.
+	 */
+	double getScale(Scene scene) {
+		if (fit == 0)
+			return scale;
+		long size = Math.max(scene.boundingBox.getWidthAsLong(), scene.boundingBox.getHeightAsLong()) + 1;
+		return Math.min(1, (double)fit / size);
+	}
+
+	/**
+	 * Renders the given part of the image of a scene, with the given drawing commands.
+	 */
+	static class TileTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		final BufferedImage image;
+		final int x, y, width, height;
+		final String commands;
+		final Extent boundingBox;
+		final double scale;
+		final boolean software;
+
+		TileTask(BufferedImage image, int x, int y, int width, int height, String commands, Extent boundingBox, double scale,
+				boolean software) {
+			this.image = image;
+			this.x = x;
+			this.y = y;
+			this.width = width;
+			this.height = height;
+			this.commands = commands;
+			this.boundingBox = boundingBox;
+			this.scale = scale;
+			this.software = software;
+		}
+
+		@Override
+		protected void compute() {
+			// The tiles cover disjoint regions of the image's raster, so they can be drawn concurrently.
+			if (software) {
+				int[] pixels = ((DataBufferInt)image.getRaster().getDataBuffer()).getData();
+				ScanlineRasterizer rasterizer = new ScanlineRasterizer(pixels, y * image.getWidth() + x, image.getWidth(), width, height);
+				rasterizer.clear(Color.white.getRGB());
+				rasterizer.setAntialiased(true);
+				rasterizer.setTransform(new Transform(scale, scale, -boundingBox.getLeft() * scale - x, -boundingBox.getTop() * scale - y));
+				rasterizer.execute(commands);
+				return;
+			}
+			Graphics2D g = image.getSubimage(x, y, width, height).createGraphics();
+			try {
+				g.setColor(Color.white);
+				g.fillRect(0, 0, width, height);
+				g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+				g.translate(-x, -y);
+				g.scale(scale, scale);
+				g.translate(-boundingBox.getLeft(), -boundingBox.getTop());
+				new DrawingCommandsInterpreter(commands).execute(g);
+			} finally {
+				g.dispose();
+			}
+		}
+	}
+
+	/**
+	 * Returns the image of the given scene, at the given scale, rendering its tiles in parallel. Must be called from a
+	 * task running in a fork/join pool, or it renders the tiles in the common pool.
+	 *
+	 * @throws IllegalArgumentException if the image would be too large
+	 */
+	BufferedImage render(Scene scene, double scale) {
+		Extent boundingBox = scene.boundingBox;
+		long width = (long)Math.ceil((boundingBox.getWidthAsLong() + 1) * scale);
+		long height = (long)Math.ceil((boundingBox.getHeightAsLong() + 1) * scale);
+		if (width < 1 || height < 1 || Integer.MAX_VALUE - 8 < width * height)
+			throw new IllegalArgumentException("The image would be " + width + " by " + height + " pixels; use --scale or --fit");
+		BufferedImage image = new BufferedImage((int)width, (int)height, BufferedImage.TYPE_INT_ARGB);
+		List<TileTask> tiles = new ArrayList<>();
+		for (int y = 0; y < height; y += tileSize) {
+			for (int x = 0; x < width; x += tileSize) {
+				int tileWidth = (int)Math.min(tileSize, width - x);
+				int tileHeight = (int)Math.min(tileSize, height - y);
+				Extent viewport = Extent.ofLeftTopRightBottom(
+						(int)Math.max(Integer.MIN_VALUE, boundingBox.getLeft() + Math.floor(x / scale) - VIEWPORT_MARGIN),
+						(int)Math.max(Integer.MIN_VALUE, boundingBox.getTop() + Math.floor(y / scale) - VIEWPORT_MARGIN),
+						(int)Math.min(Integer.MAX_VALUE, boundingBox.getLeft() + Math.ceil((x + tileWidth) / scale) + VIEWPORT_MARGIN),
+						(int)Math.min(Integer.MAX_VALUE, boundingBox.getTop() + Math.ceil((y + tileHeight) / scale) + VIEWPORT_MARGIN));
+				String commands = scene.drawingCommands.apply(viewport);
+				tiles.add(new TileTask(image, x, y, tileWidth, tileHeight, commands, boundingBox, scale, software));
+			}
+		}
+		ForkJoinTask.invokeAll(tiles);
+		return image;
+	}
+
+	static Path getOutputPath(Path scenePath, Path outputDirectory) {
+		String name = scenePath.getFileName().toString();
+		int dot = name.lastIndexOf('.');
+		String pngName = (dot <= 0 ? name : name.substring(0, dot)) + ".png";
+		Path directory = outputDirectory != null ? outputDirectory : scenePath.toAbsolutePath().getParent();
+		return directory.resolve(pngName);
+	}
+
+	/**
+	 * Renders the given scene file to a PNG file, with the given renderer's settings; reports failures to the standard
+	 * error stream.
+	 */
+	static class DocumentTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		final BatchRenderer renderer;
+		final Path scenePath;
+		final AtomicInteger failureCount;
+
+		DocumentTask(BatchRenderer renderer, Path scenePath, AtomicInteger failureCount) {
+			this.renderer = renderer;
+			this.scenePath = scenePath;
+			this.failureCount = failureCount;
+		}
+
+		@Override
+		protected void compute() {
+			try {
+				Scene scene = loadScene(scenePath);
+				BufferedImage image = renderer.render(scene, renderer.getScale(scene));
+				Path outputPath = getOutputPath(scenePath, renderer.outputDirectory);
+				if (!ImageIO.write(image, "png", outputPath.toFile()))
+					throw new IOException("No PNG image writer is available");
+				System.out.println(scenePath + " -> " + outputPath);
+			} catch (IOException | RuntimeException e) {
+				failureCount.incrementAndGet();
+				System.err.println(scenePath + ": " + e);
+			}
+		}
+	}
+
+	/**
+	 * Renders the given scene files concurrently, using the given number of threads, and returns the number of
+	 * scenes that could not be rendered.
+	 */
+	int renderAll(List<Path> scenePaths, int threadCount) {
+		AtomicInteger failureCount = new AtomicInteger();
+		List<DocumentTask> documents = new ArrayList<>();
+		for (Path scenePath : scenePaths)
+			documents.add(new DocumentTask(this, scenePath, failureCount));
+		ForkJoinPool pool = new ForkJoinPool(threadCount);
+		try {
+			pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(documents)));
+		} finally {
+			pool.shutdown();
+		}
+		return failureCount.get();
+	}
+
+	static void usage(String message) {
+		System.err.println(message);
+		System.err.println("Usage: java drawitgui1.BatchRenderer [-o dir] [--scale s | --fit n] [--tile n] [--threads n] [--software] scene...");
+		System.exit(2);
+	}
+
+	public static void main(String[] args) {
+		System.setProperty("java.awt.headless", "true");
+		BatchRenderer renderer = new BatchRenderer();
+		int threadCount = Runtime.getRuntime().availableProcessors();
+		List<Path> scenePaths = new ArrayList<>();
+		try {
+			for (int i = 0; i < args.length; i++) {
+				String arg = args[i];
+				if (!arg.startsWith("-")) {
+					scenePaths.add(Paths.get(arg));
+					continue;
+				}
+				if (arg.equals("--software")) {
+					renderer.software = true;
+					continue;
+				}
+				if (i + 1 == args.length)
+					usage("Option " + arg + " requires an argument");
+				String value = args[++i];
+				switch (arg) {
+				case "-o": renderer.outputDirectory = Paths.get(value); break;
+				case "--scale": renderer.scale = Double.parseDouble(value); break;
+				case "--fit": renderer.fit = Integer.parseInt(value); break;
+				case "--tile": renderer.tileSize = Integer.parseInt(value); break;
+				case "--threads": threadCount = Integer.parseInt(value); break;
+				default: usage("No such option: " + arg);
+				}
+			}
+		} catch (NumberFormatException e) {
+			usage("Invalid number: " + e.getMessage());
+		}
+		if (!(0 < renderer.scale && renderer.scale < Double.POSITIVE_INFINITY) || renderer.fit < 0 || renderer.tileSize < 1 || threadCount < 1)
+			usage("Invalid option values: " + Arrays.toString(args));
+		if (scenePaths.isEmpty())
+			usage("No scene files given");
+		if (renderer.outputDirectory != null && !Files.isDirectory(renderer.outputDirectory))
+			usage("No such directory: " + renderer.outputDirectory);
+		int failureCount = renderer.renderAll(scenePaths, threadCount);
+		System.exit(failureCount == 0 ? 0 : 1);
+	}
+
+}
@@ -4,11 +4,13 @@ import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.util.ArrayList;
+import java.util.List;
 
 import javax.swing.*;
 
@@ -16,9 +18,11 @@ import drawit.DoubleVector;
 import drawit.IntPoint;
 import drawit.IntVector;
 import drawit.RoundedPolygon;
-import drawit.shapegroups2.LeafShapeGroup;
-import drawit.shapegroups2.NonleafShapeGroup;
-import drawit.shapegroups2.ShapeGroup;
+import drawit.shapegroups1.Extent;
+import drawit.shapegroups1.LeafShapeGroup;
+import drawit.shapegroups1.NonleafShapeGroup;
+import drawit.shapegroups1.ShapeGroup;
+import drawit.shapegroups1.SubgroupStorage;
 import drawit.shapes2.ControlPoint;
 import drawit.shapes2.RoundedPolygonShape;
 import drawit.shapes2.Shape;
@@ -256,7 +260,7 @@ class DrawItCanvas extends JPanel {
 							groups[i] = ((ShapeGroupShape)shape).getShapeGroup();
 						}
 						catchErrors(() -> {
-							Shape group = new ShapeGroupShape(new NonleafShapeGroup(groups));
+							Shape group = new ShapeGroupShape(new NonleafShapeGroup(List.of(groups), SubgroupStorage.LINKED));
 							shapes.removeAll(selectedShapes);
 							selectedShapes.clear();
 							selectedShapes.add(group);
@@ -301,10 +305,15 @@ class DrawItCanvas extends JPanel {
 	protected void paintComponent(Graphics g) {
 		super.paintComponent(g);
 		Graphics2D g2d = (Graphics2D)g;
+		Rectangle clip = g2d.getClipBounds();
+		// Nothing can be drawn in an empty damage region; without a clip, the whole scene is drawn.
+		if (clip != null && clip.isEmpty())
+			return;
+		Extent viewport = clip == null ? null : Extent.ofLeftTopWidthHeight(clip.x, clip.y, clip.width, clip.height);
 		
 		for (int i = shapes.size() - 1; i >= 0; i--) {
 			Shape shape = shapes.get(i);
-			String cmds = shape.getDrawingCommands();
+			String cmds = viewport == null ? shape.getDrawingCommands() : shape.getDrawingCommands(viewport);
 			DrawingCommandsInterpreter interpreter = new DrawingCommandsInterpreter(cmds);
 			
 			interpreter.execute(g2d);
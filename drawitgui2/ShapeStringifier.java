@@ -11,13 +11,13 @@ import java.util.stream.Collectors;
 
 import drawit.IntPoint;
 import drawit.RoundedPolygon;
-import drawit.shapegroups2.ShapeGroup;
+import drawit.shapegroups1.ShapeGroup;
 import drawit.shapes2.RoundedPolygonShape;
 import drawit.shapes2.Shape;
 import drawit.shapes2.ShapeGroupShape;
-import drawit.shapegroups2.Extent;
-import drawit.shapegroups2.LeafShapeGroup;
-import drawit.shapegroups2.NonleafShapeGroup;
+import drawit.shapegroups1.Extent;
+import drawit.shapegroups1.LeafShapeGroup;
+import drawit.shapegroups1.NonleafShapeGroup;
 
 class ShapeStringifier {
 	